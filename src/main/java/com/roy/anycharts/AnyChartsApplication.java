@@ -2,8 +2,10 @@ package com.roy.anycharts;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class AnyChartsApplication {
   public static void main(String[] args) {
     SpringApplication.run(AnyChartsApplication.class, args);
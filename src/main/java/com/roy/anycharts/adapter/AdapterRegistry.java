@@ -1,16 +1,42 @@
 package com.roy.anycharts.adapter;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * 适配器注册表。配置了 {@link AdapterResilienceProperties} 时，注册的适配器按其 ID 对应的策略包装为
+ * {@link ResilientAdapter}，{@link #get} 返回的都是包装后的实例。
+ */
 public class AdapterRegistry {
+  private final AdapterResilienceProperties resilience;
   private final Map<String, DataSourceAdapter> adapters = new ConcurrentHashMap<>();
 
+  /** 不启用容错策略 */
+  public AdapterRegistry() {
+    this(null);
+  }
+
+  public AdapterRegistry(AdapterResilienceProperties resilience) {
+    this.resilience = resilience;
+  }
+
   public void register(DataSourceAdapter adapter) {
+    if (resilience != null && resilience.isEnabled()) {
+      adapter = new ResilientAdapter(adapter, resilience.policyFor(adapter.id()));
+    }
     adapters.put(adapter.id(), adapter);
   }
 
   public DataSourceAdapter get(String id) {
     return adapters.get(id);
   }
+
+  /** 已包装容错策略的适配器，用于暴露熔断、限流等状态 */
+  public List<ResilientAdapter> resilientAdapters() {
+    return adapters.values().stream()
+        .filter(ResilientAdapter.class::isInstance)
+        .map(ResilientAdapter.class::cast)
+        .toList();
+  }
 }
@@ -0,0 +1,52 @@
+package com.roy.anycharts.adapter;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "anycharts.adapter.resilience")
+public class AdapterResilienceProperties {
+  // 关闭后 AdapterRegistry 直接返回原始适配器
+  private boolean enabled = true;
+  // 未单独配置的适配器使用的默认策略
+  private Policy defaults = new Policy();
+  // 按适配器 ID（如 rest-adapter）单独配置的策略，整体替换默认策略
+  private Map<String, Policy> adapters = new HashMap<>();
+
+  public Policy policyFor(String adapterId) {
+    return adapters.getOrDefault(adapterId, defaults);
+  }
+
+  @Data
+  public static class Policy {
+    // 单次调用的超时时间（批量返回时为整个结果流），0 表示不限
+    private Duration timeout = Duration.ofSeconds(30);
+    // 同时执行的最大调用数，超出时立即拒绝；0 表示不限
+    private int maxConcurrentCalls = 32;
+    // 熔断：最近 slidingWindowSize 次调用中失败比例达到该值时打开
+    private double failureRateThreshold = 0.5;
+    private int slidingWindowSize = 20;
+    // 窗口内至少有这么多次调用才计算失败比例
+    private int minimumCalls = 10;
+    // 打开后经过该时长进入半开状态，放行少量试探调用
+    private Duration openDuration = Duration.ofSeconds(30);
+    // 半开状态下放行的试探调用数，全部成功后关闭，任一失败重新打开
+    private int halfOpenCalls = 3;
+    private Fallback fallback = new Fallback();
+  }
+
+  @Data
+  public static class Fallback {
+    // 调用失败、超时或被熔断/限流拒绝时返回同一查询最近一次成功的结果
+    private boolean enabled = false;
+    // 最近成功结果的保留时长
+    private Duration ttl = Duration.ofMinutes(10);
+    // 每个适配器最多保留的查询数
+    private int maxEntries = 500;
+    // 行数超过该值的结果不保留，避免大结果常驻内存
+    private int maxRows = 10_000;
+  }
+}
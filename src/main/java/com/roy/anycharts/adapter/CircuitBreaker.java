@@ -0,0 +1,129 @@
+package com.roy.anycharts.adapter;
+
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 基于最近 N 次调用结果的熔断器。
+ *
+ * <p>CLOSED 时放行全部调用，窗口内失败比例达到阈值后转为 OPEN；OPEN 时立即拒绝，经过 openDuration 后转为
+ * HALF_OPEN，只放行 halfOpenCalls 个试探调用：全部成功则关闭并清空窗口，任一失败则重新打开。
+ * 每个放行的调用必须以 {@link #onSuccess}、{@link #onFailure} 或 {@link #release} 之一结束。
+ */
+@Slf4j
+final class CircuitBreaker {
+  enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final String name;
+  private final AdapterResilienceProperties.Policy policy;
+  private final LongSupplier nanoTime;
+  private final boolean[] window;
+  private int windowCount;
+  private int windowNext;
+  private int windowFailures;
+  private State state = State.CLOSED;
+  private long openedAt;
+  private int halfOpenPermits;
+  private int halfOpenSuccesses;
+
+  CircuitBreaker(String name, AdapterResilienceProperties.Policy policy) {
+    this(name, policy, System::nanoTime);
+  }
+
+  CircuitBreaker(String name, AdapterResilienceProperties.Policy policy, LongSupplier nanoTime) {
+    this.name = name;
+    this.policy = policy;
+    this.nanoTime = nanoTime;
+    this.window = new boolean[Math.max(1, policy.getSlidingWindowSize())];
+  }
+
+  /** 是否放行一次调用 */
+  synchronized boolean tryAcquire() {
+    if (state == State.OPEN) {
+      if (nanoTime.getAsLong() - openedAt < policy.getOpenDuration().toNanos()) {
+        return false;
+      }
+      transition(State.HALF_OPEN);
+    }
+    if (state == State.HALF_OPEN) {
+      if (halfOpenPermits >= Math.max(1, policy.getHalfOpenCalls())) {
+        return false;
+      }
+      halfOpenPermits++;
+    }
+    return true;
+  }
+
+  synchronized void onSuccess() {
+    if (state == State.HALF_OPEN) {
+      if (++halfOpenSuccesses >= Math.max(1, policy.getHalfOpenCalls())) {
+        transition(State.CLOSED);
+      }
+      return;
+    }
+    record(false);
+  }
+
+  synchronized void onFailure() {
+    if (state == State.HALF_OPEN) {
+      transition(State.OPEN);
+      return;
+    }
+    record(true);
+    if (state == State.CLOSED
+        && windowCount >= policy.getMinimumCalls()
+        && failureRate() >= policy.getFailureRateThreshold()) {
+      transition(State.OPEN);
+    }
+  }
+
+  /** 放行的调用没有产生结论（被取消或被其它限制拒绝），归还半开状态的试探名额 */
+  synchronized void release() {
+    if (state == State.HALF_OPEN && halfOpenPermits > halfOpenSuccesses) {
+      halfOpenPermits--;
+    }
+  }
+
+  synchronized State state() {
+    if (state == State.OPEN
+        && nanoTime.getAsLong() - openedAt >= policy.getOpenDuration().toNanos()) {
+      return State.HALF_OPEN;
+    }
+    return state;
+  }
+
+  /** 当前窗口内的失败比例，窗口为空时为 0 */
+  synchronized double failureRate() {
+    return windowCount == 0 ? 0 : (double) windowFailures / windowCount;
+  }
+
+  private void record(boolean failure) {
+    if (windowCount == window.length) {
+      if (window[windowNext]) windowFailures--;
+    } else {
+      windowCount++;
+    }
+    window[windowNext] = failure;
+    if (failure) windowFailures++;
+    windowNext = (windowNext + 1) % window.length;
+  }
+
+  private void transition(State next) {
+    if (next == State.OPEN) {
+      log.warn("适配器 {} 熔断打开，失败比例 {}", name, String.format("%.2f", failureRate()));
+      openedAt = nanoTime.getAsLong();
+    } else if (next == State.CLOSED) {
+      log.info("适配器 {} 熔断恢复", name);
+      windowCount = 0;
+      windowNext = 0;
+      windowFailures = 0;
+    }
+    halfOpenPermits = 0;
+    halfOpenSuccesses = 0;
+    state = next;
+  }
+}
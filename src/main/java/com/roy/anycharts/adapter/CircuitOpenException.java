@@ -0,0 +1,8 @@
+package com.roy.anycharts.adapter;
+
+/** 适配器的熔断器处于打开状态，调用被立即拒绝 */
+public class CircuitOpenException extends RuntimeException {
+  public CircuitOpenException(String message) {
+    super(message);
+  }
+}
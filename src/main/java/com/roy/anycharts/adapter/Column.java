@@ -0,0 +1,545 @@
+package com.roy.anycharts.adapter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * {@link ColumnarResult} 中的一列：按类型存放在基本类型数组中，空值用位图记录。
+ *
+ * <p>列本身是一个只读 List，{@link #get} 按需返回装箱后的值，因此可以直接放入 option 模板，由 Jackson 在
+ * 输出时才逐个物化；降采样等数值计算通过 {@link #getDouble} 读取，不经过装箱。
+ */
+public abstract sealed class Column extends AbstractList<Object> implements RandomAccess
+    permits Column.Longs,
+        Column.Doubles,
+        Column.Decimals,
+        Column.Booleans,
+        Column.Strings,
+        Column.Timestamps,
+        Column.Dates,
+        Column.Generic {
+
+  public enum Type {
+    LONG,
+    DOUBLE,
+    DECIMAL,
+    BOOLEAN,
+    STRING,
+    // 不带时区的时间戳，按 UTC 墙上时间存为毫秒（另存毫秒以下的纳秒），输出为 ISO-8601 字符串
+    TIMESTAMP,
+    // 日期，存为 epoch day，输出为 yyyy-MM-dd
+    DATE,
+    // 其它类型，保存原对象
+    OBJECT
+  }
+
+  protected final int size;
+  protected final BitSet nulls;
+
+  private Column(int size, BitSet nulls) {
+    this.size = size;
+    this.nulls = nulls;
+  }
+
+  public abstract Type type();
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  public boolean isNull(int index) {
+    return nulls.get(index);
+  }
+
+  /** 是否为数值列（LONG / DOUBLE / DECIMAL） */
+  public boolean isNumeric() {
+    return false;
+  }
+
+  /** 数值视图：空值以及无法表示为数值的值返回 NaN；时间戳返回毫秒数 */
+  public double getDouble(int index) {
+    return Double.NaN;
+  }
+
+  @Override
+  public Object get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    return nulls.get(index) ? null : value(index);
+  }
+
+  /** 按给定下标（可重复、无需有序）取出一个同类型的新列 */
+  public abstract Column select(int[] indices);
+
+  protected abstract Object value(int index);
+
+  protected BitSet selectNulls(int[] indices) {
+    BitSet selected = new BitSet(indices.length);
+    if (!nulls.isEmpty()) {
+      for (int i = 0; i < indices.length; i++) {
+        if (nulls.get(indices[i])) selected.set(i);
+      }
+    }
+    return selected;
+  }
+
+  public static Builder builder(Type type, int expectedSize) {
+    return new Builder(type, expectedSize);
+  }
+
+  public static final class Longs extends Column {
+    private final long[] values;
+
+    Longs(long[] values, int size, BitSet nulls) {
+      super(size, nulls);
+      this.values = values;
+    }
+
+    public long getLong(int index) {
+      return values[index];
+    }
+
+    @Override
+    public Type type() {
+      return Type.LONG;
+    }
+
+    @Override
+    public boolean isNumeric() {
+      return true;
+    }
+
+    @Override
+    public double getDouble(int index) {
+      return nulls.get(index) ? Double.NaN : values[index];
+    }
+
+    @Override
+    protected Object value(int index) {
+      return values[index];
+    }
+
+    @Override
+    public Column select(int[] indices) {
+      long[] selected = new long[indices.length];
+      for (int i = 0; i < indices.length; i++) selected[i] = values[indices[i]];
+      return new Longs(selected, indices.length, selectNulls(indices));
+    }
+  }
+
+  public static final class Doubles extends Column {
+    private final double[] values;
+
+    Doubles(double[] values, int size, BitSet nulls) {
+      super(size, nulls);
+      this.values = values;
+    }
+
+    @Override
+    public Type type() {
+      return Type.DOUBLE;
+    }
+
+    @Override
+    public boolean isNumeric() {
+      return true;
+    }
+
+    @Override
+    public double getDouble(int index) {
+      return nulls.get(index) ? Double.NaN : values[index];
+    }
+
+    @Override
+    protected Object value(int index) {
+      return values[index];
+    }
+
+    @Override
+    public Column select(int[] indices) {
+      double[] selected = new double[indices.length];
+      for (int i = 0; i < indices.length; i++) selected[i] = values[indices[i]];
+      return new Doubles(selected, indices.length, selectNulls(indices));
+    }
+  }
+
+  /** DECIMAL / NUMERIC：保留 BigDecimal 的精度和小数位，不转为 double 或字符串 */
+  public static final class Decimals extends Column {
+    private final BigDecimal[] values;
+
+    Decimals(BigDecimal[] values, int size, BitSet nulls) {
+      super(size, nulls);
+      this.values = values;
+    }
+
+    @Override
+    public Type type() {
+      return Type.DECIMAL;
+    }
+
+    @Override
+    public boolean isNumeric() {
+      return true;
+    }
+
+    @Override
+    public double getDouble(int index) {
+      return nulls.get(index) ? Double.NaN : values[index].doubleValue();
+    }
+
+    @Override
+    protected Object value(int index) {
+      return values[index];
+    }
+
+    @Override
+    public Column select(int[] indices) {
+      BigDecimal[] selected = new BigDecimal[indices.length];
+      for (int i = 0; i < indices.length; i++) selected[i] = values[indices[i]];
+      return new Decimals(selected, indices.length, selectNulls(indices));
+    }
+  }
+
+  public static final class Booleans extends Column {
+    private final BitSet values;
+
+    Booleans(BitSet values, int size, BitSet nulls) {
+      super(size, nulls);
+      this.values = values;
+    }
+
+    @Override
+    public Type type() {
+      return Type.BOOLEAN;
+    }
+
+    @Override
+    protected Object value(int index) {
+      return values.get(index);
+    }
+
+    @Override
+    public Column select(int[] indices) {
+      BitSet selected = new BitSet(indices.length);
+      for (int i = 0; i < indices.length; i++) {
+        if (values.get(indices[i])) selected.set(i);
+      }
+      return new Booleans(selected, indices.length, selectNulls(indices));
+    }
+  }
+
+  /** 字典编码的字符串列：每行存字典下标，重复值（类目、地区名等）只保存一份 */
+  public static final class Strings extends Column {
+    private final int[] codes;
+    private final String[] dictionary;
+
+    Strings(int[] codes, String[] dictionary, int size, BitSet nulls) {
+      super(size, nulls);
+      this.codes = codes;
+      this.dictionary = dictionary;
+    }
+
+    public int dictionarySize() {
+      return dictionary.length;
+    }
+
+    @Override
+    public Type type() {
+      return Type.STRING;
+    }
+
+    @Override
+    protected Object value(int index) {
+      return dictionary[codes[index]];
+    }
+
+    @Override
+    public Column select(int[] indices) {
+      int[] selected = new int[indices.length];
+      for (int i = 0; i < indices.length; i++) selected[i] = codes[indices[i]];
+      return new Strings(selected, dictionary, indices.length, selectNulls(indices));
+    }
+  }
+
+  public static final class Timestamps extends Column {
+    private final long[] millis;
+    // 毫秒以下的纳秒数，所有值都是整毫秒时为 null
+    private final int[] subMillis;
+
+    Timestamps(long[] millis, int[] subMillis, int size, BitSet nulls) {
+      super(size, nulls);
+      this.millis = millis;
+      this.subMillis = subMillis;
+    }
+
+    @Override
+    public Type type() {
+      return Type.TIMESTAMP;
+    }
+
+    @Override
+    public double getDouble(int index) {
+      return nulls.get(index) ? Double.NaN : millis[index];
+    }
+
+    /** 完整精度的时间戳，空值时为 null */
+    public LocalDateTime getTimestamp(int index) {
+      if (nulls.get(index)) return null;
+      long ms = millis[index];
+      int nanos = (int) Math.floorMod(ms, 1000) * 1_000_000;
+      if (subMillis != null) nanos += subMillis[index];
+      return LocalDateTime.ofEpochSecond(Math.floorDiv(ms, 1000), nanos, ZoneOffset.UTC);
+    }
+
+    @Override
+    protected Object value(int index) {
+      return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(getTimestamp(index));
+    }
+
+    @Override
+    public Column select(int[] indices) {
+      long[] selected = new long[indices.length];
+      int[] selectedSubMillis = subMillis == null ? null : new int[indices.length];
+      for (int i = 0; i < indices.length; i++) {
+        selected[i] = millis[indices[i]];
+        if (subMillis != null) selectedSubMillis[i] = subMillis[indices[i]];
+      }
+      return new Timestamps(selected, selectedSubMillis, indices.length, selectNulls(indices));
+    }
+  }
+
+  public static final class Dates extends Column {
+    private final long[] epochDays;
+
+    Dates(long[] epochDays, int size, BitSet nulls) {
+      super(size, nulls);
+      this.epochDays = epochDays;
+    }
+
+    @Override
+    public Type type() {
+      return Type.DATE;
+    }
+
+    @Override
+    protected Object value(int index) {
+      return LocalDate.ofEpochDay(epochDays[index]).toString();
+    }
+
+    @Override
+    public Column select(int[] indices) {
+      long[] selected = new long[indices.length];
+      for (int i = 0; i < indices.length; i++) selected[i] = epochDays[indices[i]];
+      return new Dates(selected, indices.length, selectNulls(indices));
+    }
+  }
+
+  public static final class Generic extends Column {
+    private final Object[] values;
+
+    Generic(Object[] values, int size, BitSet nulls) {
+      super(size, nulls);
+      this.values = values;
+    }
+
+    @Override
+    public Type type() {
+      return Type.OBJECT;
+    }
+
+    @Override
+    protected Object value(int index) {
+      return values[index];
+    }
+
+    @Override
+    public Column select(int[] indices) {
+      Object[] selected = new Object[indices.length];
+      for (int i = 0; i < indices.length; i++) selected[i] = values[indices[i]];
+      return new Generic(selected, indices.length, selectNulls(indices));
+    }
+  }
+
+  /** 逐行追加构建一列，数组按需扩容 */
+  public static final class Builder {
+    private final Type type;
+    private final BitSet nulls = new BitSet();
+    private long[] longs;
+    private double[] doubles;
+    private Object[] objects;
+    private BitSet booleans;
+    private int[] codes;
+    private Map<String, Integer> dictionary;
+    // TIMESTAMP 毫秒以下的纳秒数，出现第一个非整毫秒值时才分配
+    private int[] subMillis;
+    private int size;
+
+    private Builder(Type type, int expectedSize) {
+      this.type = type;
+      int capacity = Math.max(16, expectedSize);
+      switch (type) {
+        case LONG, TIMESTAMP, DATE -> longs = new long[capacity];
+        case DOUBLE -> doubles = new double[capacity];
+        case DECIMAL, OBJECT -> objects = new Object[capacity];
+        case BOOLEAN -> booleans = new BitSet(capacity);
+        case STRING -> {
+          codes = new int[capacity];
+          dictionary = new HashMap<>();
+        }
+      }
+    }
+
+    public Type type() {
+      return type;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    public void appendNull() {
+      ensureCapacity();
+      nulls.set(size++);
+    }
+
+    /** LONG 的值，TIMESTAMP 的毫秒数或 DATE 的 epoch day */
+    public void appendLong(long value) {
+      ensureCapacity();
+      longs[size++] = value;
+    }
+
+    /** TIMESTAMP 的值，按 UTC 墙上时间保存毫秒数和毫秒以下的纳秒数 */
+    public void appendTimestamp(LocalDateTime value) {
+      appendTimestamp(
+          value.toEpochSecond(ZoneOffset.UTC) * 1000 + value.getNano() / 1_000_000,
+          value.getNano() % 1_000_000);
+    }
+
+    private void appendTimestamp(long millis, int nanos) {
+      ensureCapacity();
+      if (nanos != 0 && subMillis == null) subMillis = new int[longs.length];
+      if (subMillis != null) subMillis[size] = nanos;
+      longs[size++] = millis;
+    }
+
+    public void appendDouble(double value) {
+      ensureCapacity();
+      doubles[size++] = value;
+    }
+
+    public void appendBoolean(boolean value) {
+      ensureCapacity();
+      if (value) booleans.set(size);
+      size++;
+    }
+
+    public void appendString(String value) {
+      if (value == null) {
+        appendNull();
+        return;
+      }
+      ensureCapacity();
+      codes[size++] = dictionary.computeIfAbsent(value, v -> dictionary.size());
+    }
+
+    /** DECIMAL 的 BigDecimal 或 OBJECT 的任意值 */
+    public void appendObject(Object value) {
+      if (value == null) {
+        appendNull();
+        return;
+      }
+      ensureCapacity();
+      objects[size++] = value;
+    }
+
+    /** 追加 source 第 index 行的值，source 必须与本列类型相同 */
+    public void append(Column source, int index) {
+      if (source.type() != type) {
+        throw new IllegalArgumentException("列类型不一致: " + source.type() + " / " + type);
+      }
+      if (source.isNull(index)) {
+        appendNull();
+        return;
+      }
+      if (source instanceof Longs c) {
+        appendLong(c.values[index]);
+      } else if (source instanceof Doubles c) {
+        appendDouble(c.values[index]);
+      } else if (source instanceof Booleans c) {
+        appendBoolean(c.values.get(index));
+      } else if (source instanceof Strings c) {
+        appendString(c.dictionary[c.codes[index]]);
+      } else if (source instanceof Timestamps c) {
+        appendTimestamp(c.millis[index], c.subMillis == null ? 0 : c.subMillis[index]);
+      } else if (source instanceof Dates c) {
+        appendLong(c.epochDays[index]);
+      } else {
+        // DECIMAL / OBJECT
+        appendObject(source.get(index));
+      }
+    }
+
+    /** 数组余量超过四分之一时先按实际行数截短，缓存按行数估算的大小与实际占用一致 */
+    public Column build() {
+      trim();
+      return switch (type) {
+        case LONG -> new Longs(longs, size, nulls);
+        case DOUBLE -> new Doubles(doubles, size, nulls);
+        case DECIMAL -> new Decimals(Arrays.copyOf(objects, size, BigDecimal[].class), size, nulls);
+        case BOOLEAN -> new Booleans(booleans, size, nulls);
+        case STRING -> {
+          String[] values = new String[dictionary.size()];
+          dictionary.forEach((value, code) -> values[code] = value);
+          yield new Strings(codes, values, size, nulls);
+        }
+        case TIMESTAMP -> new Timestamps(longs, subMillis, size, nulls);
+        case DATE -> new Dates(longs, size, nulls);
+        case OBJECT -> new Generic(objects, size, nulls);
+      };
+    }
+
+    private void trim() {
+      int limit = size + (size >> 2);
+      if (longs != null && longs.length > limit) longs = Arrays.copyOf(longs, size);
+      if (doubles != null && doubles.length > limit) doubles = Arrays.copyOf(doubles, size);
+      if (objects != null && objects.length > limit) objects = Arrays.copyOf(objects, size);
+      if (codes != null && codes.length > limit) codes = Arrays.copyOf(codes, size);
+      if (subMillis != null && subMillis.length > limit) subMillis = Arrays.copyOf(subMillis, size);
+    }
+
+    private void ensureCapacity() {
+      int capacity =
+          switch (type) {
+            case LONG, TIMESTAMP, DATE -> longs.length;
+            case DOUBLE -> doubles.length;
+            case DECIMAL, OBJECT -> objects.length;
+            case STRING -> codes.length;
+            case BOOLEAN -> Integer.MAX_VALUE;
+          };
+      if (size < capacity) return;
+      int grown = capacity + (capacity >> 1) + 1;
+      switch (type) {
+        case LONG, DATE -> longs = Arrays.copyOf(longs, grown);
+        case TIMESTAMP -> {
+          longs = Arrays.copyOf(longs, grown);
+          if (subMillis != null) subMillis = Arrays.copyOf(subMillis, grown);
+        }
+        case DOUBLE -> doubles = Arrays.copyOf(doubles, grown);
+        case DECIMAL, OBJECT -> objects = Arrays.copyOf(objects, grown);
+        case STRING -> codes = Arrays.copyOf(codes, grown);
+        default -> {}
+      }
+    }
+  }
+}
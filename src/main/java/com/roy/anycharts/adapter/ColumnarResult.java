@@ -0,0 +1,131 @@
+package com.roy.anycharts.adapter;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * 列式的查询结果，对应适配器 JSON 结果中的 {@code items} 行。
+ *
+ * <p>数值保存在基本类型数组中，字符串按字典编码，映射、降采样和模板填充直接读取列；只有需要 JSON 的地方才调用
+ * {@link #toJson} 物化为 {@code {"items": [...], "count": n}}。结果因行数上限被截断时 JSON 中另有
+ * {@code "truncated": true}。
+ */
+public final class ColumnarResult {
+  private final List<String> names;
+  private final List<Column> columns;
+  private final Map<String, Integer> indexes = new HashMap<>();
+  private final int rowCount;
+  private final boolean truncated;
+
+  public ColumnarResult(List<String> names, List<Column> columns) {
+    this(names, columns, false);
+  }
+
+  /** @param truncated 数据源还有更多的行，因行数上限没有读取 */
+  public ColumnarResult(List<String> names, List<Column> columns, boolean truncated) {
+    if (names.size() != columns.size()) {
+      throw new IllegalArgumentException("列名与列数量不一致");
+    }
+    this.names = List.copyOf(names);
+    this.columns = List.copyOf(columns);
+    this.rowCount = columns.isEmpty() ? 0 : columns.get(0).size();
+    this.truncated = truncated;
+    for (int i = 0; i < names.size(); i++) {
+      if (columns.get(i).size() != rowCount) {
+        throw new IllegalArgumentException("列长度不一致: " + names.get(i));
+      }
+      indexes.putIfAbsent(names.get(i), i);
+    }
+  }
+
+  public int rowCount() {
+    return rowCount;
+  }
+
+  /** 结果是否因行数上限被截断 */
+  public boolean isTruncated() {
+    return truncated;
+  }
+
+  public List<String> columnNames() {
+    return names;
+  }
+
+  /** 按列名取列，不存在时返回 null；列名重复时取第一列 */
+  public Column column(String name) {
+    Integer index = indexes.get(name);
+    return index == null ? null : columns.get(index);
+  }
+
+  public Column column(int index) {
+    return columns.get(index);
+  }
+
+  /** 行视图，每行在访问时才组装为 Map */
+  public List<Map<String, Object>> rows() {
+    return new Rows();
+  }
+
+  public ObjectNode toJson(JsonNodeFactory factory) {
+    ArrayNode items = factory.arrayNode(rowCount);
+    for (int row = 0; row < rowCount; row++) {
+      ObjectNode node = items.addObject();
+      for (int c = 0; c < columns.size(); c++) {
+        put(node, names.get(c), columns.get(c), row);
+      }
+    }
+    ObjectNode result = factory.objectNode();
+    result.set("items", items);
+    result.put("count", rowCount);
+    if (truncated) result.put("truncated", true);
+    return result;
+  }
+
+  private static void put(ObjectNode node, String name, Column column, int row) {
+    if (column.isNull(row)) {
+      node.putNull(name);
+      return;
+    }
+    Object value = column.get(row);
+    switch (column.type()) {
+      case LONG -> node.put(name, (Long) value);
+      case DOUBLE -> node.put(name, (Double) value);
+      case DECIMAL -> node.put(name, (BigDecimal) value);
+      case BOOLEAN -> node.put(name, (Boolean) value);
+      default -> {
+        if (value instanceof Number || value instanceof Boolean) {
+          node.putPOJO(name, value);
+        } else {
+          node.put(name, String.valueOf(value));
+        }
+      }
+    }
+  }
+
+  private final class Rows extends AbstractList<Map<String, Object>> implements RandomAccess {
+    @Override
+    public Map<String, Object> get(int index) {
+      if (index < 0 || index >= rowCount) {
+        throw new IndexOutOfBoundsException(index);
+      }
+      Map<String, Object> row = new LinkedHashMap<>();
+      for (int c = 0; c < columns.size(); c++) {
+        row.putIfAbsent(names.get(c), columns.get(c).get(index));
+      }
+      return row;
+    }
+
+    @Override
+    public int size() {
+      return rowCount;
+    }
+  }
+}
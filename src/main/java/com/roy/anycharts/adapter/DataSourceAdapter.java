@@ -6,8 +6,39 @@ import reactor.core.publisher.Mono;
 import com.fasterxml.jackson.databind.JsonNode;
 
 public interface DataSourceAdapter {
+  /** {@link #subscribe} 的事件中带有 {@code "snapshot": true} 时为完整结果，取代之前推送的全部行 */
+  String SNAPSHOT_FIELD = "snapshot";
+
   Mono<JsonNode> execute(String query, Map<String, Object> params);
 
+  /**
+   * 以多个批次返回结果中的 items 行，每个元素是一个行数组。
+   *
+   * <p>默认实现基于 {@link #execute}；能够边读边返回的适配器（如数据库）应覆盖此方法，
+   * 使调用方无需在内存中持有完整结果树。
+   */
+  default Flux<JsonNode> executeBatches(String query, Map<String, Object> params) {
+    return execute(query, params)
+        .flatMapMany(
+            node -> {
+              JsonNode items = node.get("items");
+              return items != null && items.isArray() ? Flux.just(items) : Flux.empty();
+            });
+  }
+
+  /** 是否能直接产生列式结果，见 {@link #executeColumnar} */
+  default boolean supportsColumnar() {
+    return false;
+  }
+
+  /**
+   * 以列式结果返回 items 行，数值不经过 JSON 装箱。只有 {@link #supportsColumnar} 为 true 的适配器需要实现。
+   */
+  default Mono<ColumnarResult> executeColumnar(String query, Map<String, Object> params) {
+    return Mono.error(new UnsupportedOperationException(id() + " 不支持列式结果"));
+  }
+
+  /** 推送结果的变化，事件默认为增量；完整结果用 {@link #SNAPSHOT_FIELD} 标记 */
   Flux<JsonNode> subscribe(String query, Map<String, Object> params);
 
   String id();
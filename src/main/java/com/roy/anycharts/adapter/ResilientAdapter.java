@@ -0,0 +1,270 @@
+package com.roy.anycharts.adapter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 由 {@link AdapterRegistry} 套在适配器外层的容错策略：超时、并发上限（bulkhead）、熔断和可选的最近成功结果回退。
+ *
+ * <p>execute / executeBatches / executeColumnar 各自按一次调用计数；subscribe 是长连接，原样转发。
+ * 调用方自身的错误（IllegalArgumentException、UnsupportedOperationException）不计入熔断失败，也不触发回退；
+ * 执行器排队已满的拒绝不计入熔断失败，但会触发回退。
+ */
+@Slf4j
+public final class ResilientAdapter implements DataSourceAdapter {
+  private final DataSourceAdapter delegate;
+  private final AdapterResilienceProperties.Policy policy;
+  private final CircuitBreaker breaker;
+  private final Cache<LastGoodKey, Object> lastGood;
+  private final AtomicInteger activeCalls = new AtomicInteger();
+  private final AtomicLong circuitRejected = new AtomicLong();
+  private final AtomicLong bulkheadRejected = new AtomicLong();
+  private final AtomicLong timeouts = new AtomicLong();
+  private final AtomicLong fallbacks = new AtomicLong();
+
+  ResilientAdapter(DataSourceAdapter delegate, AdapterResilienceProperties.Policy policy) {
+    this(delegate, policy, new CircuitBreaker(delegate.id(), policy));
+  }
+
+  ResilientAdapter(
+      DataSourceAdapter delegate, AdapterResilienceProperties.Policy policy, CircuitBreaker breaker) {
+    this.delegate = delegate;
+    this.policy = policy;
+    this.breaker = breaker;
+    AdapterResilienceProperties.Fallback fallback = policy.getFallback();
+    this.lastGood =
+        fallback.isEnabled()
+            ? Caffeine.newBuilder()
+                .expireAfterWrite(fallback.getTtl())
+                .maximumSize(fallback.getMaxEntries())
+                .build()
+            : null;
+  }
+
+  @Override
+  public Mono<JsonNode> execute(String query, Map<String, Object> params) {
+    LastGoodKey key = new LastGoodKey(Call.EXECUTE, query, params);
+    return withFallback(
+        key,
+        guard(delegate.execute(query, params))
+            .doOnNext(
+                node -> {
+                  JsonNode items = node.path("items");
+                  remember(key, node, items.isArray() ? items.size() : 0);
+                }));
+  }
+
+  @Override
+  public Flux<JsonNode> executeBatches(String query, Map<String, Object> params) {
+    Flux<JsonNode> guarded = guard(delegate.executeBatches(query, params));
+    if (lastGood == null) return guarded;
+    return rememberBatches(new LastGoodKey(Call.BATCHES, query, params), guarded);
+  }
+
+  @Override
+  public boolean supportsColumnar() {
+    return delegate.supportsColumnar();
+  }
+
+  @Override
+  public Mono<ColumnarResult> executeColumnar(String query, Map<String, Object> params) {
+    LastGoodKey key = new LastGoodKey(Call.COLUMNAR, query, params);
+    return withFallback(
+        key,
+        guard(delegate.executeColumnar(query, params))
+            .doOnNext(result -> remember(key, result, result.rowCount())));
+  }
+
+  @Override
+  public Flux<JsonNode> subscribe(String query, Map<String, Object> params) {
+    return delegate.subscribe(query, params);
+  }
+
+  @Override
+  public String id() {
+    return delegate.id();
+  }
+
+  /** 被包装的原始适配器 */
+  public DataSourceAdapter delegate() {
+    return delegate;
+  }
+
+  /** 熔断器状态：CLOSED / OPEN / HALF_OPEN */
+  public String circuitState() {
+    return breaker.state().name();
+  }
+
+  /** 熔断窗口内的失败比例 */
+  public double failureRate() {
+    return breaker.failureRate();
+  }
+
+  public int activeCalls() {
+    return activeCalls.get();
+  }
+
+  public long circuitRejected() {
+    return circuitRejected.get();
+  }
+
+  public long bulkheadRejected() {
+    return bulkheadRejected.get();
+  }
+
+  public long timeouts() {
+    return timeouts.get();
+  }
+
+  public long fallbacks() {
+    return fallbacks.get();
+  }
+
+  private <T> Mono<T> guard(Mono<T> call) {
+    return Mono.defer(
+        () -> {
+          RuntimeException rejected = acquire();
+          if (rejected != null) return Mono.error(rejected);
+          Duration timeout = policy.getTimeout();
+          Mono<T> timed = timeout == null || timeout.isZero() ? call : call.timeout(timeout);
+          return timed
+              .doOnSuccess(value -> breaker.onSuccess())
+              .doOnError(this::onError)
+              .doOnCancel(breaker::release)
+              .doFinally(signal -> activeCalls.decrementAndGet());
+        });
+  }
+
+  private <T> Flux<T> guard(Flux<T> call) {
+    return Flux.defer(
+        () -> {
+          RuntimeException rejected = acquire();
+          if (rejected != null) return Flux.error(rejected);
+          Duration timeout = policy.getTimeout();
+          Flux<T> timed = call;
+          if (timeout != null && !timeout.isZero()) {
+            // 超时针对整个结果流而不是单个批次
+            long deadline = System.nanoTime() + timeout.toNanos();
+            timed =
+                call.timeout(
+                    Mono.delay(timeout),
+                    item -> Mono.delay(Duration.ofNanos(Math.max(0, deadline - System.nanoTime()))));
+          }
+          return timed
+              .doOnComplete(breaker::onSuccess)
+              .doOnError(this::onError)
+              .doOnCancel(breaker::release)
+              .doFinally(signal -> activeCalls.decrementAndGet());
+        });
+  }
+
+  // 返回 null 表示放行，调用结束时必须递减 activeCalls
+  private RuntimeException acquire() {
+    if (!breaker.tryAcquire()) {
+      circuitRejected.incrementAndGet();
+      return new CircuitOpenException("适配器 " + id() + " 熔断中，请稍后重试");
+    }
+    int max = policy.getMaxConcurrentCalls();
+    if (activeCalls.incrementAndGet() > max && max > 0) {
+      activeCalls.decrementAndGet();
+      breaker.release();
+      bulkheadRejected.incrementAndGet();
+      return new RejectedExecutionException("适配器 " + id() + " 并发调用已达上限 " + max);
+    }
+    return null;
+  }
+
+  private void onError(Throwable e) {
+    if (e instanceof TimeoutException) {
+      timeouts.incrementAndGet();
+      log.warn("适配器 {} 调用超时（{}）", id(), policy.getTimeout());
+    }
+    // 执行器排队已满是本地过载，不说明数据源故障
+    if (isCallerError(e) || e instanceof RejectedExecutionException) {
+      breaker.release();
+    } else {
+      breaker.onFailure();
+    }
+  }
+
+  private <T> Mono<T> withFallback(LastGoodKey key, Mono<T> guarded) {
+    if (lastGood == null) return guarded;
+    return guarded.onErrorResume(
+        e -> {
+          @SuppressWarnings("unchecked")
+          T previous = (T) fallbackFor(key, e);
+          return previous != null ? Mono.just(previous) : Mono.error(e);
+        });
+  }
+
+  private Object fallbackFor(LastGoodKey key, Throwable e) {
+    if (isCallerError(e)) return null;
+    Object previous = lastGood.getIfPresent(key);
+    if (previous != null) {
+      fallbacks.incrementAndGet();
+      log.warn("适配器 {} 调用失败，返回最近一次成功的结果: {}", id(), e.toString());
+    }
+    return previous;
+  }
+
+  private void remember(LastGoodKey key, Object value, long rows) {
+    if (lastGood != null && rows <= policy.getFallback().getMaxRows()) {
+      lastGood.put(key, value);
+    }
+  }
+
+  // 边转发边收集批次，完整结束且行数不超过上限时保存。还没有发出任何批次时才回退到保存的批次，
+  // 已经发出部分批次后再回退会让下游收到重复的行，此时直接传递错误
+  private Flux<JsonNode> rememberBatches(LastGoodKey key, Flux<JsonNode> batches) {
+    return Flux.defer(
+        () -> {
+          List<JsonNode> collected = new ArrayList<>();
+          long[] rows = new long[1];
+          boolean[] emitted = new boolean[1];
+          int maxRows = policy.getFallback().getMaxRows();
+          return batches
+              .doOnNext(
+                  batch -> {
+                    emitted[0] = true;
+                    rows[0] += batch.size();
+                    if (rows[0] <= maxRows) collected.add(batch);
+                  })
+              .doOnComplete(() -> remember(key, List.copyOf(collected), rows[0]))
+              .onErrorResume(
+                  e -> {
+                    if (emitted[0]) return Flux.error(e);
+                    @SuppressWarnings("unchecked")
+                    List<JsonNode> previous = (List<JsonNode>) fallbackFor(key, e);
+                    return previous != null ? Flux.fromIterable(previous) : Flux.error(e);
+                  });
+        });
+  }
+
+  private static boolean isCallerError(Throwable e) {
+    return e instanceof IllegalArgumentException || e instanceof UnsupportedOperationException;
+  }
+
+  private enum Call {
+    EXECUTE,
+    BATCHES,
+    COLUMNAR
+  }
+
+  private record LastGoodKey(Call call, String query, Map<String, Object> params) {
+    LastGoodKey {
+      params = params == null ? Map.of() : params;
+    }
+  }
+}
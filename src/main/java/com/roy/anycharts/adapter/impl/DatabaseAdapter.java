@@ -3,17 +3,21 @@ package com.roy.anycharts.adapter.impl;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.roy.anycharts.adapter.Column;
+import com.roy.anycharts.adapter.ColumnarResult;
 import com.roy.anycharts.adapter.DataSourceAdapter;
+import com.roy.anycharts.datasource.ConnectionPoolRegistry;
 import com.roy.anycharts.datasource.DatabaseConnection;
 import com.roy.anycharts.datasource.DatabaseConnectionStore;
+import com.roy.anycharts.execution.BlockingExecutor;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import lombok.RequiredArgsConstructor;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
@@ -21,10 +25,28 @@ import reactor.core.publisher.Mono;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class DatabaseAdapter implements DataSourceAdapter {
   private final ObjectMapper mapper;
   private final DatabaseConnectionStore connectionStore;
+  private final ConnectionPoolRegistry poolRegistry;
+  private final BlockingExecutor blockingExecutor;
+  private final DatabaseAdapterProperties properties;
+  private final PollingSubscriptions polls;
+  private final AtomicLong truncated = new AtomicLong();
+
+  public DatabaseAdapter(
+      ObjectMapper mapper,
+      DatabaseConnectionStore connectionStore,
+      ConnectionPoolRegistry poolRegistry,
+      BlockingExecutor blockingExecutor,
+      DatabaseAdapterProperties properties) {
+    this.mapper = mapper;
+    this.connectionStore = connectionStore;
+    this.poolRegistry = poolRegistry;
+    this.blockingExecutor = blockingExecutor;
+    this.properties = properties;
+    this.polls = new PollingSubscriptions(properties, mapper.getNodeFactory());
+  }
 
   @Override
   public String id() {
@@ -33,90 +55,238 @@ public class DatabaseAdapter implements DataSourceAdapter {
 
   @Override
   public Mono<JsonNode> execute(String query, Map<String, Object> variables) {
-    return Mono.fromCallable(() -> {
-      log.info("执行数据库查询: {}", query);
-      
-      // 解析查询配置 (格式: connectionId:tableName 或 connectionId:SELECT...)
-      String[] parts = query.split(":", 2);
-      if (parts.length < 2) {
-        throw new IllegalArgumentException("数据库查询格式错误，应为: connectionId:tableName 或 connectionId:SQL");
-      }
-      
-      String connectionId = parts[0];
-      String queryPart = parts[1];
-      
-      DatabaseConnection conn = connectionStore.get(connectionId)
-          .orElseThrow(() -> new IllegalArgumentException("数据库连接不存在: " + connectionId));
-      
-      // 判断是表名还是 SQL
-      String sql;
-      if (queryPart.toUpperCase().trim().startsWith("SELECT")) {
-        sql = queryPart;
-      } else {
-        // 简单表名查询
-        sql = "SELECT * FROM " + queryPart;
+    // 先读为列式结果，最后一次性转为 JSON
+    return executeColumnar(query, variables)
+        .map(result -> result.toJson(mapper.getNodeFactory()));
+  }
+
+  @Override
+  public boolean supportsColumnar() {
+    return true;
+  }
+
+  /**
+   * 把结果读为列式结果，数值按列类型存入基本类型数组，达到 maxRows 后提前停止，结果标记为截断（见
+   * {@link ColumnarResult#isTruncated}）。同一查询正在被轮询订阅时直接返回订阅持有的结果。
+   */
+  @Override
+  public Mono<ColumnarResult> executeColumnar(String query, Map<String, Object> variables) {
+    Target target;
+    try {
+      target = Target.parse(query);
+    } catch (IllegalArgumentException e) {
+      return Mono.error(e);
+    }
+    ColumnarResult polled = polls.latest(query, variables);
+    if (polled != null) {
+      return Mono.just(polled);
+    }
+    return executeColumnar(query, target, variables);
+  }
+
+  private Mono<ColumnarResult> executeColumnar(
+      String query, Target target, Map<String, Object> variables) {
+    return blockingExecutor.execute(
+        DatabaseConnection.executionKey(target.connectionId()),
+        () ->
+            run(
+                query,
+                target,
+                variables,
+                rs -> {
+                  RowCodec codec = RowCodec.of(rs.getMetaData());
+                  Column.Builder[] builders = codec.newBuilders(properties.getFetchSize());
+                  int maxRows = properties.getMaxRows();
+                  int total = 0;
+                  boolean capped = false;
+                  while (rs.next()) {
+                    if (maxRows > 0 && total >= maxRows) {
+                      capped = truncated(maxRows);
+                      break;
+                    }
+                    codec.append(rs, builders);
+                    total++;
+                  }
+                  log.debug("查询返回 {} 条记录", total);
+                  List<String> names = new ArrayList<>(builders.length);
+                  List<Column> columns = new ArrayList<>(builders.length);
+                  for (int i = 0; i < builders.length; i++) {
+                    names.add(codec.columnName(i));
+                    columns.add(builders[i].build());
+                  }
+                  return new ColumnarResult(names, columns, capped);
+                }));
+  }
+
+  /**
+   * 流式执行查询：按 fetchSize 从数据库读取，每 batchSize 行发出一批，达到 maxRows 后提前停止。批次只包含行，
+   * 截断记入 {@link #truncatedResults}。下游取消时会立即关闭 ResultSet 并归还连接。
+   */
+  @Override
+  public Flux<JsonNode> executeBatches(String query, Map<String, Object> variables) {
+    Target target;
+    try {
+      target = Target.parse(query);
+    } catch (IllegalArgumentException e) {
+      return Flux.error(e);
+    }
+    ColumnarResult polled = polls.latest(query, variables);
+    if (polled != null) {
+      return Flux.just(polled.toJson(mapper.getNodeFactory()).get("items"));
+    }
+
+    // JDBC 是阻塞调用，交给 BlockingExecutor 执行，避免占用事件循环线程
+    return blockingExecutor.executeMany(
+        DatabaseConnection.executionKey(target.connectionId()),
+        emitter ->
+            run(
+                query,
+                target,
+                variables,
+                rs -> {
+                  int maxRows = properties.getMaxRows();
+                  int batchSize = Math.max(1, properties.getBatchSize());
+                  RowCodec codec = RowCodec.of(rs.getMetaData());
+                  ArrayNode batch = mapper.createArrayNode();
+                  int total = 0;
+                  while (rs.next()) {
+                    if (maxRows > 0 && total >= maxRows) {
+                      truncated(maxRows);
+                      break;
+                    }
+                    batch.add(codec.read(rs, mapper.createObjectNode()));
+                    total++;
+                    if (batch.size() >= batchSize) {
+                      if (!emitter.emit(batch)) {
+                        log.debug("查询已被取消，已读取 {} 条记录", total);
+                        return null;
+                      }
+                      batch = mapper.createArrayNode();
+                    }
+                  }
+                  if (!batch.isEmpty()) {
+                    emitter.emit(batch);
+                  }
+                  log.debug("查询返回 {} 条记录", total);
+                  return null;
+                }));
+  }
+
+  // 在阻塞线程上执行：取连接、准备 PreparedStatement（由驱动缓存，见 ConnectionPoolRegistry）、绑定变量，再把
+  // ResultSet 交给 handler
+  private <T> T run(
+      String query, Target target, Map<String, Object> variables, ResultSetHandler<T> handler)
+      throws Exception {
+    log.debug("执行数据库查询: {}", query);
+
+    DatabaseConnection conn = connectionStore.get(target.connectionId())
+        .orElseThrow(() -> new IllegalArgumentException("数据库连接不存在: " + target.connectionId()));
+
+    // ${name} 变量按类型绑定为参数，SQL 文本与变量值无关
+    ParameterizedQuery parameterized = ParameterizedQuery.parse(target.sql());
+    String preparedSql = parameterized.sql(variables);
+    log.debug("执行 SQL: {}", preparedSql);
+
+    try (Connection connection = poolRegistry.getConnection(conn)) {
+      // 部分驱动（如 PostgreSQL）只有在关闭自动提交时才会按 fetchSize 使用游标分批读取
+      boolean autoCommit = connection.getAutoCommit();
+      if (autoCommit) {
+        connection.setAutoCommit(false);
       }
-      
-      // 替换 SQL 中的变量
-      String processedSql = sql;
-      if (variables != null) {
-        for (Map.Entry<String, Object> entry : variables.entrySet()) {
-          processedSql = processedSql.replace("${" + entry.getKey() + "}", String.valueOf(entry.getValue()));
+      try (PreparedStatement stmt =
+          connection.prepareStatement(
+              preparedSql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+        stmt.setFetchSize(properties.getFetchSize());
+        // 多读一行，用来判断结果是否被截断
+        int maxRows = properties.getMaxRows();
+        stmt.setMaxRows(maxRows > 0 && maxRows < Integer.MAX_VALUE ? maxRows + 1 : 0);
+        parameterized.bind(stmt, variables);
+        try (ResultSet rs = stmt.executeQuery()) {
+          return handler.handle(rs);
         }
-      }
-      
-      log.info("执行 SQL: {}", processedSql);
-      
-      // 执行查询
-      try (Connection connection = DriverManager.getConnection(conn.getJdbcUrl(), conn.getUsername(), conn.getPassword());
-           PreparedStatement stmt = connection.prepareStatement(processedSql);
-           ResultSet rs = stmt.executeQuery()) {
-        
-        ResultSetMetaData metaData = rs.getMetaData();
-        int columnCount = metaData.getColumnCount();
-        
-        ArrayNode items = mapper.createArrayNode();
-        
-        while (rs.next()) {
-          ObjectNode row = mapper.createObjectNode();
-          for (int i = 1; i <= columnCount; i++) {
-            String columnName = metaData.getColumnName(i);
-            Object value = rs.getObject(i);
-            
-            if (value == null) {
-              row.putNull(columnName);
-            } else if (value instanceof Number) {
-              if (value instanceof Integer) {
-                row.put(columnName, (Integer) value);
-              } else if (value instanceof Long) {
-                row.put(columnName, (Long) value);
-              } else if (value instanceof Double) {
-                row.put(columnName, (Double) value);
-              } else {
-                row.put(columnName, value.toString());
-              }
-            } else if (value instanceof Boolean) {
-              row.put(columnName, (Boolean) value);
-            } else {
-              row.put(columnName, value.toString());
-            }
-          }
-          items.add(row);
+      } finally {
+        if (autoCommit) {
+          connection.rollback();
+          connection.setAutoCommit(true);
         }
-        
-        ObjectNode result = mapper.createObjectNode();
-        result.set("items", items);
-        result.put("count", items.size());
-        
-        log.info("查询返回 {} 条记录", items.size());
-        return (JsonNode) result;
       }
-    });
+    }
   }
 
+  /**
+   * 轮询订阅：按 interval 检查结果变化，有变化时推送事件，见 {@link PollingSubscriptions}。
+   * 轮询选项写在连接 ID 之后，如 {@code h2-default?interval=10s&watermark=id:SELECT ...}。
+   */
   @Override
   public Flux<JsonNode> subscribe(String query, Map<String, Object> variables) {
-    // 数据库查询不支持流式，返回单次查询结果
-    return execute(query, variables).flux();
+    Target target;
+    try {
+      target = Target.parse(query);
+    } catch (IllegalArgumentException e) {
+      return Flux.error(e);
+    }
+    return polls.subscribe(
+        query,
+        variables,
+        target.sql(),
+        target.poll(),
+        (sql, vars) ->
+            executeColumnar(query, new Target(target.connectionId(), sql, target.poll()), vars));
+  }
+
+  /** 因 maxRows 被截断的查询次数 */
+  public long truncatedResults() {
+    return truncated.get();
+  }
+
+  private boolean truncated(int maxRows) {
+    truncated.incrementAndGet();
+    log.warn("查询结果超过上限 {} 行，剩余数据被忽略", maxRows);
+    return true;
+  }
+
+  /** 正在进行的轮询订阅数 */
+  public int activePolls() {
+    return polls.size();
+  }
+
+  /** 轮询发现结果有变化的次数 */
+  public long pollsChanged() {
+    return polls.changed();
+  }
+
+  /** 轮询发现结果没有变化、未推送的次数 */
+  public long pollsUnchanged() {
+    return polls.unchanged();
+  }
+
+  @FunctionalInterface
+  private interface ResultSetHandler<T> {
+    T handle(ResultSet rs) throws Exception;
+  }
+
+  /**
+   * 查询配置，格式为 connectionId:tableName 或 connectionId:SELECT ...；
+   * 连接 ID 后可以带轮询选项，如 connectionId?interval=10s&watermark=id:SELECT ...
+   */
+  private record Target(String connectionId, String sql, PollOptions poll) {
+    static Target parse(String query) {
+      String[] parts = query.split(":", 2);
+      if (parts.length < 2) {
+        throw new IllegalArgumentException(
+            "数据库查询格式错误，应为: connectionId:tableName 或 connectionId:SQL");
+      }
+      String queryPart = parts[1];
+      // 判断是表名还是 SQL，表名时查询整张表
+      String sql = queryPart.toUpperCase().trim().startsWith("SELECT")
+          ? queryPart
+          : "SELECT * FROM " + queryPart;
+      int options = parts[0].indexOf('?');
+      if (options < 0) {
+        return new Target(parts[0], sql, PollOptions.NONE);
+      }
+      return new Target(
+          parts[0].substring(0, options), sql, PollOptions.parse(parts[0].substring(options + 1)));
+    }
   }
 }
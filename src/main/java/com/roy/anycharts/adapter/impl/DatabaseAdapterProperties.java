@@ -0,0 +1,27 @@
+package com.roy.anycharts.adapter.impl;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "anycharts.adapter.database")
+public class DatabaseAdapterProperties {
+  // JDBC fetch size，驱动每次从数据库拉取的行数
+  private int fetchSize = 500;
+  // 流式返回时每批包含的行数
+  private int batchSize = 500;
+  // 单次查询最多读取的行数，超过后提前停止；0 表示不限制
+  private int maxRows = 100_000;
+  private Poll poll = new Poll();
+
+  @Data
+  public static class Poll {
+    // subscribe 的默认轮询间隔，查询中的 interval 选项可以单独指定
+    private Duration interval = Duration.ofSeconds(5);
+    // 查询中允许指定的最小轮询间隔
+    private Duration minInterval = Duration.ofSeconds(1);
+    // 最后一个订阅者取消后继续轮询的时长，期间重新订阅直接复用已有的结果
+    private Duration disconnectGrace = Duration.ofSeconds(5);
+  }
+}
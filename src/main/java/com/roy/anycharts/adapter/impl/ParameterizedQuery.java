@@ -0,0 +1,240 @@
+package com.roy.anycharts.adapter.impl;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 把带 {@code ${name}} 变量的 SQL 解析为 {@code ?} 占位符加参数槽位，变量值按类型绑定而不是拼接进 SQL。
+ *
+ * <ul>
+ *   <li>{@code ${name}}：一个参数；值为集合时展开为 {@code ?, ?, ...}，空集合展开为 {@code NULL}；
+ *   <li>字符串字面量中的变量，如 {@code '${region}'}、{@code '%${kw}%'}：整个字面量替换为一个字符串参数，
+ *       兼容原来按字符串替换时的写法；
+ *   <li>注释和字面量中的其它内容原样保留。
+ * </ul>
+ *
+ * <p>SQL 文本只与查询本身（以及集合变量的长度）有关，与变量值无关，数据库的执行计划缓存和语句缓存因此可以复用。
+ */
+public final class ParameterizedQuery {
+  private static final int MAX_CACHED = 4096;
+  private static final Map<String, ParameterizedQuery> CACHE = new ConcurrentHashMap<>();
+
+  private final List<Segment> segments;
+  // 不含 ${name} 变量（字面量中的变量除外）时 SQL 固定，预先生成
+  private final String staticSql;
+  private final boolean hasVariables;
+
+  private ParameterizedQuery(List<Segment> segments) {
+    this.segments = List.copyOf(segments);
+    StringBuilder sql = new StringBuilder();
+    for (Segment segment : segments) {
+      if (segment instanceof Text text) {
+        sql.append(text.sql());
+      } else {
+        sql.append('?');
+      }
+    }
+    this.staticSql = sql.toString();
+    this.hasVariables = segments.stream().anyMatch(s -> s instanceof Variable);
+  }
+
+  /** 解析并缓存 */
+  public static ParameterizedQuery parse(String sql) {
+    ParameterizedQuery cached = CACHE.get(sql);
+    if (cached != null) {
+      return cached;
+    }
+    ParameterizedQuery query = new ParameterizedQuery(new Parser(sql).parse());
+    if (CACHE.size() < MAX_CACHED) {
+      CACHE.putIfAbsent(sql, query);
+    }
+    return query;
+  }
+
+  /** 用于 prepareStatement 的 SQL；只有集合变量的长度会影响结果 */
+  public String sql(Map<String, Object> variables) {
+    if (!hasVariables) {
+      return staticSql;
+    }
+    StringBuilder sql = new StringBuilder();
+    for (Segment segment : segments) {
+      if (segment instanceof Text text) {
+        sql.append(text.sql());
+      } else if (segment instanceof Variable v && value(v.name(), variables) instanceof Collection<?> c) {
+        sql.append(c.isEmpty() ? "NULL" : "?, ".repeat(c.size() - 1) + "?");
+      } else {
+        sql.append('?');
+      }
+    }
+    return sql.toString();
+  }
+
+  /** 按 {@link #sql} 中占位符的顺序绑定参数 */
+  public void bind(PreparedStatement stmt, Map<String, Object> variables) throws SQLException {
+    int index = 1;
+    for (Segment segment : segments) {
+      if (segment instanceof Variable v) {
+        Object value = value(v.name(), variables);
+        if (value instanceof Collection<?> c) {
+          for (Object element : c) {
+            set(stmt, index++, element);
+          }
+        } else {
+          set(stmt, index++, value);
+        }
+      } else if (segment instanceof Literal literal) {
+        StringBuilder text = new StringBuilder();
+        for (Object part : literal.parts()) {
+          text.append(part instanceof Variable v ? String.valueOf(value(v.name(), variables)) : part);
+        }
+        stmt.setString(index++, text.toString());
+      }
+    }
+  }
+
+  private static Object value(String name, Map<String, Object> variables) {
+    if (variables == null || !variables.containsKey(name)) {
+      throw new IllegalArgumentException("缺少查询变量: " + name);
+    }
+    return variables.get(name);
+  }
+
+  private static void set(PreparedStatement stmt, int index, Object value) throws SQLException {
+    if (value == null) {
+      stmt.setNull(index, Types.NULL);
+    } else if (value instanceof Integer || value instanceof Long
+        || value instanceof Short || value instanceof Byte) {
+      stmt.setLong(index, ((Number) value).longValue());
+    } else if (value instanceof Double || value instanceof Float) {
+      stmt.setDouble(index, ((Number) value).doubleValue());
+    } else if (value instanceof BigDecimal d) {
+      stmt.setBigDecimal(index, d);
+    } else if (value instanceof BigInteger i) {
+      stmt.setBigDecimal(index, new BigDecimal(i));
+    } else if (value instanceof Boolean b) {
+      stmt.setBoolean(index, b);
+    } else if (value instanceof CharSequence s) {
+      stmt.setString(index, s.toString());
+    } else if (value instanceof Instant instant) {
+      stmt.setTimestamp(index, Timestamp.from(instant));
+    } else if (value instanceof Temporal) {
+      // LocalDate / LocalDateTime / OffsetDateTime 由 JDBC 4.2 驱动直接支持
+      stmt.setObject(index, value);
+    } else if (value instanceof Map<?, ?>) {
+      throw new IllegalArgumentException("查询变量不支持对象类型: " + value);
+    } else {
+      stmt.setObject(index, value);
+    }
+  }
+
+  private sealed interface Segment permits Text, Variable, Literal {}
+
+  private record Text(String sql) implements Segment {}
+
+  private record Variable(String name) implements Segment {}
+
+  /** 含变量的字符串字面量，parts 为 String 或 Variable */
+  private record Literal(List<Object> parts) implements Segment {}
+
+  private static final class Parser {
+    private final String sql;
+    private final List<Segment> segments = new ArrayList<>();
+    private final StringBuilder text = new StringBuilder();
+    private int pos;
+
+    Parser(String sql) {
+      this.sql = sql;
+    }
+
+    List<Segment> parse() {
+      while (pos < sql.length()) {
+        char c = sql.charAt(pos);
+        if (c == '\'') {
+          literal();
+        } else if (c == '"') {
+          copyUntil("\"", 1);
+        } else if (sql.startsWith("--", pos)) {
+          copyUntil("\n", 2);
+        } else if (sql.startsWith("/*", pos)) {
+          copyUntil("*/", 2);
+        } else if (sql.startsWith("${", pos) && sql.indexOf('}', pos) > pos + 2) {
+          flushText();
+          int end = sql.indexOf('}', pos);
+          segments.add(new Variable(sql.substring(pos + 2, end).trim()));
+          pos = end + 1;
+        } else {
+          text.append(c);
+          pos++;
+        }
+      }
+      flushText();
+      return segments;
+    }
+
+    // 原样复制到结束符（含），找不到时复制到末尾
+    private void copyUntil(String terminator, int openLength) {
+      int end = sql.indexOf(terminator, pos + openLength);
+      int stop = end < 0 ? sql.length() : end + terminator.length();
+      text.append(sql, pos, stop);
+      pos = stop;
+    }
+
+    // 字符串字面量：'' 为转义的单引号；不含变量时原样保留
+    private void literal() {
+      int start = pos;
+      List<Object> parts = new ArrayList<>();
+      StringBuilder chunk = new StringBuilder();
+      boolean hasVariable = false;
+      pos++;
+      while (pos < sql.length()) {
+        char c = sql.charAt(pos);
+        if (c == '\'') {
+          if (pos + 1 < sql.length() && sql.charAt(pos + 1) == '\'') {
+            chunk.append('\'');
+            pos += 2;
+            continue;
+          }
+          pos++;
+          break;
+        }
+        int end = sql.startsWith("${", pos) ? sql.indexOf('}', pos) : -1;
+        int quote = end > 0 ? sql.indexOf('\'', pos) : -1;
+        if (end > pos + 2 && (quote < 0 || end < quote)) {
+          parts.add(chunk.toString());
+          chunk.setLength(0);
+          parts.add(new Variable(sql.substring(pos + 2, end).trim()));
+          hasVariable = true;
+          pos = end + 1;
+        } else {
+          chunk.append(c);
+          pos++;
+        }
+      }
+      if (!hasVariable) {
+        text.append(sql, start, pos);
+        return;
+      }
+      parts.add(chunk.toString());
+      flushText();
+      segments.add(new Literal(parts));
+    }
+
+    private void flushText() {
+      if (!text.isEmpty()) {
+        segments.add(new Text(text.toString()));
+        text.setLength(0);
+      }
+    }
+  }
+}
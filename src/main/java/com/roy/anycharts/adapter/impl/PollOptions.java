@@ -0,0 +1,51 @@
+package com.roy.anycharts.adapter.impl;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+import org.springframework.boot.convert.DurationStyle;
+
+/**
+ * DatabaseAdapter 轮询订阅的选项，写在查询的连接 ID 之后，如
+ * {@code h2-default?interval=10s&watermark=id&key=id:SELECT ...}。
+ *
+ * @param interval 轮询间隔，为 null 时使用全局配置
+ * @param watermark 单调递增的水位列（自增 ID、updated_at 等），为 null 时按结果哈希判断变化；查询不能带顶层的
+ *     ORDER BY / LIMIT
+ * @param key 主键列，配置后新读到的行按主键替换已有的行，否则直接追加
+ */
+record PollOptions(Duration interval, String watermark, String key) {
+  static final PollOptions NONE = new PollOptions(null, null, null);
+  private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+  static PollOptions parse(String spec) {
+    if (spec == null || spec.isBlank()) return NONE;
+    Duration interval = null;
+    String watermark = null;
+    String key = null;
+    for (String pair : spec.split("&")) {
+      String[] kv = pair.split("=", 2);
+      String value = kv.length == 2 ? kv[1].trim() : "";
+      switch (kv[0].trim()) {
+        case "interval" -> {
+          try {
+            interval = DurationStyle.detectAndParse(value);
+          } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("轮询间隔格式错误: " + value);
+          }
+        }
+        case "watermark" -> watermark = identifier("watermark", value);
+        case "key" -> key = identifier("key", value);
+        default -> throw new IllegalArgumentException("未知的轮询选项: " + kv[0]);
+      }
+    }
+    return new PollOptions(interval, watermark, key);
+  }
+
+  // 列名会拼进增量查询的 SQL，只允许普通标识符
+  private static String identifier(String option, String value) {
+    if (!IDENTIFIER.matcher(value).matches()) {
+      throw new IllegalArgumentException("轮询选项 " + option + " 不是合法的列名: " + value);
+    }
+    return value;
+  }
+}
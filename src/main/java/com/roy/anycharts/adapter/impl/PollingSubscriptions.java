@@ -0,0 +1,353 @@
+package com.roy.anycharts.adapter.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.roy.anycharts.adapter.Column;
+import com.roy.anycharts.adapter.ColumnarResult;
+import com.roy.anycharts.adapter.DataSourceAdapter;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * DatabaseAdapter 的轮询订阅。同一 (query, variables) 的订阅者共享一个轮询，最后一个订阅者取消并经过
+ * disconnectGrace 后停止。
+ *
+ * <p>订阅后先完整查询一次作为持有的结果，之后每个间隔检查一次变化：
+ *
+ * <ul>
+ *   <li>配置了水位列时只查询水位之后的行，合并进持有的结果（配置了 key 时按主键替换，否则追加），超过
+ *       maxRows 时丢弃最早的行；
+ *   <li>否则重新执行查询，结果哈希不变时不推送。
+ * </ul>
+ *
+ * 每次有变化推送一个 {@code {"items": [...], "count": n}} 事件：首次为完整结果，水位模式为新读到的行，哈希模式为
+ * 新的完整结果。完整结果带有 {@code "snapshot": true}，内存序列据此先清空再写入，不与日志回放的行重复。订阅存在期间同一查询的 execute 直接返回持有的结果，事件触发的渲染不再重新读整张表。
+ */
+@Slf4j
+final class PollingSubscriptions {
+  static final String WATERMARK_VARIABLE = "__watermark";
+  private static final Set<String> ROW_LIMITING = Set.of("ORDER", "LIMIT", "OFFSET", "FETCH");
+
+  /** 在阻塞执行器上执行 SQL 并读为列式结果 */
+  @FunctionalInterface
+  interface Runner {
+    Mono<ColumnarResult> run(String sql, Map<String, Object> variables);
+  }
+
+  private final DatabaseAdapterProperties properties;
+  private final JsonNodeFactory nodes;
+  private final Map<Key, Shared> polls = new ConcurrentHashMap<>();
+  private final AtomicLong unchanged = new AtomicLong();
+  private final AtomicLong changed = new AtomicLong();
+
+  PollingSubscriptions(DatabaseAdapterProperties properties, JsonNodeFactory nodes) {
+    this.properties = properties;
+    this.nodes = nodes;
+  }
+
+  Flux<JsonNode> subscribe(
+      String query,
+      Map<String, Object> variables,
+      String sql,
+      PollOptions options,
+      Runner runner) {
+    Duration interval =
+        options.interval() != null ? options.interval() : properties.getPoll().getInterval();
+    if (interval.compareTo(properties.getPoll().getMinInterval()) < 0) {
+      return Flux.error(
+          new IllegalArgumentException(
+              "轮询间隔 " + interval + " 小于下限 " + properties.getPoll().getMinInterval()));
+    }
+    if (options.watermark() != null && orderedOrLimited(sql)) {
+      return Flux.error(
+          new IllegalArgumentException("水位模式的查询不能带顶层 ORDER BY / LIMIT / OFFSET / FETCH: " + sql));
+    }
+    Key key = new Key(query, variables);
+    return Flux.defer(
+        () ->
+            polls
+                .computeIfAbsent(
+                    key,
+                    k -> share(k, new Poll(sql, k.variables(), options, interval, runner), interval))
+                .flux());
+  }
+
+  /** 正在轮询的查询持有的结果，没有订阅或还没有完成首次查询时为 null */
+  ColumnarResult latest(String query, Map<String, Object> variables) {
+    Shared shared = polls.get(new Key(query, variables));
+    return shared == null ? null : shared.poll().state;
+  }
+
+  int size() {
+    return polls.size();
+  }
+
+  long unchanged() {
+    return unchanged.get();
+  }
+
+  long changed() {
+    return changed.get();
+  }
+
+  private Shared share(Key key, Poll poll, Duration interval) {
+    Shared[] holder = new Shared[1];
+    Flux<JsonNode> flux =
+        Mono.defer(poll::poll)
+            .repeatWhen(ticks -> ticks.concatMap(t -> Mono.delay(interval)))
+            .doFinally(signal -> polls.remove(key, holder[0]))
+            // 后来的订阅者立即收到最近一个事件，据此渲染持有的结果
+            .replay(1)
+            .refCount(1, properties.getPoll().getDisconnectGrace());
+    holder[0] = new Shared(flux, poll);
+    return holder[0];
+  }
+
+  /**
+   * SQL 在最外层是否带排序或行数限制。水位模式把新行按水位顺序追加到持有结果的末尾，增量查询也无法保持外层的
+   * LIMIT，这样的查询不能使用水位；括号内（子查询、窗口函数）的不受影响。
+   */
+  static boolean orderedOrLimited(String sql) {
+    int depth = 0;
+    int i = 0;
+    int n = sql.length();
+    while (i < n) {
+      char c = sql.charAt(i);
+      char next = i + 1 < n ? sql.charAt(i + 1) : 0;
+      if (c == '\'' || c == '"' || c == '`') {
+        int end = sql.indexOf(c, i + 1);
+        i = end < 0 ? n : end + 1;
+      } else if (c == '-' && next == '-') {
+        int end = sql.indexOf('\n', i);
+        i = end < 0 ? n : end + 1;
+      } else if (c == '/' && next == '*') {
+        int end = sql.indexOf("*/", i + 2);
+        i = end < 0 ? n : end + 2;
+      } else if (c == '$' && next == '{') {
+        // ${var} 查询变量
+        int end = sql.indexOf('}', i);
+        i = end < 0 ? n : end + 1;
+      } else if (Character.isLetter(c) || c == '_') {
+        int start = i;
+        while (i < n && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) i++;
+        if (depth == 0 && ROW_LIMITING.contains(sql.substring(start, i).toUpperCase(Locale.ROOT))) {
+          return true;
+        }
+      } else {
+        if (c == '(') depth++;
+        if (c == ')') depth--;
+        i++;
+      }
+    }
+    return false;
+  }
+
+  /** 结果内容的哈希，只用于判断两次轮询之间是否有变化 */
+  static long hash(ColumnarResult result) {
+    long hash = result.columnNames().hashCode();
+    for (int c = 0; c < result.columnNames().size(); c++) {
+      Column column = result.column(c);
+      hash = hash * 31 + column.type().ordinal();
+      for (int row = 0; row < column.size(); row++) {
+        hash = hash * 1_000_003 + Objects.hashCode(column.get(row));
+      }
+    }
+    return hash;
+  }
+
+  /** 把 delta 合并进 state：key 不为 null 时 state 中主键相同的行被替换；结果超过 maxRows 时保留最新的行 */
+  static ColumnarResult merge(ColumnarResult state, ColumnarResult delta, String key, int maxRows) {
+    int keyIndex = key == null ? -1 : indexOf(state, key);
+    List<Integer> kept = new ArrayList<>(state.rowCount());
+    if (keyIndex >= 0) {
+      Set<Object> replaced = new HashSet<>();
+      Column deltaKeys = delta.column(indexOf(delta, key));
+      for (int row = 0; row < delta.rowCount(); row++) replaced.add(deltaKeys.get(row));
+      Column stateKeys = state.column(keyIndex);
+      for (int row = 0; row < state.rowCount(); row++) {
+        if (!replaced.contains(stateKeys.get(row))) kept.add(row);
+      }
+    } else {
+      for (int row = 0; row < state.rowCount(); row++) kept.add(row);
+    }
+    int total = kept.size() + delta.rowCount();
+    int skip = maxRows > 0 ? Math.max(0, total - maxRows) : 0;
+    List<Column> columns = new ArrayList<>(state.columnNames().size());
+    for (int c = 0; c < state.columnNames().size(); c++) {
+      Column from = state.column(c);
+      Column added = delta.column(c);
+      Column.Builder builder = Column.builder(from.type(), total - skip);
+      int index = 0;
+      for (int row : kept) {
+        if (index++ >= skip) builder.append(from, row);
+      }
+      for (int row = 0; row < added.size(); row++) {
+        if (index++ >= skip) builder.append(added, row);
+      }
+      columns.add(builder.build());
+    }
+    return new ColumnarResult(state.columnNames(), columns);
+  }
+
+  /** 列中的最大值，转换为可以绑定到 SQL 参数的类型；列为空时返回 null */
+  static Object maxValue(Column column) {
+    int best = -1;
+    for (int row = 0; row < column.size(); row++) {
+      if (column.isNull(row)) continue;
+      if (best < 0 || compare(column, row, best) > 0) best = row;
+    }
+    if (best < 0) return null;
+    return switch (column.type()) {
+      case LONG, DOUBLE, DECIMAL, STRING -> column.get(best);
+      // 保留毫秒以下的精度，否则 col > 水位 每次都会重新读到同一毫秒内的行
+      case TIMESTAMP -> ((Column.Timestamps) column).getTimestamp(best);
+      case DATE -> LocalDate.parse((String) column.get(best));
+      default -> throw new IllegalArgumentException("水位列类型不支持: " + column.type());
+    };
+  }
+
+  private static int compare(Column column, int a, int b) {
+    return switch (column.type()) {
+      case LONG, DOUBLE, DECIMAL -> Double.compare(column.getDouble(a), column.getDouble(b));
+      case TIMESTAMP ->
+          ((Column.Timestamps) column)
+              .getTimestamp(a)
+              .compareTo(((Column.Timestamps) column).getTimestamp(b));
+      case STRING, DATE -> ((String) column.get(a)).compareTo((String) column.get(b));
+      default -> throw new IllegalArgumentException("水位列类型不支持: " + column.type());
+    };
+  }
+
+  // 数据库返回的列名大小写可能与配置不同（如 H2 统一大写）
+  private static int indexOf(ColumnarResult result, String name) {
+    List<String> names = result.columnNames();
+    for (int i = 0; i < names.size(); i++) {
+      if (names.get(i).equalsIgnoreCase(name)) return i;
+    }
+    throw new IllegalArgumentException("查询结果中没有列: " + name);
+  }
+
+  private static boolean sameColumns(ColumnarResult a, ColumnarResult b) {
+    if (!a.columnNames().equals(b.columnNames())) return false;
+    for (int c = 0; c < a.columnNames().size(); c++) {
+      if (a.column(c).type() != b.column(c).type()) return false;
+    }
+    return true;
+  }
+
+  /** 一个共享轮询的状态，只在轮询线程上修改 */
+  private final class Poll {
+    private final String sql;
+    private final String incrementalSql;
+    private final Map<String, Object> variables;
+    private final PollOptions options;
+    private final Duration interval;
+    private final Runner runner;
+    private volatile ColumnarResult state;
+    private boolean loaded;
+    private long hash;
+    private Object watermark;
+
+    Poll(
+        String sql,
+        Map<String, Object> variables,
+        PollOptions options,
+        Duration interval,
+        Runner runner) {
+      this.sql = sql;
+      this.variables = variables;
+      this.options = options;
+      this.interval = interval;
+      this.runner = runner;
+      String column = options.watermark();
+      this.incrementalSql =
+          column == null
+              ? null
+              : "SELECT * FROM ("
+                  + sql
+                  + ") poll_src WHERE poll_src."
+                  + column
+                  + " > ${"
+                  + WATERMARK_VARIABLE
+                  + "} ORDER BY poll_src."
+                  + column;
+    }
+
+    Mono<JsonNode> poll() {
+      // 还没有结果或水位时（如表为空）完整查询
+      boolean full = incrementalSql == null || state == null || watermark == null;
+      Mono<JsonNode> next =
+          full
+              ? runner.run(sql, variables).flatMap(this::onFullResult)
+              : runner.run(incrementalSql, watermarkVariables()).flatMap(this::onDelta);
+      return next.onErrorResume(
+          e -> {
+            // 首次查询失败或调用方错误直接结束订阅，之后的偶发失败等下一次轮询
+            if (!loaded || e instanceof IllegalArgumentException) return Mono.error(e);
+            log.warn("轮询查询失败，{} 后重试: {}", interval, e.toString());
+            return Mono.empty();
+          });
+    }
+
+    private Mono<JsonNode> onFullResult(ColumnarResult result) {
+      long next = hash(result);
+      if (state != null && next == hash) {
+        unchanged.incrementAndGet();
+        return Mono.empty();
+      }
+      if (incrementalSql != null) {
+        watermark = maxValue(result.column(indexOf(result, options.watermark())));
+      }
+      if (loaded) changed.incrementAndGet();
+      loaded = true;
+      state = result;
+      hash = next;
+      return Mono.just(result.toJson(nodes).put(DataSourceAdapter.SNAPSHOT_FIELD, true));
+    }
+
+    private Mono<JsonNode> onDelta(ColumnarResult delta) {
+      if (delta.rowCount() == 0) {
+        unchanged.incrementAndGet();
+        return Mono.empty();
+      }
+      if (!sameColumns(state, delta)) {
+        // 表结构变了，下次重新完整查询
+        state = null;
+        return Mono.empty();
+      }
+      Object deltaMax = maxValue(delta.column(indexOf(delta, options.watermark())));
+      if (deltaMax != null) watermark = deltaMax;
+      state = merge(state, delta, options.key(), properties.getMaxRows());
+      changed.incrementAndGet();
+      return Mono.just(delta.toJson(nodes));
+    }
+
+    private Map<String, Object> watermarkVariables() {
+      Map<String, Object> merged = new HashMap<>(variables);
+      merged.put(WATERMARK_VARIABLE, watermark);
+      return merged;
+    }
+  }
+
+  private record Shared(Flux<JsonNode> flux, Poll poll) {}
+
+  /** variables 为 null 时视为空 Map */
+  private record Key(String query, Map<String, Object> variables) {
+    Key {
+      variables = variables == null ? Map.of() : variables;
+    }
+  }
+}
@@ -2,46 +2,203 @@ package com.roy.anycharts.adapter.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.roy.anycharts.adapter.DataSourceAdapter;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.util.UriBuilderFactory;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+/**
+ * 以 GET 请求读取 JSON 接口。query 是 URI 模板，其中的 {name} 由 params 中的同名变量替换并做 URL 编码，
+ * 缺少变量时报 IllegalArgumentException。
+ *
+ * <p>响应体按字节块流式解析，不先读成完整字符串；executeBatches 只保留 items 行并分批返回。响应带 ETag 或
+ * Last-Modified 时缓存解析结果，下次请求同一 URI 时带上 If-None-Match / If-Modified-Since，收到 304 直接复用。
+ *
+ * <p>subscribe 连接 text/event-stream 或 application/x-ndjson 接口，每个事件作为一个 JsonNode 推送；
+ * 订阅期间对同一 URI 的 execute 返回最近一个事件。
+ */
 public class RestAdapter implements DataSourceAdapter {
   private final WebClient client;
-  private final ObjectMapper mapper = new ObjectMapper();
+  private final ObjectMapper mapper;
+  private final RestAdapterProperties properties;
+  private final UriBuilderFactory uriFactory = new DefaultUriBuilderFactory();
+  private final Cache<CacheKey, CachedResponse> conditionalCache;
+  private final AtomicLong notModified = new AtomicLong();
+  private final AtomicLong fullResponses = new AtomicLong();
+  private final RestEventStreams streams;
 
-  public RestAdapter(WebClient webClient) {
+  public RestAdapter(WebClient webClient, ObjectMapper mapper, RestAdapterProperties properties) {
     this.client = webClient;
+    this.mapper = mapper;
+    this.properties = properties;
+    this.streams = new RestEventStreams(webClient, mapper, properties);
+    RestAdapterProperties.ConditionalCache cache = properties.getConditionalCache();
+    this.conditionalCache =
+        cache.isEnabled()
+            ? Caffeine.newBuilder()
+                .maximumWeight(cache.getMaxSize().toBytes())
+                .<CacheKey, CachedResponse>weigher((key, value) -> value.weight())
+                .build()
+            : null;
   }
 
   @Override
   public Mono<JsonNode> execute(String query, Map<String, Object> params) {
-    // query 作为 URL 模板（简化示例），params 可用于拼接
-    return client
-        .get()
-        .uri(query)
-        .retrieve()
-        .bodyToMono(String.class)
-        .handle(
-            (s, sink) -> {
-              try {
-                sink.next(mapper.readTree(s));
-              } catch (Exception e) {
-                sink.error(new RuntimeException(e));
-              }
-            });
+    return fetch(query, params, false).singleOrEmpty();
   }
 
+  @Override
+  public Flux<JsonNode> executeBatches(String query, Map<String, Object> params) {
+    return fetch(query, params, true);
+  }
+
+  /** 订阅 SSE / NDJSON 接口，同一 URI 的订阅共享一条上游连接，见 {@link RestEventStreams} */
   @Override
   public Flux<JsonNode> subscribe(String query, Map<String, Object> params) {
-    // RestAdapter 不支持流式，返回 empty
-    return Flux.empty();
+    return Flux.defer(
+        () -> streams.subscribe(uriFactory.expand(query, params == null ? Map.of() : params)));
   }
 
   @Override
   public String id() {
     return "rest-adapter";
   }
+
+  /** 当前连接中的共享订阅数 */
+  public int activeStreams() {
+    return streams.size();
+  }
+
+  /** 共享订阅建立上游连接的次数，包括重连 */
+  public long streamConnects() {
+    return streams.connects();
+  }
+
+  /** 共享订阅收到的事件数 */
+  public long streamEvents() {
+    return streams.events();
+  }
+
+  /** 收到 304、复用缓存结果的请求数 */
+  public long notModified() {
+    return notModified.get();
+  }
+
+  /** 读取并解析了完整响应体的请求数 */
+  public long fullResponses() {
+    return fullResponses.get();
+  }
+
+  private Flux<JsonNode> fetch(String query, Map<String, Object> params, boolean batches) {
+    return Flux.defer(
+        () -> {
+          URI uri = uriFactory.expand(query, params == null ? Map.of() : params);
+          JsonNode latest = streams.latest(uri);
+          if (latest != null) {
+            JsonNode items = latest.get("items");
+            if (!batches) return Flux.just(latest);
+            return items != null && items.isArray() ? Flux.just(items) : Flux.empty();
+          }
+          CacheKey key = new CacheKey(uri, batches);
+          CachedResponse cached =
+              conditionalCache == null ? null : conditionalCache.getIfPresent(key);
+          return client
+              .get()
+              .uri(uri)
+              .headers(headers -> conditionalHeaders(headers, cached))
+              .exchangeToFlux(
+                  response -> {
+                    if (response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()
+                        && cached != null) {
+                      notModified.incrementAndGet();
+                      return response.releaseBody().thenMany(Flux.fromIterable(cached.result()));
+                    }
+                    if (response.statusCode().isError()) {
+                      return response.<JsonNode>createError().flux();
+                    }
+                    fullResponses.incrementAndGet();
+                    return decode(response, key, batches);
+                  });
+        });
+  }
+
+  private static void conditionalHeaders(HttpHeaders headers, CachedResponse cached) {
+    if (cached == null) return;
+    if (cached.etag() != null) headers.setIfNoneMatch(cached.etag());
+    if (cached.lastModified() != null) {
+      headers.set(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified());
+    }
+  }
+
+  private Flux<JsonNode> decode(ClientResponse response, CacheKey key, boolean batches) {
+    long maxBytes = properties.getMaxResponseSize().toBytes();
+    if (maxBytes > 0 && response.headers().contentLength().orElse(0) > maxBytes) {
+      return response
+          .releaseBody()
+          .thenMany(Flux.error(new DataBufferLimitException("响应体超过上限 " + maxBytes + " 字节")));
+    }
+    StreamingJsonDecoder decoder =
+        batches
+            ? StreamingJsonDecoder.batches(mapper, maxBytes, properties.getBatchSize())
+            : StreamingJsonDecoder.tree(mapper, maxBytes);
+    Flux<JsonNode> decoded =
+        response
+            .bodyToFlux(DataBuffer.class)
+            .concatMapIterable(decoder::feed)
+            .concatWith(Flux.defer(() -> Flux.fromIterable(decoder.finish())))
+            .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+
+    HttpHeaders headers = response.headers().asHttpHeaders();
+    String etag = headers.getETag();
+    String lastModified = headers.getFirst(HttpHeaders.LAST_MODIFIED);
+    String cacheControl = headers.getCacheControl();
+    boolean cacheable =
+        conditionalCache != null
+            && (etag != null || lastModified != null)
+            && (cacheControl == null || !cacheControl.contains("no-store"));
+    if (!cacheable) {
+      if (conditionalCache != null) conditionalCache.invalidate(key);
+      return decoded;
+    }
+    // 边转发边收集，响应体超过单条上限后放弃缓存
+    long maxEntryBytes = properties.getConditionalCache().getMaxEntrySize().toBytes();
+    List<JsonNode> collected = new ArrayList<>();
+    return decoded
+        .doOnNext(
+            node -> {
+              if (decoder.bytesRead() <= maxEntryBytes) collected.add(node);
+            })
+        .doOnComplete(
+            () -> {
+              if (decoder.bytesRead() <= maxEntryBytes) {
+                conditionalCache.put(
+                    key,
+                    new CachedResponse(
+                        etag, lastModified, List.copyOf(collected), (int) decoder.bytesRead()));
+              } else {
+                conditionalCache.invalidate(key);
+              }
+            });
+  }
+
+  private record CacheKey(URI uri, boolean batches) {}
+
+  // weight 为原始响应体字节数，解析后的树通常更大，但与之成正比
+  private record CachedResponse(
+      String etag, String lastModified, List<JsonNode> result, int weight) {}
 }
@@ -0,0 +1,55 @@
+package com.roy.anycharts.adapter.impl;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "anycharts.adapter.rest")
+public class RestAdapterProperties {
+  // 连接池：每个目标地址的最大连接数
+  private int maxConnections = 50;
+  // 等待空闲连接的请求数上限和最长等待时间，超出时立即失败
+  private int pendingAcquireMaxCount = 200;
+  private Duration pendingAcquireTimeout = Duration.ofSeconds(10);
+  // 空闲连接保留时长和连接最长存活时间
+  private Duration maxIdleTime = Duration.ofSeconds(30);
+  private Duration maxLifeTime = Duration.ofMinutes(5);
+  // 后台清理过期连接的间隔，0 表示只在取连接时检查
+  private Duration evictInterval = Duration.ofSeconds(60);
+  // HTTP keep-alive，关闭后每个请求新建连接
+  private boolean keepAlive = true;
+  private Duration connectTimeout = Duration.ofSeconds(5);
+  // 等待响应的超时时间，0 表示不限
+  private Duration responseTimeout = Duration.ofSeconds(30);
+  // 单个响应体的最大字节数，超出时中止读取
+  private DataSize maxResponseSize = DataSize.ofMegabytes(16);
+  // 流式返回时每批包含的 items 行数
+  private int batchSize = 500;
+  private ConditionalCache conditionalCache = new ConditionalCache();
+  private Stream stream = new Stream();
+
+  @Data
+  public static class ConditionalCache {
+    // 按 ETag / Last-Modified 发送条件请求，304 时复用上次的结果
+    private boolean enabled = true;
+    // 缓存结果按响应体字节数计算的总上限
+    private DataSize maxSize = DataSize.ofMegabytes(32);
+    // 响应体超过该值的结果不缓存
+    private DataSize maxEntrySize = DataSize.ofMegabytes(2);
+  }
+
+  @Data
+  public static class Stream {
+    // 连接出错后的重连退避：从 initialBackoff 开始指数增长，不超过 maxBackoff；收到事件后重新计数
+    private Duration initialBackoff = Duration.ofSeconds(1);
+    private Duration maxBackoff = Duration.ofSeconds(30);
+    // 上游正常结束后的重连间隔，SSE 的 retry 字段会覆盖该值
+    private Duration reconnectDelay = Duration.ofSeconds(1);
+    // 超过该时长没有收到任何数据（包括 SSE 注释心跳）时断开重连，0 表示不限
+    private Duration idleTimeout = Duration.ofMinutes(5);
+    // 最后一个订阅者取消后保持上游连接的时长，期间重新订阅直接复用
+    private Duration disconnectGrace = Duration.ofSeconds(5);
+  }
+}
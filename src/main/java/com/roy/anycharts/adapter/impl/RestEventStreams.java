@@ -0,0 +1,207 @@
+package com.roy.anycharts.adapter.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClientRequest;
+import reactor.util.retry.Retry;
+
+/**
+ * RestAdapter 的长连接订阅：text/event-stream（SSE）和 application/x-ndjson。
+ *
+ * <p>同一 URI 的订阅共享一条上游连接，最后一个订阅者取消并经过 disconnectGrace 后才断开。连接出错时按指数退避
+ * 重连，上游正常结束时按 reconnectDelay（或 SSE 的 retry 字段）重连；SSE 重连时带上最后收到的事件 ID
+ * （Last-Event-ID）。4xx 响应（408、429 除外）和不支持的响应类型不重连，直接把错误交给订阅者。
+ *
+ * <p>每条共享连接记住最近一个事件，连接存在期间同一 URI 的 execute 直接返回它，流式 binding 渲染时读到的
+ * 就是推送来的数据，而不会再对流式接口发起普通请求。
+ */
+@Slf4j
+final class RestEventStreams {
+  private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE =
+      new ParameterizedTypeReference<>() {};
+
+  private final WebClient client;
+  private final ObjectMapper mapper;
+  private final RestAdapterProperties properties;
+  private final Map<URI, Shared> streams = new ConcurrentHashMap<>();
+  private final AtomicLong connects = new AtomicLong();
+  private final AtomicLong events = new AtomicLong();
+
+  RestEventStreams(WebClient client, ObjectMapper mapper, RestAdapterProperties properties) {
+    this.client = client;
+    this.mapper = mapper;
+    this.properties = properties;
+  }
+
+  Flux<JsonNode> subscribe(URI uri) {
+    return Flux.defer(() -> streams.computeIfAbsent(uri, this::share).flux());
+  }
+
+  /** uri 对应的共享连接最近收到的事件，没有连接或还没有收到事件时为 null */
+  JsonNode latest(URI uri) {
+    Shared shared = streams.get(uri);
+    return shared == null ? null : shared.connection().latest;
+  }
+
+  int size() {
+    return streams.size();
+  }
+
+  long connects() {
+    return connects.get();
+  }
+
+  long events() {
+    return events.get();
+  }
+
+  private Shared share(URI uri) {
+    RestAdapterProperties.Stream config = properties.getStream();
+    Connection connection = new Connection(uri);
+    Shared[] holder = new Shared[1];
+    Flux<JsonNode> flux =
+        Flux.defer(connection::connect)
+            .repeatWhen(
+                completions -> completions.concatMap(c -> Mono.delay(connection.reconnectDelay())))
+            .retryWhen(
+                Retry.backoff(Long.MAX_VALUE, config.getInitialBackoff())
+                    .maxBackoff(config.getMaxBackoff())
+                    // 收到事件后重新从 initialBackoff 开始计算
+                    .transientErrors(true)
+                    .filter(RestEventStreams::isRetryable)
+                    .doBeforeRetry(
+                        signal ->
+                            log.warn(
+                                "REST 订阅 {} 断开，第 {} 次重连: {}",
+                                uri,
+                                signal.totalRetriesInARow() + 1,
+                                signal.failure().toString())))
+            .doFinally(signal -> streams.remove(uri, holder[0]))
+            .publish()
+            .refCount(1, config.getDisconnectGrace());
+    holder[0] = new Shared(flux, connection);
+    return holder[0];
+  }
+
+  private static boolean isRetryable(Throwable e) {
+    if (e instanceof WebClientResponseException response) {
+      int status = response.getStatusCode().value();
+      return !response.getStatusCode().is4xxClientError()
+          || status == HttpStatus.REQUEST_TIMEOUT.value()
+          || status == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+    return !(e instanceof IllegalArgumentException || e instanceof UnsupportedOperationException);
+  }
+
+  private record Shared(Flux<JsonNode> flux, Connection connection) {}
+
+  /** 一个共享订阅的连接状态，跨重连保留最后的事件 ID 和服务端指定的重连间隔 */
+  private final class Connection {
+    private final URI uri;
+    private volatile String lastEventId;
+    private volatile Duration retry;
+    private volatile JsonNode latest;
+
+    Connection(URI uri) {
+      this.uri = uri;
+    }
+
+    Duration reconnectDelay() {
+      return retry != null ? retry : properties.getStream().getReconnectDelay();
+    }
+
+    Flux<JsonNode> connect() {
+      Duration idleTimeout = properties.getStream().getIdleTimeout();
+      return client
+          .get()
+          .uri(uri)
+          .accept(MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_NDJSON)
+          .headers(
+              headers -> {
+                if (lastEventId != null) headers.set("Last-Event-ID", lastEventId);
+              })
+          .httpRequest(
+              request -> {
+                // 长连接不适用全局的 responseTimeout，改为按空闲时长断开
+                if (request.getNativeRequest() instanceof HttpClientRequest nativeRequest) {
+                  nativeRequest.responseTimeout(idleTimeout.isZero() ? null : idleTimeout);
+                }
+              })
+          .exchangeToFlux(this::decode)
+          .doOnSubscribe(s -> connects.incrementAndGet());
+    }
+
+    private Flux<JsonNode> decode(ClientResponse response) {
+      if (response.statusCode().isError()) {
+        return response.<JsonNode>createError().flux();
+      }
+      MediaType type = response.headers().contentType().orElse(null);
+      if (type != null && MediaType.TEXT_EVENT_STREAM.isCompatibleWith(type)) {
+        log.debug("REST 订阅 {} 已连接（SSE）", uri);
+        return response.bodyToFlux(SSE).concatMapIterable(this::onEvent);
+      }
+      if (type != null && MediaType.APPLICATION_NDJSON.isCompatibleWith(type)) {
+        log.debug("REST 订阅 {} 已连接（NDJSON）", uri);
+        StreamingJsonDecoder decoder =
+            StreamingJsonDecoder.values(mapper, properties.getMaxResponseSize().toBytes());
+        return response
+            .bodyToFlux(DataBuffer.class)
+            .concatMapIterable(decoder::feed)
+            .concatWith(Flux.defer(() -> Flux.fromIterable(decoder.finish())))
+            .doOnNext(this::onValue)
+            .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+      }
+      return response
+          .releaseBody()
+          .thenMany(
+              Flux.error(
+                  new UnsupportedOperationException(
+                      "REST 订阅 "
+                          + uri
+                          + " 的响应类型 "
+                          + type
+                          + " 不是 text/event-stream 或 application/x-ndjson")));
+    }
+
+    // 注释（心跳）和没有 data 的事件不向下游发送
+    private Iterable<JsonNode> onEvent(ServerSentEvent<String> event) {
+      if (event.id() != null) lastEventId = event.id();
+      if (event.retry() != null) retry = event.retry();
+      String data = event.data();
+      if (data == null || data.isEmpty()) return List.of();
+      JsonNode value;
+      try {
+        value = mapper.readTree(data);
+      } catch (Exception e) {
+        // data 不是 JSON 时按文本传递
+        value = mapper.getNodeFactory().textNode(data);
+      }
+      onValue(value);
+      return List.of(value);
+    }
+
+    // 先记录再向下游发送，事件触发的渲染能读到它
+    private void onValue(JsonNode value) {
+      events.incrementAndGet();
+      latest = value;
+    }
+  }
+}
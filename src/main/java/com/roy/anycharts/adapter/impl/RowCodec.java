@@ -0,0 +1,247 @@
+package com.roy.anycharts.adapter.impl;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.roy.anycharts.adapter.Column;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 每个查询根据 ResultSetMetaData 计算一次的列编解码器，逐行读取时不再查询列名和列类型。
+ *
+ * <p>可以逐行读为 JSON 行，也可以追加到列式结果的 {@link Column.Builder}。两种方式的类型处理一致：DECIMAL
+ * 保留为 BigDecimal，时间戳输出为 ISO-8601 本地时间，不再统一 toString。
+ */
+final class RowCodec {
+  private final String[] names;
+  private final ColumnReader[] readers;
+  private final Column.Type[] types;
+  // REAL 列按 float 读取
+  private final boolean[] realColumns;
+
+  private RowCodec(
+      String[] names, ColumnReader[] readers, Column.Type[] types, boolean[] realColumns) {
+    this.names = names;
+    this.readers = readers;
+    this.types = types;
+    this.realColumns = realColumns;
+  }
+
+  static RowCodec of(ResultSetMetaData metaData) throws SQLException {
+    int columnCount = metaData.getColumnCount();
+    String[] names = new String[columnCount];
+    ColumnReader[] readers = new ColumnReader[columnCount];
+    Column.Type[] types = new Column.Type[columnCount];
+    boolean[] realColumns = new boolean[columnCount];
+    for (int i = 0; i < columnCount; i++) {
+      names[i] = metaData.getColumnName(i + 1);
+      int sqlType = metaData.getColumnType(i + 1);
+      readers[i] = readerFor(sqlType);
+      types[i] = columnTypeFor(sqlType);
+      realColumns[i] = sqlType == Types.REAL;
+    }
+    return new RowCodec(names, readers, types, realColumns);
+  }
+
+  int columnCount() {
+    return names.length;
+  }
+
+  String columnName(int index) {
+    return names[index];
+  }
+
+  ObjectNode read(ResultSet rs, ObjectNode row) throws SQLException {
+    for (int i = 0; i < names.length; i++) {
+      readers[i].read(rs, i + 1, names[i], row);
+    }
+    return row;
+  }
+
+  Column.Builder[] newBuilders(int expectedRows) {
+    Column.Builder[] builders = new Column.Builder[types.length];
+    for (int i = 0; i < types.length; i++) {
+      builders[i] = Column.builder(types[i], expectedRows);
+    }
+    return builders;
+  }
+
+  /** 把当前行追加到各列 */
+  void append(ResultSet rs, Column.Builder[] builders) throws SQLException {
+    for (int i = 0; i < types.length; i++) {
+      int index = i + 1;
+      Column.Builder builder = builders[i];
+      switch (types[i]) {
+        case LONG -> {
+          long value = rs.getLong(index);
+          if (rs.wasNull()) builder.appendNull();
+          else builder.appendLong(value);
+        }
+        case DOUBLE -> {
+          double value = realColumns[i] ? widen(rs.getFloat(index)) : rs.getDouble(index);
+          if (rs.wasNull()) builder.appendNull();
+          else builder.appendDouble(value);
+        }
+        case BOOLEAN -> {
+          boolean value = rs.getBoolean(index);
+          if (rs.wasNull()) builder.appendNull();
+          else builder.appendBoolean(value);
+        }
+        case DECIMAL -> builder.appendObject(rs.getBigDecimal(index));
+        case STRING -> builder.appendString(rs.getString(index));
+        case TIMESTAMP -> {
+          Timestamp value = rs.getTimestamp(index);
+          if (value == null) builder.appendNull();
+          else builder.appendTimestamp(value.toLocalDateTime());
+        }
+        case DATE -> {
+          Date value = rs.getDate(index);
+          if (value == null) builder.appendNull();
+          else builder.appendLong(value.toLocalDate().toEpochDay());
+        }
+        case OBJECT -> builder.appendObject(plain(rs.getObject(index)));
+      }
+    }
+  }
+
+  private static Column.Type columnTypeFor(int sqlType) {
+    return switch (sqlType) {
+      case Types.INTEGER, Types.SMALLINT, Types.TINYINT, Types.BIGINT -> Column.Type.LONG;
+      case Types.DOUBLE, Types.FLOAT, Types.REAL -> Column.Type.DOUBLE;
+      case Types.DECIMAL, Types.NUMERIC -> Column.Type.DECIMAL;
+      case Types.BOOLEAN, Types.BIT -> Column.Type.BOOLEAN;
+      case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR,
+          Types.LONGNVARCHAR -> Column.Type.STRING;
+      case Types.TIMESTAMP -> Column.Type.TIMESTAMP;
+      case Types.DATE -> Column.Type.DATE;
+      default -> Column.Type.OBJECT;
+    };
+  }
+
+  private static ColumnReader readerFor(int sqlType) {
+    return switch (sqlType) {
+      case Types.INTEGER, Types.SMALLINT, Types.TINYINT -> (rs, index, name, row) -> {
+        int value = rs.getInt(index);
+        if (rs.wasNull()) {
+          row.putNull(name);
+        } else {
+          row.put(name, value);
+        }
+      };
+      case Types.BIGINT -> (rs, index, name, row) -> {
+        long value = rs.getLong(index);
+        if (rs.wasNull()) {
+          row.putNull(name);
+        } else {
+          row.put(name, value);
+        }
+      };
+      case Types.DOUBLE, Types.FLOAT -> (rs, index, name, row) -> {
+        double value = rs.getDouble(index);
+        if (rs.wasNull()) {
+          row.putNull(name);
+        } else {
+          row.put(name, value);
+        }
+      };
+      case Types.REAL -> (rs, index, name, row) -> {
+        double value = widen(rs.getFloat(index));
+        if (rs.wasNull()) {
+          row.putNull(name);
+        } else {
+          row.put(name, value);
+        }
+      };
+      case Types.DECIMAL, Types.NUMERIC -> (rs, index, name, row) -> {
+        BigDecimal value = rs.getBigDecimal(index);
+        if (value == null) {
+          row.putNull(name);
+        } else {
+          row.put(name, value);
+        }
+      };
+      case Types.BOOLEAN, Types.BIT -> (rs, index, name, row) -> {
+        boolean value = rs.getBoolean(index);
+        if (rs.wasNull()) {
+          row.putNull(name);
+        } else {
+          row.put(name, value);
+        }
+      };
+      case Types.TIMESTAMP -> (rs, index, name, row) -> {
+        Timestamp value = rs.getTimestamp(index);
+        if (value == null) {
+          row.putNull(name);
+        } else {
+          row.put(name, format(value.toLocalDateTime()));
+        }
+      };
+      default -> RowCodec::readObject;
+    };
+  }
+
+  private static void readObject(ResultSet rs, int index, String name, ObjectNode row)
+      throws SQLException {
+    Object value = plain(rs.getObject(index));
+    if (value == null) {
+      row.putNull(name);
+    } else if (value instanceof Integer i) {
+      row.put(name, i);
+    } else if (value instanceof Long l) {
+      row.put(name, l);
+    } else if (value instanceof Double d) {
+      row.put(name, d);
+    } else if (value instanceof BigDecimal d) {
+      row.put(name, d);
+    } else if (value instanceof BigInteger i) {
+      row.put(name, i);
+    } else if (value instanceof Boolean b) {
+      row.put(name, b);
+    } else {
+      row.put(name, value.toString());
+    }
+  }
+
+  // 数值和布尔值保持原类型（Float 等统一为 Integer / Long / Double），时间转为 ISO-8601，其它转为字符串
+  private static Object plain(Object value) {
+    if (value == null || value instanceof Integer || value instanceof Long
+        || value instanceof Double || value instanceof BigDecimal || value instanceof BigInteger
+        || value instanceof Boolean || value instanceof String) {
+      return value;
+    }
+    if (value instanceof Short || value instanceof Byte) {
+      return ((Number) value).intValue();
+    }
+    if (value instanceof Float f) {
+      return widen(f);
+    }
+    if (value instanceof Timestamp ts) {
+      return format(ts.toLocalDateTime());
+    }
+    if (value instanceof LocalDateTime ldt) {
+      return format(ldt);
+    }
+    return value.toString();
+  }
+
+  // 按十进制表示转换，避免 0.1f 变成 0.10000000149011612
+  private static double widen(float value) {
+    return Double.parseDouble(Float.toString(value));
+  }
+
+  private static String format(LocalDateTime value) {
+    return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value);
+  }
+
+  @FunctionalInterface
+  private interface ColumnReader {
+    void read(ResultSet rs, int index, String name, ObjectNode row) throws SQLException;
+  }
+}
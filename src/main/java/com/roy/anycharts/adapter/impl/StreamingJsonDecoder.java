@@ -0,0 +1,229 @@
+package com.roy.anycharts.adapter.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ContainerNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+/**
+ * 用 Jackson 非阻塞解析器把响应体的字节块直接解析为 JSON 树，不先拼成完整的字符串。
+ *
+ * <p>批量模式只保留顶层对象的 items 数组，每凑满 batchSize 行输出一批，其余字段边读边丢弃，与
+ * {@link com.roy.anycharts.adapter.DataSourceAdapter#executeBatches} 的默认语义一致。
+ * 序列模式用于 NDJSON 等连续输出多个 JSON 值的流，每个顶层值解析完成后立即输出。
+ * 实例只能用于一个响应，且不是线程安全的。
+ */
+final class StreamingJsonDecoder {
+  private final JsonParser parser;
+  private final ByteArrayFeeder feeder;
+  private final JsonNodeFactory nodes;
+  private final boolean bigDecimalFloats;
+  // 序列模式下为单个值的上限，其它模式为整个响应体的上限
+  private final long maxBytes;
+  private final Mode mode;
+  private final int batchSize;
+  private final Deque<Frame> stack = new ArrayDeque<>();
+  private final List<JsonNode> ready = new ArrayList<>();
+  private String fieldName;
+  private JsonNode root;
+  private Frame items;
+  private int skipDepth;
+  private long bytesRead;
+  // 序列模式下自上一个值结束以来读入的字节数
+  private long pendingBytes;
+
+  private StreamingJsonDecoder(ObjectMapper mapper, long maxBytes, Mode mode, int batchSize) {
+    try {
+      this.parser = mapper.getFactory().createNonBlockingByteArrayParser();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    this.nodes = mapper.getNodeFactory();
+    this.bigDecimalFloats = mapper.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    this.maxBytes = maxBytes;
+    this.mode = mode;
+    this.batchSize = batchSize;
+  }
+
+  /** 解析完整的结果树，maxBytes 为 0 时不限制大小 */
+  static StreamingJsonDecoder tree(ObjectMapper mapper, long maxBytes) {
+    return new StreamingJsonDecoder(mapper, maxBytes, Mode.TREE, 0);
+  }
+
+  /** 只解析 items 行，按 batchSize 分批 */
+  static StreamingJsonDecoder batches(ObjectMapper mapper, long maxBytes, int batchSize) {
+    return new StreamingJsonDecoder(mapper, maxBytes, Mode.BATCHES, Math.max(1, batchSize));
+  }
+
+  /** 逐个输出顶层 JSON 值，maxBytes 限制单个值的大小 */
+  static StreamingJsonDecoder values(ObjectMapper mapper, long maxBytes) {
+    return new StreamingJsonDecoder(mapper, maxBytes, Mode.VALUES, 0);
+  }
+
+  /** 读入一个字节块并释放它，返回这个字节块凑满的批次或解析完成的值（树模式下总是为空） */
+  List<JsonNode> feed(DataBuffer buffer) {
+    try {
+      int length = buffer.readableByteCount();
+      bytesRead += length;
+      pendingBytes += length;
+      if (maxBytes > 0 && (mode == Mode.VALUES ? pendingBytes : bytesRead) > maxBytes) {
+        throw new DataBufferLimitException("响应体超过上限 " + maxBytes + " 字节");
+      }
+      byte[] bytes = new byte[length];
+      buffer.read(bytes);
+      feeder.feedInput(bytes, 0, length);
+      return drain();
+    } catch (IOException e) {
+      throw new DecodingException("JSON 解析失败: " + e.getMessage(), e);
+    } finally {
+      DataBufferUtils.release(buffer);
+    }
+  }
+
+  /**
+   * 响应体读完，返回剩余的结果：树模式为完整结果树，批量模式为最后不满一批的行，序列模式为最后一个值；
+   * 空响应体返回空列表
+   */
+  List<JsonNode> finish() {
+    feeder.endOfInput();
+    List<JsonNode> out = new ArrayList<>(drain());
+    if (!stack.isEmpty() || skipDepth > 0) {
+      throw new DecodingException("JSON 响应体不完整");
+    }
+    if (mode == Mode.TREE) {
+      if (root != null) out.add(root);
+    } else if (mode == Mode.BATCHES && items != null && !items.node().isEmpty()) {
+      out.add(items.node());
+    }
+    return out;
+  }
+
+  long bytesRead() {
+    return bytesRead;
+  }
+
+  private List<JsonNode> drain() {
+    ready.clear();
+    try {
+      JsonToken token;
+      while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+        onToken(token);
+      }
+    } catch (IOException e) {
+      throw new DecodingException("JSON 解析失败: " + e.getMessage(), e);
+    }
+    return ready.isEmpty() ? List.of() : List.copyOf(ready);
+  }
+
+  private void onToken(JsonToken token) throws IOException {
+    if (skipDepth > 0) {
+      if (token.isStructStart()) skipDepth++;
+      else if (token.isStructEnd()) skipDepth--;
+      return;
+    }
+    switch (token) {
+      case FIELD_NAME -> fieldName = parser.currentName();
+      case START_OBJECT, START_ARRAY -> {
+        if (mode == Mode.BATCHES && stack.size() < 2) {
+          boolean rootObject = stack.isEmpty() && token == JsonToken.START_OBJECT;
+          boolean itemsArray =
+              stack.size() == 1 && token == JsonToken.START_ARRAY && "items".equals(fieldName);
+          if (itemsArray) {
+            items = new Frame(nodes.arrayNode(), fieldName);
+            stack.push(items);
+            return;
+          }
+          if (!rootObject) {
+            // 批量模式下 items 以外的子树不需要保留
+            skipDepth = 1;
+            return;
+          }
+        }
+        ContainerNode<?> node =
+            token == JsonToken.START_OBJECT ? nodes.objectNode() : nodes.arrayNode();
+        stack.push(new Frame(node, fieldName));
+      }
+      case END_OBJECT, END_ARRAY -> {
+        Frame frame = stack.pop();
+        fieldName = frame.field();
+        if (frame == items) {
+          return;
+        }
+        add(frame.node());
+      }
+      case VALUE_STRING -> add(nodes.textNode(parser.getText()));
+      case VALUE_NUMBER_INT -> add(intNode());
+      case VALUE_NUMBER_FLOAT ->
+          add(
+              bigDecimalFloats
+                  ? nodes.numberNode(parser.getDecimalValue())
+                  : nodes.numberNode(parser.getDoubleValue()));
+      case VALUE_TRUE -> add(nodes.booleanNode(true));
+      case VALUE_FALSE -> add(nodes.booleanNode(false));
+      case VALUE_NULL -> add(nodes.nullNode());
+      default -> {}
+    }
+  }
+
+  private JsonNode intNode() throws IOException {
+    return switch (parser.getNumberType()) {
+      case INT -> nodes.numberNode(parser.getIntValue());
+      case LONG -> nodes.numberNode(parser.getLongValue());
+      default -> nodes.numberNode(parser.getBigIntegerValue());
+    };
+  }
+
+  private void add(JsonNode value) {
+    if (mode == Mode.BATCHES && stack.size() < 2) {
+      // 批量模式下顶层对象本身和它的标量字段直接丢弃
+      return;
+    }
+    if (stack.isEmpty()) {
+      if (mode == Mode.VALUES) {
+        ready.add(value);
+        pendingBytes = 0;
+      } else {
+        root = value;
+      }
+      return;
+    }
+    Frame top = stack.peek();
+    if (top.node() instanceof ObjectNode object) {
+      object.set(fieldName, value);
+    } else {
+      ArrayNode array = (ArrayNode) top.node();
+      array.add(value);
+      if (top == items && array.size() >= batchSize) {
+        ready.add(array);
+        items = new Frame(nodes.arrayNode(), items.field());
+        stack.pop();
+        stack.push(items);
+      }
+    }
+  }
+
+  private enum Mode {
+    TREE,
+    BATCHES,
+    VALUES
+  }
+
+  // field 为该容器在父对象中的字段名，父容器是数组时无意义
+  private record Frame(ContainerNode<?> node, String field) {}
+}
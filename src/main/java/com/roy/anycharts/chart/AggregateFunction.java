@@ -0,0 +1,16 @@
+package com.roy.anycharts.chart;
+
+/** stream binding 窗口聚合的函数，见 {@link WindowAggregator} */
+public enum AggregateFunction {
+  SUM,
+  /** 平均值 */
+  AVG,
+  MIN,
+  MAX,
+  /** 窗口内含该字段的行数 */
+  COUNT,
+  /** 窗口内的和除以窗口实际覆盖的秒数，即每秒的量；每行值为 1 时就是每秒事件数 */
+  RATE,
+  /** 窗口内最后到达的值 */
+  LAST
+}
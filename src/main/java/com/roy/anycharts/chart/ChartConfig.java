@@ -2,28 +2,44 @@ package com.roy.anycharts.chart;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
 
-@Setter
+/**
+ * 图表配置。实例会被 {@link ChartConfigStore} 缓存并在并发渲染之间共享，创建后不可修改：binding 本身不可修改，
+ * optionTemplate 在创建和读取时都复制一份。
+ */
 @Getter
-@NoArgsConstructor
 public class ChartConfig {
-  private String id;
-  private String title;
-  private String chartType; // bar, line, pie, scatter, area, etc.
-  private JsonNode optionTemplate;
-  private LocalDateTime createdAt;
-  private List<DataSourceBinding> bindings = new ArrayList<>();
+  private final String id;
+  private final String title;
+  private final String chartType; // bar, line, pie, scatter, area, etc.
+  @Getter(AccessLevel.NONE)
+  private final JsonNode optionTemplate;
+  private final LocalDateTime createdAt;
+  private final List<DataSourceBinding> bindings;
+  // 创建时编译一次，渲染时直接填充占位符
+  private final OptionTemplate compiledTemplate;
 
-  public ChartConfig(String id, String title, String chartType, JsonNode optionTemplate) {
+  public ChartConfig(
+      String id,
+      String title,
+      String chartType,
+      JsonNode optionTemplate,
+      LocalDateTime createdAt,
+      List<DataSourceBinding> bindings) {
     this.id = id;
     this.title = title;
     this.chartType = chartType;
-    this.optionTemplate = optionTemplate;
-    this.createdAt = LocalDateTime.now();
+    this.optionTemplate = optionTemplate != null ? optionTemplate.deepCopy() : null;
+    this.createdAt = createdAt != null ? createdAt : LocalDateTime.now();
+    this.bindings = List.copyOf(bindings);
+    this.compiledTemplate = optionTemplate != null ? OptionTemplate.compile(optionTemplate) : null;
+  }
+
+  /** 返回模板的副本，修改它不影响缓存的配置 */
+  public JsonNode getOptionTemplate() {
+    return optionTemplate != null ? optionTemplate.deepCopy() : null;
   }
 }
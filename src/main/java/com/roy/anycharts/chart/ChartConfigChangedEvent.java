@@ -0,0 +1,6 @@
+package com.roy.anycharts.chart;
+
+/**
+ * 图表配置被保存或删除时发布，用于让渲染缓存等派生状态失效。
+ */
+public record ChartConfigChangedEvent(String chartId, boolean deleted) {}
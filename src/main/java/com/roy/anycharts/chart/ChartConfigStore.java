@@ -6,68 +6,158 @@ import com.roy.anycharts.chart.entity.ChartConfigEntity;
 import com.roy.anycharts.chart.entity.DataSourceBindingEntity;
 import com.roy.anycharts.chart.repository.ChartConfigRepository;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+/**
+ * 图表配置存储，带进程内读穿透缓存。
+ *
+ * <p>缓存中保存已解析好的不可变 {@link ChartConfig}：启动完成后整体预热，未命中时按 ID 从数据库加载，
+ * save/delete 在事务提交之后更新，回滚的修改不会进入缓存。渲染路径上不再访问 JPA，也不再重复解析 optionTemplate。
+ */
+@Slf4j
 @Component
 public class ChartConfigStore {
   private final ChartConfigRepository repository;
+  private final ApplicationEventPublisher eventPublisher;
   private final ObjectMapper objectMapper = new ObjectMapper();
+  private final Map<String, ChartConfig> cache = new ConcurrentHashMap<>();
+  // 每次提交 save/delete 时递增，加载期间有过修改的结果不写入缓存
+  private final AtomicLong generation = new AtomicLong();
+  private volatile boolean fullyLoaded;
 
-  public ChartConfigStore(ChartConfigRepository repository) {
+  public ChartConfigStore(
+      ChartConfigRepository repository, ApplicationEventPublisher eventPublisher) {
     this.repository = repository;
+    this.eventPublisher = eventPublisher;
+  }
+
+  // 在 DataInitializer 等 CommandLineRunner 执行完之后预热
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    loadAll();
+    log.info("图表配置缓存预热完成，共 {} 个", cache.size());
   }
 
-  @Transactional(readOnly = true)
   public Optional<ChartConfig> get(String id) {
-    return repository.findById(id).map(this::toChartConfig);
+    ChartConfig cached = cache.get(id);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+    long seen = generation.get();
+    Optional<ChartConfig> loaded =
+        repository.findWithBindingsById(id).map(this::toChartConfig);
+    // 不覆盖并发 save 已经放入的新版本，也不放回加载期间被删除的配置
+    return loaded.map(
+        config -> {
+          ChartConfig current =
+              cache.compute(id, (k, v) -> v != null || generation.get() != seen ? v : config);
+          return current != null ? current : config;
+        });
   }
 
   @Transactional
   public void save(ChartConfig config) {
     ChartConfigEntity entity = toEntity(config);
     repository.save(entity);
+    afterCommit(
+        () -> {
+          generation.incrementAndGet();
+          cache.put(config.getId(), config);
+        });
+    eventPublisher.publishEvent(new ChartConfigChangedEvent(config.getId(), false));
   }
 
   @Transactional
   public boolean delete(String id) {
     if (repository.existsById(id)) {
       repository.deleteById(id);
+      afterCommit(
+          () -> {
+            generation.incrementAndGet();
+            cache.remove(id);
+          });
+      eventPublisher.publishEvent(new ChartConfigChangedEvent(id, true));
       return true;
     }
     return false;
   }
 
-  @Transactional(readOnly = true)
   public Map<String, ChartConfig> getAll() {
-    Map<String, ChartConfig> result = new HashMap<>();
-    repository.findAll().forEach(entity -> result.put(entity.getId(), toChartConfig(entity)));
-    return result;
+    if (!fullyLoaded) {
+      loadAll();
+    }
+    return new HashMap<>(cache);
+  }
+
+  // 在当前事务提交后执行，先于同一事务中发布的配置变更事件；没有事务时立即执行
+  private static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            action.run();
+          }
+        });
+  }
+
+  private void loadAll() {
+    long seen = generation.get();
+    List<ChartConfigEntity> entities = repository.findAllWithBindings();
+    entities.forEach(
+        entity ->
+            cache.compute(
+                entity.getId(),
+                (k, v) -> v != null || generation.get() != seen ? v : toChartConfig(entity)));
+    fullyLoaded = true;
   }
 
   private ChartConfig toChartConfig(ChartConfigEntity entity) {
     try {
       JsonNode optionTemplate = objectMapper.readTree(entity.getOptionTemplate());
-      ChartConfig config =
-          new ChartConfig(entity.getId(), entity.getTitle(), entity.getChartType(), optionTemplate);
-      config.setCreatedAt(entity.getCreatedAt());
-      entity
-          .getBindings()
-          .forEach(
-              b ->
-                  config
-                      .getBindings()
-                      .add(
-                          new DataSourceBinding(
-                              b.getName(),
-                              b.getDatasourceId(),
-                              b.getQuery(),
-                              b.getMappingPath(),
-                              b.getBindingKey(),
-                              b.getStream())));
-      return config;
+      List<DataSourceBinding> bindings =
+          entity.getBindings().stream()
+              .map(
+                  b ->
+                      DataSourceBinding.builder()
+                          .name(b.getName())
+                          .datasourceId(b.getDatasourceId())
+                          .query(b.getQuery())
+                          .mappingPath(b.getMappingPath())
+                          .bindingKey(b.getBindingKey())
+                          .stream(Boolean.TRUE.equals(b.getStream()))
+                          .downsample(b.getDownsample())
+                          .downsampleTarget(b.getDownsampleTarget())
+                          .seriesPoints(b.getSeriesPoints())
+                          .seriesWindow(b.getSeriesWindow())
+                          .seriesTimeField(b.getSeriesTimeField())
+                          .aggregate(b.getAggregate())
+                          .aggregateWindow(b.getAggregateWindow())
+                          .aggregateSlide(b.getAggregateSlide())
+                          .build())
+              .toList();
+      return new ChartConfig(
+          entity.getId(),
+          entity.getTitle(),
+          entity.getChartType(),
+          optionTemplate,
+          entity.getCreatedAt(),
+          bindings);
     } catch (Exception e) {
       throw new RuntimeException("Failed to parse chart config", e);
     }
@@ -93,6 +183,14 @@ public class ChartConfigStore {
                       b.getMappingPath(),
                       b.getBindingKey(),
                       b.isStream());
+              bindingEntity.setDownsample(b.getDownsample());
+              bindingEntity.setDownsampleTarget(b.getDownsampleTarget());
+              bindingEntity.setSeriesPoints(b.getSeriesPoints());
+              bindingEntity.setSeriesWindow(b.getSeriesWindow());
+              bindingEntity.setSeriesTimeField(b.getSeriesTimeField());
+              bindingEntity.setAggregate(b.getAggregate());
+              bindingEntity.setAggregateWindow(b.getAggregateWindow());
+              bindingEntity.setAggregateSlide(b.getAggregateSlide());
               bindingEntity.setChartConfig(entity);
               entity.getBindings().add(bindingEntity);
             });
@@ -0,0 +1,62 @@
+package com.roy.anycharts.chart;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 共享订阅流中的一帧渲染结果。
+ *
+ * <p>seq 在同一 (chartId, variables) 流内从 1 开始递增；相对上一帧的 patch 在第一次需要时计算并缓存，
+ * 同一流的所有增量订阅者共用。
+ */
+public final class ChartFrame {
+  private final long seq;
+  private final Map<String, Object> rendered;
+  private final double maxPatchRatio;
+  private Object previousOption;
+  private boolean patchComputed;
+  private List<Map<String, Object>> patch;
+
+  ChartFrame(long seq, Map<String, Object> rendered, ChartFrame previous, double maxPatchRatio) {
+    this.seq = seq;
+    this.rendered = rendered;
+    this.maxPatchRatio = maxPatchRatio;
+    this.previousOption = previous != null ? previous.option() : null;
+    this.patchComputed = previous == null;
+  }
+
+  public long seq() {
+    return seq;
+  }
+
+  /** 渲染结果 {id, option} */
+  public Map<String, Object> rendered() {
+    return rendered;
+  }
+
+  public Object option() {
+    return rendered.get("option");
+  }
+
+  /**
+   * 相对上一帧的 patch；第一帧，或 patch 估算大小超过完整 option 的 maxPatchRatio 倍时返回 null，
+   * 此时应发送完整 option。
+   */
+  public synchronized List<Map<String, Object>> patch() {
+    if (!patchComputed) {
+      patch = patchBetween(previousOption, option(), maxPatchRatio);
+      patchComputed = true;
+      // 计算完成后不再持有上一帧
+      previousOption = null;
+    }
+    return patch;
+  }
+
+  /** from 到 to 的 patch；估算大小超过 to 的 maxRatio 倍时返回 null */
+  static List<Map<String, Object>> patchBetween(Object from, Object to, double maxRatio) {
+    List<Map<String, Object>> ops = OptionDiff.diff(from, to);
+    long patchWeight = RenderCache.estimateWeight(ops);
+    long fullWeight = RenderCache.estimateWeight(to);
+    return patchWeight <= fullWeight * maxRatio ? ops : null;
+  }
+}
@@ -0,0 +1,12 @@
+package com.roy.anycharts.chart;
+
+/** 批量渲染中单个图表的结果，option 与 error 二选一。 */
+public record ChartRenderResult(String chartId, Object option, String error) {
+  public static ChartRenderResult succeeded(String chartId, Object option) {
+    return new ChartRenderResult(chartId, option, null);
+  }
+
+  public static ChartRenderResult failed(String chartId, String error) {
+    return new ChartRenderResult(chartId, null, error);
+  }
+}
@@ -1,87 +1,260 @@
 package com.roy.anycharts.chart;
 
-import com.jayway.jsonpath.JsonPath;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.roy.anycharts.adapter.AdapterRegistry;
-import com.roy.anycharts.adapter.DataSourceAdapter;
+import com.roy.anycharts.chart.QueryCoalescer.QueryKey;
+import com.roy.anycharts.metrics.RenderMetrics;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
+@Slf4j
 @Service
 public class ChartService {
   private final AdapterRegistry registry;
   private final ChartConfigStore store;
-  private final ObjectMapper mapper = new ObjectMapper();
+  private final QueryCoalescer coalescer;
+  private final RenderCache renderCache;
+  private final ChartSubscriptionHub subscriptionHub;
+  private final SubscriptionDelivery delivery;
+  private final SeriesStore series;
+  private final RenderMetrics metrics;
 
-  public ChartService(AdapterRegistry registry, ChartConfigStore store) {
+  public ChartService(
+      AdapterRegistry registry,
+      ChartConfigStore store,
+      QueryCoalescer coalescer,
+      RenderCache renderCache,
+      ChartSubscriptionHub subscriptionHub,
+      SubscriptionDelivery delivery,
+      SeriesStore series,
+      RenderMetrics metrics) {
     this.registry = registry;
     this.store = store;
+    this.coalescer = coalescer;
+    this.renderCache = renderCache;
+    this.subscriptionHub = subscriptionHub;
+    this.delivery = delivery;
+    this.series = series;
+    this.metrics = metrics;
   }
 
   public Mono<Map<String, Object>> renderChart(String id, Map<String, Object> variables) {
+    return renderCache.get(id, variables, () -> render(id, variables));
+  }
+
+  /**
+   * 在同一个查询作用域内渲染多个图表：不同图表上相同的查询只执行一次，最多 parallelism 个图表并发渲染。
+   * 结果按 chartIds 去重后的顺序返回，单个图表的失败只体现在它自己的结果里。
+   */
+  public Flux<ChartRenderResult> renderCharts(
+      Collection<String> chartIds, Map<String, Object> variables, int parallelism) {
+    return renderCharts(chartIds, Map.of(), variables, parallelism);
+  }
+
+  /**
+   * 同 {@link #renderCharts(Collection, Map, int)}，并为图表指定降采样的默认目标点数。
+   *
+   * @param maxPoints 图表 ID -> 目标点数，用于配置了降采样但没有指定目标点数的 binding
+   */
+  public Flux<ChartRenderResult> renderCharts(
+      Collection<String> chartIds,
+      Map<String, Integer> maxPoints,
+      Map<String, Object> variables,
+      int parallelism) {
+    Map<String, ChartConfig> configs = new LinkedHashMap<>();
+    for (String id : chartIds) {
+      if (!configs.containsKey(id)) {
+        configs.put(id, store.get(id).orElse(null));
+      }
+    }
+    List<DataSourceBinding> bindings = new ArrayList<>();
+    configs.values().stream().filter(Objects::nonNull).forEach(c -> bindings.addAll(c.getBindings()));
+    QueryScope scope = new QueryScope(coalescer, bindings, variables);
+
+    return Flux.fromIterable(configs.entrySet())
+        .flatMapSequential(
+            e ->
+                renderIsolated(
+                    e.getKey(),
+                    e.getValue(),
+                    scope,
+                    variables,
+                    maxPoints.getOrDefault(e.getKey(), 0)),
+            Math.max(1, parallelism));
+  }
+
+  private Mono<ChartRenderResult> renderIsolated(
+      String id,
+      ChartConfig cfg,
+      QueryScope scope,
+      Map<String, Object> variables,
+      int maxPoints) {
+    if (cfg == null) {
+      return Mono.just(ChartRenderResult.failed(id, "chart not found: " + id));
+    }
+    return Mono.defer(() -> renderCache.get(id, variables, maxPoints, () -> render(cfg, scope, maxPoints)))
+        .map(result -> ChartRenderResult.succeeded(id, result.get("option")))
+        .onErrorResume(
+            e -> {
+              log.warn("图表 {} 渲染失败: {}", id, e.toString());
+              return Mono.just(ChartRenderResult.failed(id, String.valueOf(e.getMessage())));
+            });
+  }
+
+  // 不经过缓存的渲染，订阅推送等需要最新数据的场景使用
+  private Mono<Map<String, Object>> render(String id, Map<String, Object> variables) {
     Optional<ChartConfig> maybe = store.get(id);
     if (maybe.isEmpty()) return Mono.empty();
     ChartConfig cfg = maybe.get();
+    return render(cfg, new QueryScope(coalescer, cfg.getBindings(), variables), 0);
+  }
 
-    List<Mono<Map.Entry<String, JsonNode>>> monos = new ArrayList<>();
-    for (DataSourceBinding b : cfg.getBindings()) {
-      DataSourceAdapter adapter = registry.get(b.getDatasourceId());
-      if (adapter == null)
-        return Mono.error(new RuntimeException("adapter not found: " + b.getDatasourceId()));
-      Mono<JsonNode> dataMono = adapter.execute(b.getQuery(), variables);
-      Mono<Map.Entry<String, JsonNode>> entryMono =
-          dataMono.map(node -> Map.entry(b.getName(), node));
-      monos.add(entryMono);
+  // maxPoints 为降采样的默认目标点数，0 表示只使用 binding 自己配置的点数
+  private Mono<Map<String, Object>> render(ChartConfig cfg, QueryScope scope, int maxPoints) {
+    Mono<Map<String, Object>> rendered =
+        scope
+            .fetch(cfg.getBindings())
+            .map(
+                data -> {
+                  // 按 bindingKey 填充预编译模板中的占位符；同一个 bindingKey 以第一个 binding 为准
+                  Map<String, Object> values = new HashMap<>();
+                  Map<Downsampling, Optional<Downsampler.Selection>> selections = new HashMap<>();
+                  for (DataSourceBinding b : cfg.getBindings()) {
+                    if (values.containsKey(b.getBindingKey())) continue;
+                    Object value = data.get(scope.keyOf(b)).get(b.getMappingPath());
+                    Downsampling downsampling = Downsampling.of(scope, b, maxPoints);
+                    if (downsampling != null) {
+                      Optional<Downsampler.Selection> selection =
+                          selections.computeIfAbsent(
+                              downsampling, k -> k.plan(cfg.getBindings(), scope, data, maxPoints));
+                      if (selection.isPresent()) value = selection.get().apply(value);
+                    }
+                    values.put(b.getBindingKey(), value);
+                  }
+                  OptionTemplate template = cfg.getCompiledTemplate();
+                  long start = System.nanoTime();
+                  Object option = template != null ? template.render(values) : null;
+                  metrics.recordTemplate(cfg.getId(), System.nanoTime() - start);
+                  Map<String, Object> result = new HashMap<>();
+                  result.put("id", cfg.getId());
+                  result.put("option", option);
+                  return result;
+                });
+    return metrics.timeRender(cfg.getId(), rendered);
+  }
+
+  /**
+   * 一个查询上的一种降采样配置。同一查询的 binding（如类目和数值）共用按第一个数值序列算出的选点，
+   * 降采样后仍然逐点对齐。
+   */
+  private record Downsampling(QueryScope.Target query, DownsampleAlgorithm algorithm, int points) {
+    static Downsampling of(QueryScope scope, DataSourceBinding b, int maxPoints) {
+      if (b.getDownsample() == null) return null;
+      Integer target = b.getDownsampleTarget();
+      return new Downsampling(scope.keyOf(b), b.getDownsample(), target != null ? target : maxPoints);
     }
 
-    return Mono.zip(
-            monos,
-            arr ->
-                Arrays.stream(arr)
-                    .map(o -> (Map.Entry<String, JsonNode>) o)
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)))
-        .flatMap(
-            map -> {
-              try {
-                // 把 template 序列化为字符串，然后替换被双引号包着的占位符（例如 "\"{{binding:series1}}\""）
-                String templateStr = mapper.writeValueAsString(cfg.getOptionTemplate());
-                for (DataSourceBinding b : cfg.getBindings()) {
-                  JsonNode dataNode = map.get(b.getName());
-                  Object extracted = JsonPath.read(dataNode.toString(), b.getMappingPath());
-                  String replacementJson = mapper.writeValueAsString(extracted);
-                  // 替换被双引号包住的占位符
-                  templateStr =
-                      templateStr.replace(
-                          "\"{{binding:" + b.getBindingKey() + "}}\"", replacementJson);
-                }
-                JsonNode finalOption = mapper.readTree(templateStr);
-                Map<String, Object> result = new HashMap<>();
-                result.put("id", id);
-                result.put("option", mapper.convertValue(finalOption, Map.class));
-                return Mono.just(result);
-              } catch (Exception e) {
-                return Mono.error(e);
-              }
-            });
+    Optional<Downsampler.Selection> plan(
+        List<DataSourceBinding> bindings,
+        QueryScope scope,
+        Map<QueryScope.Target, Map<String, Object>> data,
+        int maxPoints) {
+      for (DataSourceBinding b : bindings) {
+        if (!equals(of(scope, b, maxPoints))) continue;
+        Downsampler.Selection selection =
+            Downsampler.plan(algorithm, data.get(query).get(b.getMappingPath()), points);
+        if (selection != null) return Optional.of(selection);
+      }
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * 订阅图表更新：所有 stream=true 的 binding 的事件流合并后，每个事件重新渲染一次；配置了内存序列的 binding
+   * 的事件写入 {@link SeriesStore}，渲染时读取序列而不重新查询。
+   * 相同 (id, variables) 的订阅者共享同一条流（见 {@link ChartSubscriptionHub}），
+   * 再按 {@link SubscriptionDelivery} 的策略分别推送给每个客户端。
+   *
+   * @param maxFps 客户端要求的最大帧率，可为 null
+   */
+  public Flux<Map<String, Object>> subscribeChart(
+      String id, Map<String, Object> variables, Double maxFps) {
+    return frames(id, variables, maxFps).map(ChartFrame::rendered);
   }
 
-  // 简化订阅：如果有任何 binding 是 stream=true，会使用该 adapter.subscribe 并在每个事件时重新触发 renderChart
-  public Flux<Map<String, Object>> subscribeChart(String id, Map<String, Object> variables) {
+  /** 与 {@link #subscribeChart} 相同的推送，但第一帧之后只发送相对上一帧的 patch */
+  public Flux<Map<String, Object>> subscribeChartDeltas(
+      String id, Map<String, Object> variables, Double maxFps) {
+    return delivery.deltas(id, frames(id, variables, maxFps));
+  }
+
+  private Flux<ChartFrame> frames(String id, Map<String, Object> variables, Double maxFps) {
     Optional<ChartConfig> maybe = store.get(id);
     if (maybe.isEmpty()) return Flux.empty();
-    ChartConfig cfg = maybe.get();
-    List<DataSourceBinding> streaming =
-        cfg.getBindings().stream().filter(DataSourceBinding::isStream).toList();
-    if (streaming.isEmpty()) return Flux.empty();
-    DataSourceBinding b = streaming.get(0);
-    DataSourceAdapter adapter = registry.get(b.getDatasourceId());
-    if (adapter == null) return Flux.error(new RuntimeException("adapter not found"));
-    return adapter
-        .subscribe(b.getQuery(), variables)
-        .flatMap(evt -> renderChart(id, variables).flux());
+    Map<QueryKey, Set<SeriesStore.Retention>> streams;
+    try {
+      streams = streamingQueries(maybe.get(), variables);
+    } catch (IllegalArgumentException e) {
+      return Flux.error(e);
+    }
+    if (streams.isEmpty()) return Flux.empty();
+    for (QueryKey key : streams.keySet()) {
+      if (registry.get(key.datasourceId()) == null) {
+        return Flux.error(new RuntimeException("adapter not found: " + key.datasourceId()));
+      }
+    }
+    return metrics.trackSubscription(
+        id,
+        delivery.deliver(
+            subscriptionHub.subscribe(id, variables, () -> updates(id, streams)), maxFps));
+  }
+
+  // 没有配置内存序列的查询只订阅一次；配置了的按每种保留策略经 SeriesStore 订阅，事件先写入各自的序列
+  private Flux<Map<String, Object>> updates(
+      String id, Map<QueryKey, Set<SeriesStore.Retention>> streams) {
+    List<Flux<?>> sources = new ArrayList<>();
+    Map<String, Object> variables = null;
+    for (Map.Entry<QueryKey, Set<SeriesStore.Retention>> e : streams.entrySet()) {
+      QueryKey key = e.getKey();
+      variables = key.variables();
+      Supplier<Flux<JsonNode>> source =
+          () -> registry.get(key.datasourceId()).subscribe(key.query(), key.variables());
+      if (e.getValue().isEmpty()) {
+        sources.add(source.get());
+      } else {
+        for (SeriesStore.Retention retention : e.getValue()) {
+          sources.add(series.subscribe(key, retention, source));
+        }
+      }
+    }
+    Map<String, Object> renderVariables = variables;
+    return delivery.render(
+        Flux.merge(sources),
+        evt ->
+            render(id, renderVariables)
+                .onErrorResume(
+                    e -> {
+                      log.warn("图表 {} 推送渲染失败: {}", id, e.toString());
+                      return Mono.empty();
+                    }));
+  }
+
+  // 查询 -> 其 stream binding 配置的不同保留策略，没有 binding 配置内存序列时为空集合
+  private static Map<QueryKey, Set<SeriesStore.Retention>> streamingQueries(
+      ChartConfig cfg, Map<String, Object> variables) {
+    Map<QueryKey, Set<SeriesStore.Retention>> streams = new LinkedHashMap<>();
+    for (DataSourceBinding b : cfg.getBindings()) {
+      if (!b.isStream()) continue;
+      QueryKey key = new QueryKey(b.getDatasourceId(), b.getQuery(), variables);
+      SeriesStore.Retention retention = SeriesStore.Retention.of(b);
+      Set<SeriesStore.Retention> retentions =
+          streams.computeIfAbsent(key, k -> new LinkedHashSet<>());
+      if (retention != null) retentions.add(retention);
+    }
+    return streams;
   }
 }
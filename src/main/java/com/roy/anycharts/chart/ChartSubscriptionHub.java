@@ -0,0 +1,85 @@
+package com.roy.anycharts.chart;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+/**
+ * chartUpdates 订阅的共享中心。
+ *
+ * <p>按 (chartId, variables) 维护一条热流：第一个订阅者到来时才连接数据源，之后的订阅者共享同一条流并立即收到
+ * 最近一帧；最后一个订阅者取消后再等待 disconnectGrace（期间重新订阅可直接复用），随后断开数据源并移除。
+ * 每个事件只渲染一次，再分发给全部订阅者。
+ */
+@Slf4j
+@Component
+public class ChartSubscriptionHub {
+  private final SubscriptionProperties properties;
+  private final Map<StreamKey, Flux<ChartFrame>> streams = new ConcurrentHashMap<>();
+
+  public ChartSubscriptionHub(SubscriptionProperties properties) {
+    this.properties = properties;
+  }
+
+  /**
+   * 订阅 (chartId, variables) 对应的共享帧流，不存在时用 source 创建。
+   *
+   * @param source 渲染结果的冷流，每次连接时订阅一次，帧序号随之重新从 1 开始
+   */
+  public Flux<ChartFrame> subscribe(
+      String chartId,
+      Map<String, Object> variables,
+      Supplier<Flux<Map<String, Object>>> source) {
+    StreamKey key = new StreamKey(chartId, variables);
+    return Flux.defer(() -> streams.computeIfAbsent(key, k -> share(k, source)));
+  }
+
+  /** 当前活跃的共享流数量 */
+  public int size() {
+    return streams.size();
+  }
+
+  private Flux<ChartFrame> share(StreamKey key, Supplier<Flux<Map<String, Object>>> source) {
+    double maxPatchRatio = properties.getDeltaMaxPatchRatio();
+    Flux<ChartFrame>[] holder = newHolder();
+    holder[0] =
+        Flux.defer(
+                () -> {
+                  AtomicReference<ChartFrame> last = new AtomicReference<>();
+                  return source
+                      .get()
+                      .map(
+                          rendered -> {
+                            ChartFrame previous = last.get();
+                            long seq = previous == null ? 1 : previous.seq() + 1;
+                            ChartFrame frame =
+                                new ChartFrame(seq, rendered, previous, maxPatchRatio);
+                            last.set(frame);
+                            return frame;
+                          });
+                })
+            .doOnSubscribe(s -> log.debug("图表 {} 的共享订阅已连接", key.chartId()))
+            // 上游取消（最后一个订阅者离开）、完成或出错时移除，后来的订阅者重新连接
+            .doFinally(signal -> streams.remove(key, holder[0]))
+            .replay(1)
+            // 带宽限期的 refCount：无宽限期的版本在订阅者于回放期间取消时不会断开上游
+            .refCount(1, properties.getDisconnectGrace());
+    return holder[0];
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> Flux<T>[] newHolder() {
+    return new Flux[1];
+  }
+
+  /** variables 为 null 时视为空 Map */
+  private record StreamKey(String chartId, Map<String, Object> variables) {
+    StreamKey {
+      variables = variables == null ? Map.of() : variables;
+    }
+  }
+}
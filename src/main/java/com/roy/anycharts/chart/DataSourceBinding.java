@@ -1,19 +1,28 @@
 package com.roy.anycharts.chart;
 
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Value;
 
-@Setter
-@Getter
-@NoArgsConstructor
-@AllArgsConstructor
+/** 图表上的一个数据绑定，不可修改；可选配置较多，用 {@link #builder()} 创建 */
+@Value
+@Builder(toBuilder = true)
 public class DataSourceBinding {
-  private String name;
-  private String datasourceId;
-  private String query;
-  private String mappingPath;
-  private String bindingKey;
-  private boolean stream;
+  String name;
+  String datasourceId;
+  String query;
+  String mappingPath;
+  String bindingKey;
+  boolean stream;
+  // 可选的降采样：算法为空时不处理；目标点数为空时使用渲染方给出的点数（如大屏组件宽度）
+  DownsampleAlgorithm downsample;
+  Integer downsampleTarget;
+  // 可选的内存时间序列（仅 stream binding）：按点数或时长保留推送的增量，渲染时直接读取，见 SeriesStore
+  Integer seriesPoints;
+  Duration seriesWindow;
+  String seriesTimeField;
+  // 可选的窗口聚合（仅 stream binding）：事件先按窗口聚合，每个窗口向序列写入一个点，见 WindowAggregator
+  AggregateFunction aggregate;
+  Duration aggregateWindow;
+  Duration aggregateSlide;
 }
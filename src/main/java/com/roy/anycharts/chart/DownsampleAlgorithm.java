@@ -0,0 +1,11 @@
+package com.roy.anycharts.chart;
+
+/** binding 结果的降采样算法，见 {@link Downsampler} */
+public enum DownsampleAlgorithm {
+  /** Largest-Triangle-Three-Buckets：保留视觉形状，适合折线 */
+  LTTB,
+  /** 每个桶保留最小值和最大值，不丢失尖峰，适合波动剧烈的监控数据 */
+  MIN_MAX,
+  /** 每个桶取平均值，适合平滑趋势 */
+  AVERAGE
+}
@@ -0,0 +1,238 @@
+package com.roy.anycharts.chart;
+
+import com.roy.anycharts.adapter.Column;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 服务端降采样：把映射结果中的长序列缩减到目标点数，再交给前端渲染。
+ *
+ * <p>序列元素可以是数值、{@code [x, y]} 数组或带 {@code value} 字段的对象（value 为数值或数组）；x 不是数值时
+ * 按下标计算。LTTB 和 MIN_MAX 只挑选原有元素，元素结构保持不变；AVERAGE 为每个桶生成一个新元素。
+ * 点数不超过目标值或者不是数值序列（如类目名称）时原样返回。计算在 double[] / int[] 上进行，不为每个点创建对象；
+ * 输入为数值 {@link Column} 时直接读取列数据，LTTB / MIN_MAX 的结果仍是同类型的列。
+ *
+ * <p>同一查询的多个字段（如类目和数值）需要逐点对齐时，先用 {@link #plan} 按数值序列算出 {@link Selection}，
+ * 再把它应用到每个字段上。
+ */
+public final class Downsampler {
+  private Downsampler() {}
+
+  public static Object apply(DownsampleAlgorithm algorithm, Object data, int target) {
+    Selection selection = plan(algorithm, data, target);
+    return selection != null ? selection.apply(data) : data;
+  }
+
+  /** 按 data 计算要保留的点；不需要降采样或者 data 不是数值序列时返回 null */
+  public static Selection plan(DownsampleAlgorithm algorithm, Object data, int target) {
+    if (algorithm == null || target <= 0 || !(data instanceof List<?> list)) return null;
+    int n = list.size();
+    if (n <= Math.max(target, 2)) return null;
+    double[] xs = new double[n];
+    double[] ys = new double[n];
+    if (!extract(list, xs, ys)) return null;
+    int[] indices =
+        switch (algorithm) {
+          case LTTB -> lttb(xs, ys, target);
+          case MIN_MAX -> minMax(ys, target);
+          case AVERAGE -> bucketStarts(n, target);
+        };
+    return new Selection(algorithm, n, indices);
+  }
+
+  /**
+   * 一次降采样的结果：LTTB / MIN_MAX 为保留的下标，AVERAGE 为每个桶的起始下标。
+   *
+   * @param size 计算时序列的长度，只应用到同样长度的序列上
+   */
+  public record Selection(DownsampleAlgorithm algorithm, int size, int[] indices) {
+    /** 按同样的下标缩减 data；AVERAGE 对数值序列求桶内平均，其他序列（如类目）取每个桶的第一个元素 */
+    public Object apply(Object data) {
+      if (!(data instanceof List<?> list) || list.size() != size) return data;
+      if (algorithm != DownsampleAlgorithm.AVERAGE) return select(list, indices);
+      double[] xs = new double[size];
+      double[] ys = new double[size];
+      if (!extract(list, xs, ys)) return select(list, indices);
+      return average(list, xs, ys, indices.length);
+    }
+  }
+
+  /** 返回选中点的下标（递增），首尾两点总是保留；y 为 NaN 的点不参与面积比较 */
+  static int[] lttb(double[] xs, double[] ys, int threshold) {
+    int n = ys.length;
+    if (threshold >= n) return identity(n);
+    if (threshold < 3) return threshold == 1 ? new int[] {0} : new int[] {0, n - 1};
+
+    int[] selected = new int[threshold];
+    double every = (double) (n - 2) / (threshold - 2);
+    int a = 0;
+    for (int i = 0; i < threshold - 2; i++) {
+      // 下一个桶的平均点
+      int avgStart = (int) ((i + 1) * every) + 1;
+      int avgEnd = Math.min((int) ((i + 2) * every) + 1, n);
+      double avgX = 0;
+      double avgY = 0;
+      int count = 0;
+      for (int j = avgStart; j < avgEnd; j++) {
+        if (!Double.isNaN(ys[j])) {
+          avgX += xs[j];
+          avgY += ys[j];
+          count++;
+        }
+      }
+      avgX /= count;
+      avgY /= count;
+
+      // 当前桶中与上一个选中点、下一桶平均点构成三角形面积最大的点
+      int rangeStart = (int) (i * every) + 1;
+      int rangeEnd = (int) ((i + 1) * every) + 1;
+      double ax = xs[a];
+      double ay = ys[a];
+      double maxArea = -1;
+      int next = rangeStart;
+      for (int j = rangeStart; j < rangeEnd; j++) {
+        double area = Math.abs((ax - avgX) * (ys[j] - ay) - (ax - xs[j]) * (avgY - ay));
+        if (area > maxArea) {
+          maxArea = area;
+          next = j;
+        }
+      }
+      selected[i + 1] = next;
+      a = next;
+    }
+    selected[threshold - 1] = n - 1;
+    return selected;
+  }
+
+  /** 分为 target / 2 个桶，每个桶按出现顺序保留最小值和最大值；整桶没有数值时保留第一个点作为断点 */
+  static int[] minMax(double[] ys, int target) {
+    int n = ys.length;
+    int buckets = Math.max(1, target / 2);
+    int[] selected = new int[buckets * 2];
+    int count = 0;
+    for (int b = 0; b < buckets; b++) {
+      int start = (int) ((long) b * n / buckets);
+      int end = (int) ((long) (b + 1) * n / buckets);
+      int min = -1;
+      int max = -1;
+      for (int j = start; j < end; j++) {
+        double y = ys[j];
+        if (Double.isNaN(y)) continue;
+        if (min < 0 || y < ys[min]) min = j;
+        if (max < 0 || y > ys[max]) max = j;
+      }
+      if (min < 0) {
+        selected[count++] = start;
+        continue;
+      }
+      selected[count++] = Math.min(min, max);
+      if (min != max) {
+        selected[count++] = Math.max(min, max);
+      }
+    }
+    return count == selected.length ? selected : Arrays.copyOf(selected, count);
+  }
+
+  private static List<Object> average(List<?> list, double[] xs, double[] ys, int target) {
+    int n = list.size();
+    List<Object> result = new ArrayList<>(target);
+    for (int b = 0; b < target; b++) {
+      int start = (int) ((long) b * n / target);
+      int end = (int) ((long) (b + 1) * n / target);
+      double sumX = 0;
+      double sumY = 0;
+      int count = 0;
+      for (int j = start; j < end; j++) {
+        if (!Double.isNaN(ys[j])) {
+          sumX += xs[j];
+          sumY += ys[j];
+          count++;
+        }
+      }
+      double x = count == 0 ? xs[start] : sumX / count;
+      Double y = count == 0 ? null : sumY / count;
+      result.add(withValue(list.get(start), x, y));
+    }
+    return result;
+  }
+
+  // 读取每个元素的 x / y；至少有一个数值 y 时返回 true
+  private static boolean extract(List<?> list, double[] xs, double[] ys) {
+    if (list instanceof Column column) {
+      if (!column.isNumeric()) return false;
+      boolean numeric = false;
+      for (int i = 0; i < xs.length; i++) {
+        xs[i] = i;
+        ys[i] = column.getDouble(i);
+        numeric |= !Double.isNaN(ys[i]);
+      }
+      return numeric;
+    }
+    boolean numeric = false;
+    for (int i = 0; i < xs.length; i++) {
+      Object element = list.get(i);
+      if (element instanceof Map<?, ?> map) {
+        element = map.get("value");
+      }
+      double x = i;
+      double y = Double.NaN;
+      if (element instanceof Number number) {
+        y = number.doubleValue();
+      } else if (element instanceof List<?> pair && pair.size() >= 2) {
+        if (pair.get(0) instanceof Number px) x = px.doubleValue();
+        if (pair.get(1) instanceof Number py) y = py.doubleValue();
+      }
+      xs[i] = x;
+      ys[i] = y;
+      numeric |= !Double.isNaN(y);
+    }
+    return numeric;
+  }
+
+  // 按 template 的结构生成新元素；整数 x（如毫秒时间戳）保持为整数
+  private static Object withValue(Object template, double x, Double y) {
+    if (template instanceof Map<?, ?> map) {
+      Map<Object, Object> copy = new LinkedHashMap<>(map);
+      copy.put("value", withValue(map.get("value"), x, y));
+      return copy;
+    }
+    if (template instanceof List<?> pair && pair.size() >= 2) {
+      List<Object> copy = new ArrayList<>(pair);
+      Object px = pair.get(0);
+      if (px instanceof Double || px instanceof Float) {
+        copy.set(0, x);
+      } else if (px instanceof Number) {
+        copy.set(0, Math.round(x));
+      }
+      copy.set(1, y);
+      return copy;
+    }
+    return y;
+  }
+
+  private static List<?> select(List<?> list, int[] indices) {
+    if (list instanceof Column column) {
+      return column.select(indices);
+    }
+    List<Object> result = new ArrayList<>(indices.length);
+    for (int index : indices) {
+      result.add(list.get(index));
+    }
+    return result;
+  }
+
+  private static int[] bucketStarts(int n, int buckets) {
+    int[] starts = new int[buckets];
+    for (int b = 0; b < buckets; b++) starts[b] = (int) ((long) b * n / buckets);
+    return starts;
+  }
+
+  private static int[] identity(int n) {
+    int[] indices = new int[n];
+    for (int i = 0; i < n; i++) indices[i] = i;
+    return indices;
+  }
+}
@@ -0,0 +1,121 @@
+package com.roy.anycharts.chart;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.jayway.jsonpath.Configuration;
+import com.roy.anycharts.adapter.Column;
+import com.roy.anycharts.adapter.ColumnarResult;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.spi.json.JacksonJsonNodeJsonProvider;
+import com.jayway.jsonpath.spi.mapper.JacksonMappingProvider;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 预编译的 binding 映射路径（{@link DataSourceBinding#getMappingPath()}）。
+ *
+ * <p>表达式只编译一次并按字符串缓存，求值直接作用在适配器返回的 Jackson 树上，不再把结果序列化成字符串
+ * 交给 JsonPath 重新解析。最常见的 {@code $.items[*]} / {@code $.items[*].field} 形式走列投影快速路径，
+ * 也可以在适配器分批返回行时逐批投影。
+ */
+public final class MappingPath {
+  private static final Pattern ITEMS_PROJECTION =
+      Pattern.compile("^\\$\\.items\\[\\*\\](?:\\.([A-Za-z_][A-Za-z0-9_]*))?$");
+  // 映射路径来自图表配置，数量有限；超过上限后不再缓存，避免异常输入撑大缓存
+  private static final int MAX_CACHED = 4096;
+  private static final Map<String, MappingPath> CACHE = new ConcurrentHashMap<>();
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final Configuration JACKSON_TREE =
+      Configuration.builder()
+          .jsonProvider(new JacksonJsonNodeJsonProvider(MAPPER))
+          .mappingProvider(new JacksonMappingProvider(MAPPER))
+          .build();
+
+  private final String expression;
+  private final JsonPath compiled;
+  private final boolean itemsProjection;
+  private final String field;
+
+  private MappingPath(String expression) {
+    this.expression = expression;
+    Matcher m = ITEMS_PROJECTION.matcher(expression.trim());
+    this.itemsProjection = m.matches();
+    this.field = itemsProjection ? m.group(1) : null;
+    // 快速路径不需要 JsonPath，但仍然编译一次以便尽早发现非法表达式
+    this.compiled = JsonPath.compile(expression);
+  }
+
+  public static MappingPath of(String expression) {
+    if (expression == null) {
+      throw new IllegalArgumentException("mappingPath 不能为空");
+    }
+    MappingPath cached = CACHE.get(expression);
+    if (cached != null) {
+      return cached;
+    }
+    MappingPath path = new MappingPath(expression);
+    if (CACHE.size() < MAX_CACHED) {
+      CACHE.putIfAbsent(expression, path);
+    }
+    return path;
+  }
+
+  public String expression() {
+    return expression;
+  }
+
+  /** 是否为 $.items[*] / $.items[*].field 形式，可以按行投影 */
+  public boolean isItemsProjection() {
+    return itemsProjection;
+  }
+
+  /** 是否为字段投影且 result 中有该列 */
+  public boolean projectsColumnOf(ColumnarResult result) {
+    return field != null && result.column(field) != null;
+  }
+
+  /** 对适配器结果求值 */
+  public JsonNode read(JsonNode data) {
+    if (itemsProjection) {
+      JsonNode items = data.get("items");
+      if (items != null && items.isArray()) {
+        ArrayNode out = JsonNodeFactory.instance.arrayNode(items.size());
+        project(items, out);
+        return out;
+      }
+    }
+    Object result = compiled.read(data, JACKSON_TREE);
+    return result instanceof JsonNode node ? node : MAPPER.valueToTree(result);
+  }
+
+  /**
+   * 对列式结果求值，仅适用于 items 投影路径：字段投影直接返回该列本身，不逐行复制；结果中没有该列时与 JsonPath
+   * 一致返回空列表。
+   */
+  public List<?> project(ColumnarResult result) {
+    if (field == null) {
+      return result.rows();
+    }
+    Column column = result.column(field);
+    return column != null ? column : List.of();
+  }
+
+  /** 把一批行投影到 out；与 JsonPath 一致，缺少该字段的行会被跳过。仅适用于 items 投影路径 */
+  public void project(JsonNode rows, ArrayNode out) {
+    for (JsonNode row : rows) {
+      if (field == null) {
+        out.add(row);
+      } else {
+        JsonNode value = row.get(field);
+        if (value != null) {
+          out.add(value);
+        }
+      }
+    }
+  }
+}
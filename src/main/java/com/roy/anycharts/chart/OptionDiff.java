@@ -0,0 +1,109 @@
+package com.roy.anycharts.chart;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 计算两次渲染结果之间的 JSON Patch（RFC 6902）。
+ *
+ * <p>输入是 {@link OptionTemplate#render} 产生的 Map/List/标量结构。数组针对时序数据做了优化：尾部追加输出
+ * {@code add .../-}，滑动窗口（头部移出、尾部追加）输出若干 {@code remove .../0} 加追加，其余情况逐元素比较。
+ */
+public final class OptionDiff {
+  // 寻找滑动窗口偏移时最多尝试的候选位置
+  private static final int MAX_SHIFT_CANDIDATES = 64;
+
+  private OptionDiff() {}
+
+  public static List<Map<String, Object>> diff(Object from, Object to) {
+    List<Map<String, Object>> ops = new ArrayList<>();
+    diff("", from, to, ops);
+    return ops;
+  }
+
+  private static void diff(String path, Object a, Object b, List<Map<String, Object>> ops) {
+    if (a == b) return;
+    if (a instanceof Map<?, ?> am && b instanceof Map<?, ?> bm) {
+      diffMap(path, am, bm, ops);
+    } else if (a instanceof List<?> al && b instanceof List<?> bl) {
+      diffList(path, al, bl, ops);
+    } else if (!Objects.equals(a, b)) {
+      ops.add(op("replace", path, b));
+    }
+  }
+
+  private static void diffMap(String path, Map<?, ?> a, Map<?, ?> b, List<Map<String, Object>> ops) {
+    for (Object key : a.keySet()) {
+      if (!b.containsKey(key)) {
+        ops.add(op("remove", path + "/" + escape(key), null));
+      }
+    }
+    for (Map.Entry<?, ?> e : b.entrySet()) {
+      String child = path + "/" + escape(e.getKey());
+      if (!a.containsKey(e.getKey())) {
+        ops.add(op("add", child, e.getValue()));
+      } else {
+        diff(child, a.get(e.getKey()), e.getValue(), ops);
+      }
+    }
+  }
+
+  private static void diffList(String path, List<?> a, List<?> b, List<Map<String, Object>> ops) {
+    int shift = shift(a, b);
+    if (shift >= 0) {
+      for (int i = 0; i < shift; i++) {
+        ops.add(op("remove", path + "/0", null));
+      }
+      for (int i = a.size() - shift; i < b.size(); i++) {
+        ops.add(op("add", path + "/-", b.get(i)));
+      }
+      return;
+    }
+    int common = Math.min(a.size(), b.size());
+    for (int i = 0; i < common; i++) {
+      diff(path + "/" + i, a.get(i), b.get(i), ops);
+    }
+    for (int i = a.size() - 1; i >= common; i--) {
+      ops.add(op("remove", path + "/" + i, null));
+    }
+    for (int i = common; i < b.size(); i++) {
+      ops.add(op("add", path + "/-", b.get(i)));
+    }
+  }
+
+  /**
+   * 找到最小的 k，使 a 去掉前 k 个元素后是 b 的前缀；k 为 0 即纯追加。找不到或 b 与 a 完全不重叠时返回 -1。
+   */
+  private static int shift(List<?> a, List<?> b) {
+    if (a.isEmpty() || b.isEmpty()) return -1;
+    int candidates = 0;
+    for (int k = 0; k < a.size() && candidates < MAX_SHIFT_CANDIDATES; k++) {
+      int overlap = a.size() - k;
+      if (overlap > b.size()) continue;
+      if (!Objects.equals(a.get(k), b.get(0))) continue;
+      candidates++;
+      if (a.subList(k, a.size()).equals(b.subList(0, overlap))) {
+        return k;
+      }
+    }
+    return -1;
+  }
+
+  private static Map<String, Object> op(String name, String path, Object value) {
+    Map<String, Object> op = new LinkedHashMap<>();
+    op.put("op", name);
+    op.put("path", path);
+    if (!"remove".equals(name)) {
+      op.put("value", value);
+    }
+    return op;
+  }
+
+  // RFC 6901：~ 转为 ~0，/ 转为 ~1
+  private static String escape(Object key) {
+    return String.valueOf(key).replace("~", "~0").replace("/", "~1");
+  }
+}
@@ -0,0 +1,170 @@
+package com.roy.anycharts.chart;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 预编译的 ECharts option 模板。
+ *
+ * <p>编译时把模板转换为不可变的 Map/List 结构，并记录每个 {@code "{{binding:key}}"} 占位符所在的
+ * JSON Pointer。渲染时只复制从根到占位符路径上的容器并填入数据，其余子树在多次渲染之间直接共享，
+ * 不再需要序列化、字符串替换和重新解析整个 option。
+ */
+public final class OptionTemplate {
+  private static final Pattern PLACEHOLDER = Pattern.compile("^\\{\\{binding:(.+)}}$");
+
+  private final Object root;
+  private final List<Slot> slots;
+  private final SlotTree tree;
+
+  private OptionTemplate(Object root, List<Slot> slots) {
+    this.root = root;
+    this.slots = List.copyOf(slots);
+    this.tree = new SlotTree();
+    for (Slot slot : slots) {
+      tree.add(slot.path(), 0, slot.bindingKey());
+    }
+  }
+
+  public static OptionTemplate compile(JsonNode template) {
+    List<Slot> slots = new ArrayList<>();
+    Object root = compileNode(template, new ArrayList<>(), slots);
+    return new OptionTemplate(root, slots);
+  }
+
+  /** 模板中所有占位符的位置 */
+  public List<Slot> slots() {
+    return slots;
+  }
+
+  /**
+   * 用 bindingKey -> 数据 填充占位符。没有对应数据的占位符保持原字符串不变。
+   *
+   * <p>返回的结构与模板共享未被修改的子树，这些子树是不可变的，调用方不应修改返回值。
+   */
+  @SuppressWarnings("unchecked")
+  public Map<String, Object> render(Map<String, Object> values) {
+    Object rendered = tree.isEmpty() ? root : tree.fill(root, values);
+    return rendered instanceof Map ? (Map<String, Object>) rendered : Map.of();
+  }
+
+  /** 把 Jackson 树转换为普通的 Map/List/标量结构 */
+  public static Object toPlain(JsonNode node) {
+    if (node == null || node.isNull() || node.isMissingNode()) {
+      return null;
+    }
+    if (node.isObject()) {
+      Map<String, Object> map = new LinkedHashMap<>();
+      for (Map.Entry<String, JsonNode> field : node.properties()) {
+        map.put(field.getKey(), toPlain(field.getValue()));
+      }
+      return map;
+    }
+    if (node.isArray()) {
+      List<Object> list = new ArrayList<>(node.size());
+      for (JsonNode element : node) {
+        list.add(toPlain(element));
+      }
+      return list;
+    }
+    if (node.isNumber()) {
+      return node.numberValue();
+    }
+    if (node.isBoolean()) {
+      return node.booleanValue();
+    }
+    return node.asText();
+  }
+
+  private static Object compileNode(JsonNode node, List<Object> path, List<Slot> slots) {
+    if (node == null || node.isNull() || node.isMissingNode()) {
+      return null;
+    }
+    if (node.isObject()) {
+      Map<String, Object> map = new LinkedHashMap<>();
+      for (Map.Entry<String, JsonNode> field : node.properties()) {
+        path.add(field.getKey());
+        map.put(field.getKey(), compileNode(field.getValue(), path, slots));
+        path.remove(path.size() - 1);
+      }
+      return Collections.unmodifiableMap(map);
+    }
+    if (node.isArray()) {
+      List<Object> list = new ArrayList<>(node.size());
+      for (int i = 0; i < node.size(); i++) {
+        path.add(i);
+        list.add(compileNode(node.get(i), path, slots));
+        path.remove(path.size() - 1);
+      }
+      return Collections.unmodifiableList(list);
+    }
+    if (node.isTextual()) {
+      Matcher m = PLACEHOLDER.matcher(node.textValue());
+      if (m.matches()) {
+        slots.add(new Slot(List.copyOf(path), m.group(1)));
+      }
+      return node.textValue();
+    }
+    return toPlain(node);
+  }
+
+  /** 一个占位符：path 由字段名（String）和数组下标（Integer）组成 */
+  public record Slot(List<Object> path, String bindingKey) {
+    public JsonPointer pointer() {
+      StringBuilder sb = new StringBuilder();
+      for (Object segment : path) {
+        sb.append('/')
+            .append(String.valueOf(segment).replace("~", "~0").replace("/", "~1"));
+      }
+      return JsonPointer.compile(sb.toString());
+    }
+  }
+
+  /** 按路径前缀合并的占位符树，渲染时只沿着这棵树复制容器 */
+  private static final class SlotTree {
+    private final Map<Object, SlotTree> children = new LinkedHashMap<>();
+    private String bindingKey;
+
+    void add(List<Object> path, int depth, String key) {
+      if (depth == path.size()) {
+        bindingKey = key;
+        return;
+      }
+      children.computeIfAbsent(path.get(depth), k -> new SlotTree()).add(path, depth + 1, key);
+    }
+
+    boolean isEmpty() {
+      return children.isEmpty() && bindingKey == null;
+    }
+
+    @SuppressWarnings("unchecked")
+    Object fill(Object node, Map<String, Object> values) {
+      if (bindingKey != null) {
+        return values.containsKey(bindingKey) ? values.get(bindingKey) : node;
+      }
+      if (node instanceof Map) {
+        Map<String, Object> copy = new LinkedHashMap<>((Map<String, Object>) node);
+        children.forEach(
+            (segment, child) -> copy.put((String) segment, child.fill(copy.get(segment), values)));
+        return copy;
+      }
+      if (node instanceof List) {
+        List<Object> copy = new ArrayList<>((List<Object>) node);
+        children.forEach(
+            (segment, child) -> {
+              int index = (Integer) segment;
+              copy.set(index, child.fill(copy.get(index), values));
+            });
+        return copy;
+      }
+      return node;
+    }
+  }
+}
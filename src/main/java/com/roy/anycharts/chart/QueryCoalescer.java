@@ -0,0 +1,237 @@
+package com.roy.anycharts.chart;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.roy.anycharts.adapter.AdapterRegistry;
+import com.roy.anycharts.adapter.ColumnarResult;
+import com.roy.anycharts.adapter.DataSourceAdapter;
+import com.roy.anycharts.metrics.RenderMetrics;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * 位于 ChartService 与 AdapterRegistry 之间的查询合并层。
+ *
+ * <p>调用方先把同一次渲染中 (datasourceId, query, variables) 相同的 binding 合并为一次 {@link #fetch}，
+ * 一次查询同时求值所有映射路径；并发渲染中完全相同的 fetch 如果仍在执行，则直接共享同一个 Mono（single-flight），
+ * 查询结束后立即移除，不做结果缓存。
+ *
+ * <p>来自配置了内存序列的 stream binding 的 fetch，在该 binding 的序列（{@link SeriesStore}）正在订阅且已写入点、
+ * 并且每个映射路径都投影序列中的某一列时，直接读取序列中保留的点，不调用适配器。
+ */
+@Component
+public class QueryCoalescer {
+  private final AdapterRegistry registry;
+  private final RenderMetrics metrics;
+  private final SeriesStore series;
+  private final Map<FetchKey, Mono<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  public QueryCoalescer(AdapterRegistry registry, RenderMetrics metrics, SeriesStore series) {
+    this.registry = registry;
+    this.metrics = metrics;
+    this.series = series;
+  }
+
+  /**
+   * 执行一次查询并对每个映射路径求值，返回 表达式 -> 结果。结果为普通的 Map/List/标量结构；适配器支持列式结果时，
+   * 字段投影直接返回 {@link com.roy.anycharts.adapter.Column}。
+   *
+   * @param series 可以读取的内存序列的保留策略，null 表示只查询数据源
+   * @param sharedBindings 本次 fetch 合并了多少个 binding，多出的部分计为命中
+   */
+  public Mono<Map<String, Object>> fetch(
+      QueryKey query,
+      SeriesStore.Retention series,
+      Collection<MappingPath> paths,
+      int sharedBindings) {
+    if (sharedBindings > 1) {
+      hits.addAndGet(sharedBindings - 1);
+    }
+    TreeSet<String> expressions = new TreeSet<>();
+    paths.forEach(p -> expressions.add(p.expression()));
+    FetchKey key = new FetchKey(query, series, expressions);
+    return Mono.defer(
+        () -> {
+          Mono<Map<String, Object>> existing = inFlight.get(key);
+          if (existing != null) {
+            hits.incrementAndGet();
+            return existing;
+          }
+          Mono<Map<String, Object>>[] holder = newHolder();
+          holder[0] =
+              execute(query, series, List.copyOf(paths))
+                  // 在结果向下游传播之前移除，保证之后到达的请求重新查询而不是拿到旧结果
+                  .doOnSuccess(result -> inFlight.remove(key, holder[0]))
+                  .doOnError(e -> inFlight.remove(key, holder[0]))
+                  .cache();
+          existing = inFlight.putIfAbsent(key, holder[0]);
+          if (existing != null) {
+            hits.incrementAndGet();
+            return existing;
+          }
+          misses.incrementAndGet();
+          return holder[0];
+        });
+  }
+
+  public long hits() {
+    return hits.get();
+  }
+
+  public long misses() {
+    return misses.get();
+  }
+
+  public int inFlight() {
+    return inFlight.size();
+  }
+
+  private Mono<Map<String, Object>> execute(
+      QueryKey query, SeriesStore.Retention retention, List<MappingPath> paths) {
+    DataSourceAdapter adapter = registry.get(query.datasourceId());
+    if (adapter == null) {
+      return Mono.error(new RuntimeException("adapter not found: " + query.datasourceId()));
+    }
+    String adapterId = adapter.id();
+    if (paths.stream().allMatch(MappingPath::isItemsProjection)) {
+      ColumnarResult held = retention != null ? series.snapshot(query, retention) : null;
+      // 序列只保留时间和数值列，投影其它字段的路径仍然查询数据源
+      if (held != null && paths.stream().allMatch(p -> p.projectsColumnOf(held))) {
+        long start = System.nanoTime();
+        Map<String, Object> result = new HashMap<>();
+        for (MappingPath path : paths) {
+          result.put(path.expression(), path.project(held));
+        }
+        metrics.recordMapping("series", System.nanoTime() - start);
+        return Mono.just(result);
+      }
+      if (adapter.supportsColumnar()) {
+        // 列式结果：字段投影直接引用列，数值不经过 JSON 装箱
+        return metrics
+            .timeQuery(adapterId, adapter.executeColumnar(query.query(), query.variables()))
+            .map(
+                columnar -> {
+                  long bytes = 0;
+                  for (int i = 0; i < columnar.columnNames().size(); i++) {
+                    bytes += RenderCache.estimateWeight(columnar.column(i));
+                  }
+                  metrics.recordResult(adapterId, columnar.rowCount(), bytes);
+                  long start = System.nanoTime();
+                  Map<String, Object> result = new HashMap<>();
+                  for (MappingPath path : paths) {
+                    result.put(path.expression(), path.project(columnar));
+                  }
+                  metrics.recordMapping("columnar", System.nanoTime() - start);
+                  return result;
+                });
+      }
+      // 全部是列投影：边读批次边投影，不持有完整结果树
+      return metrics.timeQuery(
+          adapterId,
+          adapter
+              .executeBatches(query.query(), query.variables())
+              .reduceWith(
+                  () -> new BatchOutputs(newOutputs(paths.size())),
+                  (outs, batch) -> {
+                    outs.rows += batch.size();
+                    outs.bytes += estimateBytes(batch);
+                    long start = System.nanoTime();
+                    for (int i = 0; i < paths.size(); i++) {
+                      paths.get(i).project(batch, outs.arrays[i]);
+                    }
+                    outs.mappingNanos += System.nanoTime() - start;
+                    return outs;
+                  })
+              .map(
+                  outs -> {
+                    metrics.recordResult(adapterId, outs.rows, outs.bytes);
+                    long start = System.nanoTime();
+                    Map<String, Object> result = new HashMap<>();
+                    for (int i = 0; i < paths.size(); i++) {
+                      result.put(paths.get(i).expression(), OptionTemplate.toPlain(outs.arrays[i]));
+                    }
+                    metrics.recordMapping("batches", outs.mappingNanos + System.nanoTime() - start);
+                    return result;
+                  }));
+    }
+    return metrics
+        .timeQuery(adapterId, adapter.execute(query.query(), query.variables()))
+        .map(
+            data -> {
+              JsonNode items = data.path("items");
+              metrics.recordResult(
+                  adapterId, items.isArray() ? items.size() : data.size(), estimateBytes(data));
+              long start = System.nanoTime();
+              Map<String, Object> result = new HashMap<>();
+              for (MappingPath path : paths) {
+                result.put(path.expression(), OptionTemplate.toPlain(path.read(data)));
+              }
+              metrics.recordMapping("tree", System.nanoTime() - start);
+              return result;
+            });
+  }
+
+  /** 估算 JSON 结果占用的字节数，只用于指标；数组按第一个元素的大小乘以元素个数计算 */
+  static long estimateBytes(JsonNode node) {
+    if (node == null) return 0;
+    if (node.isArray()) {
+      return node.isEmpty() ? 40 : 40 + node.size() * (8 + estimateBytes(node.get(0)));
+    }
+    if (node.isObject()) {
+      long size = 48;
+      for (Map.Entry<String, JsonNode> field : node.properties()) {
+        size += 32 + 2L * field.getKey().length() + estimateBytes(field.getValue());
+      }
+      return size;
+    }
+    if (node.isTextual()) {
+      return 40 + 2L * node.textValue().length();
+    }
+    return 16;
+  }
+
+  private static ArrayNode[] newOutputs(int size) {
+    ArrayNode[] outs = new ArrayNode[size];
+    for (int i = 0; i < size; i++) {
+      outs[i] = JsonNodeFactory.instance.arrayNode();
+    }
+    return outs;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> Mono<T>[] newHolder() {
+    return new Mono[1];
+  }
+
+  /** 一次适配器调用的标识；variables 为 null 时视为空 Map */
+  public record QueryKey(String datasourceId, String query, Map<String, Object> variables) {
+    public QueryKey {
+      variables = variables == null ? Map.of() : variables;
+    }
+  }
+
+  private record FetchKey(
+      QueryKey query, SeriesStore.Retention series, TreeSet<String> expressions) {}
+
+  /** 按批投影的累积状态 */
+  private static final class BatchOutputs {
+    final ArrayNode[] arrays;
+    long rows;
+    long bytes;
+    long mappingNanos;
+
+    BatchOutputs(ArrayNode[] arrays) {
+      this.arrays = arrays;
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.roy.anycharts.chart;
+
+import com.roy.anycharts.chart.QueryCoalescer.QueryKey;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import reactor.core.publisher.Mono;
+
+/**
+ * 一次渲染请求内的查询作用域。
+ *
+ * <p>创建时按 (datasourceId, query, variables) 汇总所有参与渲染的 binding 的映射路径，每个查询在作用域内
+ * 只经 {@link QueryCoalescer} 发起一次；多个图表共享同一份提取结果，互相之间不重复查询。配置了内存序列的 stream
+ * binding 按 (查询, 保留策略) 单独汇总，只有它们读取 {@link SeriesStore} 中各自的序列。
+ */
+final class QueryScope {
+  private final QueryCoalescer coalescer;
+  private final Map<String, Object> variables;
+  private final Map<Target, Map<String, MappingPath>> groups = new LinkedHashMap<>();
+  private final Map<Target, Integer> bindingCounts = new HashMap<>();
+  private final Map<Target, Mono<Map<String, Object>>> fetches = new ConcurrentHashMap<>();
+
+  QueryScope(
+      QueryCoalescer coalescer,
+      Collection<DataSourceBinding> bindings,
+      Map<String, Object> variables) {
+    this.coalescer = coalescer;
+    this.variables = variables;
+    for (DataSourceBinding b : bindings) {
+      MappingPath path;
+      try {
+        path = MappingPath.of(b.getMappingPath());
+      } catch (RuntimeException e) {
+        // 非法路径只让所属图表失败，在 fetch 时报告
+        continue;
+      }
+      Target key = keyOf(b);
+      groups.computeIfAbsent(key, k -> new LinkedHashMap<>()).put(path.expression(), path);
+      bindingCounts.merge(key, 1, Integer::sum);
+    }
+  }
+
+  Target keyOf(DataSourceBinding b) {
+    return new Target(new QueryKey(b.getDatasourceId(), b.getQuery(), variables), seriesOf(b));
+  }
+
+  // 聚合配置无效的 binding 订阅时才报错，渲染按没有序列处理
+  private static SeriesStore.Retention seriesOf(DataSourceBinding b) {
+    try {
+      return SeriesStore.Retention.of(b);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /** 取出给定 binding 所需的全部查询结果：{@link #keyOf} -> (映射路径 -> 提取结果)。 */
+  Mono<Map<Target, Map<String, Object>>> fetch(Collection<DataSourceBinding> bindings) {
+    Set<Target> keys = new LinkedHashSet<>();
+    for (DataSourceBinding b : bindings) {
+      try {
+        MappingPath.of(b.getMappingPath());
+      } catch (RuntimeException e) {
+        return Mono.error(e);
+      }
+      keys.add(keyOf(b));
+    }
+    if (keys.isEmpty()) {
+      return Mono.just(Map.of());
+    }
+
+    List<Mono<Map.Entry<Target, Map<String, Object>>>> monos = new ArrayList<>();
+    for (Target key : keys) {
+      monos.add(fetch(key).map(result -> Map.entry(key, result)));
+    }
+    return Mono.zip(
+        monos,
+        arr -> {
+          Map<Target, Map<String, Object>> result = new HashMap<>();
+          for (Object o : arr) {
+            @SuppressWarnings("unchecked")
+            Map.Entry<Target, Map<String, Object>> entry =
+                (Map.Entry<Target, Map<String, Object>>) o;
+            result.put(entry.getKey(), entry.getValue());
+          }
+          return result;
+        });
+  }
+
+  // 失败结果同样在作用域内缓存，依赖同一查询的图表得到相同的错误
+  private Mono<Map<String, Object>> fetch(Target key) {
+    return fetches.computeIfAbsent(
+        key,
+        k ->
+            coalescer
+                .fetch(k.query(), k.series(), groups.get(k).values(), bindingCounts.get(k))
+                .cache());
+  }
+
+  /**
+   * 作用域内的一次取数。
+   *
+   * @param series binding 的内存序列的保留策略，null 表示只查询数据源
+   */
+  record Target(QueryKey query, SeriesStore.Retention series) {}
+}
@@ -0,0 +1,194 @@
+package com.roy.anycharts.chart;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.roy.anycharts.adapter.Column;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.publisher.Mono;
+
+/**
+ * renderChart 结果缓存，key 为 图表 ID + 规范化后的 variables（+ 降采样目标点数）。
+ *
+ * <p>条目在 TTL 内直接返回；超过 TTL 但仍在 stale-while-revalidate 窗口内时返回旧结果并在后台重新渲染；
+ * 再往后条目被移除。缓存按渲染结果的估算字节数限制总量。图表配置变更时清除该图表的所有条目。
+ */
+@Slf4j
+@Component
+public class RenderCache {
+  private final RenderCacheProperties properties;
+  private final AsyncCache<RenderKey, Entry> cache;
+  private final Ticker ticker;
+  private final Set<RenderKey> refreshing = ConcurrentHashMap.newKeySet();
+  private final ObjectMapper keyMapper =
+      new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+  @Autowired
+  public RenderCache(RenderCacheProperties properties) {
+    this(properties, Ticker.systemTicker());
+  }
+
+  /** ticker 同时用于条目过期和判断是否需要后台刷新，测试中可以替换为手动推进的时钟 */
+  RenderCache(RenderCacheProperties properties, Ticker ticker) {
+    this.properties = properties;
+    this.ticker = ticker;
+    long staleNanos = properties.getStaleWhileRevalidate().toNanos();
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumWeight(properties.getMaxWeightBytes())
+            .weigher((RenderKey key, Entry entry) -> entry.weight())
+            .expireAfter(
+                new Expiry<RenderKey, Entry>() {
+                  @Override
+                  public long expireAfterCreate(RenderKey key, Entry entry, long currentTime) {
+                    return entry.ttlNanos() + staleNanos;
+                  }
+
+                  @Override
+                  public long expireAfterUpdate(
+                      RenderKey key, Entry entry, long currentTime, long currentDuration) {
+                    return entry.ttlNanos() + staleNanos;
+                  }
+
+                  @Override
+                  public long expireAfterRead(
+                      RenderKey key, Entry entry, long currentTime, long currentDuration) {
+                    return currentDuration;
+                  }
+                })
+            .ticker(ticker)
+            .recordStats()
+            .buildAsync();
+  }
+
+  public Mono<Map<String, Object>> get(
+      String chartId, Map<String, Object> variables, Supplier<Mono<Map<String, Object>>> loader) {
+    return get(chartId, variables, 0, loader);
+  }
+
+  /** maxPoints 为渲染时的降采样目标点数，不同点数的结果分别缓存 */
+  public Mono<Map<String, Object>> get(
+      String chartId,
+      Map<String, Object> variables,
+      int maxPoints,
+      Supplier<Mono<Map<String, Object>>> loader) {
+    long ttlNanos = properties.ttlFor(chartId).toNanos();
+    if (!properties.isEnabled() || ttlNanos <= 0) {
+      return loader.get();
+    }
+    RenderKey key = new RenderKey(chartId, normalize(variables), maxPoints);
+    CompletableFuture<Entry> future =
+        cache.get(key, (k, executor) -> load(loader, ttlNanos).toFuture());
+    // suppressCancel：一个订阅者取消不应影响等待同一次渲染的其他订阅者
+    return Mono.fromFuture(future, true)
+        .map(
+            entry -> {
+              if (ticker.read() - entry.createdAt() > entry.ttlNanos()) {
+                revalidate(key, future, loader, ttlNanos);
+              }
+              return entry.value();
+            });
+  }
+
+  public CacheStats stats() {
+    return cache.synchronous().stats();
+  }
+
+  public long size() {
+    return cache.synchronous().estimatedSize();
+  }
+
+  public void invalidate(String chartId) {
+    cache.synchronous().asMap().keySet().removeIf(key -> key.chartId().equals(chartId));
+  }
+
+  // 提交之后才处理，不会按未提交或随后回滚的配置清除和重新渲染
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onChartConfigChanged(ChartConfigChangedEvent event) {
+    invalidate(event.chartId());
+  }
+
+  // 只在条目仍是 expected 时写回：刷新期间条目被 invalidate 或已重新加载时丢弃刷新结果，不把旧配置的结果放回
+  private void revalidate(
+      RenderKey key,
+      CompletableFuture<Entry> expected,
+      Supplier<Mono<Map<String, Object>>> loader,
+      long ttlNanos) {
+    if (!refreshing.add(key)) {
+      return;
+    }
+    load(loader, ttlNanos)
+        .doFinally(signal -> refreshing.remove(key))
+        .subscribe(
+            entry ->
+                cache.asMap().replace(key, expected, CompletableFuture.completedFuture(entry)),
+            e -> log.warn("后台刷新图表 {} 失败，继续使用旧结果: {}", key.chartId(), e.getMessage()));
+  }
+
+  private Mono<Entry> load(Supplier<Mono<Map<String, Object>>> loader, long ttlNanos) {
+    return loader
+        .get()
+        .map(value -> new Entry(value, ticker.read(), ttlNanos, estimateWeight(value)));
+  }
+
+  private String normalize(Map<String, Object> variables) {
+    if (variables == null || variables.isEmpty()) {
+      return "";
+    }
+    try {
+      return keyMapper.writeValueAsString(variables);
+    } catch (JsonProcessingException e) {
+      return String.valueOf(variables);
+    }
+  }
+
+  /** 粗略估算渲染结果占用的字节数，只用于缓存容量控制 */
+  static int estimateWeight(Object value) {
+    long weight = estimate(value);
+    return (int) Math.min(Integer.MAX_VALUE, weight);
+  }
+
+  private static long estimate(Object value) {
+    if (value instanceof Map<?, ?> map) {
+      long size = 48;
+      for (Map.Entry<?, ?> e : map.entrySet()) {
+        size += 32 + estimate(e.getKey()) + estimate(e.getValue());
+      }
+      return size;
+    }
+    if (value instanceof Column column) {
+      // 列按基本类型数组估算，不逐个装箱
+      return 64 + 12L * column.size();
+    }
+    if (value instanceof List<?> list) {
+      long size = 40;
+      for (Object element : list) {
+        size += 8 + estimate(element);
+      }
+      return size;
+    }
+    if (value instanceof CharSequence s) {
+      return 40 + 2L * s.length();
+    }
+    return 16;
+  }
+
+  private record RenderKey(String chartId, String variables, int maxPoints) {}
+
+  private record Entry(Map<String, Object> value, long createdAt, long ttlNanos, int weight) {}
+}
@@ -0,0 +1,25 @@
+package com.roy.anycharts.chart;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "anycharts.render-cache")
+public class RenderCacheProperties {
+  private boolean enabled = true;
+  // 渲染结果的新鲜期
+  private Duration ttl = Duration.ofSeconds(10);
+  // 过期后仍可直接返回旧结果的时长，期间在后台重新渲染
+  private Duration staleWhileRevalidate = Duration.ofSeconds(30);
+  // 缓存按估算字节数计重的上限
+  private long maxWeightBytes = 64L * 1024 * 1024;
+  // 按图表 ID 覆盖新鲜期，0 表示该图表不缓存
+  private Map<String, Duration> charts = new HashMap<>();
+
+  public Duration ttlFor(String chartId) {
+    return charts.getOrDefault(chartId, ttl);
+  }
+}
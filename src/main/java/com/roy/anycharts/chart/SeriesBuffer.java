@@ -0,0 +1,184 @@
+package com.roy.anycharts.chart;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.roy.anycharts.adapter.Column;
+import com.roy.anycharts.adapter.ColumnarResult;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个时间序列的环形缓冲：时间戳存为 long[]，每个数值字段一个 double[]，写满后覆盖最旧的点。
+ *
+ * <p>点按时间顺序追加，早于最新一点的点被丢弃；配置了 window 时只保留最新一点之前 window 内的点。追加和
+ * {@link #snapshot} 都不为单个点创建对象。追加来自事件线程、读取来自渲染线程，方法均同步。
+ */
+final class SeriesBuffer {
+  static final String DEFAULT_TIME_COLUMN = "time";
+  private static final int INITIAL_CAPACITY = 256;
+
+  private final int capacity;
+  private final long windowMillis;
+  private final String timeField;
+  private final List<String> fields = new ArrayList<>();
+  private final Map<String, Integer> fieldIndexes = new HashMap<>();
+  private final List<double[]> values = new ArrayList<>();
+  private long[] times;
+  // 最旧一点的下标
+  private int head;
+  private int size;
+
+  /**
+   * @param capacity 最多保留的点数
+   * @param window 按时间保留的范围，null 或 0 表示只按点数
+   * @param timeField 事件行中的时间字段，null 表示使用到达时间
+   */
+  SeriesBuffer(int capacity, Duration window, String timeField) {
+    this.capacity = Math.max(1, capacity);
+    this.windowMillis = window == null ? 0 : window.toMillis();
+    this.timeField = timeField;
+    this.times = new long[Math.min(this.capacity, INITIAL_CAPACITY)];
+  }
+
+  /**
+   * 追加一行：时间取自 timeField（epoch 毫秒或 ISO-8601 日期/时间，不带时区的按 UTC），未配置时为 arrivalMillis；
+   * 其余数值字段各存为一列，缺少的字段记为空值。
+   *
+   * @return 时间无法解析或早于最新一点时返回 false，该行被丢弃
+   */
+  synchronized boolean append(JsonNode row, long arrivalMillis) {
+    long time = timeField == null ? arrivalMillis : parseTime(row.get(timeField));
+    if (time == Long.MIN_VALUE || (size > 0 && time < times[slot(size - 1)])) {
+      return false;
+    }
+    int slot;
+    if (size < times.length) {
+      slot = slot(size++);
+    } else if (times.length < capacity) {
+      grow();
+      slot = size++;
+    } else {
+      slot = head;
+      head = slot(1);
+    }
+    times[slot] = time;
+    for (double[] column : values) column[slot] = Double.NaN;
+    for (Map.Entry<String, JsonNode> field : row.properties()) {
+      JsonNode value = field.getValue();
+      if (!value.isNumber() || field.getKey().equals(timeField)) continue;
+      values.get(fieldIndex(field.getKey()))[slot] = value.doubleValue();
+    }
+    if (windowMillis > 0) {
+      long since = time - windowMillis;
+      while (size > 1 && times[head] <= since) {
+        head = slot(1);
+        size--;
+      }
+    }
+    return true;
+  }
+
+  /** 清空全部点和字段 */
+  synchronized void clear() {
+    fields.clear();
+    fieldIndexes.clear();
+    values.clear();
+    head = 0;
+    size = 0;
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  /**
+   * 当前保留的点，时间列（列名为 timeField，未配置时为 time）之后按字段首次出现的顺序排列数值列；数值列中的缺失值
+   * 为空值。还没有写入任何点时返回 null。
+   */
+  synchronized ColumnarResult snapshot() {
+    if (size == 0) return null;
+    List<String> names = new ArrayList<>(fields.size() + 1);
+    List<Column> columns = new ArrayList<>(fields.size() + 1);
+    names.add(timeField != null ? timeField : DEFAULT_TIME_COLUMN);
+    Column.Builder time = Column.builder(Column.Type.TIMESTAMP, size);
+    for (int i = 0; i < size; i++) time.appendLong(times[slot(i)]);
+    columns.add(time.build());
+    for (int f = 0; f < fields.size(); f++) {
+      double[] column = values.get(f);
+      Column.Builder builder = Column.builder(Column.Type.DOUBLE, size);
+      for (int i = 0; i < size; i++) {
+        double value = column[slot(i)];
+        if (Double.isNaN(value)) builder.appendNull();
+        else builder.appendDouble(value);
+      }
+      names.add(fields.get(f));
+      columns.add(builder.build());
+    }
+    return new ColumnarResult(names, columns);
+  }
+
+  /** 解析时间值为 epoch 毫秒，无法解析时返回 Long.MIN_VALUE */
+  static long parseTime(JsonNode value) {
+    if (value == null) return Long.MIN_VALUE;
+    if (value.isIntegralNumber()) return value.longValue();
+    if (!value.isTextual()) return Long.MIN_VALUE;
+    String text = value.textValue();
+    try {
+      if (text.length() == 10) {
+        return LocalDate.parse(text).toEpochDay() * 86_400_000L;
+      }
+      TemporalAccessor parsed =
+          DateTimeFormatter.ISO_DATE_TIME.parseBest(
+              text, OffsetDateTime::from, LocalDateTime::from);
+      return parsed instanceof OffsetDateTime offset
+          ? offset.toInstant().toEpochMilli()
+          : ((LocalDateTime) parsed).toInstant(ZoneOffset.UTC).toEpochMilli();
+    } catch (DateTimeParseException e) {
+      return Long.MIN_VALUE;
+    }
+  }
+
+  // 第 i 个点（0 为最旧）在数组中的下标
+  private int slot(int i) {
+    int slot = head + i;
+    return slot < times.length ? slot : slot - times.length;
+  }
+
+  private int fieldIndex(String name) {
+    Integer index = fieldIndexes.get(name);
+    if (index != null) return index;
+    double[] column = new double[times.length];
+    Arrays.fill(column, Double.NaN);
+    fields.add(name);
+    values.add(column);
+    fieldIndexes.put(name, fields.size() - 1);
+    return fields.size() - 1;
+  }
+
+  // 扩容时把环形数组展开为从 0 开始
+  private void grow() {
+    int grown = (int) Math.min(capacity, times.length * 2L);
+    for (int f = 0; f < values.size(); f++) {
+      double[] old = values.get(f);
+      double[] column = new double[grown];
+      Arrays.fill(column, Double.NaN);
+      for (int i = 0; i < size; i++) column[i] = old[slot(i)];
+      values.set(f, column);
+    }
+    // slot() 依赖 times 的长度，最后替换
+    long[] unrolled = new long[grown];
+    for (int i = 0; i < size; i++) unrolled[i] = times[slot(i)];
+    times = unrolled;
+    head = 0;
+  }
+}
@@ -0,0 +1,304 @@
+package com.roy.anycharts.chart;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.roy.anycharts.adapter.ColumnarResult;
+import com.roy.anycharts.adapter.DataSourceAdapter;
+import com.roy.anycharts.chart.QueryCoalescer.QueryKey;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * stream binding 的内存时间序列。
+ *
+ * <p>配置了 seriesPoints 或 seriesWindow 的 stream binding 订阅时，数据源的事件流按查询共享，每个事件中的
+ * items 行（事件不含 items 数组时为事件本身）先追加到该查询的 {@link SeriesBuffer}，再交给下游触发渲染。
+ * 订阅存在期间，同一查询的 items 投影直接读取序列中保留的点（见 {@link QueryCoalescer}），不再查询数据源；最后一个
+ * 订阅者离开后序列随即释放。事件应当是增量，如 MockAdapter 的推送、SSE 事件或数据库的水位轮询；标记为
+ * {@link DataSourceAdapter#SNAPSHOT_FIELD} 的完整结果（如轮询的首次查询）先清空序列再写入，回放日志时同样处理。
+ *
+ * <p>启用 {@link StreamJournal} 时事件同时写入日志，序列建立时先从日志回放到达时间在保留范围内的记录，重新订阅或重启
+ * 后不必等新事件、也不必重新查询就能恢复历史。序列中已有点时，每个新订阅者先收到一个回填事件，立即按保留的点渲染
+ * 一帧，之后才是实时事件。
+ *
+ * <p>配置了 aggregate 的 binding 在写入序列之前先经过 {@link WindowAggregator}：事件只计入当前窗口，每个窗口结束时
+ * 向序列写入一个聚合后的点（同时写入日志）并向下游发送一次，渲染次数只取决于窗口而与事件频率无关。
+ *
+ * <p>序列和日志中的流都按 (查询, 保留策略) 区分：同一查询的原始序列和不同窗口的聚合序列各自独立，修改 binding
+ * 的保留或聚合配置后建立的是新序列，不会回放按旧配置写入的记录。
+ */
+@Component
+public class SeriesStore {
+  // 回填事件只用于触发渲染，不写入序列
+  private static final JsonNode BACKFILL = JsonNodeFactory.instance.objectNode();
+
+  private final SubscriptionProperties properties;
+  private final StreamJournal journal;
+  private final Map<SeriesKey, Shared> series = new ConcurrentHashMap<>();
+  private final AtomicLong appended = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong aggregatedRows = new AtomicLong();
+  private final AtomicLong aggregatedWindows = new AtomicLong();
+
+  public SeriesStore(SubscriptionProperties properties, StreamJournal journal) {
+    this.properties = properties;
+    this.journal = journal;
+  }
+
+  /**
+   * 订阅 key 的事件流并写入序列，同一 key 和保留策略的订阅共享一个序列和一次 source 订阅。
+   *
+   * @param source 数据源的事件流，序列建立时订阅一次
+   */
+  public Flux<JsonNode> subscribe(
+      QueryKey key, Retention retention, Supplier<Flux<JsonNode>> source) {
+    return Flux.defer(
+        () -> {
+          Shared shared =
+              series.computeIfAbsent(
+                  new SeriesKey(key, retention), k -> share(k, retention, source));
+          // 加入已有序列的订阅者先按保留的点渲染；序列刚建立时由回放完成后的回填事件触发
+          return shared.warmed && shared.buffer.size() > 0
+              ? shared.flux.startWith(BACKFILL)
+              : shared.flux;
+        });
+  }
+
+  /**
+   * key 按 retention 建立的序列当前保留的点，见 {@link SeriesBuffer#snapshot}；没有正在订阅的序列或序列中还没有点时
+   * 返回 null，由调用方查询数据源。
+   */
+  public ColumnarResult snapshot(QueryKey key, Retention retention) {
+    Shared shared = series.get(new SeriesKey(key, retention));
+    return shared == null ? null : shared.buffer.snapshot();
+  }
+
+  /** 当前的序列数 */
+  public int size() {
+    return series.size();
+  }
+
+  /** 全部序列当前保留的点数 */
+  public long retainedPoints() {
+    long total = 0;
+    for (Shared shared : series.values()) total += shared.buffer.size();
+    return total;
+  }
+
+  /** 实时事件写入序列的点数，不含从日志回放的点 */
+  public long appended() {
+    return appended.get();
+  }
+
+  /** 因时间无法解析或早于最新一点而丢弃的行数 */
+  public long dropped() {
+    return dropped.get();
+  }
+
+  /** 计入窗口聚合的事件行数 */
+  public long aggregatedRows() {
+    return aggregatedRows.get();
+  }
+
+  /** 窗口聚合输出的点数 */
+  public long aggregatedWindows() {
+    return aggregatedWindows.get();
+  }
+
+  private Shared share(SeriesKey key, Retention retention, Supplier<Flux<JsonNode>> source) {
+    int maxPoints = properties.getSeries().getMaxPoints();
+    int capacity =
+        retention.points() != null && retention.points() > 0
+            ? Math.min(retention.points(), maxPoints)
+            : maxPoints;
+    SeriesBuffer buffer = new SeriesBuffer(capacity, retention.window(), retention.timeField());
+    byte[] journalKey = journal.keyOf(key.query(), retention.journalStream());
+    Shared[] holder = new Shared[1];
+    // 按到达时间保留的序列只回放窗口内的记录，按事件时间保留的由序列自己截取
+    long since =
+        retention.window() != null && retention.timeField() == null
+            ? System.currentTimeMillis() - retention.window().toMillis()
+            : Long.MIN_VALUE;
+    Mono<JsonNode> warm =
+        journalKey == null
+            ? Mono.empty()
+            : Mono.fromSupplier(
+                () -> {
+                  journal.replay(journalKey, since, (time, event) -> append(buffer, event, time));
+                  holder[0].warmed = true;
+                  return buffer.size() > 0 ? BACKFILL : null;
+                })
+            .subscribeOn(Schedulers.boundedElastic());
+    Flux<JsonNode> events =
+        retention.aggregation() == null
+            ? Flux.defer(source)
+            : aggregate(Flux.defer(source), retention.aggregation(), retention.timeField());
+    Flux<JsonNode> live =
+        events
+            // 先写入再向下游发送，事件触发的渲染能读到新的点
+            .doOnNext(
+                event -> {
+                  long now = System.currentTimeMillis();
+                  appended.addAndGet(append(buffer, event, now));
+                  journal.append(journalKey, now, event);
+                });
+    Flux<JsonNode> flux =
+        Flux.concat(warm, live)
+            .doFinally(signal -> series.remove(key, holder[0]))
+            .publish()
+            .refCount(1);
+    holder[0] = new Shared(flux, buffer);
+    holder[0].warmed = journalKey == null;
+    return holder[0];
+  }
+
+  // 事件计入窗口，每个 slide 输出一个点；事件流结束时输出未满的最后一个窗口
+  private Flux<JsonNode> aggregate(
+      Flux<JsonNode> events, Aggregation aggregation, String timeField) {
+    return Flux.defer(
+        () -> {
+          WindowAggregator aggregator =
+              new WindowAggregator(aggregation, timeField, System.currentTimeMillis());
+          Mono<JsonNode> flush =
+              Mono.fromSupplier(() -> window(aggregator.emit(System.currentTimeMillis())));
+          return events.publish(
+              shared ->
+                  Flux.merge(
+                      shared
+                          .doOnNext(event -> aggregatedRows.addAndGet(aggregator.add(event)))
+                          .ignoreElements(),
+                      Flux.interval(aggregation.slide(), aggregation.slide())
+                          .<JsonNode>handle(
+                              (tick, sink) -> {
+                                JsonNode window =
+                                    window(aggregator.emit(System.currentTimeMillis()));
+                                if (window != null) sink.next(window);
+                              })
+                          .takeUntilOther(shared.ignoreElements())
+                          .concatWith(flush)));
+        });
+  }
+
+  private JsonNode window(JsonNode window) {
+    if (window != null) aggregatedWindows.incrementAndGet();
+    return window;
+  }
+
+  // 返回写入的行数
+  private int append(SeriesBuffer buffer, JsonNode event, long arrivalMillis) {
+    if (event.path(DataSourceAdapter.SNAPSHOT_FIELD).asBoolean()) buffer.clear();
+    JsonNode items = event.get("items");
+    Iterable<JsonNode> rows =
+        items != null && items.isArray() ? items : event.isObject() ? List.of(event) : List.of();
+    int count = 0;
+    for (JsonNode row : rows) {
+      if (row.isObject() && buffer.append(row, arrivalMillis)) {
+        count++;
+      } else {
+        dropped.incrementAndGet();
+      }
+    }
+    return count;
+  }
+
+  /**
+   * 序列的保留策略。
+   *
+   * @param points 最多保留的点数，null 表示只按时长（仍受 maxPoints 限制）
+   * @param window 保留最新一点之前多长时间内的点，null 表示只按点数
+   * @param timeField 行中的时间字段，null 表示使用到达时间
+   * @param aggregation 写入序列之前的窗口聚合，null 表示每行直接写入
+   */
+  public record Retention(
+      Integer points, Duration window, String timeField, Aggregation aggregation) {
+    /**
+     * binding 的保留策略；不是 stream binding 或点数、时长和聚合都没有配置时返回 null。只配置了聚合时序列按
+     * maxPoints 保留。
+     *
+     * @throws IllegalArgumentException 聚合的窗口配置无效
+     */
+    public static Retention of(DataSourceBinding binding) {
+      Aggregation aggregation = binding.isStream() ? Aggregation.of(binding) : null;
+      if (!binding.isStream()
+          || (binding.getSeriesPoints() == null
+              && binding.getSeriesWindow() == null
+              && aggregation == null)) {
+        return null;
+      }
+      return new Retention(
+          binding.getSeriesPoints(),
+          binding.getSeriesWindow(),
+          binding.getSeriesTimeField(),
+          aggregation);
+    }
+
+    // 日志中区分同一查询不同序列的标识，由保留策略的各项组成
+    String journalStream() {
+      StringBuilder id = new StringBuilder();
+      id.append(points).append('/').append(window).append('/').append(timeField);
+      if (aggregation != null) {
+        id.append('/')
+            .append(aggregation.function())
+            .append('/')
+            .append(aggregation.window())
+            .append('/')
+            .append(aggregation.slide());
+      }
+      return id.toString();
+    }
+  }
+
+  private record SeriesKey(QueryKey query, Retention retention) {}
+
+  /**
+   * 窗口聚合。
+   *
+   * @param function 聚合函数
+   * @param window 窗口长度
+   * @param slide 输出间隔，等于 window 时为滚动窗口；window 不是 slide 的整数倍时向上取整
+   */
+  public record Aggregation(AggregateFunction function, Duration window, Duration slide) {
+    public Aggregation {
+      if (function == null || window == null || window.toMillis() <= 0) {
+        throw new IllegalArgumentException("窗口聚合需要 aggregate 和大于 0 的 aggregateWindow");
+      }
+      if (slide == null) slide = window;
+      if (slide.toMillis() <= 0 || slide.compareTo(window) > 0) {
+        throw new IllegalArgumentException("aggregateSlide 必须大于 0 且不超过 aggregateWindow");
+      }
+    }
+
+    /** binding 的窗口聚合；没有配置 aggregate 时返回 null */
+    public static Aggregation of(DataSourceBinding binding) {
+      if (binding.getAggregate() == null) return null;
+      return new Aggregation(
+          binding.getAggregate(), binding.getAggregateWindow(), binding.getAggregateSlide());
+    }
+
+    /** 窗口包含的分片数 */
+    int panes() {
+      long slideMillis = slide.toMillis();
+      return (int) ((window.toMillis() + slideMillis - 1) / slideMillis);
+    }
+  }
+
+  private static final class Shared {
+    final Flux<JsonNode> flux;
+    final SeriesBuffer buffer;
+    // 日志回放完成后为 true
+    volatile boolean warmed;
+
+    Shared(Flux<JsonNode> flux, SeriesBuffer buffer) {
+      this.flux = flux;
+      this.buffer = buffer;
+    }
+  }
+}
@@ -0,0 +1,8 @@
+package com.roy.anycharts.chart;
+
+/** 客户端持续跟不上推送速度，订阅被服务端断开 */
+public class SlowConsumerException extends RuntimeException {
+  public SlowConsumerException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,327 @@
+package com.roy.anycharts.chart;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.roy.anycharts.chart.QueryCoalescer.QueryKey;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * 内存序列事件的追加日志，供重新订阅和重启后回填 {@link SeriesStore}。
+ *
+ * <p>日志由目录下按序号命名的段文件组成，每个段创建时按 segmentSize 整段映射到内存，记录依次写入映射区：
+ *
+ * <pre>
+ * int 记录体长度 | int 记录体 CRC32 | 记录体: long 到达时间 | short 流标识长度 | 流标识 | 事件 JSON
+ * </pre>
+ *
+ * 长度最后写入，长度为 0 表示段的末尾。启动时顺序扫描全部段，校验失败的记录及其后的内容视为未写完而清除，
+ * 最后一个段继续追加。写满后切换新段，并按 maxSize / maxAge 整段删除最旧的段。回放按写入顺序顺序读取，
+ * 只解析流标识匹配的记录。
+ */
+@Slf4j
+@Component
+public class StreamJournal implements DisposableBean {
+  private static final String SUFFIX = ".seg";
+  private static final int HEADER = 8;
+  // 记录体中流标识之前的固定部分：到达时间和流标识长度
+  private static final int BODY_PREFIX = 10;
+
+  private final StreamJournalProperties properties;
+  private final ObjectMapper mapper;
+  private final ObjectWriter keyWriter;
+  private final List<Segment> segments = new ArrayList<>();
+  private final AtomicLong written = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong replayed = new AtomicLong();
+  private final int segmentSize;
+  private Path directory;
+  private Segment active;
+
+  public StreamJournal(StreamJournalProperties properties, ObjectMapper mapper) {
+    this.properties = properties;
+    this.mapper = mapper;
+    this.keyWriter = mapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    this.segmentSize = (int) Math.min(properties.getSegmentSize().toBytes(), 1 << 30);
+    if (properties.isEnabled()) {
+      try {
+        open();
+      } catch (IOException e) {
+        throw new UncheckedIOException("无法打开流日志目录 " + properties.getDirectory(), e);
+      }
+    }
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  /** 查询在日志中的流标识，见 {@link #keyOf(QueryKey, String)} */
+  byte[] keyOf(QueryKey key) {
+    return keyOf(key, null);
+  }
+
+  /**
+   * 查询在日志中的流标识；日志关闭或标识过长时返回 null，此时该查询不写日志。
+   *
+   * @param stream 同一查询下的流，如序列的保留策略，null 表示查询本身
+   */
+  byte[] keyOf(QueryKey key, String stream) {
+    if (!isEnabled()) return null;
+    try {
+      String id =
+          key.datasourceId()
+              + "\n"
+              + key.query()
+              + "\n"
+              + keyWriter.writeValueAsString(key.variables());
+      byte[] bytes = (stream == null ? id : id + "\n" + stream).getBytes(StandardCharsets.UTF_8);
+      return bytes.length <= 0xFFFF ? bytes : null;
+    } catch (IOException e) {
+      log.warn("查询变量无法序列化，不写入流日志: {}", e.toString());
+      return null;
+    }
+  }
+
+  /** 追加一条事件记录；记录超过段大小时丢弃 */
+  void append(byte[] key, long timeMillis, JsonNode event) {
+    if (key == null) return;
+    byte[] payload;
+    try {
+      payload = mapper.writeValueAsBytes(event);
+    } catch (IOException e) {
+      dropped.incrementAndGet();
+      return;
+    }
+    int bodyLength = BODY_PREFIX + key.length + payload.length;
+    if (HEADER + bodyLength > segmentSize) {
+      dropped.incrementAndGet();
+      log.warn("流日志记录 {} 字节超过段大小 {}，已丢弃", HEADER + bodyLength, segmentSize);
+      return;
+    }
+    synchronized (this) {
+      try {
+        if (active.end + HEADER + bodyLength > active.buffer.capacity()) roll();
+      } catch (IOException e) {
+        dropped.incrementAndGet();
+        log.warn("流日志切换新段失败: {}", e.toString());
+        return;
+      }
+      MappedByteBuffer buffer = active.buffer;
+      int position = active.end;
+      int body = position + HEADER;
+      buffer.putLong(body, timeMillis);
+      buffer.putShort(body + 8, (short) key.length);
+      buffer.put(body + BODY_PREFIX, key);
+      buffer.put(body + BODY_PREFIX + key.length, payload);
+      CRC32 crc = new CRC32();
+      crc.update(buffer.slice(body, bodyLength));
+      buffer.putInt(position + 4, (int) crc.getValue());
+      // 长度最后写入，扫描时不会读到一半的记录
+      buffer.putInt(position, bodyLength);
+      if (properties.isForce()) buffer.force(position, HEADER + bodyLength);
+      active.end += HEADER + bodyLength;
+      active.include(timeMillis);
+    }
+    written.incrementAndGet();
+  }
+
+  /**
+   * 按写入顺序回放流标识为 key、到达时间不早于 sinceMillis 的记录。
+   *
+   * @param consumer 接收到达时间和事件
+   */
+  void replay(byte[] key, long sinceMillis, Replay consumer) {
+    if (key == null) return;
+    List<Segment> snapshot;
+    List<Integer> ends = new ArrayList<>();
+    synchronized (this) {
+      snapshot = List.copyOf(segments);
+      for (Segment segment : snapshot) ends.add(segment.end);
+    }
+    for (int s = 0; s < snapshot.size(); s++) {
+      Segment segment = snapshot.get(s);
+      if (segment.maxTime < sinceMillis) continue;
+      MappedByteBuffer buffer = segment.buffer;
+      int end = ends.get(s);
+      int position = 0;
+      while (position < end) {
+        int bodyLength = buffer.getInt(position);
+        int body = position + HEADER;
+        position = body + bodyLength;
+        long time = buffer.getLong(body);
+        int keyLength = buffer.getShort(body + 8) & 0xFFFF;
+        if (time < sinceMillis || keyLength != key.length || !matches(buffer, body + BODY_PREFIX, key)) {
+          continue;
+        }
+        int payloadOffset = BODY_PREFIX + keyLength;
+        byte[] payload = new byte[bodyLength - payloadOffset];
+        buffer.get(body + payloadOffset, payload);
+        try {
+          consumer.accept(time, mapper.readTree(payload));
+          replayed.incrementAndGet();
+        } catch (IOException e) {
+          log.warn("流日志 {} 中的记录无法解析，已跳过: {}", segment.path.getFileName(), e.toString());
+        }
+      }
+    }
+  }
+
+  /** 当前的段数 */
+  public synchronized int segments() {
+    return segments.size();
+  }
+
+  /** 段文件占用的字节数 */
+  public synchronized long sizeBytes() {
+    long total = 0;
+    for (Segment segment : segments) total += segment.buffer.capacity();
+    return total;
+  }
+
+  public long written() {
+    return written.get();
+  }
+
+  public long dropped() {
+    return dropped.get();
+  }
+
+  public long replayed() {
+    return replayed.get();
+  }
+
+  @Override
+  public synchronized void destroy() {
+    if (active != null) active.buffer.force();
+  }
+
+  @FunctionalInterface
+  interface Replay {
+    void accept(long timeMillis, JsonNode event);
+  }
+
+  private static boolean matches(MappedByteBuffer buffer, int offset, byte[] key) {
+    for (int i = 0; i < key.length; i++) {
+      if (buffer.get(offset + i) != key[i]) return false;
+    }
+    return true;
+  }
+
+  private void open() throws IOException {
+    directory = Path.of(properties.getDirectory());
+    Files.createDirectories(directory);
+    List<Path> files;
+    try (Stream<Path> list = Files.list(directory)) {
+      files = list.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+    }
+    for (Path file : files) {
+      Segment segment = Segment.map(file, 0);
+      segment.recover();
+      segments.add(segment);
+    }
+    if (segments.isEmpty()) {
+      segments.add(Segment.map(segmentPath(1), segmentSize));
+    }
+    active = segments.get(segments.size() - 1);
+    enforceRetention();
+    log.info(
+        "流日志 {}: {} 个段，{} 字节", directory.toAbsolutePath(), segments.size(), sizeBytes());
+  }
+
+  private void roll() throws IOException {
+    active.buffer.force();
+    active = Segment.map(segmentPath(active.id + 1), segmentSize);
+    segments.add(active);
+    enforceRetention();
+  }
+
+  // 不删除正在写入的段
+  private void enforceRetention() {
+    long maxBytes = properties.getMaxSize().toBytes();
+    long maxAge = properties.getMaxAge().toMillis();
+    long expiredBefore = maxAge > 0 ? System.currentTimeMillis() - maxAge : Long.MIN_VALUE;
+    while (segments.size() > 1) {
+      Segment oldest = segments.get(0);
+      boolean expired = oldest.maxTime < expiredBefore;
+      if (!expired && sizeBytes() <= maxBytes) break;
+      segments.remove(0);
+      try {
+        Files.deleteIfExists(oldest.path);
+      } catch (IOException e) {
+        log.warn("删除流日志段 {} 失败: {}", oldest.path, e.toString());
+      }
+    }
+  }
+
+  private Path segmentPath(long id) {
+    return directory.resolve(String.format("%020d%s", id, SUFFIX));
+  }
+
+  private static final class Segment {
+    final long id;
+    final Path path;
+    final MappedByteBuffer buffer;
+    int end;
+    long maxTime = Long.MIN_VALUE;
+
+    private Segment(long id, Path path, MappedByteBuffer buffer) {
+      this.id = id;
+      this.path = path;
+      this.buffer = buffer;
+    }
+
+    /** 映射段文件；size 为 0 时按文件现有大小映射 */
+    static Segment map(Path path, int size) throws IOException {
+      String name = path.getFileName().toString();
+      long id = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+      try (FileChannel channel =
+          FileChannel.open(
+              path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        long length = size > 0 ? size : Math.min(channel.size(), Integer.MAX_VALUE);
+        return new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, length));
+      }
+    }
+
+    void include(long time) {
+      if (time > maxTime) maxTime = time;
+    }
+
+    // 顺序校验记录，找到末尾；末尾之后有未写完的记录时清零，之后追加的记录不会与残留内容相连
+    void recover() {
+      int capacity = buffer.capacity();
+      int position = 0;
+      CRC32 crc = new CRC32();
+      while (position + HEADER <= capacity) {
+        int bodyLength = buffer.getInt(position);
+        if (bodyLength < BODY_PREFIX || position + HEADER + bodyLength > capacity) break;
+        crc.reset();
+        crc.update(buffer.slice(position + HEADER, bodyLength));
+        if ((int) crc.getValue() != buffer.getInt(position + 4)) break;
+        include(buffer.getLong(position + HEADER));
+        position += HEADER + bodyLength;
+      }
+      end = position;
+      if (position + 4 <= capacity && buffer.getInt(position) != 0) {
+        log.warn("流日志段 {} 在 {} 处有未写完的记录，已截断", path.getFileName(), position);
+        for (int i = position; i < capacity; i++) buffer.put(i, (byte) 0);
+      }
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.roy.anycharts.chart;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "anycharts.journal")
+public class StreamJournalProperties {
+  // 关闭时内存序列只保存在内存中，重启或重新订阅后为空
+  private boolean enabled = false;
+  private String directory = "./data/journal";
+  // 单个段文件的大小，创建时整段映射；单条记录不能超过该大小
+  private DataSize segmentSize = DataSize.ofMegabytes(16);
+  // 全部段文件的总大小上限，超出时删除最旧的段
+  private DataSize maxSize = DataSize.ofMegabytes(256);
+  // 段中最新的记录早于该时长时删除整段，0 表示不按时间删除
+  private Duration maxAge = Duration.ofHours(24);
+  // 每条记录写入后立即刷盘；关闭时只保证进程崩溃不丢数据，系统崩溃可能丢失最近的记录
+  private boolean force = false;
+}
@@ -0,0 +1,199 @@
+package com.roy.anycharts.chart;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * chartUpdates 的推送策略。
+ *
+ * <ul>
+ *   <li>渲染：新事件到达时取消旧渲染，只渲染最新数据（可关闭）；
+ *   <li>限速：每个客户端按帧率节流，节流期间只保留最新一帧；
+ *   <li>背压：客户端未消费的帧最多保留 bufferSize 个，超出丢弃最旧的；
+ *   <li>慢客户端：连续丢帧达到阈值后降低帧率或断开。
+ * </ul>
+ */
+@Slf4j
+@Component
+public class SubscriptionDelivery {
+  private final SubscriptionProperties properties;
+  private final AtomicInteger subscribers = new AtomicInteger();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+  private final AtomicLong cancelledRenders = new AtomicLong();
+  private final AtomicLong slowConsumers = new AtomicLong();
+
+  public SubscriptionDelivery(SubscriptionProperties properties) {
+    this.properties = properties;
+  }
+
+  /** 把事件流转换为渲染结果流，按配置顺序渲染或只渲染最新事件 */
+  public <E, T> Flux<T> render(Flux<E> events, Function<E, Mono<T>> renderer) {
+    if (!properties.isCancelStaleRenders()) {
+      return events.concatMap(renderer);
+    }
+    return events.switchMap(
+        evt -> renderer.apply(evt).doOnCancel(cancelledRenders::incrementAndGet));
+  }
+
+  /**
+   * 为单个客户端包装共享流。
+   *
+   * @param requestedFps 客户端要求的帧率，null 或不大于 0 时使用服务端配置，且不能超过服务端配置
+   */
+  public <T> Flux<T> deliver(Flux<T> shared, Double requestedFps) {
+    return Flux.defer(() -> new ClientState<T>(effectiveFps(requestedFps)).apply(shared));
+  }
+
+  /**
+   * 把单个客户端收到的帧编码为增量帧：第一帧为完整 option，之后为相对该客户端上一帧的 patch。
+   * 连续的帧直接复用共享流上计算好的 patch；因限速或丢帧出现间隔时单独计算；patch 过大时发送完整 option。
+   */
+  public Flux<Map<String, Object>> deltas(String id, Flux<ChartFrame> frames) {
+    double maxRatio = properties.getDeltaMaxPatchRatio();
+    return Flux.defer(
+        () -> {
+          ChartFrame[] last = new ChartFrame[1];
+          return frames.map(
+              frame -> {
+                ChartFrame previous = last[0];
+                List<Map<String, Object>> patch = null;
+                if (previous != null && frame.seq() == previous.seq() + 1) {
+                  patch = frame.patch();
+                } else if (previous != null && frame.seq() > previous.seq()) {
+                  patch = ChartFrame.patchBetween(previous.option(), frame.option(), maxRatio);
+                }
+                last[0] = frame;
+                Map<String, Object> delta = new HashMap<>();
+                delta.put("id", id);
+                delta.put("seq", frame.seq());
+                delta.put("full", patch == null);
+                delta.put("option", patch == null ? frame.option() : null);
+                delta.put("patch", patch);
+                return delta;
+              });
+        });
+  }
+
+  public int subscribers() {
+    return subscribers.get();
+  }
+
+  public long dropped() {
+    return dropped.get();
+  }
+
+  public long coalesced() {
+    return coalesced.get();
+  }
+
+  public long cancelledRenders() {
+    return cancelledRenders.get();
+  }
+
+  public long slowConsumers() {
+    return slowConsumers.get();
+  }
+
+  private double effectiveFps(Double requestedFps) {
+    double max = properties.getMaxFps();
+    if (requestedFps == null || requestedFps <= 0) return max;
+    return max > 0 ? Math.min(max, requestedFps) : requestedFps;
+  }
+
+  /** 单个客户端的推送状态 */
+  private final class ClientState<T> {
+    private volatile double fps;
+    private volatile long lastEmitNanos = System.nanoTime() - Duration.ofMinutes(1).toNanos();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final AtomicInteger consecutiveDrops = new AtomicInteger();
+    private final Sinks.Empty<Void> disconnect = Sinks.empty();
+    private volatile boolean slow;
+    private volatile boolean disconnected;
+
+    ClientState(double fps) {
+      this.fps = fps;
+    }
+
+    Flux<T> apply(Flux<T> shared) {
+      SubscriptionProperties.SlowConsumer policy = properties.getSlowConsumer();
+      return shared
+          // 节流：等待期间到达的新帧替换旧帧
+          .switchMap(this::throttle)
+          .onBackpressureBuffer(
+              Math.max(1, properties.getBufferSize()),
+              frame -> onDrop(policy),
+              BufferOverflowStrategy.DROP_OLDEST)
+          .doOnNext(frame -> consecutiveDrops.set(0))
+          .takeUntilOther(disconnect.asMono())
+          .concatWith(
+              Mono.defer(
+                  () ->
+                      disconnected
+                          ? Mono.error(new SlowConsumerException("client is too slow, disconnected"))
+                          : Mono.empty()))
+          .doOnSubscribe(s -> subscribers.incrementAndGet())
+          .doFinally(signal -> subscribers.decrementAndGet());
+    }
+
+    private Mono<T> throttle(T frame) {
+      if (pending.getAndSet(true)) {
+        coalesced.incrementAndGet();
+      }
+      Mono<T> emit =
+          Mono.fromSupplier(
+              () -> {
+                pending.set(false);
+                lastEmitNanos = System.nanoTime();
+                return frame;
+              });
+      double current = fps;
+      if (current <= 0) return emit;
+      long wait = lastEmitNanos + (long) (1_000_000_000L / current) - System.nanoTime();
+      return wait > 0 ? emit.delaySubscription(Duration.ofNanos(wait)) : emit;
+    }
+
+    private void onDrop(SubscriptionProperties.SlowConsumer policy) {
+      dropped.incrementAndGet();
+      int threshold = policy.getMaxConsecutiveDrops();
+      if (threshold <= 0 || consecutiveDrops.incrementAndGet() < threshold) return;
+      consecutiveDrops.set(0);
+      if (policy.getAction() == SubscriptionProperties.Action.DISCONNECT) {
+        if (!disconnected) {
+          disconnected = true;
+          markSlow();
+          log.warn("订阅客户端连续丢帧 {} 次，断开", threshold);
+          disconnect.tryEmitEmpty();
+        }
+        return;
+      }
+      double current = fps;
+      double degraded = current > 0 ? Math.max(policy.getMinFps(), current / 2) : policy.getMinFps();
+      if (degraded != current) {
+        markSlow();
+        fps = degraded;
+        log.info("订阅客户端跟不上推送，帧率降为 {}", degraded);
+      }
+    }
+
+    // 每个客户端只计一次
+    private void markSlow() {
+      if (!slow) {
+        slow = true;
+        slowConsumers.incrementAndGet();
+      }
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.roy.anycharts.chart;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "anycharts.subscription")
+public class SubscriptionProperties {
+  // 每个客户端每秒最多推送的帧数，0 表示不限；客户端只能在此基础上调低
+  private double maxFps = 10;
+  // 客户端来不及消费时在服务端保留的帧数，超出丢弃最旧的，1 即只保留最新一帧
+  private int bufferSize = 1;
+  // 新事件到达时取消仍在进行的旧渲染，只渲染最新数据
+  private boolean cancelStaleRenders = true;
+  // 共享流最后一个订阅者离开后保持数据源连接的时长，期间重新订阅不必重连
+  private Duration disconnectGrace = Duration.ofSeconds(5);
+  // 增量订阅：patch 估算大小超过完整 option 的该比例时改为发送完整 option
+  private double deltaMaxPatchRatio = 0.5;
+  private SlowConsumer slowConsumer = new SlowConsumer();
+  private Series series = new Series();
+
+  @Data
+  public static class SlowConsumer {
+    // 连续丢弃多少帧后判定为慢客户端，0 表示不检测
+    private int maxConsecutiveDrops = 20;
+    private Action action = Action.DEGRADE;
+    // 降级时帧率减半的下限
+    private double minFps = 1;
+  }
+
+  @Data
+  public static class Series {
+    // 每个内存序列最多保留的点数；binding 的 seriesPoints 超过时按此截断，只配置 seriesWindow 时也以此为上限
+    private int maxPoints = 100_000;
+  }
+
+  public enum Action {
+    // 以 SlowConsumerException 结束该客户端的订阅
+    DISCONNECT,
+    // 降低该客户端的推送帧率
+    DEGRADE
+  }
+}
@@ -0,0 +1,162 @@
+package com.roy.anycharts.chart;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * stream binding 的增量窗口聚合，按到达时间划分窗口。
+ *
+ * <p>窗口由 panes 个长度为 slide 的分片组成（滚动窗口只有一个分片），每个分片为每个数值字段保存和、行数、
+ * 最小值、最大值和最后一个值。事件只更新当前分片，与窗口长度和事件频率无关；每个 slide 调用一次 {@link #emit}，
+ * 合并全部分片得到一个点，再清空最旧的分片作为新的当前分片。事件来自事件线程、输出来自定时器线程，方法均同步。
+ *
+ * <p>RATE 除以窗口实际覆盖的时长：开始后的前 panes - 1 个窗口以及事件流结束时输出的窗口都不满一个窗口长度。
+ */
+final class WindowAggregator {
+  private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+  private final AggregateFunction function;
+  private final int panes;
+  private final String timeField;
+  private final List<String> fields = new ArrayList<>();
+  private final Map<String, Integer> fieldIndexes = new HashMap<>();
+  // 每个字段一组按分片下标的数组
+  private final List<double[]> sums = new ArrayList<>();
+  private final List<double[]> mins = new ArrayList<>();
+  private final List<double[]> maxs = new ArrayList<>();
+  private final List<double[]> lasts = new ArrayList<>();
+  private final List<long[]> counts = new ArrayList<>();
+  // 每个分片收到的行数，不论行中有没有数值字段
+  private final long[] rows;
+  // 每个分片开始的时间，以及已经启用过的分片数（最多 panes）
+  private final long[] paneStarts;
+  private int active = 1;
+  private int current;
+
+  /**
+   * @param aggregation 聚合函数和窗口
+   * @param timeField 序列的时间字段，不参与聚合；不为 null 时输出的点以该字段记录窗口结束时间
+   * @param startMillis 第一个分片开始的时间，与 {@link #emit} 使用同一个时钟
+   */
+  WindowAggregator(SeriesStore.Aggregation aggregation, String timeField, long startMillis) {
+    this.function = aggregation.function();
+    this.panes = aggregation.panes();
+    this.timeField = timeField;
+    this.rows = new long[panes];
+    this.paneStarts = new long[panes];
+    this.paneStarts[0] = startMillis;
+  }
+
+  /**
+   * 把事件中的 items 行（事件不含 items 数组时为事件本身）计入当前分片。
+   *
+   * @return 计入的行数
+   */
+  synchronized int add(JsonNode event) {
+    JsonNode items = event.get("items");
+    Iterable<JsonNode> input =
+        items != null && items.isArray() ? items : event.isObject() ? List.of(event) : List.of();
+    int count = 0;
+    for (JsonNode row : input) {
+      if (!row.isObject()) continue;
+      count++;
+      for (Map.Entry<String, JsonNode> field : row.properties()) {
+        JsonNode value = field.getValue();
+        if (!value.isNumber() || field.getKey().equals(timeField)) continue;
+        int f = fieldIndex(field.getKey());
+        double v = value.doubleValue();
+        sums.get(f)[current] += v;
+        counts.get(f)[current]++;
+        if (v < mins.get(f)[current]) mins.get(f)[current] = v;
+        if (v > maxs.get(f)[current]) maxs.get(f)[current] = v;
+        lasts.get(f)[current] = v;
+      }
+    }
+    rows[current] += count;
+    return count;
+  }
+
+  /**
+   * 输出截至 endMillis 的窗口并滑动一个分片。
+   *
+   * @return {"items":[点]}，点中每个字段为其聚合值，窗口内没有该字段的值时省略；窗口内没有任何行时返回 null
+   */
+  synchronized JsonNode emit(long endMillis) {
+    long total = 0;
+    for (long count : rows) total += count;
+    JsonNode result = total == 0 ? null : point(endMillis);
+    current = current + 1 < panes ? current + 1 : 0;
+    active = Math.min(active + 1, panes);
+    paneStarts[current] = endMillis;
+    rows[current] = 0;
+    for (int f = 0; f < fields.size(); f++) reset(f, current);
+    return result;
+  }
+
+  private JsonNode point(long endMillis) {
+    ObjectNode point = NODES.objectNode();
+    if (timeField != null) point.put(timeField, endMillis);
+    int oldest = current - active + 1 >= 0 ? current - active + 1 : current - active + 1 + panes;
+    double seconds = Math.max(endMillis - paneStarts[oldest], 1) / 1000.0;
+    for (int f = 0; f < fields.size(); f++) {
+      double[] sum = sums.get(f);
+      long[] count = counts.get(f);
+      long n = 0;
+      double s = 0;
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      double last = Double.NaN;
+      // 从当前分片往前，第一个有值的分片的最后一个值即窗口内最后的值
+      for (int i = 0; i < panes; i++) {
+        int pane = current - i >= 0 ? current - i : current - i + panes;
+        if (count[pane] == 0) continue;
+        if (n == 0) last = lasts.get(f)[pane];
+        n += count[pane];
+        s += sum[pane];
+        min = Math.min(min, mins.get(f)[pane]);
+        max = Math.max(max, maxs.get(f)[pane]);
+      }
+      if (n == 0) continue;
+      double value =
+          switch (function) {
+            case SUM -> s;
+            case AVG -> s / n;
+            case MIN -> min;
+            case MAX -> max;
+            case COUNT -> n;
+            case RATE -> s / seconds;
+            case LAST -> last;
+          };
+      point.put(fields.get(f), value);
+    }
+    return NODES.objectNode().set("items", NODES.arrayNode().add(point));
+  }
+
+  private int fieldIndex(String name) {
+    Integer index = fieldIndexes.get(name);
+    if (index != null) return index;
+    fields.add(name);
+    sums.add(new double[panes]);
+    mins.add(new double[panes]);
+    maxs.add(new double[panes]);
+    lasts.add(new double[panes]);
+    counts.add(new long[panes]);
+    int f = fields.size() - 1;
+    for (int pane = 0; pane < panes; pane++) reset(f, pane);
+    fieldIndexes.put(name, f);
+    return f;
+  }
+
+  private void reset(int f, int pane) {
+    sums.get(f)[pane] = 0;
+    counts.get(f)[pane] = 0;
+    mins.get(f)[pane] = Double.POSITIVE_INFINITY;
+    maxs.get(f)[pane] = Double.NEGATIVE_INFINITY;
+    lasts.get(f)[pane] = Double.NaN;
+  }
+}
@@ -1,6 +1,9 @@
 package com.roy.anycharts.chart.entity;
 
+import com.roy.anycharts.chart.AggregateFunction;
+import com.roy.anycharts.chart.DownsampleAlgorithm;
 import jakarta.persistence.*;
+import java.time.Duration;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -20,6 +23,20 @@ public class DataSourceBindingEntity {
   private String bindingKey;
   private Boolean stream;
 
+  @Enumerated(EnumType.STRING)
+  private DownsampleAlgorithm downsample;
+
+  private Integer downsampleTarget;
+  private Integer seriesPoints;
+  private Duration seriesWindow;
+  private String seriesTimeField;
+
+  @Enumerated(EnumType.STRING)
+  private AggregateFunction aggregate;
+
+  private Duration aggregateWindow;
+  private Duration aggregateSlide;
+
   @ManyToOne
   @JoinColumn(name = "chart_config_id")
   private ChartConfigEntity chartConfig;
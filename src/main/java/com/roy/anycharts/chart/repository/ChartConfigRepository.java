@@ -1,8 +1,19 @@
 package com.roy.anycharts.chart.repository;
 
 import com.roy.anycharts.chart.entity.ChartConfigEntity;
+import java.util.List;
+import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ChartConfigRepository extends JpaRepository<ChartConfigEntity, String> {}
+public interface ChartConfigRepository extends JpaRepository<ChartConfigEntity, String> {
+  // 一次 join 查询同时加载 bindings，避免逐个懒加载
+  @Query("select c from ChartConfigEntity c left join fetch c.bindings where c.id = :id")
+  Optional<ChartConfigEntity> findWithBindingsById(@Param("id") String id);
+
+  @Query("select distinct c from ChartConfigEntity c left join fetch c.bindings")
+  List<ChartConfigEntity> findAllWithBindings();
+}
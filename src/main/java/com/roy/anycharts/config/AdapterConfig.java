@@ -2,13 +2,22 @@ package com.roy.anycharts.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.roy.anycharts.adapter.AdapterRegistry;
+import com.roy.anycharts.adapter.AdapterResilienceProperties;
 import com.roy.anycharts.adapter.impl.DatabaseAdapter;
+import com.roy.anycharts.adapter.impl.DatabaseAdapterProperties;
 import com.roy.anycharts.adapter.impl.MockAdapter;
 import com.roy.anycharts.adapter.impl.RestAdapter;
+import com.roy.anycharts.adapter.impl.RestAdapterProperties;
+import com.roy.anycharts.datasource.ConnectionPoolRegistry;
 import com.roy.anycharts.datasource.DatabaseConnectionStore;
+import com.roy.anycharts.execution.BlockingExecutor;
+import io.netty.channel.ChannelOption;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
 public class AdapterConfig {
@@ -18,17 +27,60 @@ public class AdapterConfig {
     return new ObjectMapper();
   }
   
+  /** RestAdapter 使用的连接池，连接数、排队和空闲回收见 {@link RestAdapterProperties} */
+  @Bean(destroyMethod = "dispose")
+  public ConnectionProvider restConnectionProvider(RestAdapterProperties properties) {
+    return ConnectionProvider.builder("anycharts-rest")
+        .maxConnections(properties.getMaxConnections())
+        .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+        .pendingAcquireTimeout(properties.getPendingAcquireTimeout())
+        .maxIdleTime(properties.getMaxIdleTime())
+        .maxLifeTime(properties.getMaxLifeTime())
+        .evictInBackground(properties.getEvictInterval())
+        // reactor.netty.connection.provider.* 指标
+        .metrics(true)
+        .build();
+  }
+
   @Bean
-  public WebClient webClient() {
-    return WebClient.builder().build();
+  public WebClient webClient(
+      ConnectionProvider restConnectionProvider, RestAdapterProperties properties) {
+    HttpClient httpClient =
+        HttpClient.create(restConnectionProvider)
+            .keepAlive(properties.isKeepAlive())
+            .option(
+                ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                (int) properties.getConnectTimeout().toMillis());
+    if (!properties.getResponseTimeout().isZero()) {
+      httpClient = httpClient.responseTimeout(properties.getResponseTimeout());
+    }
+    return WebClient.builder()
+        .clientConnector(new ReactorClientHttpConnector(httpClient))
+        // RestAdapter 自行流式解码，这里只限制其它按对象解码的响应
+        .codecs(
+            codecs ->
+                codecs
+                    .defaultCodecs()
+                    .maxInMemorySize((int) properties.getMaxResponseSize().toBytes()))
+        .build();
   }
   
   @Bean
-  public AdapterRegistry adapterRegistry(ObjectMapper mapper, WebClient webClient, DatabaseConnectionStore connectionStore) {
-    AdapterRegistry r = new AdapterRegistry();
+  public AdapterRegistry adapterRegistry(
+      ObjectMapper mapper,
+      WebClient webClient,
+      DatabaseConnectionStore connectionStore,
+      ConnectionPoolRegistry poolRegistry,
+      BlockingExecutor blockingExecutor,
+      DatabaseAdapterProperties databaseProperties,
+      RestAdapterProperties restProperties,
+      AdapterResilienceProperties resilienceProperties) {
+    AdapterRegistry r = new AdapterRegistry(resilienceProperties);
     r.register(new MockAdapter());
-    r.register(new RestAdapter(webClient));
-    r.register(new DatabaseAdapter(mapper, connectionStore));
+    r.register(new RestAdapter(webClient, mapper, restProperties));
+    r.register(
+        new DatabaseAdapter(
+            mapper, connectionStore, poolRegistry, blockingExecutor, databaseProperties));
     return r;
   }
 }
@@ -0,0 +1,11 @@
+package com.roy.anycharts.dashboard;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "anycharts.dashboard")
+public class DashboardProperties {
+  // renderDashboard 同时渲染的图表数上限
+  private int renderParallelism = 8;
+}
@@ -0,0 +1,72 @@
+package com.roy.anycharts.dashboard;
+
+import com.roy.anycharts.chart.ChartRenderResult;
+import com.roy.anycharts.chart.ChartService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 服务端一次性渲染整个大屏。
+ *
+ * <p>所有图表组件在同一个查询作用域内并发渲染，相同的适配器查询只执行一次；某个组件失败时只在该组件的结果中返回
+ * error，不影响其它组件。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DashboardRenderService {
+  private final DashboardStore dashboardStore;
+  private final ChartService chartService;
+  private final DashboardProperties properties;
+
+  public Mono<RenderedDashboard> render(String id, Map<String, Object> variables) {
+    Optional<Dashboard> maybe = dashboardStore.get(id);
+    if (maybe.isEmpty()) return Mono.empty();
+
+    List<DashboardComponent> charts =
+        maybe.get().getComponents().stream()
+            .filter(c -> c.getChartId() != null && !c.getChartId().isBlank())
+            .toList();
+    List<String> chartIds = charts.stream().map(DashboardComponent::getChartId).toList();
+    // 组件宽度（像素）作为降采样的默认目标点数，每像素一个点
+    Map<String, Integer> maxPoints = new HashMap<>();
+    charts.forEach(c -> maxPoints.merge(c.getChartId(), Math.max(0, c.getWidth()), Math::max));
+
+    // 多个组件引用同一图表时只渲染一次，按其中最宽的组件降采样
+    return chartService
+        .renderCharts(chartIds, maxPoints, variables, properties.getRenderParallelism())
+        // 批量渲染本身出错时保留已完成的图表，其余组件按未渲染处理
+        .onErrorResume(
+            e -> {
+              log.warn("大屏 {} 渲染中断: {}", id, e.toString());
+              return Flux.empty();
+            })
+        .collectMap(ChartRenderResult::chartId)
+        .map(
+            results ->
+                new RenderedDashboard(
+                    id,
+                    charts.stream()
+                        .map(
+                            c -> {
+                              ChartRenderResult r = results.get(c.getChartId());
+                              if (r == null) {
+                                return new RenderedComponent(
+                                    c.getId(),
+                                    c.getChartId(),
+                                    null,
+                                    "chart not rendered: " + c.getChartId());
+                              }
+                              return new RenderedComponent(
+                                  c.getId(), c.getChartId(), r.option(), r.error());
+                            })
+                        .toList()));
+  }
+}
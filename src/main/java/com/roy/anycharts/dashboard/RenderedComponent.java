@@ -0,0 +1,4 @@
+package com.roy.anycharts.dashboard;
+
+/** 大屏中单个图表组件的渲染结果；渲染失败时 option 为空，error 给出原因。 */
+public record RenderedComponent(String componentId, String chartId, Object option, String error) {}
@@ -0,0 +1,5 @@
+package com.roy.anycharts.dashboard;
+
+import java.util.List;
+
+public record RenderedDashboard(String id, List<RenderedComponent> components) {}
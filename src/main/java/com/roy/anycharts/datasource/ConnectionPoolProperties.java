@@ -0,0 +1,28 @@
+package com.roy.anycharts.datasource;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "anycharts.datasource.pool")
+public class ConnectionPoolProperties {
+  // 每个连接池保持的最小空闲连接数
+  private int minIdle = 1;
+  // 每个连接池的最大连接数
+  private int maxSize = 10;
+  // 空闲连接超过该时长后被回收（仅在连接数大于 minIdle 时生效）
+  private Duration idleTimeout = Duration.ofMinutes(10);
+  // 连接最大存活时间，到期后平滑替换
+  private Duration maxLifetime = Duration.ofMinutes(30);
+  // 借用连接的最长等待时间
+  private Duration connectionTimeout = Duration.ofSeconds(10);
+  // 连接校验超时时间
+  private Duration validationTimeout = Duration.ofSeconds(3);
+  // 空闲连接保活探测间隔，0 表示关闭
+  private Duration keepaliveTime = Duration.ZERO;
+  // 校验 SQL，留空时使用 JDBC4 Connection.isValid()
+  private String validationQuery;
+  // 每个连接由驱动缓存的预编译语句条数（MySQL / MariaDB / PostgreSQL），0 表示使用驱动的默认设置
+  private int statementCacheSize = 64;
+}
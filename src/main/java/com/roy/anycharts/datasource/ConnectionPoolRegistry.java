@@ -0,0 +1,147 @@
+package com.roy.anycharts.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 按 {@link DatabaseConnection#getId()} 维护的 JDBC 连接池注册表。
+ *
+ * <p>连接池在第一次借用时懒创建；连接配置变更或被删除时旧连接池会被关闭，下次借用按新配置重建。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConnectionPoolRegistry implements DisposableBean {
+  private final ConnectionPoolProperties properties;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+  public Connection getConnection(DatabaseConnection conn) throws SQLException {
+    return dataSource(conn).getConnection();
+  }
+
+  HikariDataSource dataSource(DatabaseConnection conn) {
+    Pool pool = pools.get(conn.getId());
+    if (pool != null && pool.connection().equals(conn)) {
+      return pool.dataSource();
+    }
+    return pools
+        .compute(
+            conn.getId(),
+            (id, existing) -> {
+              if (existing != null && existing.connection().equals(conn)) {
+                return existing;
+              }
+              if (existing != null) {
+                log.info("数据库连接 {} 配置已变更，重建连接池", id);
+                existing.dataSource().close();
+              }
+              // 保存一份快照用于比较，DatabaseConnection 是可变对象
+              DatabaseConnection snapshot =
+                  new DatabaseConnection(
+                      conn.getId(),
+                      conn.getName(),
+                      conn.getJdbcUrl(),
+                      conn.getUsername(),
+                      conn.getPassword(),
+                      conn.getDriverClass(),
+                      conn.isActive());
+              return new Pool(snapshot, createDataSource(conn));
+            })
+        .dataSource();
+  }
+
+  public void evict(String connectionId) {
+    Pool pool = pools.remove(connectionId);
+    if (pool != null) {
+      log.info("关闭数据库连接池: {}", connectionId);
+      pool.dataSource().close();
+    }
+  }
+
+  public List<ConnectionPoolStats> stats() {
+    List<ConnectionPoolStats> result = new ArrayList<>();
+    pools.forEach(
+        (id, pool) -> {
+          HikariPoolMXBean mx = pool.dataSource().getHikariPoolMXBean();
+          if (mx == null) {
+            // 连接池尚未启动
+            result.add(new ConnectionPoolStats(id, 0, 0, 0, 0, pool.dataSource().getMaximumPoolSize()));
+          } else {
+            result.add(
+                new ConnectionPoolStats(
+                    id,
+                    mx.getActiveConnections(),
+                    mx.getIdleConnections(),
+                    mx.getTotalConnections(),
+                    mx.getThreadsAwaitingConnection(),
+                    pool.dataSource().getMaximumPoolSize()));
+          }
+        });
+    return result;
+  }
+
+  @EventListener
+  public void onConnectionChanged(DatabaseConnectionChangedEvent event) {
+    evict(event.connectionId());
+  }
+
+  @Override
+  public void destroy() {
+    pools.keySet().forEach(this::evict);
+  }
+
+  private HikariDataSource createDataSource(DatabaseConnection conn) {
+    // 直接使用 setter 而不是 new HikariDataSource(config)，连接池在第一次借用时才真正启动
+    HikariDataSource ds = new HikariDataSource();
+    ds.setPoolName("anycharts-" + conn.getId());
+    // hikaricp.connections.* 指标，pool 标签为连接池名；连接池关闭时指标随之移除
+    ds.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+    ds.setJdbcUrl(conn.getJdbcUrl());
+    ds.setUsername(conn.getUsername());
+    ds.setPassword(conn.getPassword());
+    if (conn.getDriverClass() != null && !conn.getDriverClass().isBlank()) {
+      ds.setDriverClassName(conn.getDriverClass());
+    }
+    ds.setMinimumIdle(Math.min(properties.getMinIdle(), properties.getMaxSize()));
+    ds.setMaximumPoolSize(properties.getMaxSize());
+    ds.setIdleTimeout(properties.getIdleTimeout().toMillis());
+    ds.setMaxLifetime(properties.getMaxLifetime().toMillis());
+    ds.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+    ds.setValidationTimeout(properties.getValidationTimeout().toMillis());
+    ds.setKeepaliveTime(properties.getKeepaliveTime().toMillis());
+    if (properties.getValidationQuery() != null && !properties.getValidationQuery().isBlank()) {
+      ds.setConnectionTestQuery(properties.getValidationQuery());
+    }
+    configureStatementCache(ds, conn.getJdbcUrl());
+    return ds;
+  }
+
+  // 预编译语句由驱动在物理连接上缓存，随连接由连接池关闭；不认识的驱动保持其默认设置
+  private void configureStatementCache(HikariDataSource ds, String jdbcUrl) {
+    int size = properties.getStatementCacheSize();
+    if (size <= 0 || jdbcUrl == null) return;
+    if (jdbcUrl.startsWith("jdbc:mysql:") || jdbcUrl.startsWith("jdbc:mariadb:")) {
+      ds.addDataSourceProperty("cachePrepStmts", "true");
+      ds.addDataSourceProperty("prepStmtCacheSize", String.valueOf(size));
+      ds.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+    } else if (jdbcUrl.startsWith("jdbc:postgresql:")) {
+      ds.addDataSourceProperty("preparedStatementCacheQueries", String.valueOf(size));
+    }
+  }
+
+  private record Pool(DatabaseConnection connection, HikariDataSource dataSource) {}
+}
@@ -0,0 +1,4 @@
+package com.roy.anycharts.datasource;
+
+public record ConnectionPoolStats(
+    String connectionId, int active, int idle, int total, int waiting, int maxSize) {}
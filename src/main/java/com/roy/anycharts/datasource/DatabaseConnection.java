@@ -15,4 +15,9 @@ public class DatabaseConnection {
   private String password;
   private String driverClass;
   private boolean active;
+
+  /** 该连接上阻塞任务在 BlockingExecutor 中使用的 key */
+  public static String executionKey(String connectionId) {
+    return "database:" + connectionId;
+  }
 }
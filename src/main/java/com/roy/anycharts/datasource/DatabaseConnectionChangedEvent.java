@@ -0,0 +1,6 @@
+package com.roy.anycharts.datasource;
+
+/**
+ * 数据库连接被保存或删除时发布，用于让连接池、元数据缓存等派生状态失效。
+ */
+public record DatabaseConnectionChangedEvent(String connectionId, boolean deleted) {}
@@ -2,13 +2,16 @@ package com.roy.anycharts.datasource;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
 @Component
 public class DatabaseConnectionStore {
   private final Map<String, DatabaseConnection> connections = new ConcurrentHashMap<>();
+  private final ApplicationEventPublisher eventPublisher;
 
-  public DatabaseConnectionStore() {
+  public DatabaseConnectionStore(ApplicationEventPublisher eventPublisher) {
+    this.eventPublisher = eventPublisher;
     // 添加默认的 H2 连接
     DatabaseConnection h2 = new DatabaseConnection(
         "h2-default",
@@ -32,9 +35,14 @@ public class DatabaseConnectionStore {
 
   public void save(DatabaseConnection connection) {
     connections.put(connection.getId(), connection);
+    eventPublisher.publishEvent(new DatabaseConnectionChangedEvent(connection.getId(), false));
   }
 
   public boolean delete(String id) {
-    return connections.remove(id) != null;
+    boolean removed = connections.remove(id) != null;
+    if (removed) {
+      eventPublisher.publishEvent(new DatabaseConnectionChangedEvent(id, true));
+    }
+    return removed;
   }
 }
@@ -1,84 +1,207 @@
 package com.roy.anycharts.datasource;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.roy.anycharts.execution.BlockingExecutor;
 import java.sql.*;
 import java.util.*;
-import lombok.RequiredArgsConstructor;
+import java.util.concurrent.Callable;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+/**
+ * 数据库元数据查询，带按连接的缓存。
+ *
+ * <p>表清单按连接缓存，字段信息和数据预览按表懒加载、各自缓存，浏览大 schema 时只读取实际打开过的表。
+ * 缓存在 TTL 到期、{@link #refresh} 或连接配置变更/删除时失效；同一 key 的并发加载只访问一次数据库。
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class DatabaseMetadataService {
   private final DatabaseConnectionStore connectionStore;
+  private final ConnectionPoolRegistry poolRegistry;
+  private final BlockingExecutor blockingExecutor;
+  private final AsyncCache<String, List<String>> tables;
+  private final AsyncCache<TableKey, List<Map<String, Object>>> columns;
+  private final AsyncCache<PreviewKey, List<Map<String, Object>>> previews;
+
+  public DatabaseMetadataService(
+      DatabaseConnectionStore connectionStore,
+      ConnectionPoolRegistry poolRegistry,
+      BlockingExecutor blockingExecutor,
+      MetadataCacheProperties properties) {
+    this.connectionStore = connectionStore;
+    this.poolRegistry = poolRegistry;
+    this.blockingExecutor = blockingExecutor;
+    this.tables =
+        Caffeine.newBuilder().expireAfterWrite(properties.getTtl()).recordStats().buildAsync();
+    this.columns =
+        Caffeine.newBuilder()
+            .expireAfterWrite(properties.getTtl())
+            .maximumSize(properties.getMaxTables())
+            .recordStats()
+            .buildAsync();
+    this.previews =
+        Caffeine.newBuilder()
+            .expireAfterWrite(properties.getPreviewTtl())
+            .maximumSize(properties.getMaxTables())
+            .recordStats()
+            .buildAsync();
+  }
 
   // 获取数据库的所有表
   public Mono<List<String>> getTables(String connectionId) {
-    return Mono.fromCallable(() -> {
-      DatabaseConnection conn = connectionStore.get(connectionId)
-          .orElseThrow(() -> new IllegalArgumentException("数据库连接不存在: " + connectionId));
-
-      List<String> tables = new ArrayList<>();
-      try (Connection connection = DriverManager.getConnection(conn.getJdbcUrl(), conn.getUsername(), conn.getPassword())) {
-        DatabaseMetaData metaData = connection.getMetaData();
-        ResultSet rs = metaData.getTables(null, null, "%", new String[]{"TABLE"});
-        while (rs.next()) {
-          tables.add(rs.getString("TABLE_NAME"));
-        }
-      }
-      return tables;
-    });
+    return Mono.fromFuture(
+        () -> tables.get(connectionId, (id, executor) -> load(id, this::loadTables).toFuture()));
   }
 
   // 获取表的所有字段
   public Mono<List<Map<String, Object>>> getColumns(String connectionId, String tableName) {
-    return Mono.fromCallable(() -> {
-      DatabaseConnection conn = connectionStore.get(connectionId)
-          .orElseThrow(() -> new IllegalArgumentException("数据库连接不存在: " + connectionId));
-
-      List<Map<String, Object>> columns = new ArrayList<>();
-      try (Connection connection = DriverManager.getConnection(conn.getJdbcUrl(), conn.getUsername(), conn.getPassword())) {
-        DatabaseMetaData metaData = connection.getMetaData();
-        ResultSet rs = metaData.getColumns(null, null, tableName, "%");
-        while (rs.next()) {
-          Map<String, Object> column = new HashMap<>();
-          column.put("name", rs.getString("COLUMN_NAME"));
-          column.put("type", rs.getString("TYPE_NAME"));
-          column.put("size", rs.getInt("COLUMN_SIZE"));
-          column.put("nullable", rs.getInt("NULLABLE") == DatabaseMetaData.columnNullable);
-          columns.add(column);
-        }
-      }
-      return columns;
-    });
+    return resolveTable(connectionId, tableName)
+        .flatMap(
+            table ->
+                Mono.fromFuture(
+                    () ->
+                        columns.get(
+                            new TableKey(connectionId, table),
+                            (k, executor) ->
+                                load(connectionId, c -> loadColumns(c, table)).toFuture())));
   }
 
   // 预览表数据
   public Mono<List<Map<String, Object>>> previewData(String connectionId, String tableName, int limit) {
-    return Mono.fromCallable(() -> {
+    // 只允许预览表清单中存在的表，表名以标识符形式引用，不再拼接任意输入
+    return resolveTable(connectionId, tableName)
+        .flatMap(
+            table -> {
+              PreviewKey key = new PreviewKey(connectionId, table, limit);
+              return Mono.fromFuture(
+                  () ->
+                      previews.get(
+                          key,
+                          (k, executor) ->
+                              load(connectionId, c -> loadPreview(c, table, limit)).toFuture()));
+            });
+  }
+
+  // 按表清单中的写法解析表名（不区分大小写），缓存 key 和元数据查询都使用解析后的名称
+  private Mono<String> resolveTable(String connectionId, String tableName) {
+    return getTables(connectionId)
+        .flatMap(
+            all ->
+                all.stream()
+                    .filter(t -> t.equalsIgnoreCase(tableName))
+                    .findFirst()
+                    .map(Mono::just)
+                    .orElseGet(
+                        () -> Mono.error(new IllegalArgumentException("表不存在: " + tableName))));
+  }
+
+  /**
+   * 手动刷新缓存：tableName 为空时清除该连接的全部元数据，否则只清除该表（不区分大小写）的字段信息和预览。
+   */
+  public void refresh(String connectionId, String tableName) {
+    if (tableName == null || tableName.isBlank()) {
+      invalidate(connectionId);
+      return;
+    }
+    columns.synchronous().asMap().keySet()
+        .removeIf(k -> k.connectionId().equals(connectionId) && k.table().equalsIgnoreCase(tableName));
+    previews.synchronous().asMap().keySet()
+        .removeIf(k -> k.connectionId().equals(connectionId) && k.table().equalsIgnoreCase(tableName));
+  }
+
+  /** 各元数据缓存的命中统计：tables / columns / previews */
+  public Map<String, CacheStats> cacheStats() {
+    return Map.of(
+        "tables", tables.synchronous().stats(),
+        "columns", columns.synchronous().stats(),
+        "previews", previews.synchronous().stats());
+  }
+
+  @EventListener
+  public void onConnectionChanged(DatabaseConnectionChangedEvent event) {
+    invalidate(event.connectionId());
+  }
+
+  private void invalidate(String connectionId) {
+    log.info("清除数据库连接 {} 的元数据缓存", connectionId);
+    tables.synchronous().invalidate(connectionId);
+    columns.synchronous().asMap().keySet().removeIf(k -> k.connectionId().equals(connectionId));
+    previews.synchronous().asMap().keySet().removeIf(k -> k.connectionId().equals(connectionId));
+  }
+
+  // JDBC 是阻塞调用，交给 BlockingExecutor 执行
+  private <T> Mono<T> load(String connectionId, JdbcCallback<T> callback) {
+    Callable<T> task = () -> {
       DatabaseConnection conn = connectionStore.get(connectionId)
           .orElseThrow(() -> new IllegalArgumentException("数据库连接不存在: " + connectionId));
+      try (Connection connection = poolRegistry.getConnection(conn)) {
+        return callback.apply(connection);
+      }
+    };
+    return blockingExecutor.execute(DatabaseConnection.executionKey(connectionId), task);
+  }
 
-      List<Map<String, Object>> rows = new ArrayList<>();
-      String sql = "SELECT * FROM " + tableName + " LIMIT " + limit;
-      
-      try (Connection connection = DriverManager.getConnection(conn.getJdbcUrl(), conn.getUsername(), conn.getPassword());
-           Statement stmt = connection.createStatement();
-           ResultSet rs = stmt.executeQuery(sql)) {
-        
+  private List<String> loadTables(Connection connection) throws SQLException {
+    List<String> tables = new ArrayList<>();
+    try (ResultSet rs = connection.getMetaData().getTables(null, null, "%", new String[]{"TABLE"})) {
+      while (rs.next()) {
+        tables.add(rs.getString("TABLE_NAME"));
+      }
+    }
+    return List.copyOf(tables);
+  }
+
+  private List<Map<String, Object>> loadColumns(Connection connection, String tableName)
+      throws SQLException {
+    List<Map<String, Object>> columns = new ArrayList<>();
+    try (ResultSet rs = connection.getMetaData().getColumns(null, null, tableName, "%")) {
+      while (rs.next()) {
+        Map<String, Object> column = new HashMap<>();
+        column.put("name", rs.getString("COLUMN_NAME"));
+        column.put("type", rs.getString("TYPE_NAME"));
+        column.put("size", rs.getInt("COLUMN_SIZE"));
+        column.put("nullable", rs.getInt("NULLABLE") == DatabaseMetaData.columnNullable);
+        columns.add(Collections.unmodifiableMap(column));
+      }
+    }
+    return List.copyOf(columns);
+  }
+
+  private List<Map<String, Object>> loadPreview(Connection connection, String table, int limit)
+      throws SQLException {
+    String quote = connection.getMetaData().getIdentifierQuoteString();
+    String identifier = quote == null || quote.isBlank()
+        ? table
+        : quote + table.replace(quote, quote + quote) + quote;
+    List<Map<String, Object>> rows = new ArrayList<>();
+    try (Statement stmt = connection.createStatement()) {
+      stmt.setMaxRows(Math.max(0, limit));
+      try (ResultSet rs = stmt.executeQuery("SELECT * FROM " + identifier)) {
         ResultSetMetaData metaData = rs.getMetaData();
         int columnCount = metaData.getColumnCount();
-        
         while (rs.next()) {
           Map<String, Object> row = new HashMap<>();
           for (int i = 1; i <= columnCount; i++) {
             row.put(metaData.getColumnName(i), rs.getObject(i));
           }
-          rows.add(row);
+          rows.add(Collections.unmodifiableMap(row));
         }
       }
-      return rows;
-    });
+    }
+    return Collections.unmodifiableList(rows);
   }
+
+  @FunctionalInterface
+  private interface JdbcCallback<T> {
+    T apply(Connection connection) throws SQLException;
+  }
+
+  private record TableKey(String connectionId, String table) {}
+
+  private record PreviewKey(String connectionId, String table, int limit) {}
 }
@@ -0,0 +1,16 @@
+package com.roy.anycharts.datasource;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "anycharts.datasource.metadata")
+public class MetadataCacheProperties {
+  // 表清单与字段信息的缓存时长
+  private Duration ttl = Duration.ofMinutes(10);
+  // 表数据预览的缓存时长，0 表示不缓存
+  private Duration previewTtl = Duration.ofSeconds(30);
+  // 最多缓存多少张表的字段信息（所有连接合计）
+  private long maxTables = 10_000;
+}
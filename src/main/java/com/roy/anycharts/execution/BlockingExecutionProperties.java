@@ -0,0 +1,39 @@
+package com.roy.anycharts.execution;
+
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "anycharts.execution")
+public class BlockingExecutionProperties {
+  // 阻塞任务的执行模型
+  private Mode mode = Mode.BOUNDED_ELASTIC;
+  // BOUNDED_ELASTIC 模式下的最大线程数
+  private int threadCap = 10 * Runtime.getRuntime().availableProcessors();
+  // BOUNDED_ELASTIC 模式下调度器自身允许排队的任务数
+  private int queuedTaskCap = 10_000;
+  // 未单独配置的数据源使用的默认限制
+  private Limits defaults = new Limits();
+  // 按数据源（如 database:h2-default）单独配置的限制
+  private Map<String, Limits> datasources = new HashMap<>();
+
+  public Limits limitsFor(String key) {
+    return datasources.getOrDefault(key, defaults);
+  }
+
+  public enum Mode {
+    BOUNDED_ELASTIC,
+    // 需要 JDK 21+，低版本 JDK 上回退到 BOUNDED_ELASTIC
+    VIRTUAL_THREADS
+  }
+
+  @Data
+  public static class Limits {
+    // 同一数据源同时执行的最大任务数
+    private int maxConcurrency = 8;
+    // 超过并发上限后允许排队的任务数，队列满时立即拒绝
+    private int maxQueue = 64;
+  }
+}
@@ -0,0 +1,255 @@
+package com.roy.anycharts.execution;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 执行 JDBC 等阻塞任务，保证它们不会运行在 Netty / Reactor 的事件循环线程上。
+ *
+ * <p>每个数据源（key）有独立的并发上限和等待队列：并发已满的任务进入队列，队列也满时立即以
+ * {@link RejectedExecutionException} 失败，而不是无限堆积。
+ */
+@Slf4j
+@Component
+public class BlockingExecutor implements DisposableBean {
+  private final BlockingExecutionProperties properties;
+  private final Scheduler scheduler;
+  private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+  public BlockingExecutor(BlockingExecutionProperties properties) {
+    this.properties = properties;
+    this.scheduler = createScheduler(properties);
+  }
+
+  public <T> Mono<T> execute(String key, Callable<T> callable) {
+    return Mono.create(
+        sink -> {
+          Lane lane = lanes.computeIfAbsent(key, k -> new Lane(k, properties.limitsFor(k)));
+          Task<T> task = new Task<>(lane, callable, sink);
+          if (!lane.offer(task)) {
+            sink.error(
+                new RejectedExecutionException("数据源 " + key + " 的阻塞任务队列已满，请稍后重试"));
+            return;
+          }
+          sink.onCancel(() -> lane.cancel(task));
+        });
+  }
+
+  /**
+   * 以阻塞方式逐个产出元素的任务，例如遍历 JDBC ResultSet。
+   *
+   * <p>producer 在阻塞线程上运行，{@link Emitter#emit} 会等待下游请求，下游取消后返回 false，
+   * producer 应据此尽早停止并释放资源。整个 producer 运行期间占用该 key 的一个并发名额。
+   */
+  public <T> Flux<T> executeMany(String key, BlockingProducer<T> producer) {
+    return Flux.create(
+        sink -> {
+          Emitter<T> emitter = new Emitter<>(sink);
+          sink.onRequest(emitter::request);
+          Disposable task =
+              execute(
+                      key,
+                      () -> {
+                        producer.produce(emitter);
+                        return Boolean.TRUE;
+                      })
+                  .subscribe(done -> sink.complete(), sink::error);
+          sink.onDispose(
+              () -> {
+                emitter.cancel();
+                task.dispose();
+              });
+        });
+  }
+
+  /** 当前正在执行的任务数（key -> running） */
+  public Map<String, Integer> running() {
+    Map<String, Integer> result = new ConcurrentHashMap<>();
+    lanes.forEach((key, lane) -> result.put(key, lane.running()));
+    return result;
+  }
+
+  /** 当前排队等待的任务数（key -> queued） */
+  public Map<String, Integer> queued() {
+    Map<String, Integer> result = new ConcurrentHashMap<>();
+    lanes.forEach((key, lane) -> result.put(key, lane.queued()));
+    return result;
+  }
+
+  @Override
+  public void destroy() {
+    scheduler.dispose();
+  }
+
+  private static Scheduler createScheduler(BlockingExecutionProperties properties) {
+    if (properties.getMode() == BlockingExecutionProperties.Mode.VIRTUAL_THREADS) {
+      try {
+        Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        ExecutorService executor = (ExecutorService) factory.invoke(null);
+        return Schedulers.fromExecutorService(executor, "anycharts-blocking-vt");
+      } catch (ReflectiveOperationException e) {
+        log.warn("当前 JDK 不支持虚拟线程，阻塞任务改用 bounded elastic 线程池");
+      }
+    }
+    return Schedulers.newBoundedElastic(
+        properties.getThreadCap(), properties.getQueuedTaskCap(), "anycharts-blocking");
+  }
+
+  @FunctionalInterface
+  public interface BlockingProducer<T> {
+    void produce(Emitter<T> emitter) throws Exception;
+  }
+
+  public static final class Emitter<T> {
+    private final FluxSink<T> sink;
+    private long demand;
+    private boolean cancelled;
+
+    private Emitter(FluxSink<T> sink) {
+      this.sink = sink;
+    }
+
+    /** 等待下游需求后发出元素；下游已取消时返回 false */
+    public boolean emit(T value) throws InterruptedException {
+      synchronized (this) {
+        while (demand == 0 && !cancelled) {
+          wait();
+        }
+        if (cancelled) {
+          return false;
+        }
+        if (demand != Long.MAX_VALUE) {
+          demand--;
+        }
+      }
+      sink.next(value);
+      return true;
+    }
+
+    public synchronized boolean isCancelled() {
+      return cancelled;
+    }
+
+    private synchronized void request(long n) {
+      demand = Operators.addCap(demand, n);
+      notifyAll();
+    }
+
+    private synchronized void cancel() {
+      cancelled = true;
+      notifyAll();
+    }
+  }
+
+  private final class Lane {
+    private final String key;
+    private final int maxConcurrency;
+    private final int maxQueue;
+    private final ArrayDeque<Task<?>> waiting = new ArrayDeque<>();
+    private int running;
+
+    Lane(String key, BlockingExecutionProperties.Limits limits) {
+      this.key = key;
+      this.maxConcurrency = Math.max(1, limits.getMaxConcurrency());
+      this.maxQueue = Math.max(0, limits.getMaxQueue());
+    }
+
+    synchronized boolean offer(Task<?> task) {
+      if (running < maxConcurrency) {
+        running++;
+        dispatch(task);
+        return true;
+      }
+      if (waiting.size() < maxQueue) {
+        waiting.add(task);
+        return true;
+      }
+      return false;
+    }
+
+    synchronized void release() {
+      Task<?> next = waiting.poll();
+      if (next != null) {
+        dispatch(next);
+      } else {
+        running--;
+      }
+    }
+
+    synchronized void cancel(Task<?> task) {
+      // 仍在排队的任务直接移除；已开始执行的任务无法中断，结果会被丢弃
+      waiting.remove(task);
+    }
+
+    synchronized int running() {
+      return running;
+    }
+
+    synchronized int queued() {
+      return waiting.size();
+    }
+
+    private void dispatch(Task<?> task) {
+      try {
+        scheduler.schedule(task);
+      } catch (RejectedExecutionException e) {
+        log.warn("阻塞任务调度器拒绝了数据源 {} 的任务", key);
+        // 由 task 自己归还名额，避免在持锁时重入
+        Schedulers.parallel().schedule(() -> task.reject(e));
+      }
+    }
+  }
+
+  private static final class Task<T> implements Runnable {
+    private final Lane lane;
+    private final Callable<T> callable;
+    private final MonoSink<T> sink;
+
+    Task(Lane lane, Callable<T> callable, MonoSink<T> sink) {
+      this.lane = lane;
+      this.callable = callable;
+      this.sink = sink;
+    }
+
+    @Override
+    public void run() {
+      try {
+        T value = callable.call();
+        if (value == null) {
+          sink.success();
+        } else {
+          sink.success(value);
+        }
+      } catch (Throwable e) {
+        sink.error(e);
+      } finally {
+        lane.release();
+      }
+    }
+
+    void reject(RejectedExecutionException e) {
+      try {
+        sink.error(e);
+      } finally {
+        lane.release();
+      }
+    }
+  }
+}
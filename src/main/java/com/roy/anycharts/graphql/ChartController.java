@@ -2,20 +2,31 @@ package com.roy.anycharts.graphql;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roy.anycharts.chart.AggregateFunction;
 import com.roy.anycharts.chart.ChartConfig;
 import com.roy.anycharts.chart.ChartConfigStore;
 import com.roy.anycharts.chart.ChartService;
 import com.roy.anycharts.chart.DataSourceBinding;
+import com.roy.anycharts.chart.DownsampleAlgorithm;
+import com.roy.anycharts.chart.ChartSubscriptionHub;
+import com.roy.anycharts.chart.QueryCoalescer;
+import com.roy.anycharts.chart.SeriesStore;
+import com.roy.anycharts.chart.SubscriptionDelivery;
 import com.roy.anycharts.dashboard.Dashboard;
 import com.roy.anycharts.dashboard.DashboardComponent;
+import com.roy.anycharts.dashboard.DashboardRenderService;
 import com.roy.anycharts.dashboard.DashboardStore;
+import com.roy.anycharts.dashboard.RenderedDashboard;
+import com.roy.anycharts.datasource.ConnectionPoolRegistry;
+import com.roy.anycharts.datasource.ConnectionPoolStats;
 import com.roy.anycharts.datasource.DatabaseConnection;
 import com.roy.anycharts.datasource.DatabaseConnectionStore;
 import com.roy.anycharts.datasource.DatabaseMetadataService;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
@@ -31,7 +42,12 @@ public class ChartController {
   private final ChartConfigStore chartConfigStore;
   private final DatabaseConnectionStore databaseConnectionStore;
   private final DatabaseMetadataService databaseMetadataService;
+  private final ConnectionPoolRegistry connectionPoolRegistry;
+  private final QueryCoalescer queryCoalescer;
+  private final ChartSubscriptionHub chartSubscriptionHub;
+  private final SubscriptionDelivery subscriptionDelivery;
   private final DashboardStore dashboardStore;
+  private final DashboardRenderService dashboardRenderService;
   private final ObjectMapper mapper = new ObjectMapper();
 
   @QueryMapping
@@ -47,22 +63,7 @@ public class ChartController {
 
   @QueryMapping
   public List<Map<String, Object>> allCharts() {
-    try {
-      System.out.println("=== 收到 allCharts 查询请求 ===");
-      Map<String, ChartConfig> all = chartConfigStore.getAll();
-      System.out.println("从数据库获取到 " + all.size() + " 个图表配置");
-      
-      List<Map<String, Object>> result = all.values().stream()
-          .map(this::toChartConfigDto)
-          .collect(Collectors.toList());
-      
-      System.out.println("返回 " + result.size() + " 个图表");
-      return result;
-    } catch (Exception e) {
-      System.err.println("❌ allCharts 查询失败: " + e.getMessage());
-      e.printStackTrace();
-      throw new RuntimeException("Failed to fetch charts: " + e.getMessage(), e);
-    }
+    return chartConfigStore.getAll().values().stream().map(this::toChartConfigDto).toList();
   }
 
   private Map<String, Object> toChartConfigDto(ChartConfig cfg) {
@@ -82,24 +83,38 @@ public class ChartController {
     String chartType = (String) input.getOrDefault("chartType", "bar");
     JsonNode optionTemplate = mapper.valueToTree(input.get("optionTemplate"));
     
-    ChartConfig config = new ChartConfig(id, title, chartType, optionTemplate);
-    
+    List<DataSourceBinding> bindings = new ArrayList<>();
     @SuppressWarnings("unchecked")
     List<Map<String, Object>> bindingsInput = (List<Map<String, Object>>) input.get("bindings");
     if (bindingsInput != null) {
       for (Map<String, Object> b : bindingsInput) {
-        DataSourceBinding binding = new DataSourceBinding(
-            (String) b.get("name"),
-            (String) b.getOrDefault("datasourceId", "mock-adapter"),
-            (String) b.getOrDefault("query", "mock:sales"),
-            (String) b.getOrDefault("mappingPath", ""),
-            (String) b.get("bindingKey"),
-            Boolean.TRUE.equals(b.get("stream"))
-        );
-        config.getBindings().add(binding);
+        DataSourceBinding binding = DataSourceBinding.builder()
+            .name((String) b.get("name"))
+            .datasourceId((String) b.getOrDefault("datasourceId", "mock-adapter"))
+            .query((String) b.getOrDefault("query", "mock:sales"))
+            .mappingPath((String) b.getOrDefault("mappingPath", ""))
+            .bindingKey((String) b.get("bindingKey"))
+            .stream(Boolean.TRUE.equals(b.get("stream")))
+            .downsample(b.get("downsample") != null ? DownsampleAlgorithm.valueOf((String) b.get("downsample")) : null)
+            .downsampleTarget((Integer) b.get("downsampleTarget"))
+            .seriesPoints((Integer) b.get("seriesPoints"))
+            .seriesWindow(b.get("seriesWindow") != null ? DurationStyle.detectAndParse((String) b.get("seriesWindow")) : null)
+            .seriesTimeField((String) b.get("seriesTimeField"))
+            .aggregate(b.get("aggregate") != null ? AggregateFunction.valueOf((String) b.get("aggregate")) : null)
+            .aggregateWindow(b.get("aggregateWindow") != null ? DurationStyle.detectAndParse((String) b.get("aggregateWindow")) : null)
+            .aggregateSlide(b.get("aggregateSlide") != null ? DurationStyle.detectAndParse((String) b.get("aggregateSlide")) : null)
+            .build();
+        // 窗口聚合配置无效时拒绝保存，不等到订阅时才失败
+        try {
+          SeriesStore.Aggregation.of(binding);
+        } catch (IllegalArgumentException e) {
+          throw new IllegalArgumentException("binding " + binding.getName() + ": " + e.getMessage(), e);
+        }
+        bindings.add(binding);
       }
     }
     
+    ChartConfig config = new ChartConfig(id, title, chartType, optionTemplate, null, bindings);
     chartConfigStore.save(config);
     return toChartConfigDto(config);
   }
@@ -109,10 +124,35 @@ public class ChartController {
     return chartConfigStore.delete(id);
   }
 
+  @QueryMapping
+  public Map<String, Object> queryCoalescerStats() {
+    return Map.of(
+        "hits", queryCoalescer.hits(),
+        "misses", queryCoalescer.misses(),
+        "inFlight", queryCoalescer.inFlight());
+  }
+
+  @QueryMapping
+  public Map<String, Object> subscriptionStats() {
+    return Map.of(
+        "activeStreams", chartSubscriptionHub.size(),
+        "subscribers", subscriptionDelivery.subscribers(),
+        "droppedFrames", subscriptionDelivery.dropped(),
+        "coalescedFrames", subscriptionDelivery.coalesced(),
+        "cancelledRenders", subscriptionDelivery.cancelledRenders(),
+        "slowConsumers", subscriptionDelivery.slowConsumers());
+  }
+
   @SubscriptionMapping
   public Flux<Map<String, Object>> chartUpdates(
-      @Argument String id, @Argument Map<String, Object> variables) {
-    return chartService.subscribeChart(id, variables).map(json -> Map.of("id", id, "option", json));
+      @Argument String id, @Argument Map<String, Object> variables, @Argument Double maxFps) {
+    return chartService.subscribeChart(id, variables, maxFps).map(json -> Map.of("id", id, "option", json));
+  }
+
+  @SubscriptionMapping
+  public Flux<Map<String, Object>> chartDeltas(
+      @Argument String id, @Argument Map<String, Object> variables, @Argument Double maxFps) {
+    return chartService.subscribeChartDeltas(id, variables, maxFps);
   }
 
   // ========== 数据库连接管理 ==========
@@ -144,6 +184,11 @@ public class ChartController {
     return databaseMetadataService.previewData(connectionId, tableName, limit != null ? limit : 10);
   }
 
+  @QueryMapping
+  public List<ConnectionPoolStats> connectionPoolStats() {
+    return connectionPoolRegistry.stats();
+  }
+
   @MutationMapping
   public DatabaseConnection saveDatabaseConnection(@Argument Map<String, Object> input) {
     String id = (String) input.getOrDefault("id", "db-" + System.currentTimeMillis());
@@ -165,6 +210,13 @@ public class ChartController {
     return databaseConnectionStore.delete(id);
   }
 
+  @MutationMapping
+  public boolean refreshDatabaseMetadata(
+      @Argument String connectionId, @Argument String tableName) {
+    databaseMetadataService.refresh(connectionId, tableName);
+    return true;
+  }
+
   // ========== 大屏管理 ==========
   
   @QueryMapping
@@ -177,6 +229,12 @@ public class ChartController {
     return dashboardStore.getAll();
   }
 
+  @QueryMapping
+  public Mono<RenderedDashboard> renderDashboard(
+      @Argument String id, @Argument Map<String, Object> variables) {
+    return dashboardRenderService.render(id, variables);
+  }
+
   @MutationMapping
   public Dashboard saveDashboard(@Argument Map<String, Object> input) {
     String id = (String) input.getOrDefault("id", "dashboard-" + System.currentTimeMillis());
@@ -0,0 +1,265 @@
+package com.roy.anycharts.metrics;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.roy.anycharts.adapter.AdapterRegistry;
+import com.roy.anycharts.adapter.DataSourceAdapter;
+import com.roy.anycharts.adapter.ResilientAdapter;
+import com.roy.anycharts.adapter.impl.DatabaseAdapter;
+import com.roy.anycharts.adapter.impl.RestAdapter;
+import com.roy.anycharts.chart.ChartSubscriptionHub;
+import com.roy.anycharts.chart.QueryCoalescer;
+import com.roy.anycharts.chart.RenderCache;
+import com.roy.anycharts.chart.SeriesStore;
+import com.roy.anycharts.chart.StreamJournal;
+import com.roy.anycharts.chart.SubscriptionDelivery;
+import com.roy.anycharts.datasource.DatabaseMetadataService;
+import com.roy.anycharts.execution.BlockingExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 把各组件已有的统计值注册为指标：适配器熔断/限流/超时、REST 条件请求、查询合并、执行中的查询、阻塞任务、缓存命中、订阅推送、内存序列和流日志。
+ *
+ * <p>缓存指标沿用 Micrometer 的 cache.gets / cache.evictions / cache.size 命名，以 cache 标签区分。
+ */
+@Component
+@RequiredArgsConstructor
+public class AnyChartsMeterBinder implements MeterBinder {
+  private final AdapterRegistry adapterRegistry;
+  private final QueryCoalescer queryCoalescer;
+  private final RenderCache renderCache;
+  private final DatabaseMetadataService metadataService;
+  private final ChartSubscriptionHub subscriptionHub;
+  private final SubscriptionDelivery subscriptionDelivery;
+  private final SeriesStore seriesStore;
+  private final StreamJournal streamJournal;
+  private final BlockingExecutor blockingExecutor;
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("anycharts.query.coalescer", queryCoalescer, QueryCoalescer::hits)
+        .description("合并到已有查询的 binding 数")
+        .tag("result", "hit")
+        .register(registry);
+    FunctionCounter.builder("anycharts.query.coalescer", queryCoalescer, QueryCoalescer::misses)
+        .description("实际发起的查询数")
+        .tag("result", "miss")
+        .register(registry);
+    Gauge.builder("anycharts.adapter.queries.inflight", queryCoalescer, QueryCoalescer::inFlight)
+        .description("正在执行的适配器查询数")
+        .register(registry);
+    Gauge.builder("anycharts.blocking.tasks", blockingExecutor, e -> sum(e.running()))
+        .description("阻塞执行器中的任务数")
+        .tag("state", "running")
+        .register(registry);
+    Gauge.builder("anycharts.blocking.tasks", blockingExecutor, e -> sum(e.queued()))
+        .description("阻塞执行器中的任务数")
+        .tag("state", "queued")
+        .register(registry);
+
+    bindCache(registry, "render", renderCache, RenderCache::stats);
+    Gauge.builder("cache.size", renderCache, RenderCache::size)
+        .tag("cache", "render")
+        .register(registry);
+    for (String name : metadataService.cacheStats().keySet()) {
+      bindCache(registry, "metadata." + name, metadataService, m -> m.cacheStats().get(name));
+    }
+
+    for (ResilientAdapter adapter : adapterRegistry.resilientAdapters()) {
+      bindResilience(registry, adapter);
+    }
+    DataSourceAdapter rest = adapterRegistry.get("rest-adapter");
+    if (rest instanceof ResilientAdapter resilient) rest = resilient.delegate();
+    if (rest instanceof RestAdapter restAdapter) {
+      FunctionCounter.builder("anycharts.rest.responses", restAdapter, RestAdapter::notModified)
+          .description("REST 适配器的响应数，not_modified 为 304 复用缓存结果")
+          .tag("result", "not_modified")
+          .register(registry);
+      FunctionCounter.builder("anycharts.rest.responses", restAdapter, RestAdapter::fullResponses)
+          .description("REST 适配器的响应数，not_modified 为 304 复用缓存结果")
+          .tag("result", "full")
+          .register(registry);
+      Gauge.builder("anycharts.rest.streams", restAdapter, RestAdapter::activeStreams)
+          .description("REST 适配器共享的 SSE / NDJSON 上游连接数")
+          .register(registry);
+      FunctionCounter.builder(
+              "anycharts.rest.stream.connects", restAdapter, RestAdapter::streamConnects)
+          .description("SSE / NDJSON 上游连接次数，包括重连")
+          .register(registry);
+      FunctionCounter.builder(
+              "anycharts.rest.stream.events", restAdapter, RestAdapter::streamEvents)
+          .description("从 SSE / NDJSON 上游收到的事件数")
+          .register(registry);
+    }
+    DataSourceAdapter database = adapterRegistry.get("database-adapter");
+    if (database instanceof ResilientAdapter resilient) database = resilient.delegate();
+    if (database instanceof DatabaseAdapter databaseAdapter) {
+      Gauge.builder("anycharts.database.polls.active", databaseAdapter, DatabaseAdapter::activePolls)
+          .description("数据库适配器正在进行的共享轮询数")
+          .register(registry);
+      FunctionCounter.builder(
+              "anycharts.database.polls", databaseAdapter, DatabaseAdapter::pollsChanged)
+          .description("轮询次数，unchanged 为结果没有变化、没有推送事件")
+          .tag("result", "changed")
+          .register(registry);
+      FunctionCounter.builder(
+              "anycharts.database.polls", databaseAdapter, DatabaseAdapter::pollsUnchanged)
+          .description("轮询次数，unchanged 为结果没有变化、没有推送事件")
+          .tag("result", "unchanged")
+          .register(registry);
+      FunctionCounter.builder(
+              "anycharts.database.truncated", databaseAdapter, DatabaseAdapter::truncatedResults)
+          .description("结果超过 max-rows 被截断的查询次数")
+          .register(registry);
+    }
+
+    Gauge.builder("anycharts.subscriptions.streams", subscriptionHub, ChartSubscriptionHub::size)
+        .description("活跃的共享订阅流数")
+        .register(registry);
+    Gauge.builder(
+            "anycharts.subscriptions.clients",
+            subscriptionDelivery,
+            SubscriptionDelivery::subscribers)
+        .description("订阅客户端总数")
+        .register(registry);
+    counter(registry, "anycharts.subscriptions.frames", "dropped", SubscriptionDelivery::dropped);
+    counter(
+        registry, "anycharts.subscriptions.frames", "coalesced", SubscriptionDelivery::coalesced);
+    counter(
+        registry,
+        "anycharts.subscriptions.renders",
+        "cancelled",
+        SubscriptionDelivery::cancelledRenders);
+    FunctionCounter.builder(
+            "anycharts.subscriptions.slow.consumers",
+            subscriptionDelivery,
+            SubscriptionDelivery::slowConsumers)
+        .description("被判定为慢客户端的订阅数")
+        .register(registry);
+    Gauge.builder("anycharts.series.active", seriesStore, SeriesStore::size)
+        .description("正在订阅的内存时间序列数")
+        .register(registry);
+    Gauge.builder("anycharts.series.points", seriesStore, SeriesStore::retainedPoints)
+        .description("内存时间序列当前保留的点数")
+        .register(registry);
+    FunctionCounter.builder("anycharts.series.rows", seriesStore, SeriesStore::appended)
+        .description("写入内存时间序列的行数，dropped 为时间无法解析或乱序而丢弃的行")
+        .tag("result", "appended")
+        .register(registry);
+    FunctionCounter.builder("anycharts.series.rows", seriesStore, SeriesStore::dropped)
+        .description("写入内存时间序列的行数，dropped 为时间无法解析或乱序而丢弃的行")
+        .tag("result", "dropped")
+        .register(registry);
+    FunctionCounter.builder("anycharts.series.aggregation", seriesStore, SeriesStore::aggregatedRows)
+        .description("窗口聚合计入的事件行数（rows）和输出的点数（windows），两者之比即渲染减少的倍数")
+        .tag("stage", "rows")
+        .register(registry);
+    FunctionCounter.builder(
+            "anycharts.series.aggregation", seriesStore, SeriesStore::aggregatedWindows)
+        .description("窗口聚合计入的事件行数（rows）和输出的点数（windows），两者之比即渲染减少的倍数")
+        .tag("stage", "windows")
+        .register(registry);
+    if (streamJournal.isEnabled()) {
+      Gauge.builder("anycharts.journal.segments", streamJournal, StreamJournal::segments)
+          .description("流日志的段文件数")
+          .register(registry);
+      Gauge.builder("anycharts.journal.size", streamJournal, StreamJournal::sizeBytes)
+          .description("流日志段文件占用的字节数")
+          .baseUnit("bytes")
+          .register(registry);
+      FunctionCounter.builder("anycharts.journal.records", streamJournal, StreamJournal::written)
+          .description("流日志的记录数，dropped 为超过段大小或无法序列化而丢弃的事件，replayed 为回放的记录")
+          .tag("result", "written")
+          .register(registry);
+      FunctionCounter.builder("anycharts.journal.records", streamJournal, StreamJournal::dropped)
+          .description("流日志的记录数，dropped 为超过段大小或无法序列化而丢弃的事件，replayed 为回放的记录")
+          .tag("result", "dropped")
+          .register(registry);
+      FunctionCounter.builder("anycharts.journal.records", streamJournal, StreamJournal::replayed)
+          .description("流日志的记录数，dropped 为超过段大小或无法序列化而丢弃的事件，replayed 为回放的记录")
+          .tag("result", "replayed")
+          .register(registry);
+    }
+  }
+
+  // 熔断状态按 state 标签各一个 0/1 值，便于按状态聚合
+  private static void bindResilience(MeterRegistry registry, ResilientAdapter adapter) {
+    String id = adapter.id();
+    for (String state : List.of("CLOSED", "OPEN", "HALF_OPEN")) {
+      Gauge.builder(
+              "anycharts.adapter.circuit.state",
+              adapter,
+              a -> state.equals(a.circuitState()) ? 1 : 0)
+          .description("熔断器状态")
+          .tag("adapter", id)
+          .tag("state", state.toLowerCase())
+          .register(registry);
+    }
+    Gauge.builder("anycharts.adapter.circuit.failure.rate", adapter, ResilientAdapter::failureRate)
+        .description("熔断窗口内的失败比例")
+        .tag("adapter", id)
+        .register(registry);
+    Gauge.builder("anycharts.adapter.calls.active", adapter, ResilientAdapter::activeCalls)
+        .description("适配器正在执行的调用数（bulkhead 占用）")
+        .tag("adapter", id)
+        .register(registry);
+    FunctionCounter.builder(
+            "anycharts.adapter.rejected", adapter, ResilientAdapter::circuitRejected)
+        .description("被熔断或并发上限拒绝的调用数")
+        .tag("adapter", id)
+        .tag("reason", "circuit_open")
+        .register(registry);
+    FunctionCounter.builder(
+            "anycharts.adapter.rejected", adapter, ResilientAdapter::bulkheadRejected)
+        .description("被熔断或并发上限拒绝的调用数")
+        .tag("adapter", id)
+        .tag("reason", "bulkhead_full")
+        .register(registry);
+    FunctionCounter.builder("anycharts.adapter.timeouts", adapter, ResilientAdapter::timeouts)
+        .description("超时的调用数")
+        .tag("adapter", id)
+        .register(registry);
+    FunctionCounter.builder("anycharts.adapter.fallbacks", adapter, ResilientAdapter::fallbacks)
+        .description("回退为最近成功结果的调用数")
+        .tag("adapter", id)
+        .register(registry);
+  }
+
+  private void counter(
+      MeterRegistry registry,
+      String name,
+      String result,
+      ToDoubleFunction<SubscriptionDelivery> value) {
+    FunctionCounter.builder(name, subscriptionDelivery, value)
+        .tag("result", result)
+        .register(registry);
+  }
+
+  // 指标只弱引用 owner，owner 为 Spring 单例，不会被提前回收
+  private static <T> void bindCache(
+      MeterRegistry registry, String cache, T owner, Function<T, CacheStats> stats) {
+    FunctionCounter.builder("cache.gets", owner, o -> stats.apply(o).hitCount())
+        .tag("cache", cache)
+        .tag("result", "hit")
+        .register(registry);
+    FunctionCounter.builder("cache.gets", owner, o -> stats.apply(o).missCount())
+        .tag("cache", cache)
+        .tag("result", "miss")
+        .register(registry);
+    FunctionCounter.builder("cache.evictions", owner, o -> stats.apply(o).evictionCount())
+        .tag("cache", cache)
+        .register(registry);
+  }
+
+  private static double sum(Map<String, Integer> counts) {
+    return counts.values().stream().mapToInt(Integer::intValue).sum();
+  }
+}
@@ -0,0 +1,159 @@
+package com.roy.anycharts.metrics;
+
+import com.roy.anycharts.chart.ChartConfigChangedEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * 渲染管线的指标：适配器查询、映射路径求值、模板填充、图表渲染和订阅数。
+ *
+ * <p>标签只使用取值有限的维度：适配器 ID、图表 ID、结果（success / error / cancelled）和映射方式；查询语句与
+ * variables 不作为标签。图表被删除时移除该图表的全部指标。
+ */
+@Component
+public class RenderMetrics {
+  public static final String ADAPTER_QUERY = "anycharts.adapter.query";
+  public static final String ADAPTER_ROWS = "anycharts.adapter.rows";
+  public static final String ADAPTER_BYTES = "anycharts.adapter.bytes";
+  public static final String MAPPING = "anycharts.mapping";
+  public static final String CHART_RENDER = "anycharts.chart.render";
+  public static final String CHART_TEMPLATE = "anycharts.chart.template";
+  public static final String SUBSCRIPTIONS = "anycharts.subscriptions.active";
+
+  private final MeterRegistry registry;
+  private final Map<String, AtomicInteger> subscriptions = new ConcurrentHashMap<>();
+
+  public RenderMetrics(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  /** 记录一次适配器查询的耗时，从订阅开始到完成、出错或取消 */
+  public <T> Mono<T> timeQuery(String adapterId, Mono<T> query) {
+    return time(
+        query, outcome -> timer(ADAPTER_QUERY, "数据源适配器查询耗时", "adapter", adapterId, outcome));
+  }
+
+  /** 记录一次查询返回的行数和估算字节数 */
+  public void recordResult(String adapterId, long rows, long bytes) {
+    DistributionSummary.builder(ADAPTER_ROWS)
+        .description("每次查询返回的行数")
+        .tag("adapter", adapterId)
+        .publishPercentileHistogram()
+        .register(registry)
+        .record(rows);
+    DistributionSummary.builder(ADAPTER_BYTES)
+        .description("每次查询返回结果的估算字节数")
+        .baseUnit("bytes")
+        .tag("adapter", adapterId)
+        .publishPercentileHistogram()
+        .register(registry)
+        .record(bytes);
+  }
+
+  /**
+   * 记录映射路径求值耗时。
+   *
+   * @param mode columnar / batches / tree，分别对应列式投影、按批投影和 JsonPath 求值
+   */
+  public void recordMapping(String mode, long nanos) {
+    Timer.builder(MAPPING)
+        .description("映射路径求值耗时")
+        .tag("mode", mode)
+        .publishPercentileHistogram()
+        .register(registry)
+        .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /** 记录一次图表渲染（取数、映射、降采样、模板填充）的耗时，不含渲染缓存命中 */
+  public <T> Mono<T> timeRender(String chartId, Mono<T> render) {
+    return time(render, outcome -> timer(CHART_RENDER, "图表渲染耗时", "chart", chartId, outcome));
+  }
+
+  public void recordTemplate(String chartId, long nanos) {
+    Timer.builder(CHART_TEMPLATE)
+        .description("option 模板填充耗时")
+        .tag("chart", chartId)
+        .publishPercentileHistogram()
+        .register(registry)
+        .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /** 统计图表的活跃订阅客户端数 */
+  public <T> Flux<T> trackSubscription(String chartId, Flux<T> updates) {
+    return Flux.defer(
+        () -> {
+          AtomicInteger active = subscriptions(chartId);
+          active.incrementAndGet();
+          return updates.doFinally(signal -> active.decrementAndGet());
+        });
+  }
+
+  // 删除回滚时图表仍然存在，保留它的指标
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onChartConfigChanged(ChartConfigChangedEvent event) {
+    if (!event.deleted()) return;
+    subscriptions.remove(event.chartId());
+    List<Meter> meters =
+        registry.getMeters().stream()
+            .filter(m -> event.chartId().equals(m.getId().getTag("chart")))
+            .toList();
+    meters.forEach(registry::remove);
+  }
+
+  private AtomicInteger subscriptions(String chartId) {
+    return subscriptions.computeIfAbsent(
+        chartId,
+        id -> {
+          AtomicInteger active = new AtomicInteger();
+          Gauge.builder(SUBSCRIPTIONS, active, AtomicInteger::get)
+              .description("图表的活跃订阅客户端数")
+              .tag("chart", id)
+              .register(registry);
+          return active;
+        });
+  }
+
+  private Timer timer(String name, String description, String key, String value, String outcome) {
+    return Timer.builder(name)
+        .description(description)
+        .tag(key, value)
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(registry);
+  }
+
+  private static <T> Mono<T> time(Mono<T> source, Function<String, Timer> timer) {
+    return Mono.defer(
+        () -> {
+          long start = System.nanoTime();
+          return source.doFinally(
+              signal ->
+                  timer
+                      .apply(outcome(signal))
+                      .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+  }
+
+  private static String outcome(SignalType signal) {
+    return switch (signal) {
+      case ON_ERROR -> "error";
+      case CANCEL -> "cancelled";
+      default -> "success";
+    };
+  }
+}
@@ -0,0 +1,172 @@
+package com.roy.anycharts.adapter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class ResilientAdapterTest {
+  private static final JsonNode OK = JsonNodeFactory.instance.objectNode().put("ok", true);
+
+  private final AtomicLong now = new AtomicLong();
+  private Supplier<Mono<JsonNode>> response = () -> Mono.just(OK);
+  // 为 null 时 executeBatches 使用基于 execute 的默认实现
+  private Supplier<Flux<JsonNode>> batches;
+
+  private final DataSourceAdapter upstream =
+      new DataSourceAdapter() {
+        @Override
+        public Mono<JsonNode> execute(String query, Map<String, Object> params) {
+          return Mono.defer(response);
+        }
+
+        @Override
+        public Flux<JsonNode> executeBatches(String query, Map<String, Object> params) {
+          return batches != null
+              ? Flux.defer(batches)
+              : DataSourceAdapter.super.executeBatches(query, params);
+        }
+
+        @Override
+        public Flux<JsonNode> subscribe(String query, Map<String, Object> params) {
+          return Flux.empty();
+        }
+
+        @Override
+        public String id() {
+          return "upstream";
+        }
+      };
+
+  private ResilientAdapter adapter(AdapterResilienceProperties.Policy policy) {
+    return new ResilientAdapter(
+        upstream, policy, new CircuitBreaker("upstream", policy, now::get));
+  }
+
+  private static AdapterResilienceProperties.Policy policy() {
+    AdapterResilienceProperties.Policy policy = new AdapterResilienceProperties.Policy();
+    policy.setSlidingWindowSize(4);
+    policy.setMinimumCalls(4);
+    policy.setHalfOpenCalls(1);
+    policy.setOpenDuration(Duration.ofSeconds(30));
+    return policy;
+  }
+
+  @Test
+  void timeoutFailsTheCall() {
+    AdapterResilienceProperties.Policy policy = policy();
+    policy.setTimeout(Duration.ofMillis(50));
+    ResilientAdapter adapter = adapter(policy);
+    response = Mono::never;
+
+    StepVerifier.create(adapter.execute("q", Map.of())).verifyError(TimeoutException.class);
+    assertEquals(1, adapter.timeouts());
+    assertEquals(0, adapter.activeCalls());
+  }
+
+  @Test
+  void bulkheadRejectsCallsOverTheLimit() {
+    AdapterResilienceProperties.Policy policy = policy();
+    policy.setMaxConcurrentCalls(1);
+    ResilientAdapter adapter = adapter(policy);
+    response = Mono::never;
+
+    var first = adapter.execute("q", Map.of()).subscribe();
+    StepVerifier.create(adapter.execute("q", Map.of()))
+        .verifyError(RejectedExecutionException.class);
+    assertEquals(1, adapter.bulkheadRejected());
+
+    first.dispose();
+    response = () -> Mono.just(OK);
+    StepVerifier.create(adapter.execute("q", Map.of())).expectNext(OK).verifyComplete();
+  }
+
+  @Test
+  void circuitOpensFailsFastAndRecoversAfterHalfOpenProbe() {
+    ResilientAdapter adapter = adapter(policy());
+    response = () -> Mono.error(new IllegalStateException("down"));
+    for (int i = 0; i < 4; i++) {
+      StepVerifier.create(adapter.execute("q", Map.of())).verifyError(IllegalStateException.class);
+    }
+    assertEquals("OPEN", adapter.circuitState());
+
+    response = () -> Mono.just(OK);
+    StepVerifier.create(adapter.execute("q", Map.of())).verifyError(CircuitOpenException.class);
+    assertEquals(1, adapter.circuitRejected());
+
+    now.addAndGet(Duration.ofSeconds(31).toNanos());
+    assertEquals("HALF_OPEN", adapter.circuitState());
+    StepVerifier.create(adapter.execute("q", Map.of())).expectNext(OK).verifyComplete();
+    assertEquals("CLOSED", adapter.circuitState());
+  }
+
+  @Test
+  void callerErrorsDoNotOpenTheCircuit() {
+    ResilientAdapter adapter = adapter(policy());
+    response = () -> Mono.error(new IllegalArgumentException("bad query"));
+    for (int i = 0; i < 10; i++) {
+      StepVerifier.create(adapter.execute("q", Map.of()))
+          .verifyError(IllegalArgumentException.class);
+    }
+    assertEquals("CLOSED", adapter.circuitState());
+  }
+
+  @Test
+  void fallsBackToLastGoodResult() {
+    AdapterResilienceProperties.Policy policy = policy();
+    policy.getFallback().setEnabled(true);
+    ResilientAdapter adapter = adapter(policy);
+
+    StepVerifier.create(adapter.execute("q", Map.of("region", "east")))
+        .expectNext(OK)
+        .verifyComplete();
+    response = () -> Mono.error(new IllegalStateException("down"));
+
+    StepVerifier.create(adapter.execute("q", Map.of("region", "east")))
+        .expectNext(OK)
+        .verifyComplete();
+    StepVerifier.create(adapter.executeBatches("q", Map.of("region", "east")))
+        .verifyError(IllegalStateException.class);
+    StepVerifier.create(adapter.execute("q", Map.of("region", "west")))
+        .verifyError(IllegalStateException.class);
+    assertEquals(1, adapter.fallbacks());
+  }
+
+  @Test
+  void batchFallbackOnlyReplacesStreamsThatEmittedNothing() {
+    AdapterResilienceProperties.Policy policy = policy();
+    policy.getFallback().setEnabled(true);
+    ResilientAdapter adapter = adapter(policy);
+    JsonNode first = JsonNodeFactory.instance.arrayNode().add(1).add(2);
+    JsonNode second = JsonNodeFactory.instance.arrayNode().add(3);
+    batches = () -> Flux.just(first, second);
+    StepVerifier.create(adapter.executeBatches("q", Map.of()))
+        .expectNext(first, second)
+        .verifyComplete();
+
+    // 第一个批次已经发出后失败：不再追加保存的批次，避免重复的行
+    batches =
+        () -> Flux.concat(Flux.just(first), Flux.error(new IllegalStateException("reset")));
+    StepVerifier.create(adapter.executeBatches("q", Map.of()))
+        .expectNext(first)
+        .verifyError(IllegalStateException.class);
+    assertEquals(0, adapter.fallbacks());
+
+    // 还没有发出批次就失败：回退到完整的保存结果
+    batches = () -> Flux.error(new IllegalStateException("down"));
+    StepVerifier.create(adapter.executeBatches("q", Map.of()))
+        .expectNext(first, second)
+        .verifyComplete();
+    assertEquals(1, adapter.fallbacks());
+  }
+}
@@ -0,0 +1,128 @@
+package com.roy.anycharts.adapter.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roy.anycharts.adapter.ColumnarResult;
+import com.roy.anycharts.datasource.ConnectionPoolProperties;
+import com.roy.anycharts.datasource.ConnectionPoolRegistry;
+import com.roy.anycharts.datasource.ConnectionPoolStats;
+import com.roy.anycharts.datasource.DatabaseConnection;
+import com.roy.anycharts.datasource.DatabaseConnectionStore;
+import com.roy.anycharts.execution.BlockingExecutionProperties;
+import com.roy.anycharts.execution.BlockingExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+class DatabaseAdapterTest {
+  private final DatabaseConnection connection =
+      new DatabaseConnection(
+          "rows",
+          "rows",
+          "jdbc:h2:mem:database-adapter-test;DB_CLOSE_DELAY=-1",
+          "sa",
+          "",
+          "org.h2.Driver",
+          true);
+  private final DatabaseAdapterProperties properties = new DatabaseAdapterProperties();
+  private BlockingExecutor executor;
+  private ConnectionPoolRegistry pools;
+  private DatabaseAdapter adapter;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    DatabaseConnectionStore store = new DatabaseConnectionStore(event -> {});
+    store.save(connection);
+    executor = new BlockingExecutor(new BlockingExecutionProperties());
+    pools = new ConnectionPoolRegistry(new ConnectionPoolProperties(), new SimpleMeterRegistry());
+    properties.setFetchSize(10);
+    properties.setBatchSize(10);
+    properties.setMaxRows(0);
+    adapter = new DatabaseAdapter(new ObjectMapper(), store, pools, executor, properties);
+    try (Connection c = pools.getConnection(connection);
+        Statement stmt = c.createStatement()) {
+      stmt.execute("DROP TABLE IF EXISTS numbers");
+      stmt.execute("CREATE TABLE numbers AS SELECT X AS n FROM SYSTEM_RANGE(1, 95)");
+    }
+  }
+
+  @AfterEach
+  void tearDown() {
+    pools.destroy();
+    executor.destroy();
+  }
+
+  @Test
+  void streamsRowsInBatches() {
+    List<JsonNode> batches =
+        adapter
+            .executeBatches("rows:SELECT n FROM numbers ORDER BY n", Map.of())
+            .collectList()
+            .block();
+    assertEquals(10, batches.size());
+    assertEquals(10, batches.get(0).size());
+    assertEquals(5, batches.get(9).size());
+    assertEquals(95, batches.get(9).get(4).get("N").asInt());
+  }
+
+  @Test
+  void rowCapTruncatesAndMarksTheResult() {
+    properties.setMaxRows(25);
+    String query = "rows:SELECT n FROM numbers ORDER BY n";
+
+    ColumnarResult columnar = adapter.executeColumnar(query, Map.of()).block();
+    assertEquals(25, columnar.rowCount());
+    assertTrue(columnar.isTruncated());
+    JsonNode json = adapter.execute(query, Map.of()).block();
+    assertEquals(25, json.get("count").asInt());
+    assertTrue(json.get("truncated").asBoolean());
+
+    List<JsonNode> batches = adapter.executeBatches(query, Map.of()).collectList().block();
+    assertEquals(List.of(10, 10, 5), batches.stream().map(JsonNode::size).toList());
+    assertEquals(3, adapter.truncatedResults());
+
+    // 恰好等于上限不算截断
+    properties.setMaxRows(95);
+    ColumnarResult exact = adapter.executeColumnar(query, Map.of()).block();
+    assertEquals(95, exact.rowCount());
+    assertFalse(exact.isTruncated());
+    assertFalse(adapter.execute(query, Map.of()).block().has("truncated"));
+    assertEquals(3, adapter.truncatedResults());
+  }
+
+  @Test
+  void cancellationStopsReadingAndReleasesTheConnection() {
+    StepVerifier.create(adapter.executeBatches("rows:SELECT n FROM numbers", Map.of()), 1)
+        .expectNextCount(1)
+        .thenCancel()
+        .verify(Duration.ofSeconds(5));
+
+    // 取消在阻塞线程上异步生效
+    long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while ((activeConnections() > 0 || runningTasks() > 0) && System.nanoTime() < deadline) {
+      Thread.onSpinWait();
+    }
+    assertEquals(0, activeConnections());
+    assertEquals(0, runningTasks());
+  }
+
+  private int runningTasks() {
+    return executor.running().values().stream().mapToInt(Integer::intValue).sum();
+  }
+
+  private int activeConnections() {
+    return pools.stats().stream().mapToInt(ConnectionPoolStats::active).sum();
+  }
+}
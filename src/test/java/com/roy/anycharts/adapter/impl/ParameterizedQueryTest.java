@@ -0,0 +1,104 @@
+package com.roy.anycharts.adapter.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ParameterizedQueryTest {
+  private Connection connection;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:h2:mem:parameterized-test", "sa", "");
+    try (Statement stmt = connection.createStatement()) {
+      stmt.execute("CREATE TABLE sales (id INT, region VARCHAR(20), amount DOUBLE)");
+      stmt.execute(
+          "INSERT INTO sales VALUES (1, 'east', 10), (2, 'west', 20), (3, 'east', 30), (4, 'it''s', 40)");
+    }
+  }
+
+  @AfterEach
+  void tearDown() throws SQLException {
+    try (Statement stmt = connection.createStatement()) {
+      stmt.execute("DROP TABLE sales");
+    }
+    connection.close();
+  }
+
+  @Test
+  void replacesVariablesWithPlaceholders() {
+    ParameterizedQuery query =
+        ParameterizedQuery.parse(
+            "SELECT * FROM sales WHERE region = '${region}' AND id > ${minId} -- ${ignored}\n"
+                + "AND note <> '${a}-${b}' AND tag = 'x''${c}'");
+
+    assertEquals(
+        "SELECT * FROM sales WHERE region = ? AND id > ? -- ${ignored}\nAND note <> ? AND tag = ?",
+        query.sql(Map.of("minId", 1)));
+    assertSame(query, ParameterizedQuery.parse(
+        "SELECT * FROM sales WHERE region = '${region}' AND id > ${minId} -- ${ignored}\n"
+            + "AND note <> '${a}-${b}' AND tag = 'x''${c}'"));
+  }
+
+  @Test
+  void expandsCollections() {
+    ParameterizedQuery query = ParameterizedQuery.parse("SELECT * FROM sales WHERE id IN (${ids})");
+
+    assertEquals("SELECT * FROM sales WHERE id IN (?, ?, ?)", query.sql(Map.of("ids", List.of(1, 2, 3))));
+    assertEquals("SELECT * FROM sales WHERE id IN (NULL)", query.sql(Map.of("ids", List.of())));
+  }
+
+  @Test
+  void bindsValuesByType() throws SQLException {
+    assertEquals(
+        List.of(1, 3),
+        ids("SELECT id FROM sales WHERE region = '${region}' AND amount >= ${min} ORDER BY id",
+            Map.of("region", "east", "min", 10.0)));
+    assertEquals(
+        List.of(2, 4),
+        ids("SELECT id FROM sales WHERE id IN (${ids}) ORDER BY id", Map.of("ids", List.of(2, 4))));
+    // 含单引号的值不再破坏 SQL
+    assertEquals(List.of(4), ids("SELECT id FROM sales WHERE region = ${region}", Map.of("region", "it's")));
+  }
+
+  @Test
+  void injectionIsTreatedAsValue() throws SQLException {
+    assertEquals(
+        List.of(),
+        ids("SELECT id FROM sales WHERE region = '${region}'", Map.of("region", "x' OR '1'='1")));
+  }
+
+  @Test
+  void missingVariableFailsFast() {
+    ParameterizedQuery query = ParameterizedQuery.parse("SELECT * FROM sales WHERE id = ${id}");
+    assertThrows(IllegalArgumentException.class, () -> query.sql(new HashMap<>()));
+  }
+
+  private List<Integer> ids(String sql, Map<String, Object> variables) throws SQLException {
+    ParameterizedQuery query = ParameterizedQuery.parse(sql);
+    List<Integer> ids = new ArrayList<>();
+    try (PreparedStatement stmt = connection.prepareStatement(query.sql(variables))) {
+      query.bind(stmt, variables);
+      try (ResultSet rs = stmt.executeQuery()) {
+        while (rs.next()) {
+          ids.add(rs.getInt(1));
+        }
+      }
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,192 @@
+package com.roy.anycharts.adapter.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roy.anycharts.adapter.ColumnarResult;
+import com.roy.anycharts.datasource.ConnectionPoolProperties;
+import com.roy.anycharts.datasource.ConnectionPoolRegistry;
+import com.roy.anycharts.datasource.DatabaseConnection;
+import com.roy.anycharts.datasource.DatabaseConnectionStore;
+import com.roy.anycharts.execution.BlockingExecutionProperties;
+import com.roy.anycharts.execution.BlockingExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+class PollingSubscriptionsTest {
+  private final DatabaseConnection connection =
+      new DatabaseConnection(
+          "poll",
+          "poll",
+          "jdbc:h2:mem:polling-subscriptions-test;DB_CLOSE_DELAY=-1",
+          "sa",
+          "",
+          "org.h2.Driver",
+          true);
+  private BlockingExecutor executor;
+  private ConnectionPoolRegistry pools;
+  private DatabaseAdapter adapter;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    DatabaseConnectionStore store = new DatabaseConnectionStore(event -> {});
+    store.save(connection);
+    executor = new BlockingExecutor(new BlockingExecutionProperties());
+    pools = new ConnectionPoolRegistry(new ConnectionPoolProperties(), new SimpleMeterRegistry());
+    DatabaseAdapterProperties properties = new DatabaseAdapterProperties();
+    properties.getPoll().setMinInterval(Duration.ofMillis(10));
+    properties.getPoll().setDisconnectGrace(Duration.ZERO);
+    adapter = new DatabaseAdapter(new ObjectMapper(), store, pools, executor, properties);
+    sql("DROP TABLE IF EXISTS metrics");
+    sql("CREATE TABLE metrics (id BIGINT PRIMARY KEY, amount INT, version BIGINT)");
+    sql("INSERT INTO metrics VALUES (1, 10, 1), (2, 20, 2), (3, 30, 3)");
+  }
+
+  @AfterEach
+  void tearDown() {
+    pools.destroy();
+    executor.destroy();
+  }
+
+  private void sql(String statement) throws SQLException {
+    try (Connection c = pools.getConnection(connection);
+        Statement stmt = c.createStatement()) {
+      stmt.execute(statement);
+    }
+  }
+
+  private void sqlUnchecked(String statement) {
+    try {
+      sql(statement);
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Test
+  void watermarkFetchesOnlyNewRowsAndMergesThemIntoHeldResult() {
+    String query = "poll?interval=50ms&watermark=id:SELECT id, amount FROM metrics";
+
+    StepVerifier.create(adapter.subscribe(query, Map.of()))
+        .expectNextMatches(event -> event.get("count").asInt() == 3)
+        .then(() -> sqlUnchecked("INSERT INTO metrics VALUES (4, 40, 4), (5, 50, 5)"))
+        // 只推送水位之后的两行
+        .expectNextMatches(
+            event ->
+                event.get("count").asInt() == 2 && event.get("items").get(0).get("ID").asInt() == 4)
+        .then(
+            () -> {
+              ColumnarResult held = adapter.executeColumnar(query, Map.of()).block();
+              assertEquals(5, held.rowCount());
+              assertEquals(50L, held.column("AMOUNT").get(4));
+            })
+        .thenCancel()
+        .verify(Duration.ofSeconds(10));
+  }
+
+  @Test
+  void keyReplacesUpdatedRows() {
+    String query = "poll?interval=50ms&watermark=version&key=id:SELECT * FROM metrics";
+
+    StepVerifier.create(adapter.subscribe(query, Map.of()))
+        .expectNextMatches(event -> event.get("count").asInt() == 3)
+        .then(() -> sqlUnchecked("UPDATE metrics SET amount = 11, version = 10 WHERE id = 1"))
+        .expectNextMatches(event -> event.get("count").asInt() == 1)
+        .then(
+            () -> {
+              ColumnarResult held = adapter.executeColumnar(query, Map.of()).block();
+              assertEquals(3, held.rowCount());
+              // 被更新的行移到末尾
+              assertEquals(1L, held.column("ID").get(2));
+              assertEquals(11, ((Number) held.column("AMOUNT").get(2)).intValue());
+            })
+        .thenCancel()
+        .verify(Duration.ofSeconds(10));
+  }
+
+  @Test
+  void timestampWatermarkKeepsSubMillisecondPrecision() throws SQLException {
+    sql("DROP TABLE IF EXISTS ticks");
+    sql("CREATE TABLE ticks (ts TIMESTAMP(6), v INT)");
+    sql("INSERT INTO ticks VALUES (TIMESTAMP '2024-01-01 00:00:00.000123', 1)");
+    String query = "poll?interval=50ms&watermark=ts:SELECT ts, v FROM ticks";
+
+    StepVerifier.create(adapter.subscribe(query, Map.of()))
+        .expectNextMatches(
+            event ->
+                event.get("count").asInt() == 1
+                    && event
+                        .get("items")
+                        .get(0)
+                        .get("TS")
+                        .asText()
+                        .equals("2024-01-01T00:00:00.000123"))
+        // 同一毫秒内已读过的行不再推送
+        .expectNoEvent(Duration.ofMillis(300))
+        .then(
+            () -> sqlUnchecked("INSERT INTO ticks VALUES (TIMESTAMP '2024-01-01 00:00:00.000456', 2)"))
+        .expectNextMatches(
+            event ->
+                event.get("count").asInt() == 1 && event.get("items").get(0).get("V").asInt() == 2)
+        .expectNoEvent(Duration.ofMillis(300))
+        .then(() -> assertEquals(2, adapter.executeColumnar(query, Map.of()).block().rowCount()))
+        .thenCancel()
+        .verify(Duration.ofSeconds(10));
+  }
+
+  @Test
+  void withoutWatermarkEmitsOnlyWhenResultChanges() {
+    String query = "poll?interval=50ms:SELECT id, amount FROM metrics";
+
+    StepVerifier.create(adapter.subscribe(query, Map.of()))
+        .expectNextMatches(event -> event.get("count").asInt() == 3)
+        .expectNoEvent(Duration.ofMillis(300))
+        .then(() -> sqlUnchecked("UPDATE metrics SET amount = 21 WHERE id = 2"))
+        .expectNextMatches(event -> event.get("items").get(1).get("AMOUNT").asInt() == 21)
+        .thenCancel()
+        .verify(Duration.ofSeconds(10));
+    assertTrue(adapter.pollsUnchanged() >= 2);
+    assertEquals(1, adapter.pollsChanged());
+  }
+
+  @Test
+  void watermarkRejectsTopLevelOrderByAndLimit() {
+    StepVerifier.create(
+            adapter.subscribe(
+                "poll?watermark=id:SELECT id, amount FROM metrics ORDER BY amount DESC", Map.of()))
+        .verifyError(IllegalArgumentException.class);
+    StepVerifier.create(
+            adapter.subscribe("poll?watermark=id:SELECT id, amount FROM metrics LIMIT 2", Map.of()))
+        .verifyError(IllegalArgumentException.class);
+    assertEquals(0, adapter.activePolls());
+  }
+
+  @Test
+  void orderByAndLimitInsideSubqueriesAreAllowed() {
+    assertFalse(
+        PollingSubscriptions.orderedOrLimited(
+            "SELECT * FROM (SELECT id FROM metrics ORDER BY id LIMIT 10) t WHERE name = 'order'"));
+    assertFalse(PollingSubscriptions.orderedOrLimited("SELECT id FROM metrics -- ORDER BY id"));
+    assertFalse(PollingSubscriptions.orderedOrLimited("SELECT id FROM metrics WHERE v > ${limit}"));
+    assertTrue(PollingSubscriptions.orderedOrLimited("SELECT id FROM metrics order by id"));
+    assertTrue(
+        PollingSubscriptions.orderedOrLimited(
+            "SELECT id FROM metrics OFFSET 5 ROWS FETCH FIRST 10 ROWS ONLY"));
+  }
+
+  @Test
+  void rejectsIntervalsBelowTheMinimum() {
+    StepVerifier.create(adapter.subscribe("poll?interval=1ms:metrics", Map.of()))
+        .verifyError(IllegalArgumentException.class);
+  }
+}
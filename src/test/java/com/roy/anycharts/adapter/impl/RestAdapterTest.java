@@ -0,0 +1,122 @@
+package com.roy.anycharts.adapter.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class RestAdapterTest {
+  private static final String BODY =
+      "{\"title\":\"sales\",\"meta\":{\"tags\":[1,2]},\"items\":[{\"month\":\"Jan\",\"value\":120},"
+          + "{\"month\":\"Feb\",\"value\":200.5},{\"month\":\"Mar\",\"value\":null},"
+          + "{\"month\":\"Apr\",\"value\":12345678901},{\"month\":\"May\",\"value\":true}],"
+          + "\"total\":5}";
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final RestAdapterProperties properties = new RestAdapterProperties();
+  private final List<ClientRequest> requests = new ArrayList<>();
+  private HttpStatus status = HttpStatus.OK;
+  private Map<String, String> responseHeaders = Map.of();
+
+  private RestAdapter adapter() {
+    WebClient client =
+        WebClient.builder()
+            .exchangeFunction(
+                request -> {
+                  requests.add(request);
+                  ClientResponse.Builder response = ClientResponse.create(status);
+                  responseHeaders.forEach(response::header);
+                  if (status == HttpStatus.OK) response.body(chunks(BODY, 7));
+                  return Mono.just(response.build());
+                })
+            .build();
+    return new RestAdapter(client, mapper, properties);
+  }
+
+  // 按固定字节数切块，模拟网络分包
+  private static Flux<DataBuffer> chunks(String body, int size) {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    List<DataBuffer> buffers = new ArrayList<>();
+    for (int i = 0; i < bytes.length; i += size) {
+      buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + size))));
+    }
+    return Flux.fromIterable(buffers);
+  }
+
+  @Test
+  void decodesChunkedBodyIntoTree() throws Exception {
+    StepVerifier.create(adapter().execute("http://api.test/sales", Map.of()))
+        .expectNext(mapper.readTree(BODY))
+        .verifyComplete();
+  }
+
+  @Test
+  void batchesContainOnlyItemsRows() throws Exception {
+    properties.setBatchSize(2);
+    JsonNode items = mapper.readTree(BODY).get("items");
+
+    List<JsonNode> batches =
+        adapter().executeBatches("http://api.test/sales", Map.of()).collectList().block();
+
+    assertEquals(List.of(2, 2, 1), batches.stream().map(JsonNode::size).toList());
+    List<JsonNode> rows = new ArrayList<>();
+    batches.forEach(batch -> batch.forEach(rows::add));
+    assertEquals(items, mapper.valueToTree(rows));
+  }
+
+  @Test
+  void notModifiedResponseReusesCachedResult() throws Exception {
+    RestAdapter adapter = adapter();
+    responseHeaders = Map.of(HttpHeaders.ETAG, "\"v1\"");
+    JsonNode first = adapter.execute("http://api.test/sales", Map.of()).block();
+    assertNull(requests.get(0).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+
+    status = HttpStatus.NOT_MODIFIED;
+    StepVerifier.create(adapter.execute("http://api.test/sales", Map.of()))
+        .expectNext(first)
+        .verifyComplete();
+    assertEquals("\"v1\"", requests.get(1).headers().getFirst(HttpHeaders.IF_NONE_MATCH));
+    assertEquals(1, adapter.notModified());
+    assertEquals(1, adapter.fullResponses());
+  }
+
+  @Test
+  void expandsParamsIntoUriTemplate() {
+    adapter()
+        .execute(
+            "http://api.test/{region}/sales?from={from}",
+            Map.of("region", "north east", "from", "2026-01-01&x=1"))
+        .block();
+
+    assertEquals(
+        "http://api.test/north%20east/sales?from=2026-01-01%26x%3D1",
+        requests.get(0).url().toString());
+  }
+
+  @Test
+  void rejectsResponsesOverSizeLimit() {
+    properties.setMaxResponseSize(DataSize.ofBytes(64));
+
+    StepVerifier.create(adapter().execute("http://api.test/sales", Map.of()))
+        .verifyError(DataBufferLimitException.class);
+  }
+}
@@ -0,0 +1,117 @@
+package com.roy.anycharts.adapter.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.test.StepVerifier;
+
+class RestEventStreamsTest {
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final List<String> lastEventIds = new CopyOnWriteArrayList<>();
+  private final AtomicInteger sseConnections = new AtomicInteger();
+  private DisposableServer server;
+  private RestAdapter adapter;
+
+  @BeforeEach
+  void setUp() {
+    server =
+        HttpServer.create()
+            .port(0)
+            .route(
+                routes ->
+                    routes
+                        // 第一次连接发送两个事件后断开，之后的连接发送第三个事件并保持
+                        .get(
+                            "/sse",
+                            (request, response) -> {
+                              lastEventIds.add(
+                                  String.valueOf(request.requestHeaders().get("Last-Event-ID")));
+                              Flux<String> events =
+                                  sseConnections.incrementAndGet() == 1
+                                      ? Flux.just(
+                                          "retry: 50\n: heartbeat\n\n",
+                                          "id: 1\ndata: {\"v\":1}\n\n",
+                                          "id: 2\ndata: {\"v\":2}\n\n")
+                                      : Flux.just("id: 3\ndata: {\"v\":3}\n\n")
+                                          .concatWith(Flux.never());
+                              return response
+                                  .header("Content-Type", "text/event-stream")
+                                  .sendString(events.delayElements(Duration.ofMillis(20)));
+                            })
+                        // 一个 JSON 值被拆在两个分块中
+                        .get(
+                            "/ndjson",
+                            (request, response) ->
+                                response
+                                    .header("Content-Type", "application/x-ndjson")
+                                    .sendString(
+                                        Flux.just("{\"v\":1}\n{\"v\"", ":2}\n")
+                                            .delayElements(Duration.ofMillis(20))
+                                            .concatWith(Flux.never())))
+                        .get(
+                            "/missing",
+                            (request, response) -> response.status(404).send()))
+            .bindNow();
+    adapter = new RestAdapter(WebClient.create(), mapper, new RestAdapterProperties());
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.disposeNow();
+  }
+
+  private String url(String path) {
+    return "http://localhost:" + server.port() + path;
+  }
+
+  @Test
+  void sharesOneConnectionAndResumesWithLastEventId() throws Exception {
+    Flux<JsonNode> first = adapter.subscribe(url("/sse"), Map.of());
+    Flux<JsonNode> second = adapter.subscribe(url("/sse"), Map.of());
+
+    List<JsonNode> received =
+        Flux.merge(first.take(3), second.take(3)).collectList().block(Duration.ofSeconds(10));
+
+    assertEquals(6, received.size());
+    assertEquals(
+        List.of(1, 2, 3),
+        received.stream().map(node -> node.get("v").asInt()).distinct().sorted().toList());
+    // 两个订阅者共享连接：断开前一次，带 Last-Event-ID 重连一次
+    assertEquals(List.of("null", "2"), lastEventIds);
+    assertEquals(2, adapter.streamConnects());
+    // 连接保持期间 execute 返回最近的事件，不再请求流式接口
+    assertEquals(3, adapter.execute(url("/sse"), Map.of()).block().get("v").asInt());
+    assertEquals(2, sseConnections.get());
+  }
+
+  @Test
+  void decodesNdjsonValuesSplitAcrossChunks() throws Exception {
+    StepVerifier.create(adapter.subscribe(url("/ndjson"), Map.of()).take(2))
+        .expectNext(mapper.readTree("{\"v\":1}"), mapper.readTree("{\"v\":2}"))
+        .expectComplete()
+        .verify(Duration.ofSeconds(10));
+  }
+
+  @Test
+  void clientErrorsAreNotRetried() {
+    StepVerifier.create(adapter.subscribe(url("/missing"), Map.of()))
+        .expectError(WebClientResponseException.NotFound.class)
+        .verify(Duration.ofSeconds(10));
+    assertEquals(1, adapter.streamConnects());
+    assertEquals(0, adapter.activeStreams());
+  }
+}
@@ -0,0 +1,125 @@
+package com.roy.anycharts.adapter.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.roy.anycharts.adapter.Column;
+import com.roy.anycharts.adapter.ColumnarResult;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RowCodecTest {
+  private static final String SELECT =
+      "SELECT id, big, ratio, small, amount, region, created, sale_date, ok FROM metrics ORDER BY id";
+  private final ObjectMapper mapper = new ObjectMapper();
+  private Connection connection;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:h2:mem:row-codec-test", "sa", "");
+    try (Statement stmt = connection.createStatement()) {
+      stmt.execute(
+          "CREATE TABLE metrics (id INT, big BIGINT, ratio DOUBLE, small REAL, amount DECIMAL(10, 2),"
+              + " region VARCHAR(20), created TIMESTAMP, sale_date DATE, ok BOOLEAN)");
+      stmt.execute(
+          "INSERT INTO metrics VALUES"
+              + " (1, 10000000000, 0.5, 0.1, 96000.00, 'east', TIMESTAMP '2026-01-01 08:30:00',"
+              + " DATE '2026-01-01', TRUE),"
+              + " (2, NULL, NULL, NULL, NULL, 'west', NULL, NULL, NULL),"
+              + " (3, 3, 1.5, 2.5, 0.10, 'east', TIMESTAMP '2026-01-02 00:00:00.250',"
+              + " DATE '2026-01-02', FALSE)");
+    }
+  }
+
+  @AfterEach
+  void tearDown() throws SQLException {
+    try (Statement stmt = connection.createStatement()) {
+      stmt.execute("DROP TABLE metrics");
+    }
+    connection.close();
+  }
+
+  private ColumnarResult columnar() throws SQLException {
+    try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(SELECT)) {
+      RowCodec codec = RowCodec.of(rs.getMetaData());
+      Column.Builder[] builders = codec.newBuilders(1);
+      while (rs.next()) {
+        codec.append(rs, builders);
+      }
+      List<String> names = new ArrayList<>();
+      List<Column> columns = new ArrayList<>();
+      for (int i = 0; i < builders.length; i++) {
+        names.add(codec.columnName(i));
+        columns.add(builders[i].build());
+      }
+      return new ColumnarResult(names, columns);
+    }
+  }
+
+  private ArrayNode rows() throws SQLException {
+    ArrayNode rows = mapper.createArrayNode();
+    try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(SELECT)) {
+      RowCodec codec = RowCodec.of(rs.getMetaData());
+      while (rs.next()) {
+        rows.add(codec.read(rs, mapper.createObjectNode()));
+      }
+    }
+    return rows;
+  }
+
+  @Test
+  void columnsKeepNativeTypes() throws SQLException {
+    ColumnarResult result = columnar();
+
+    assertEquals(3, result.rowCount());
+    assertEquals(Column.Type.LONG, result.column("BIG").type());
+    assertEquals(10_000_000_000L, result.column("BIG").get(0));
+    assertTrue(Double.isNaN(result.column("BIG").getDouble(1)));
+    assertNull(result.column("BIG").get(1));
+    assertEquals(Column.Type.DOUBLE, result.column("SMALL").type());
+    assertEquals(0.1, result.column("SMALL").get(0));
+    assertEquals(new BigDecimal("96000.00"), result.column("AMOUNT").get(0));
+    assertEquals(List.of("east", "west", "east"), result.column("REGION"));
+    assertEquals(2, ((Column.Strings) result.column("REGION")).dictionarySize());
+    assertEquals("2026-01-01T08:30:00", result.column("CREATED").get(0));
+    assertEquals("2026-01-02T00:00:00.25", result.column("CREATED").get(2));
+    assertEquals("2026-01-02", result.column("SALE_DATE").get(2));
+    assertEquals(false, result.column("OK").get(2));
+  }
+
+  @Test
+  void columnarJsonMatchesRowReader() throws SQLException {
+    JsonNode rows = rows();
+
+    // INT 列在列式结果中统一为 LONG，比较序列化后的 JSON
+    assertEquals(
+        rows.toString(), columnar().toJson(mapper.getNodeFactory()).get("items").toString());
+    assertTrue(rows.get(0).get("AMOUNT").isBigDecimal());
+    assertEquals("96000.00", rows.get(0).get("AMOUNT").toString());
+    assertEquals(0.1, rows.get(0).get("SMALL").doubleValue());
+  }
+
+  @Test
+  void selectKeepsColumnTypeAndNulls() throws SQLException {
+    Column amount = columnar().column("AMOUNT");
+
+    Column selected = amount.select(new int[] {2, 1});
+
+    assertEquals(Column.Type.DECIMAL, selected.type());
+    assertEquals(new BigDecimal("0.10"), selected.get(0));
+    assertTrue(selected.isNull(1));
+  }
+}
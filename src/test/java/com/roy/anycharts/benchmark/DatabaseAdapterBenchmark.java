@@ -0,0 +1,119 @@
+package com.roy.anycharts.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roy.anycharts.adapter.ColumnarResult;
+import com.roy.anycharts.adapter.impl.DatabaseAdapter;
+import com.roy.anycharts.adapter.impl.DatabaseAdapterProperties;
+import com.roy.anycharts.datasource.ConnectionPoolProperties;
+import com.roy.anycharts.datasource.ConnectionPoolRegistry;
+import com.roy.anycharts.datasource.DatabaseConnection;
+import com.roy.anycharts.datasource.DatabaseConnectionStore;
+import com.roy.anycharts.execution.BlockingExecutionProperties;
+import com.roy.anycharts.execution.BlockingExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * DatabaseAdapter 读取嵌入式 H2 表（BIGINT / TIMESTAMP / VARCHAR / DECIMAL / DOUBLE 各一列）的行转换开销：
+ *
+ * <ul>
+ *   <li>executeJson：execute()，读为列式结果后一次性转为 JSON 树；
+ *   <li>executeBatches：按批返回 JSON 行（映射路径不是列投影时使用）；
+ *   <li>executeColumnar：只读为列式结果（列投影时使用）。
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class DatabaseAdapterBenchmark {
+  private static final String QUERY = "bench:SELECT id, ts, region, amount, ratio FROM metrics";
+
+  @Param({"10000", "1000000"})
+  public int rows;
+
+  private BlockingExecutor executor;
+  private ConnectionPoolRegistry pools;
+  private DatabaseAdapter adapter;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    DatabaseConnection bench =
+        new DatabaseConnection(
+            "bench",
+            "bench",
+            "jdbc:h2:mem:database-adapter-benchmark;DB_CLOSE_DELAY=-1",
+            "sa",
+            "",
+            "org.h2.Driver",
+            true);
+    DatabaseConnectionStore store = new DatabaseConnectionStore(event -> {});
+    store.save(bench);
+    executor = new BlockingExecutor(new BlockingExecutionProperties());
+    pools = new ConnectionPoolRegistry(new ConnectionPoolProperties(), new SimpleMeterRegistry());
+    DatabaseAdapterProperties properties = new DatabaseAdapterProperties();
+    properties.setMaxRows(0);
+    adapter = new DatabaseAdapter(new ObjectMapper(), store, pools, executor, properties);
+
+    try (Connection connection = pools.getConnection(bench);
+        Statement stmt = connection.createStatement()) {
+      stmt.execute("DROP TABLE IF EXISTS metrics");
+      stmt.execute(
+          "CREATE TABLE metrics (id BIGINT PRIMARY KEY, ts TIMESTAMP, region VARCHAR(20),"
+              + " amount DECIMAL(12, 2), ratio DOUBLE)");
+      stmt.execute(
+          "INSERT INTO metrics SELECT X, TIMESTAMP '2026-01-01 00:00:00' + X * INTERVAL '1' SECOND,"
+              + " 'region-' || MOD(X, 16), X * 1.25, X / 7.0 FROM SYSTEM_RANGE(1, "
+              + rows
+              + ")");
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pools.destroy();
+    executor.destroy();
+  }
+
+  @Benchmark
+  public JsonNode executeJson() {
+    return adapter.execute(QUERY, Map.of()).block();
+  }
+
+  @Benchmark
+  public Long executeBatches() {
+    return adapter.executeBatches(QUERY, Map.of()).reduce(0L, (n, batch) -> n + batch.size()).block();
+  }
+
+  @Benchmark
+  public ColumnarResult executeColumnar() {
+    return adapter.executeColumnar(QUERY, Map.of()).block();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(DatabaseAdapterBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -0,0 +1,86 @@
+package com.roy.anycharts.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.roy.anycharts.adapter.Column;
+import com.roy.anycharts.adapter.ColumnarResult;
+import com.roy.anycharts.chart.MappingPath;
+import com.roy.anycharts.chart.OptionTemplate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * binding 映射路径求值，包含输出 JSON 的开销（对应 GraphQL 响应序列化）：
+ *
+ * <ul>
+ *   <li>jsonProjection：{@code $.items[*].value} 在 Jackson 树上的列投影快速路径，再转为普通结构；
+ *   <li>jsonPathFilter：带过滤条件的表达式，走 JsonPath；
+ *   <li>columnarProjection：同一投影作用在列式结果上，列直接交给序列化。
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+  @Param({"1000", "100000"})
+  public int rows;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final MappingPath projection = MappingPath.of("$.items[*].value");
+  private final MappingPath filter = MappingPath.of("$.items[?(@.value > 500)].value");
+  private ObjectNode json;
+  private ColumnarResult columnar;
+
+  @Setup
+  public void setUp() {
+    json = mapper.createObjectNode();
+    ArrayNode items = json.putArray("items");
+    Column.Builder dates = Column.builder(Column.Type.STRING, rows);
+    Column.Builder values = Column.builder(Column.Type.DOUBLE, rows);
+    for (int i = 0; i < rows; i++) {
+      String date = "d" + (i % 365);
+      double value = i * 31 % 997;
+      items.addObject().put("date", date).put("value", value);
+      dates.appendString(date);
+      values.appendDouble(value);
+    }
+    columnar = new ColumnarResult(List.of("date", "value"), List.of(dates.build(), values.build()));
+  }
+
+  @Benchmark
+  public byte[] jsonProjection() throws Exception {
+    return mapper.writeValueAsBytes(OptionTemplate.toPlain(projection.read(json)));
+  }
+
+  @Benchmark
+  public byte[] jsonPathFilter() throws Exception {
+    return mapper.writeValueAsBytes(OptionTemplate.toPlain(filter.read(json)));
+  }
+
+  @Benchmark
+  public byte[] columnarProjection() throws Exception {
+    return mapper.writeValueAsBytes(projection.project(columnar));
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(MappingBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,100 @@
+package com.roy.anycharts.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.roy.anycharts.chart.OptionTemplate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 对比 renderChart 旧的模板填充方式（序列化 -> 字符串替换 -> readTree -> convertValue）与预编译模板。
+ *
+ * <p>option 含 {@code series} 个系列，每个系列的 data 是一个占位符，绑定 {@code points} 个数值。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptionTemplateBenchmark {
+  @Param({"10", "100"})
+  public int series;
+
+  @Param({"100", "1000"})
+  public int points;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private JsonNode templateNode;
+  private OptionTemplate compiled;
+  private Map<String, Object> values;
+
+  @Setup
+  public void setUp() {
+    ObjectNode option = mapper.createObjectNode();
+    option.putObject("title").put("text", "benchmark");
+    option.putObject("tooltip").put("trigger", "axis");
+    option.putObject("xAxis").put("type", "category").put("data", "{{binding:categories}}");
+    option.putObject("yAxis").put("type", "value");
+    ArrayNode seriesArray = option.putArray("series");
+    values = new HashMap<>();
+    List<Object> categories = new ArrayList<>();
+    for (int p = 0; p < points; p++) {
+      categories.add("c" + p);
+    }
+    values.put("categories", categories);
+    for (int s = 0; s < series; s++) {
+      ObjectNode item = seriesArray.addObject();
+      item.put("name", "series-" + s).put("type", "line").put("smooth", true);
+      item.putObject("lineStyle").put("width", 2).put("color", "#5470c6");
+      item.put("data", "{{binding:s" + s + "}}");
+      List<Object> data = new ArrayList<>(points);
+      for (int p = 0; p < points; p++) {
+        data.add(p * 31 % 997);
+      }
+      values.put("s" + s, data);
+    }
+    templateNode = option;
+    compiled = OptionTemplate.compile(option);
+  }
+
+  @Benchmark
+  public Object legacyStringReplace() throws Exception {
+    String templateStr = mapper.writeValueAsString(templateNode);
+    for (Map.Entry<String, Object> e : values.entrySet()) {
+      templateStr =
+          templateStr.replace(
+              "\"{{binding:" + e.getKey() + "}}\"", mapper.writeValueAsString(e.getValue()));
+    }
+    return mapper.convertValue(mapper.readTree(templateStr), Map.class);
+  }
+
+  @Benchmark
+  public Object compiledTemplate() {
+    return compiled.render(values);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(OptionTemplateBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -0,0 +1,130 @@
+package com.roy.anycharts.benchmark;
+
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roy.anycharts.adapter.AdapterRegistry;
+import com.roy.anycharts.adapter.impl.MockAdapter;
+import com.roy.anycharts.chart.ChartConfig;
+import com.roy.anycharts.chart.ChartConfigStore;
+import com.roy.anycharts.chart.ChartService;
+import com.roy.anycharts.chart.ChartSubscriptionHub;
+import com.roy.anycharts.chart.DataSourceBinding;
+import com.roy.anycharts.chart.QueryCoalescer;
+import com.roy.anycharts.chart.RenderCache;
+import com.roy.anycharts.chart.RenderCacheProperties;
+import com.roy.anycharts.chart.SeriesStore;
+import com.roy.anycharts.chart.StreamJournal;
+import com.roy.anycharts.chart.StreamJournalProperties;
+import com.roy.anycharts.chart.SubscriptionDelivery;
+import com.roy.anycharts.chart.SubscriptionProperties;
+import com.roy.anycharts.chart.repository.ChartConfigRepository;
+import com.roy.anycharts.metrics.RenderMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * ChartService.renderChart 端到端：MockAdapter 取数 -> 映射路径 -> 模板填充。
+ *
+ * <ul>
+ *   <li>renderUncached：关闭渲染缓存，每次都完整走一遍渲染管线；
+ *   <li>renderCached：开启渲染缓存，衡量缓存命中路径的开销。
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderPipelineBenchmark {
+  private static final String CHART_ID = "bench-sales";
+
+  private ChartService uncached;
+  private ChartService cached;
+
+  @Setup
+  public void setUp() throws Exception {
+    RenderCacheProperties disabled = new RenderCacheProperties();
+    disabled.setEnabled(false);
+    uncached = service(disabled);
+    cached = service(new RenderCacheProperties());
+  }
+
+  private static ChartService service(RenderCacheProperties cacheProperties) throws Exception {
+    AdapterRegistry registry = new AdapterRegistry();
+    registry.register(new MockAdapter());
+    ChartConfigStore store = new ChartConfigStore(mock(ChartConfigRepository.class), event -> {});
+    store.save(
+        new ChartConfig(
+            CHART_ID,
+            "sales",
+            "line",
+            new ObjectMapper()
+                .readTree(
+                    """
+                    {"title": {"text": "sales"}, "tooltip": {"trigger": "axis"},
+                     "xAxis": {"type": "category", "data": "{{binding:dates}}"},
+                     "yAxis": {"type": "value"},
+                     "series": [{"type": "line", "smooth": true, "data": "{{binding:values}}"}]}
+                    """),
+            null,
+            List.of(
+                binding("dates", "$.items[*].date"), binding("values", "$.items[*].value"))));
+    SubscriptionProperties subscriptionProperties = new SubscriptionProperties();
+    RenderMetrics metrics = new RenderMetrics(new SimpleMeterRegistry());
+    SeriesStore series =
+        new SeriesStore(
+            subscriptionProperties,
+            new StreamJournal(new StreamJournalProperties(), new ObjectMapper()));
+    return new ChartService(
+        registry,
+        store,
+        new QueryCoalescer(registry, metrics, series),
+        new RenderCache(cacheProperties),
+        new ChartSubscriptionHub(subscriptionProperties),
+        new SubscriptionDelivery(subscriptionProperties),
+        series,
+        metrics);
+  }
+
+  private static DataSourceBinding binding(String key, String mappingPath) {
+    return DataSourceBinding.builder()
+        .name(key)
+        .datasourceId("mock-adapter")
+        .query("mock:sales")
+        .mappingPath(mappingPath)
+        .bindingKey(key)
+        .build();
+  }
+
+  @Benchmark
+  public Object renderUncached() {
+    return uncached.renderChart(CHART_ID, Map.of()).block();
+  }
+
+  @Benchmark
+  public Object renderCached() {
+    return cached.renderChart(CHART_ID, Map.of()).block();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(RenderPipelineBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -0,0 +1,127 @@
+package com.roy.anycharts.benchmark;
+
+import com.roy.anycharts.adapter.impl.ParameterizedQuery;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 在 H2 上对比 DatabaseAdapter 的三种执行方式，每次调用使用不同的变量值：
+ *
+ * <ul>
+ *   <li>literalSql：旧的做法，变量拼接进 SQL，每个值都是新的 SQL 文本，需要重新解析和生成执行计划；
+ *   <li>parameterizedPrepare：参数化 SQL，但每次重新 prepare；
+ *   <li>parameterizedCached：参数化 SQL 且复用同一个 PreparedStatement（对应驱动按连接的语句缓存）。
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlParameterBenchmark {
+  private static final String QUERY =
+      "SELECT region, SUM(amount) AS total FROM sales "
+          + "WHERE region = '${region}' AND id >= ${minId} GROUP BY region";
+  private static final int ROWS = 10_000;
+
+  private Connection connection;
+  private ParameterizedQuery parameterized;
+  private PreparedStatement cached;
+  private int counter;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:h2:mem:sql-parameter-benchmark", "sa", "");
+    try (Statement stmt = connection.createStatement()) {
+      stmt.execute(
+          "CREATE TABLE sales (id INT PRIMARY KEY, region VARCHAR(20), amount DOUBLE)");
+      stmt.execute(
+          "INSERT INTO sales SELECT X, 'r' || MOD(X, 50), MOD(X * 31, 997) "
+              + "FROM SYSTEM_RANGE(1, " + ROWS + ")");
+      stmt.execute("CREATE INDEX idx_sales_region ON sales(region)");
+    }
+    parameterized = ParameterizedQuery.parse(QUERY);
+    cached = connection.prepareStatement(parameterized.sql(variables()));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    cached.close();
+    try (Statement stmt = connection.createStatement()) {
+      stmt.execute("DROP TABLE sales");
+    }
+    connection.close();
+  }
+
+  // 每次调用使用不同的变量值
+  private Map<String, Object> variables() {
+    int i = counter++;
+    return Map.of("region", "r" + (i % 50), "minId", i % ROWS);
+  }
+
+  @Benchmark
+  public double literalSql() throws SQLException {
+    String sql = QUERY;
+    for (Map.Entry<String, Object> e : variables().entrySet()) {
+      sql = sql.replace("${" + e.getKey() + "}", String.valueOf(e.getValue()));
+    }
+    try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+      return sum(stmt);
+    }
+  }
+
+  @Benchmark
+  public double parameterizedPrepare() throws SQLException {
+    Map<String, Object> variables = variables();
+    try (PreparedStatement stmt = connection.prepareStatement(parameterized.sql(variables))) {
+      parameterized.bind(stmt, variables);
+      return sum(stmt);
+    }
+  }
+
+  @Benchmark
+  public double parameterizedCached() throws SQLException {
+    Map<String, Object> variables = variables();
+    parameterized.bind(cached, variables);
+    double total = sum(cached);
+    cached.clearParameters();
+    return total;
+  }
+
+  private static double sum(PreparedStatement stmt) throws SQLException {
+    double total = 0;
+    try (ResultSet rs = stmt.executeQuery()) {
+      while (rs.next()) {
+        total += rs.getDouble(2);
+      }
+    }
+    return total;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(SqlParameterBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -0,0 +1,116 @@
+package com.roy.anycharts.benchmark;
+
+import com.roy.anycharts.chart.ChartFrame;
+import com.roy.anycharts.chart.ChartSubscriptionHub;
+import com.roy.anycharts.chart.SubscriptionDelivery;
+import com.roy.anycharts.chart.SubscriptionProperties;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * chartUpdates 共享流分发：一个数据源推送 {@link #FRAMES} 帧，经 ChartSubscriptionHub 分发给全部订阅者。
+ * 不限帧率，每次操作使用新的图表 id，包含建立和断开共享流的开销。
+ *
+ * <ul>
+ *   <li>fanOutFull：每帧推送完整 option；
+ *   <li>fanOutDeltas：第一帧之后推送 patch（共享流上每帧只计算一次 patch）。
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubscriptionFanOutBenchmark {
+  private static final int FRAMES = 100;
+
+  @Param({"1", "100", "1000"})
+  public int subscribers;
+
+  private final AtomicLong sequence = new AtomicLong();
+  private ChartSubscriptionHub hub;
+  private SubscriptionDelivery delivery;
+  private List<Map<String, Object>> frames;
+
+  @Setup
+  public void setUp() {
+    SubscriptionProperties properties = new SubscriptionProperties();
+    properties.setMaxFps(0);
+    properties.setDisconnectGrace(Duration.ZERO);
+    hub = new ChartSubscriptionHub(properties);
+    delivery = new SubscriptionDelivery(properties);
+    frames = new ArrayList<>(FRAMES);
+    for (int i = 0; i < FRAMES; i++) {
+      List<Object> values = new ArrayList<>();
+      for (int j = 0; j < 50; j++) {
+        values.add(j == i % 50 ? i : j);
+      }
+      Map<String, Object> series = new LinkedHashMap<>();
+      series.put("type", "line");
+      series.put("data", values);
+      Map<String, Object> option = new LinkedHashMap<>();
+      option.put("title", Map.of("text", "sales"));
+      option.put("series", List.of(series));
+      frames.add(option);
+    }
+  }
+
+  @Benchmark
+  public long fanOutFull() throws InterruptedException {
+    return fanOut(shared -> delivery.deliver(shared, null));
+  }
+
+  @Benchmark
+  public long fanOutDeltas() throws InterruptedException {
+    return fanOut(shared -> delivery.deltas("bench", delivery.deliver(shared, null)));
+  }
+
+  private long fanOut(Function<Flux<ChartFrame>, Flux<?>> client) throws InterruptedException {
+    String chartId = "bench-" + sequence.incrementAndGet();
+    Sinks.Many<Map<String, Object>> source = Sinks.many().multicast().onBackpressureBuffer();
+    CountDownLatch done = new CountDownLatch(subscribers);
+    AtomicLong received = new AtomicLong();
+    for (int i = 0; i < subscribers; i++) {
+      client
+          .apply(hub.subscribe(chartId, Map.of(), source::asFlux))
+          .doFinally(signal -> done.countDown())
+          .subscribe(frame -> received.incrementAndGet());
+    }
+    for (Map<String, Object> frame : frames) {
+      source.tryEmitNext(frame);
+    }
+    source.tryEmitComplete();
+    done.await();
+    return received.get();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(SubscriptionFanOutBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
@@ -0,0 +1,124 @@
+package com.roy.anycharts.chart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.roy.anycharts.chart.entity.ChartConfigEntity;
+import com.roy.anycharts.chart.repository.ChartConfigRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ChartConfigStoreTest {
+  private final ChartConfigRepository repository = mock(ChartConfigRepository.class);
+  private final List<ChartConfigChangedEvent> events = new ArrayList<>();
+  private final ChartConfigStore store =
+      new ChartConfigStore(repository, event -> events.add((ChartConfigChangedEvent) event));
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  private static ChartConfig config(String id, String title) {
+    return new ChartConfig(
+        id, title, "line", JsonNodeFactory.instance.objectNode(), null, List.of());
+  }
+
+  private static Optional<ChartConfigEntity> entity(String id, String title) {
+    return Optional.of(new ChartConfigEntity(id, title, "line", "{}"));
+  }
+
+  @Test
+  void loadsOnceAndServesHitsFromCache() {
+    when(repository.findWithBindingsById("c")).thenReturn(entity("c", "db"));
+
+    ChartConfig first = store.get("c").orElseThrow();
+    assertSame(first, store.get("c").orElseThrow());
+    assertEquals("db", first.getTitle());
+    verify(repository, times(1)).findWithBindingsById("c");
+  }
+
+  @Test
+  void saveReplacesTheCachedConfig() {
+    when(repository.findWithBindingsById("c")).thenReturn(entity("c", "old"));
+    store.get("c");
+
+    store.save(config("c", "new"));
+
+    assertEquals("new", store.get("c").orElseThrow().getTitle());
+    verify(repository, times(1)).findWithBindingsById("c");
+    assertEquals(List.of(new ChartConfigChangedEvent("c", false)), events);
+  }
+
+  @Test
+  void deleteEvictsTheCachedConfig() {
+    when(repository.findWithBindingsById("c")).thenReturn(entity("c", "old"));
+    when(repository.existsById("c")).thenReturn(true);
+    store.get("c");
+
+    assertTrue(store.delete("c"));
+    when(repository.findWithBindingsById("c")).thenReturn(Optional.empty());
+
+    assertTrue(store.get("c").isEmpty());
+    assertEquals(List.of(new ChartConfigChangedEvent("c", true)), events);
+  }
+
+  @Test
+  void cacheChangesOnlyAfterCommit() {
+    when(repository.findWithBindingsById("c")).thenReturn(entity("c", "old"));
+    store.get("c");
+    TransactionSynchronizationManager.initSynchronization();
+
+    store.save(config("c", "new"));
+    // 提交前仍是旧配置；回滚时同步回调不会执行，缓存保持不变
+    assertEquals("old", store.get("c").orElseThrow().getTitle());
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(TransactionSynchronization::afterCommit);
+    assertEquals("new", store.get("c").orElseThrow().getTitle());
+  }
+
+  @Test
+  void loadRacingWithDeleteDoesNotRepopulateTheCache() {
+    when(repository.existsById("c")).thenReturn(true);
+    // 加载读到旧行之后、写入缓存之前，另一个请求删除了该配置
+    when(repository.findWithBindingsById("c"))
+        .thenAnswer(
+            invocation -> {
+              Optional<ChartConfigEntity> row = entity("c", "old");
+              store.delete("c");
+              return row;
+            })
+        .thenReturn(Optional.empty());
+
+    store.get("c");
+
+    assertTrue(store.get("c").isEmpty());
+    verify(repository, times(2)).findWithBindingsById(any());
+  }
+
+  @Test
+  void cachedConfigCannotBeChangedThroughItsTemplate() {
+    when(repository.findWithBindingsById("c"))
+        .thenReturn(Optional.of(new ChartConfigEntity("c", "c", "line", "{\"title\":\"a\"}")));
+
+    ((ObjectNode) store.get("c").orElseThrow().getOptionTemplate()).put("title", "b");
+
+    assertEquals("a", store.get("c").orElseThrow().getOptionTemplate().get("title").asText());
+  }
+}
@@ -0,0 +1,136 @@
+package com.roy.anycharts.chart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.roy.anycharts.adapter.AdapterRegistry;
+import com.roy.anycharts.adapter.DataSourceAdapter;
+import com.roy.anycharts.metrics.RenderMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class ChartServiceTest {
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final ChartConfigStore store = mock(ChartConfigStore.class);
+
+  private ChartService service() {
+    AdapterRegistry registry = new AdapterRegistry();
+    registry.register(
+        new DataSourceAdapter() {
+          @Override
+          public Mono<JsonNode> execute(String query, Map<String, Object> params) {
+            ObjectNode result = mapper.createObjectNode();
+            ArrayNode items = result.putArray("items");
+            for (int i = 0; i < 1000; i++) {
+              items.addObject().put("date", "d" + i).put("value", Math.sin(i / 20.0) * (i % 7));
+            }
+            return Mono.just(result);
+          }
+
+          @Override
+          public Flux<JsonNode> subscribe(String query, Map<String, Object> params) {
+            return Flux.empty();
+          }
+
+          @Override
+          public String id() {
+            return "mock";
+          }
+        });
+    SubscriptionProperties properties = new SubscriptionProperties();
+    RenderMetrics metrics = new RenderMetrics(new SimpleMeterRegistry());
+    SeriesStore series =
+        new SeriesStore(
+            properties, new StreamJournal(new StreamJournalProperties(), new ObjectMapper()));
+    return new ChartService(
+        registry,
+        store,
+        new QueryCoalescer(registry, metrics, series),
+        new RenderCache(new RenderCacheProperties()),
+        new ChartSubscriptionHub(properties),
+        new SubscriptionDelivery(properties),
+        series,
+        metrics);
+  }
+
+  private static DataSourceBinding binding(
+      String path, String key, DownsampleAlgorithm downsample) {
+    return DataSourceBinding.builder()
+        .name(key)
+        .datasourceId("mock")
+        .query("q")
+        .mappingPath(path)
+        .bindingKey(key)
+        .downsample(downsample)
+        .build();
+  }
+
+  private void chart(DownsampleAlgorithm downsample) throws Exception {
+    JsonNode template =
+        mapper.readTree(
+            "{\"xAxis\":{\"data\":\"{{binding:categories}}\"},"
+                + "\"series\":[{\"data\":\"{{binding:values}}\"}]}");
+    ChartConfig cfg =
+        new ChartConfig(
+            "c",
+            "c",
+            "line",
+            template,
+            null,
+            List.of(
+                binding("$.items[*].date", "categories", downsample),
+                binding("$.items[*].value", "values", downsample)));
+    when(store.get("c")).thenReturn(Optional.of(cfg));
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> render() {
+    ChartRenderResult result =
+        service()
+            .renderCharts(List.of("c"), Map.of("c", 50), Map.of(), 1)
+            .blockFirst(Duration.ofSeconds(5));
+    assertNull(result.error());
+    return (Map<String, Object>) result.option();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Object> data(Map<String, Object> option, String axis) {
+    Object holder = option.get(axis);
+    if (holder instanceof List<?> list) holder = list.get(0);
+    return (List<Object>) ((Map<String, Object>) holder).get("data");
+  }
+
+  @Test
+  void categoriesAndValuesOfOneQueryStayAligned() throws Exception {
+    for (DownsampleAlgorithm algorithm : DownsampleAlgorithm.values()) {
+      chart(algorithm);
+      Map<String, Object> option = render();
+      List<Object> categories = data(option, "xAxis");
+      List<Object> values = data(option, "series");
+      assertEquals(values.size(), categories.size(), algorithm.name());
+      if (algorithm != DownsampleAlgorithm.AVERAGE) {
+        // 选中的点来自同一组下标：类目 dN 对应第 N 行的值
+        for (int i = 0; i < categories.size(); i++) {
+          int row = Integer.parseInt(((String) categories.get(i)).substring(1));
+          assertEquals(
+              Math.sin(row / 20.0) * (row % 7),
+              ((Number) values.get(i)).doubleValue(),
+              1e-9,
+              algorithm.name());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.roy.anycharts.chart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+class ChartSubscriptionHubTest {
+  private final ChartSubscriptionHub hub = new ChartSubscriptionHub(properties());
+  private final AtomicInteger connections = new AtomicInteger();
+
+  private static SubscriptionProperties properties() {
+    SubscriptionProperties properties = new SubscriptionProperties();
+    properties.setDisconnectGrace(Duration.ZERO);
+    return properties;
+  }
+
+  // 宽限期为 0 时断开仍在调度线程上异步执行
+  private void awaitDisconnect() throws InterruptedException {
+    for (int i = 0; i < 50 && hub.size() > 0; i++) {
+      Thread.sleep(10);
+    }
+  }
+
+  private Flux<Map<String, Object>> source() {
+    connections.incrementAndGet();
+    return Flux.interval(Duration.ofMillis(20)).map(i -> Map.<String, Object>of("tick", i));
+  }
+
+  @Test
+  void subscribersOfSameKeyShareOneSource() throws InterruptedException {
+    Flux<ChartFrame> a = hub.subscribe("c", Map.of("r", "east"), this::source);
+    Flux<ChartFrame> b = hub.subscribe("c", Map.of("r", "east"), this::source);
+
+    List<Long> fromA = new CopyOnWriteArrayList<>();
+    Disposable first = a.subscribe(frame -> fromA.add(frame.seq()));
+    // 同时在线的订阅者共用一次 source 订阅，收到同一序列的帧
+    List<Long> fromB =
+        b.take(3).map(ChartFrame::seq).collectList().block(Duration.ofSeconds(5));
+    assertEquals(1, connections.get());
+    assertEquals(1, hub.size());
+    assertTrue(fromA.containsAll(fromB), fromA + " " + fromB);
+    first.dispose();
+    awaitDisconnect();
+    assertEquals(0, hub.size());
+
+    // 全部订阅者离开后再订阅才重新连接
+    StepVerifier.create(a.take(1)).expectNextCount(1).verifyComplete();
+    awaitDisconnect();
+    assertEquals(2, connections.get());
+    assertEquals(0, hub.size());
+  }
+
+  @Test
+  void differentVariablesGetSeparateStreams() throws InterruptedException {
+    Disposable a = hub.subscribe("c", Map.of("r", "east"), this::source).subscribe();
+    Disposable b = hub.subscribe("c", Map.of("r", "west"), this::source).subscribe();
+    Disposable c = hub.subscribe("c", Map.of("r", "west"), this::source).subscribe();
+
+    assertEquals(2, connections.get());
+    assertEquals(2, hub.size());
+    a.dispose();
+    b.dispose();
+    c.dispose();
+    awaitDisconnect();
+    assertEquals(0, hub.size());
+  }
+}
@@ -0,0 +1,111 @@
+package com.roy.anycharts.chart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.roy.anycharts.adapter.Column;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class DownsamplerTest {
+
+  // 平滑曲线上带一个尖峰
+  private static List<Object> series(int n, int spikeAt) {
+    List<Object> data = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      data.add(i == spikeAt ? 1000.0 : Math.sin(i / 50.0));
+    }
+    return data;
+  }
+
+  @Test
+  void lttbKeepsEndpointsAndSpike() {
+    List<Object> data = series(10_000, 4321);
+
+    List<?> result = (List<?>) Downsampler.apply(DownsampleAlgorithm.LTTB, data, 200);
+
+    assertEquals(200, result.size());
+    assertEquals(data.get(0), result.get(0));
+    assertEquals(data.get(9_999), result.get(199));
+    assertTrue(result.contains(1000.0));
+  }
+
+  @Test
+  void lttbIndicesAreIncreasing() {
+    double[] xs = new double[1000];
+    double[] ys = new double[1000];
+    for (int i = 0; i < xs.length; i++) {
+      xs[i] = i;
+      ys[i] = (i * 7919) % 101;
+    }
+
+    int[] selected = Downsampler.lttb(xs, ys, 50);
+
+    for (int i = 1; i < selected.length; i++) {
+      assertTrue(selected[i] > selected[i - 1]);
+    }
+  }
+
+  @Test
+  void minMaxKeepsExtremesOfEveryBucket() {
+    List<Object> data = series(10_000, 17);
+    data.set(9_000, -1000.0);
+
+    List<?> result = (List<?>) Downsampler.apply(DownsampleAlgorithm.MIN_MAX, data, 100);
+
+    assertTrue(result.size() <= 100);
+    assertTrue(result.contains(1000.0));
+    assertTrue(result.contains(-1000.0));
+  }
+
+  @Test
+  void averageKeepsPairShapeAndIntegerTimestamps() {
+    List<Object> data = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      data.add(List.of(1_700_000_000_000L + i * 1000L, i));
+    }
+
+    List<?> result = (List<?>) Downsampler.apply(DownsampleAlgorithm.AVERAGE, data, 10);
+
+    assertEquals(10, result.size());
+    assertEquals(List.of(1_700_000_000_000L + 4500L, 4.5), result.get(0));
+    assertEquals(List.of(1_700_000_000_000L + 94500L, 94.5), result.get(9));
+  }
+
+  @Test
+  void selectionPreservesObjectElements() {
+    List<Object> data = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      data.add(Map.of("name", "p" + i, "value", i % 7));
+    }
+
+    List<?> result = (List<?>) Downsampler.apply(DownsampleAlgorithm.LTTB, data, 10);
+
+    assertEquals(10, result.size());
+    assertSame(data.get(0), result.get(0));
+  }
+
+  @Test
+  void shortOrNonNumericDataIsUnchanged() {
+    List<Object> small = series(10, -1);
+    List<Object> names = new ArrayList<>();
+    for (int i = 0; i < 100; i++) names.add("n" + i);
+
+    assertSame(small, Downsampler.apply(DownsampleAlgorithm.LTTB, small, 10));
+    assertSame(names, Downsampler.apply(DownsampleAlgorithm.MIN_MAX, names, 10));
+    assertSame(names, Downsampler.apply(null, names, 10));
+  }
+
+  @Test
+  void allNullColumnIsUnchanged() {
+    Column.Builder builder = Column.builder(Column.Type.DOUBLE, 100);
+    for (int i = 0; i < 100; i++) builder.appendNull();
+    Column empty = builder.build();
+
+    assertSame(empty, Downsampler.apply(DownsampleAlgorithm.LTTB, empty, 10));
+    assertSame(empty, Downsampler.apply(DownsampleAlgorithm.AVERAGE, empty, 10));
+  }
+}
@@ -0,0 +1,46 @@
+package com.roy.anycharts.chart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+
+class MappingPathTest {
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private final String data =
+      """
+      {"items":[{"date":"周一","value":120},{"date":"周二"},{"date":"周三","value":null}],
+       "meta":{"total":3}}
+      """;
+
+  @Test
+  void itemsProjectionMatchesJsonPath() throws Exception {
+    JsonNode node = mapper.readTree(data);
+    for (String expression : new String[] {"$.items[*].value", "$.items[*]", "$.items[*].date"}) {
+      MappingPath path = MappingPath.of(expression);
+      assertTrue(path.isItemsProjection());
+      Object expected = JsonPath.read(data, expression);
+      assertEquals(mapper.valueToTree(expected), path.read(node));
+    }
+  }
+
+  @Test
+  void evaluatesGeneralPathsOnJacksonTree() throws Exception {
+    JsonNode node = mapper.readTree(data);
+    MappingPath path = MappingPath.of("$.items[?(@.value > 100)].date");
+    assertFalse(path.isItemsProjection());
+    assertEquals(mapper.readTree("[\"周一\"]"), path.read(node));
+    assertEquals(mapper.readTree("3"), MappingPath.of("$.meta.total").read(node));
+  }
+
+  @Test
+  void compilesOncePerExpression() {
+    assertSame(MappingPath.of("$.items[*].value"), MappingPath.of("$.items[*].value"));
+  }
+}
@@ -0,0 +1,135 @@
+package com.roy.anycharts.chart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class OptionDiffTest {
+
+  // 固定键顺序，保证生成的 op 顺序确定
+  private static Map<String, Object> option(List<?> xs, List<?> ys) {
+    Map<String, Object> option = new LinkedHashMap<>();
+    option.put("title", Map.of("text", "t"));
+    option.put("xAxis", Map.of("data", xs));
+    option.put("series", List.of(Map.of("type", "line", "data", ys)));
+    return option;
+  }
+
+  @Test
+  void appendedPointsBecomeAddOps() {
+    Object a = option(List.of("a", "b"), List.of(1, 2));
+    Object b = option(List.of("a", "b", "c"), List.of(1, 2, 3));
+
+    List<Map<String, Object>> ops = OptionDiff.diff(a, b);
+
+    assertEquals(
+        List.of(
+            Map.of("op", "add", "path", "/xAxis/data/-", "value", "c"),
+            Map.of("op", "add", "path", "/series/0/data/-", "value", 3)),
+        ops);
+    assertEquals(b, apply(a, ops));
+  }
+
+  @Test
+  void slidingWindowRemovesHeadAndAppendsTail() {
+    Object a = option(List.of("a", "b", "c"), List.of(1, 2, 3));
+    Object b = option(List.of("b", "c", "d"), List.of(2, 3, 4));
+
+    List<Map<String, Object>> ops = OptionDiff.diff(a, b);
+
+    assertEquals(4, ops.size());
+    assertEquals(Map.of("op", "remove", "path", "/xAxis/data/0"), ops.get(0));
+    assertEquals(b, apply(a, ops));
+  }
+
+  @Test
+  void unrelatedChangesRoundTrip() {
+    Map<String, Object> a = new LinkedHashMap<>();
+    a.put("a/b", 1);
+    a.put("gone", "x");
+    a.put("list", List.of(Map.of("v", 1), Map.of("v", 2), Map.of("v", 3)));
+    Map<String, Object> b = new LinkedHashMap<>();
+    b.put("a/b", 2);
+    b.put("new", List.of(1));
+    b.put("list", List.of(Map.of("v", 9), Map.of("v", 2)));
+
+    List<Map<String, Object>> ops = OptionDiff.diff(a, b);
+
+    assertTrue(ops.contains(Map.of("op", "replace", "path", "/a~1b", "value", 2)));
+    assertEquals(b, apply(a, ops));
+  }
+
+  @Test
+  void identicalOptionsProduceNoOps() {
+    Object a = option(List.of("a"), List.of(1));
+    assertEquals(List.of(), OptionDiff.diff(a, option(List.of("a"), List.of(1))));
+  }
+
+  // 测试用的最小 JSON Patch 实现
+  private static Object apply(Object doc, List<Map<String, Object>> ops) {
+    Object root = mutableCopy(doc);
+    for (Map<String, Object> op : ops) {
+      String path = (String) op.get("path");
+      if (path.isEmpty()) {
+        root = mutableCopy(op.get("value"));
+        continue;
+      }
+      String[] tokens = path.substring(1).split("/", -1);
+      Object parent = root;
+      for (int i = 0; i < tokens.length - 1; i++) {
+        parent = child(parent, unescape(tokens[i]));
+      }
+      String last = unescape(tokens[tokens.length - 1]);
+      apply(parent, last, (String) op.get("op"), mutableCopy(op.get("value")));
+    }
+    return root;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void apply(Object parent, String token, String op, Object value) {
+    if (parent instanceof Map<?, ?> map) {
+      Map<String, Object> m = (Map<String, Object>) map;
+      if (op.equals("remove")) m.remove(token);
+      else m.put(token, value);
+      return;
+    }
+    List<Object> list = (List<Object>) parent;
+    switch (op) {
+      case "remove" -> list.remove(Integer.parseInt(token));
+      case "replace" -> list.set(Integer.parseInt(token), value);
+      default -> {
+        if (token.equals("-")) list.add(value);
+        else list.add(Integer.parseInt(token), value);
+      }
+    }
+  }
+
+  private static Object child(Object parent, String token) {
+    return parent instanceof Map<?, ?> map
+        ? map.get(token)
+        : ((List<?>) parent).get(Integer.parseInt(token));
+  }
+
+  private static String unescape(String token) {
+    return token.replace("~1", "/").replace("~0", "~");
+  }
+
+  private static Object mutableCopy(Object value) {
+    if (value instanceof Map<?, ?> map) {
+      Map<String, Object> copy = new LinkedHashMap<>();
+      map.forEach((k, v) -> copy.put(String.valueOf(k), mutableCopy(v)));
+      return copy;
+    }
+    if (value instanceof List<?> list) {
+      List<Object> copy = new ArrayList<>();
+      list.forEach(v -> copy.add(mutableCopy(v)));
+      return copy;
+    }
+    return value;
+  }
+}
@@ -0,0 +1,64 @@
+package com.roy.anycharts.chart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class OptionTemplateTest {
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  void recordsPointerOfEveryPlaceholder() throws Exception {
+    OptionTemplate template =
+        OptionTemplate.compile(
+            mapper.readTree(
+                """
+                {"xAxis":{"data":"{{binding:categories}}"},
+                 "series":[{"data":"{{binding:series1}}"},{"data":"{{binding:series1}}"}]}
+                """));
+
+    assertEquals(
+        List.of("/xAxis/data", "/series/0/data", "/series/1/data"),
+        template.slots().stream().map(s -> s.pointer().toString()).toList());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void fillsSlotsAndSharesUntouchedSubtrees() throws Exception {
+    JsonNode source =
+        mapper.readTree(
+            """
+            {"title":{"text":"销售"},"xAxis":{"data":"{{binding:categories}}"},
+             "series":[{"type":"bar","data":"{{binding:series1}}"}],"legend":"{{binding:missing}}"}
+            """);
+    OptionTemplate template = OptionTemplate.compile(source);
+
+    Map<String, Object> first =
+        template.render(Map.of("categories", List.of("a", "b"), "series1", List.of(1, 2)));
+    Map<String, Object> second = template.render(Map.of("categories", List.of("c")));
+
+    assertEquals(List.of("a", "b"), ((Map<String, Object>) first.get("xAxis")).get("data"));
+    assertEquals(
+        List.of(1, 2), ((List<Map<String, Object>>) first.get("series")).get(0).get("data"));
+    // 没有数据的占位符保持原样
+    assertEquals("{{binding:missing}}", first.get("legend"));
+    assertEquals(
+        "{{binding:series1}}",
+        ((List<Map<String, Object>>) second.get("series")).get(0).get("data"));
+    // 不含占位符的子树在多次渲染间共享
+    assertSame(first.get("title"), second.get("title"));
+    // 结果与原来 序列化 -> 替换 -> 解析 的方式一致
+    assertEquals(
+        mapper.readTree(
+            """
+            {"title":{"text":"销售"},"xAxis":{"data":["a","b"]},
+             "series":[{"type":"bar","data":[1,2]}],"legend":"{{binding:missing}}"}
+            """),
+        mapper.valueToTree(first));
+  }
+}
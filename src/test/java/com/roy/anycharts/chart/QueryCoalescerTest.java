@@ -0,0 +1,89 @@
+package com.roy.anycharts.chart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roy.anycharts.adapter.AdapterRegistry;
+import com.roy.anycharts.adapter.DataSourceAdapter;
+import com.roy.anycharts.chart.QueryCoalescer.QueryKey;
+import com.roy.anycharts.metrics.RenderMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class QueryCoalescerTest {
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final AtomicInteger executions = new AtomicInteger();
+
+  private QueryCoalescer coalescer() {
+    AdapterRegistry registry = new AdapterRegistry();
+    registry.register(
+        new DataSourceAdapter() {
+          @Override
+          public Mono<JsonNode> execute(String query, Map<String, Object> params) {
+            return Mono.fromCallable(
+                    () -> {
+                      executions.incrementAndGet();
+                      return mapper.readTree("{\"items\":[{\"date\":\"a\",\"value\":1}]}");
+                    })
+                .delayElement(Duration.ofMillis(100));
+          }
+
+          @Override
+          public Flux<JsonNode> subscribe(String query, Map<String, Object> params) {
+            return Flux.empty();
+          }
+
+          @Override
+          public String id() {
+            return "slow";
+          }
+        });
+    return new QueryCoalescer(
+        registry,
+        new RenderMetrics(new SimpleMeterRegistry()),
+        new SeriesStore(
+            new SubscriptionProperties(),
+            new StreamJournal(new StreamJournalProperties(), new ObjectMapper())));
+  }
+
+  @Test
+  void concurrentIdenticalFetchesShareOneExecution() {
+    QueryCoalescer coalescer = coalescer();
+    QueryKey key = new QueryKey("slow", "q", Map.of("region", "east"));
+    List<MappingPath> paths = List.of(MappingPath.of("$.items[*].date"));
+
+    List<Map<String, Object>> results =
+        Flux.range(0, 5)
+            .flatMap(i -> coalescer.fetch(key, null, paths, 1))
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+    assertEquals(5, results.size());
+    assertEquals(1, executions.get());
+    assertEquals(1, coalescer.misses());
+    assertEquals(4, coalescer.hits());
+    assertEquals(0, coalescer.inFlight());
+  }
+
+  @Test
+  void completedFetchesAreNotCached() {
+    QueryCoalescer coalescer = coalescer();
+    QueryKey key = new QueryKey("slow", "q", null);
+    List<MappingPath> paths = List.of(MappingPath.of("$.items[*].value"));
+
+    coalescer.fetch(key, null, paths, 2).block(Duration.ofSeconds(5));
+    Map<String, Object> second = coalescer.fetch(key, null, paths, 1).block(Duration.ofSeconds(5));
+
+    assertEquals(List.of(1), second.get("$.items[*].value"));
+    assertEquals(2, executions.get());
+    // 第一次 fetch 合并了两个 binding
+    assertEquals(1, coalescer.hits());
+  }
+}
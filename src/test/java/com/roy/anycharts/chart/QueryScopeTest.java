@@ -0,0 +1,93 @@
+package com.roy.anycharts.chart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roy.anycharts.adapter.AdapterRegistry;
+import com.roy.anycharts.adapter.DataSourceAdapter;
+import com.roy.anycharts.metrics.RenderMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class QueryScopeTest {
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final AtomicInteger executions = new AtomicInteger();
+
+  private QueryCoalescer coalescer() {
+    AdapterRegistry registry = new AdapterRegistry();
+    registry.register(
+        new DataSourceAdapter() {
+          @Override
+          public Mono<JsonNode> execute(String query, Map<String, Object> params) {
+            return Mono.fromCallable(
+                () -> {
+                  executions.incrementAndGet();
+                  return mapper.readTree("{\"items\":[{\"date\":\"a\",\"value\":1}]}");
+                });
+          }
+
+          @Override
+          public Flux<JsonNode> subscribe(String query, Map<String, Object> params) {
+            return Flux.empty();
+          }
+
+          @Override
+          public String id() {
+            return "mock";
+          }
+        });
+    return new QueryCoalescer(
+        registry,
+        new RenderMetrics(new SimpleMeterRegistry()),
+        new SeriesStore(
+            new SubscriptionProperties(),
+            new StreamJournal(new StreamJournalProperties(), new ObjectMapper())));
+  }
+
+  private static DataSourceBinding binding(String path) {
+    return DataSourceBinding.builder()
+        .name("b")
+        .datasourceId("mock")
+        .query("q")
+        .mappingPath(path)
+        .bindingKey("k")
+        .build();
+  }
+
+  @Test
+  void chartsInOneScopeShareQueries() {
+    DataSourceBinding dates = binding("$.items[*].date");
+    DataSourceBinding values = binding("$.items[*].value");
+    QueryScope scope = new QueryScope(coalescer(), List.of(dates, values), Map.of());
+
+    // 两个图表各取同一查询的不同字段，先后取数也只执行一次查询
+    var first = scope.fetch(List.of(dates)).block(Duration.ofSeconds(5));
+    var second = scope.fetch(List.of(values)).block(Duration.ofSeconds(5));
+
+    assertEquals(1, executions.get());
+    assertEquals(
+        List.of("a"), first.get(scope.keyOf(dates)).get(dates.getMappingPath()));
+    assertEquals(
+        List.of(1), second.get(scope.keyOf(values)).get(values.getMappingPath()));
+  }
+
+  @Test
+  void invalidPathFailsOnlyItsOwnFetch() {
+    DataSourceBinding good = binding("$.items[*].value");
+    DataSourceBinding bad = binding("$.items[?(@.value >");
+    QueryScope scope = new QueryScope(coalescer(), List.of(good, bad), Map.of());
+
+    StepVerifier.create(scope.fetch(List.of(bad))).expectError().verify(Duration.ofSeconds(5));
+    StepVerifier.create(scope.fetch(List.of(good)))
+        .expectNextMatches(r -> r.get(scope.keyOf(good)).get(good.getMappingPath()).equals(List.of(1)))
+        .verifyComplete();
+  }
+}
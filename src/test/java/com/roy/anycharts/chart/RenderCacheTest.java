@@ -0,0 +1,87 @@
+package com.roy.anycharts.chart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class RenderCacheTest {
+  private final AtomicInteger renders = new AtomicInteger();
+  private final AtomicLong nanos = new AtomicLong();
+  private final Supplier<Mono<Map<String, Object>>> loader =
+      () -> Mono.fromSupplier(() -> Map.of("version", renders.incrementAndGet()));
+
+  private RenderCache cache(Duration ttl, Duration stale) {
+    RenderCacheProperties properties = new RenderCacheProperties();
+    properties.setTtl(ttl);
+    properties.setStaleWhileRevalidate(stale);
+    properties.getCharts().put("live", Duration.ZERO);
+    return new RenderCache(properties, nanos::get);
+  }
+
+  private Object version(RenderCache cache, String chartId, Map<String, Object> variables) {
+    return cache.get(chartId, variables, loader).block().get("version");
+  }
+
+  @Test
+  void cachesPerChartAndNormalizedVariables() {
+    RenderCache cache = cache(Duration.ofMinutes(1), Duration.ZERO);
+
+    assertEquals(1, version(cache, "c", Map.of("a", 1, "b", 2)));
+    // 变量顺序不同视为同一个 key
+    assertEquals(1, version(cache, "c", new LinkedHashMap<>(Map.of("b", 2, "a", 1))));
+    assertEquals(2, version(cache, "c", Map.of("a", 2)));
+    assertEquals(3, version(cache, "c", null));
+    assertEquals(3, version(cache, "c", Map.of()));
+    // ttl 为 0 的图表不缓存
+    assertEquals(4, version(cache, "live", null));
+    assertEquals(5, version(cache, "live", null));
+  }
+
+  @Test
+  void servesStaleResultWhileRevalidating() {
+    RenderCache cache = cache(Duration.ofMillis(50), Duration.ofMinutes(1));
+
+    assertEquals(1, version(cache, "c", null));
+    nanos.addAndGet(Duration.ofMillis(80).toNanos());
+    // 过期后先返回旧结果，同时触发后台刷新
+    assertEquals(1, version(cache, "c", null));
+    assertEquals(2, version(cache, "c", null));
+  }
+
+  @Test
+  void refreshFinishingAfterInvalidateIsDiscarded() {
+    RenderCache cache = cache(Duration.ofMillis(50), Duration.ofMinutes(1));
+    assertEquals(1, version(cache, "c", null));
+    nanos.addAndGet(Duration.ofMillis(80).toNanos());
+    Sinks.One<Map<String, Object>> refresh = Sinks.one();
+    // 返回旧结果，后台刷新挂起
+    assertEquals(1, cache.get("c", null, refresh::asMono).block().get("version"));
+
+    cache.onChartConfigChanged(new ChartConfigChangedEvent("c", false));
+    refresh.tryEmitValue(Map.of("version", "stale"));
+
+    assertEquals(2, version(cache, "c", null));
+    assertEquals(2, version(cache, "c", null));
+  }
+
+  @Test
+  void configChangeInvalidatesAllEntriesOfChart() {
+    RenderCache cache = cache(Duration.ofMinutes(1), Duration.ZERO);
+    version(cache, "c", Map.of("a", 1));
+    version(cache, "c", Map.of("a", 2));
+    version(cache, "other", null);
+
+    cache.onChartConfigChanged(new ChartConfigChangedEvent("c", false));
+
+    assertEquals(1, cache.size());
+    assertEquals(4, version(cache, "c", Map.of("a", 1)));
+  }
+}
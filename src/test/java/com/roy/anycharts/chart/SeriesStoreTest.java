@@ -0,0 +1,224 @@
+package com.roy.anycharts.chart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roy.anycharts.adapter.AdapterRegistry;
+import com.roy.anycharts.adapter.Column;
+import com.roy.anycharts.adapter.ColumnarResult;
+import com.roy.anycharts.adapter.DataSourceAdapter;
+import com.roy.anycharts.chart.QueryCoalescer.QueryKey;
+import com.roy.anycharts.metrics.RenderMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class SeriesStoreTest {
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private JsonNode json(String text) throws Exception {
+    return mapper.readTree(text);
+  }
+
+  @Test
+  void keepsTheLatestPointsWhenFull() throws Exception {
+    SeriesBuffer buffer = new SeriesBuffer(300, null, null);
+    // 超过初始容量后扩容，再写满后覆盖最旧的点
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(buffer.append(json("{\"value\":" + i + "}"), 1_000L + i));
+    }
+    ColumnarResult snapshot = buffer.snapshot();
+    assertEquals(300, snapshot.rowCount());
+    assertEquals(List.of("time", "value"), snapshot.columnNames());
+    Column values = snapshot.column("value");
+    assertEquals(700.0, values.getDouble(0));
+    assertEquals(999.0, values.getDouble(299));
+    assertEquals(1_700.0, snapshot.column("time").getDouble(0));
+  }
+
+  @Test
+  void windowIsRelativeToTheLatestPoint() throws Exception {
+    SeriesBuffer buffer = new SeriesBuffer(100, Duration.ofDays(2), "date");
+    for (int day = 1; day <= 5; day++) {
+      buffer.append(json("{\"date\":\"2026-01-0" + day + "\",\"value\":" + day + "}"), 0);
+    }
+    ColumnarResult snapshot = buffer.snapshot();
+    assertEquals(List.of("date", "value"), snapshot.columnNames());
+    assertEquals(List.of("2026-01-04T00:00:00", "2026-01-05T00:00:00"), snapshot.column("date"));
+    assertEquals(List.of(4.0, 5.0), snapshot.column("value"));
+  }
+
+  @Test
+  void dropsOutOfOrderAndUnparseableRows() throws Exception {
+    SeriesBuffer buffer = new SeriesBuffer(10, null, "ts");
+    assertTrue(buffer.append(json("{\"ts\":2000,\"a\":1}"), 0));
+    assertFalse(buffer.append(json("{\"ts\":1000,\"a\":2}"), 0));
+    assertFalse(buffer.append(json("{\"ts\":\"yesterday\",\"a\":3}"), 0));
+    // 新出现的字段在之前的点上为空值，缺少的字段为空值
+    assertTrue(buffer.append(json("{\"ts\":\"1970-01-01T00:00:03Z\",\"b\":4}"), 0));
+    ColumnarResult snapshot = buffer.snapshot();
+    assertEquals(2, snapshot.rowCount());
+    assertEquals(Double.NaN, snapshot.column("a").getDouble(1));
+    assertTrue(snapshot.column("b").isNull(0));
+    assertEquals(3_000.0, snapshot.column("ts").getDouble(1));
+  }
+
+  @Test
+  void sharesOneSourceAndServesRendersWhileSubscribed() {
+    AtomicInteger subscriptions = new AtomicInteger();
+    AtomicInteger executions = new AtomicInteger();
+    Sinks.Many<JsonNode> events = Sinks.many().multicast().directBestEffort();
+    AdapterRegistry registry = new AdapterRegistry();
+    registry.register(
+        new DataSourceAdapter() {
+          @Override
+          public Mono<JsonNode> execute(String query, Map<String, Object> params) {
+            executions.incrementAndGet();
+            return Mono.fromCallable(() -> json("{\"items\":[]}"));
+          }
+
+          @Override
+          public Flux<JsonNode> subscribe(String query, Map<String, Object> params) {
+            return events.asFlux().doOnSubscribe(s -> subscriptions.incrementAndGet());
+          }
+
+          @Override
+          public String id() {
+            return "live";
+          }
+        });
+    SeriesStore store =
+        new SeriesStore(
+            new SubscriptionProperties(),
+            new StreamJournal(new StreamJournalProperties(), new ObjectMapper()));
+    QueryCoalescer coalescer =
+        new QueryCoalescer(registry, new RenderMetrics(new SimpleMeterRegistry()), store);
+    QueryKey key = new QueryKey("live", "q", Map.of());
+    SeriesStore.Retention retention = new SeriesStore.Retention(2, null, "date", null);
+    Flux<JsonNode> first =
+        store.subscribe(key, retention, () -> registry.get("live").subscribe("q", Map.of()));
+    Flux<JsonNode> second =
+        store.subscribe(key, retention, () -> registry.get("live").subscribe("q", Map.of()));
+    List<MappingPath> paths =
+        List.of(MappingPath.of("$.items[*].date"), MappingPath.of("$.items[*].value"));
+
+    StepVerifier.create(Flux.merge(first, second))
+        .then(
+            () -> {
+              events.tryEmitNext(event("2026-01-03", 100));
+              events.tryEmitNext(event("2026-01-04", 110));
+              events.tryEmitNext(event("2026-01-05", 120));
+            })
+        .expectNextCount(6)
+        .then(
+            () -> {
+              Map<String, Object> result = coalescer.fetch(key, retention, paths, 1).block();
+              Object values = result.get("$.items[*].value");
+              assertInstanceOf(Column.class, values);
+              assertEquals(List.of(110.0, 120.0), values);
+              assertEquals(
+                  List.of("2026-01-04T00:00:00", "2026-01-05T00:00:00"),
+                  result.get("$.items[*].date"));
+            })
+        .thenCancel()
+        .verify(Duration.ofSeconds(5));
+
+    assertEquals(1, subscriptions.get());
+    assertEquals(0, executions.get());
+    assertEquals(3, store.appended());
+    // 订阅结束后序列释放，渲染回到查询数据源
+    assertEquals(0, store.size());
+    assertNull(store.snapshot(key, retention));
+    coalescer.fetch(key, retention, paths, 1).block();
+    assertEquals(1, executions.get());
+  }
+
+  @Test
+  void rendersFromTheSourceUnlessTheSeriesHoldsEveryProjectedColumn() {
+    AtomicInteger executions = new AtomicInteger();
+    Sinks.Many<JsonNode> events = Sinks.many().multicast().directBestEffort();
+    AdapterRegistry registry = new AdapterRegistry();
+    registry.register(
+        new DataSourceAdapter() {
+          @Override
+          public Mono<JsonNode> execute(String query, Map<String, Object> params) {
+            executions.incrementAndGet();
+            return Mono.fromCallable(
+                () -> json("{\"items\":[{\"category\":\"a\",\"value\":1}]}"));
+          }
+
+          @Override
+          public Flux<JsonNode> subscribe(String query, Map<String, Object> params) {
+            return events.asFlux();
+          }
+
+          @Override
+          public String id() {
+            return "live";
+          }
+        });
+    SeriesStore store =
+        new SeriesStore(
+            new SubscriptionProperties(),
+            new StreamJournal(new StreamJournalProperties(), new ObjectMapper()));
+    QueryCoalescer coalescer =
+        new QueryCoalescer(registry, new RenderMetrics(new SimpleMeterRegistry()), store);
+    QueryKey key = new QueryKey("live", "q", Map.of());
+    List<MappingPath> values = List.of(MappingPath.of("$.items[*].value"));
+    List<MappingPath> categories = List.of(MappingPath.of("$.items[*].category"));
+
+    SeriesStore.Retention retention = new SeriesStore.Retention(10, null, null, null);
+
+    StepVerifier.create(
+            store.subscribe(key, retention, () -> registry.get("live").subscribe("q", Map.of())))
+        .then(
+            () -> {
+              // 还没有点时查询数据源
+              assertNull(store.snapshot(key, retention));
+              assertEquals(
+                  List.of(1), only(coalescer.fetch(key, retention, values, 1).block(), values));
+              assertEquals(1, executions.get());
+              events.tryEmitNext(event("2026-01-01", 7));
+            })
+        .expectNextCount(1)
+        .then(
+            () -> {
+              assertEquals(
+                  List.of(7.0), only(coalescer.fetch(key, retention, values, 1).block(), values));
+              assertEquals(1, executions.get());
+              // 序列中没有的列、不是来自序列 binding 的渲染都查询数据源
+              assertEquals(
+                  List.of("a"),
+                  only(coalescer.fetch(key, retention, categories, 1).block(), categories));
+              assertEquals(
+                  List.of(1), only(coalescer.fetch(key, null, values, 1).block(), values));
+              assertEquals(3, executions.get());
+            })
+        .thenCancel()
+        .verify(Duration.ofSeconds(5));
+  }
+
+  private static Object only(Map<String, Object> result, List<MappingPath> paths) {
+    return result.get(paths.get(0).expression());
+  }
+
+  private JsonNode event(String date, int value) {
+    try {
+      return json("{\"items\":[{\"date\":\"" + date + "\",\"value\":" + value + "}]}");
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,240 @@
+package com.roy.anycharts.chart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.roy.anycharts.adapter.DataSourceAdapter;
+import com.roy.anycharts.chart.QueryCoalescer.QueryKey;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class StreamJournalTest {
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final QueryKey sales = new QueryKey("mock-adapter", "mock:sales", Map.of("region", "east"));
+  private final QueryKey trend = new QueryKey("mock-adapter", "mock:trend", Map.of());
+
+  @TempDir Path directory;
+
+  private StreamJournal journal(long segmentBytes, long maxBytes) {
+    StreamJournalProperties properties = new StreamJournalProperties();
+    properties.setEnabled(true);
+    properties.setDirectory(directory.toString());
+    properties.setSegmentSize(DataSize.ofBytes(segmentBytes));
+    properties.setMaxSize(DataSize.ofBytes(maxBytes));
+    // 测试中的时间戳接近 0，不按时间删除
+    properties.setMaxAge(Duration.ZERO);
+    return new StreamJournal(properties, mapper);
+  }
+
+  private JsonNode event(int value) {
+    return mapper.createObjectNode().put("value", value);
+  }
+
+  private List<Integer> replay(StreamJournal journal, QueryKey key, long since) {
+    List<Integer> values = new ArrayList<>();
+    journal.replay(journal.keyOf(key), since, (time, event) -> values.add(event.get("value").asInt()));
+    return values;
+  }
+
+  @Test
+  void replaysOneStreamInOrderAcrossSegmentsAndRestarts() {
+    StreamJournal journal = journal(1024, 1 << 20);
+    for (int i = 0; i < 100; i++) {
+      journal.append(journal.keyOf(i % 2 == 0 ? sales : trend), 1_000 + i, event(i));
+    }
+    assertTrue(journal.segments() > 1);
+    journal.destroy();
+
+    StreamJournal reopened = journal(1024, 1 << 20);
+    List<Integer> values = replay(reopened, sales, 0);
+    assertEquals(50, values.size());
+    assertEquals(0, values.get(0));
+    assertEquals(98, values.get(49));
+    assertEquals(List.of(95, 97, 99), replay(reopened, trend, 1_095));
+    // 重启后继续追加
+    reopened.append(reopened.keyOf(trend), 2_000, event(100));
+    assertEquals(List.of(95, 97, 99, 100), replay(reopened, trend, 1_095));
+  }
+
+  @Test
+  void deletesOldestSegmentsBeyondMaxSize() {
+    StreamJournal journal = journal(1024, 4096);
+    for (int i = 0; i < 500; i++) {
+      journal.append(journal.keyOf(sales), i, event(i));
+    }
+    assertEquals(4, journal.segments());
+    List<Integer> values = replay(journal, sales, 0);
+    assertEquals(499, values.get(values.size() - 1));
+    assertTrue(values.get(0) > 0);
+  }
+
+  @Test
+  void deletesSegmentsOlderThanMaxAge() {
+    StreamJournalProperties properties = new StreamJournalProperties();
+    properties.setEnabled(true);
+    properties.setDirectory(directory.toString());
+    properties.setSegmentSize(DataSize.ofBytes(1024));
+    properties.setMaxAge(Duration.ofHours(1));
+    StreamJournal journal = new StreamJournal(properties, mapper);
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < 40; i++) {
+      long time = i < 20 ? now - Duration.ofHours(2).toMillis() : now;
+      journal.append(journal.keyOf(sales), time, event(i));
+    }
+    // 切换新段时删除整段过期的段
+    assertTrue(replay(journal, sales, 0).get(0) > 0);
+    assertEquals(39, replay(journal, sales, now).get(19));
+  }
+
+  @Test
+  void truncatesATornRecordOnRecovery() throws Exception {
+    StreamJournal journal = journal(1 << 16, 1 << 20);
+    journal.append(journal.keyOf(sales), 1, event(1));
+    journal.append(journal.keyOf(sales), 2, event(2));
+    journal.destroy();
+    Path segment;
+    try (Stream<Path> files = Files.list(directory)) {
+      segment = files.findFirst().orElseThrow();
+    }
+    // 破坏第二条记录的最后一个字节
+    int first = 8 + 10 + journal.keyOf(sales).length + mapper.writeValueAsBytes(event(1)).length;
+    int second = first + 8 + 10 + journal.keyOf(sales).length + mapper.writeValueAsBytes(event(2)).length;
+    try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+      file.seek(second - 1);
+      file.write('x');
+    }
+
+    StreamJournal reopened = journal(1 << 16, 1 << 20);
+    assertEquals(List.of(1), replay(reopened, sales, 0));
+    reopened.append(reopened.keyOf(sales), 3, event(3));
+    assertEquals(List.of(1, 3), replay(journal(1 << 16, 1 << 20), sales, 0));
+  }
+
+  @Test
+  void newSeriesWarmFromTheJournalAndBackfillBeforeLiveEvents() {
+    Sinks.Many<JsonNode> events = Sinks.many().multicast().directBestEffort();
+    SeriesStore.Retention retention = new SeriesStore.Retention(10, null, null, null);
+    SeriesStore store = new SeriesStore(new SubscriptionProperties(), journal(1 << 16, 1 << 20));
+    StepVerifier.create(store.subscribe(sales, retention, events::asFlux))
+        .expectSubscription()
+        .thenAwait(Duration.ofMillis(100))
+        .then(
+            () -> {
+              events.tryEmitNext(event(1));
+              events.tryEmitNext(event(2));
+            })
+        .expectNextCount(2)
+        .thenCancel()
+        .verify(Duration.ofSeconds(5));
+
+    // 模拟重启：新的日志实例和序列，第一个事件是回填，此时序列已包含之前的点
+    SeriesStore restarted =
+        new SeriesStore(new SubscriptionProperties(), journal(1 << 16, 1 << 20));
+    StepVerifier.create(restarted.subscribe(sales, retention, Flux::never))
+        .assertNext(
+            backfill -> assertEquals(List.of(1.0, 2.0), values(restarted, retention)))
+        .thenCancel()
+        .verify(Duration.ofSeconds(5));
+  }
+
+  @Test
+  void snapshotEventReplacesThePointsReplayedFromTheJournal() {
+    SeriesStore.Retention retention = new SeriesStore.Retention(10, null, null, null);
+    JsonNode snapshot = snapshot(1, 2);
+    SeriesStore store = new SeriesStore(new SubscriptionProperties(), journal(1 << 16, 1 << 20));
+    StepVerifier.create(
+            store.subscribe(
+                sales, retention, () -> Flux.just(snapshot, event(3)).concatWith(Flux.never())))
+        .expectNextCount(2)
+        .then(() -> assertEquals(List.of(1.0, 2.0, 3.0), values(store, retention)))
+        .thenCancel()
+        .verify(Duration.ofSeconds(5));
+
+    // 重新订阅：回放得到 1, 2, 3，轮询的首次完整结果取代它们而不是再追加一遍
+    SeriesStore restarted =
+        new SeriesStore(new SubscriptionProperties(), journal(1 << 16, 1 << 20));
+    StepVerifier.create(
+            restarted.subscribe(
+                sales, retention, () -> Flux.just(snapshot(1, 2, 3)).concatWith(Flux.never())))
+        .assertNext(
+            backfill ->
+                assertEquals(List.of(1.0, 2.0, 3.0), values(restarted, retention)))
+        .assertNext(
+            live -> assertEquals(List.of(1.0, 2.0, 3.0), values(restarted, retention)))
+        .thenCancel()
+        .verify(Duration.ofSeconds(5));
+  }
+
+  @Test
+  void rawAndAggregatedSeriesOfOneQueryAreKeptApart() {
+    Sinks.Many<JsonNode> events = Sinks.many().multicast().directBestEffort();
+    SeriesStore.Retention raw = new SeriesStore.Retention(10, null, null, null);
+    SeriesStore.Retention summed =
+        new SeriesStore.Retention(
+            10,
+            null,
+            null,
+            new SeriesStore.Aggregation(AggregateFunction.SUM, Duration.ofMillis(200), null));
+    SeriesStore store = new SeriesStore(new SubscriptionProperties(), journal(1 << 16, 1 << 20));
+    StepVerifier.create(
+            Flux.merge(
+                store.subscribe(sales, raw, events::asFlux),
+                store.subscribe(sales, summed, events::asFlux)))
+        .expectSubscription()
+        .thenAwait(Duration.ofMillis(100))
+        .then(
+            () -> {
+              events.tryEmitNext(event(1));
+              events.tryEmitNext(event(2));
+            })
+        // 原始序列的两个事件和聚合序列的一个窗口
+        .expectNextCount(3)
+        .then(
+            () -> {
+              assertEquals(List.of(1.0, 2.0), values(store, raw));
+              assertEquals(List.of(3.0), values(store, summed));
+            })
+        .thenCancel()
+        .verify(Duration.ofSeconds(5));
+
+    // 各自从自己的日志流回放，聚合序列不会读到原始记录
+    SeriesStore restarted =
+        new SeriesStore(new SubscriptionProperties(), journal(1 << 16, 1 << 20));
+    StepVerifier.create(restarted.subscribe(sales, summed, Flux::never))
+        .assertNext(
+            backfill -> {
+              assertEquals(List.of(3.0), values(restarted, summed));
+              assertNull(restarted.snapshot(sales, raw));
+            })
+        .thenCancel()
+        .verify(Duration.ofSeconds(5));
+  }
+
+  private List<?> values(SeriesStore store, SeriesStore.Retention retention) {
+    return store.snapshot(sales, retention).column("value");
+  }
+
+  private JsonNode snapshot(int... values) {
+    ObjectNode event = mapper.createObjectNode();
+    ArrayNode items = event.putArray("items");
+    for (int value : values) items.addObject().put("value", value);
+    return event.put(DataSourceAdapter.SNAPSHOT_FIELD, true);
+  }
+}
@@ -0,0 +1,120 @@
+package com.roy.anycharts.chart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class SubscriptionDeliveryTest {
+
+  private static SubscriptionProperties properties(
+      double maxFps, SubscriptionProperties.Action action) {
+    SubscriptionProperties properties = new SubscriptionProperties();
+    properties.setMaxFps(maxFps);
+    properties.getSlowConsumer().setMaxConsecutiveDrops(5);
+    properties.getSlowConsumer().setAction(action);
+    return properties;
+  }
+
+  @Test
+  void throttlesToMaxFpsAndKeepsLatestFrame() {
+    SubscriptionDelivery delivery =
+        new SubscriptionDelivery(properties(10, SubscriptionProperties.Action.DEGRADE));
+    Flux<Long> source = Flux.interval(Duration.ofMillis(5)).take(100);
+
+    List<Long> frames = delivery.deliver(source, null).collectList().block(Duration.ofSeconds(5));
+
+    // 0.5 秒的数据按 10fps 推送，约 6 帧，且最后一帧一定送达
+    assertTrue(frames.size() <= 8, "frames: " + frames.size());
+    assertEquals(99L, frames.get(frames.size() - 1));
+    assertEquals(100 - frames.size(), delivery.coalesced());
+  }
+
+  @Test
+  void clientCannotExceedServerFps() {
+    SubscriptionDelivery delivery =
+        new SubscriptionDelivery(properties(10, SubscriptionProperties.Action.DEGRADE));
+    Flux<Long> source = Flux.interval(Duration.ofMillis(5)).take(100);
+
+    List<Long> frames = delivery.deliver(source, 1000.0).collectList().block(Duration.ofSeconds(5));
+
+    assertTrue(frames.size() <= 8, "frames: " + frames.size());
+  }
+
+  @Test
+  void slowConsumerIsDisconnected() {
+    SubscriptionDelivery delivery =
+        new SubscriptionDelivery(properties(0, SubscriptionProperties.Action.DISCONNECT));
+
+    StepVerifier.create(delivery.deliver(Flux.range(0, 100), null), 0)
+        .expectError(SlowConsumerException.class)
+        .verify(Duration.ofSeconds(5));
+    assertEquals(1, delivery.slowConsumers());
+    assertTrue(delivery.dropped() >= 5);
+    assertEquals(0, delivery.subscribers());
+  }
+
+  @Test
+  void slowConsumerIsDegradedWithoutError() {
+    SubscriptionDelivery delivery =
+        new SubscriptionDelivery(properties(0, SubscriptionProperties.Action.DEGRADE));
+
+    StepVerifier.create(delivery.deliver(Flux.range(0, 100), null), 0)
+        .thenAwait(Duration.ofMillis(50))
+        .thenRequest(Long.MAX_VALUE)
+        // 缓冲中的最新帧立即送达，之后按降级后的帧率送达最后一帧
+        .expectNextCount(1)
+        .expectNext(99)
+        .verifyComplete();
+    assertEquals(1, delivery.slowConsumers());
+  }
+
+  @Test
+  void staleRendersAreCancelled() {
+    SubscriptionDelivery delivery =
+        new SubscriptionDelivery(properties(0, SubscriptionProperties.Action.DEGRADE));
+    Flux<Integer> events = Flux.range(0, 3).concatWith(Mono.delay(Duration.ofMillis(200)).then(Mono.empty()));
+
+    List<Integer> rendered =
+        delivery
+            .render(events, e -> Mono.just(e).delayElement(Duration.ofMillis(50)))
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+    assertEquals(List.of(2), rendered);
+    assertEquals(2, delivery.cancelledRenders());
+  }
+
+  @Test
+  void deltasSendFullFrameFirstThenPatches() {
+    SubscriptionDelivery delivery =
+        new SubscriptionDelivery(properties(0, SubscriptionProperties.Action.DEGRADE));
+    ChartFrame f1 = frame(1, null, 100);
+    ChartFrame f2 = frame(2, f1, 101);
+    ChartFrame f4 = frame(4, f2, 103);
+
+    List<Map<String, Object>> deltas =
+        delivery.deltas("c", Flux.just(f1, f2, f4)).collectList().block(Duration.ofSeconds(5));
+
+    assertEquals(true, deltas.get(0).get("full"));
+    assertEquals(f1.option(), deltas.get(0).get("option"));
+    assertEquals(false, deltas.get(1).get("full"));
+    assertEquals(
+        List.of(Map.of("op", "add", "path", "/data/-", "value", 100)), deltas.get(1).get("patch"));
+    // 跳过第 3 帧时相对该客户端收到的第 2 帧计算
+    assertEquals(4L, deltas.get(2).get("seq"));
+    assertEquals(2, ((List<?>) deltas.get(2).get("patch")).size());
+  }
+
+  private static ChartFrame frame(long seq, ChartFrame previous, int points) {
+    List<Integer> data = IntStream.range(0, points).boxed().toList();
+    return new ChartFrame(seq, Map.of("id", "c", "option", Map.of("data", data)), previous, 0.5);
+  }
+}
@@ -0,0 +1,178 @@
+package com.roy.anycharts.chart;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roy.anycharts.chart.QueryCoalescer.QueryKey;
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class WindowAggregatorTest {
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private JsonNode event(String rows) {
+    try {
+      return mapper.readTree("{\"items\":[" + rows + "]}");
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private WindowAggregator tumbling(AggregateFunction function) {
+    return new WindowAggregator(
+        new SeriesStore.Aggregation(function, Duration.ofSeconds(2), null), null, -2_000);
+  }
+
+  private double aggregate(AggregateFunction function) {
+    WindowAggregator aggregator = tumbling(function);
+    aggregator.add(event("{\"v\":4},{\"v\":1}"));
+    aggregator.add(event("{\"v\":7,\"label\":\"x\"}"));
+    return aggregator.emit(0).get("items").get(0).get("v").doubleValue();
+  }
+
+  @Test
+  void tumblingWindowAppliesTheFunction() {
+    assertEquals(12.0, aggregate(AggregateFunction.SUM));
+    assertEquals(4.0, aggregate(AggregateFunction.AVG));
+    assertEquals(1.0, aggregate(AggregateFunction.MIN));
+    assertEquals(7.0, aggregate(AggregateFunction.MAX));
+    assertEquals(3.0, aggregate(AggregateFunction.COUNT));
+    assertEquals(6.0, aggregate(AggregateFunction.RATE));
+    assertEquals(7.0, aggregate(AggregateFunction.LAST));
+  }
+
+  @Test
+  void emptyWindowEmitsNothingAndWindowsDoNotOverlap() {
+    WindowAggregator aggregator = tumbling(AggregateFunction.SUM);
+    assertNull(aggregator.emit(0));
+    aggregator.add(event("{\"v\":1}"));
+    assertEquals(1.0, aggregator.emit(0).get("items").get(0).get("v").doubleValue());
+    assertNull(aggregator.emit(0));
+  }
+
+  @Test
+  void slidingWindowCombinesPanesAndExpiresTheOldest() {
+    // 5s 窗口按 2s 滑动，向上取整为 3 个分片
+    WindowAggregator aggregator =
+        new WindowAggregator(
+            new SeriesStore.Aggregation(
+                AggregateFunction.MAX, Duration.ofSeconds(5), Duration.ofSeconds(2)),
+            "ts",
+            0);
+    aggregator.add(event("{\"ts\":1,\"v\":9}"));
+    JsonNode first = aggregator.emit(1_000).get("items").get(0);
+    assertEquals(1_000L, first.get("ts").longValue());
+    assertEquals(9.0, first.get("v").doubleValue());
+    aggregator.add(event("{\"v\":3}"));
+    assertEquals(9.0, aggregator.emit(2_000).get("items").get(0).get("v").doubleValue());
+    assertEquals(9.0, aggregator.emit(3_000).get("items").get(0).get("v").doubleValue());
+    // 第一个分片已滑出窗口
+    assertEquals(3.0, aggregator.emit(4_000).get("items").get(0).get("v").doubleValue());
+    assertNull(aggregator.emit(5_000));
+  }
+
+  @Test
+  void rateOfAFillingSlidingWindowUsesTheElapsedPanes() {
+    WindowAggregator aggregator =
+        new WindowAggregator(
+            new SeriesStore.Aggregation(
+                AggregateFunction.RATE, Duration.ofSeconds(10), Duration.ofSeconds(1)),
+            null,
+            0);
+    aggregator.add(event("{\"v\":1},{\"v\":1},{\"v\":1},{\"v\":1}"));
+    // 启动 1s 时窗口只覆盖了 1s，而不是 10s
+    assertEquals(4.0, aggregator.emit(1_000).get("items").get(0).get("v").doubleValue());
+    aggregator.add(event("{\"v\":1},{\"v\":1},{\"v\":1},{\"v\":1}"));
+    assertEquals(4.0, aggregator.emit(2_000).get("items").get(0).get("v").doubleValue());
+    for (int t = 3; t < 10; t++) aggregator.emit(t * 1_000L);
+    // 窗口填满后按 10s 计算
+    assertEquals(0.8, aggregator.emit(10_000).get("items").get(0).get("v").doubleValue(), 1e-9);
+    assertEquals(0.4, aggregator.emit(11_000).get("items").get(0).get("v").doubleValue(), 1e-9);
+  }
+
+  @Test
+  void rateOfThePartialLastWindowUsesItsElapsedTime() {
+    WindowAggregator aggregator = tumbling(AggregateFunction.RATE);
+    aggregator.emit(0);
+    aggregator.add(event("{\"v\":1},{\"v\":1},{\"v\":1}"));
+    // 事件流在分片开始 500ms 后结束
+    assertEquals(6.0, aggregator.emit(500).get("items").get(0).get("v").doubleValue());
+  }
+
+  @Test
+  void rejectsInvalidWindows() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new SeriesStore.Aggregation(AggregateFunction.SUM, null, null));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            new SeriesStore.Aggregation(
+                AggregateFunction.SUM, Duration.ofSeconds(1), Duration.ofSeconds(2)));
+  }
+
+  @Test
+  void seriesReceivesOnePointPerWindow() {
+    SeriesStore store =
+        new SeriesStore(
+            new SubscriptionProperties(),
+            new StreamJournal(new StreamJournalProperties(), new ObjectMapper()));
+    QueryKey key = new QueryKey("live", "q", Map.of());
+    SeriesStore.Retention retention =
+        new SeriesStore.Retention(
+            null,
+            null,
+            null,
+            new SeriesStore.Aggregation(AggregateFunction.AVG, Duration.ofSeconds(1), null));
+    Sinks.Many<JsonNode> events = Sinks.many().multicast().onBackpressureBuffer();
+
+    StepVerifier.withVirtualTime(() -> store.subscribe(key, retention, events::asFlux))
+        .then(
+            () -> {
+              for (int i = 1; i <= 100; i++) events.tryEmitNext(event("{\"v\":" + i + "}"));
+            })
+        .expectNoEvent(Duration.ofMillis(999))
+        .thenAwait(Duration.ofMillis(1))
+        .assertNext(window -> assertEquals(50.5, window.get("items").get(0).get("v").doubleValue()))
+        .then(() -> assertEquals(1, store.snapshot(key, retention).rowCount()))
+        .expectNoEvent(Duration.ofSeconds(3))
+        .then(
+            () -> {
+              events.tryEmitNext(event("{\"v\":1}"));
+              events.tryEmitComplete();
+            })
+        // 事件流结束时输出未满的最后一个窗口
+        .assertNext(window -> assertEquals(1.0, window.get("items").get(0).get("v").doubleValue()))
+        .verifyComplete();
+
+    assertEquals(101, store.aggregatedRows());
+    assertEquals(2, store.aggregatedWindows());
+    assertEquals(2, store.appended());
+    assertEquals(0, store.size());
+  }
+
+  @Test
+  void streamBindingWithOnlyAggregateGetsASeries() {
+    DataSourceBinding binding =
+        DataSourceBinding.builder()
+            .name("v")
+            .datasourceId("live")
+            .query("q")
+            .mappingPath("$.items[*].v")
+            .bindingKey("v")
+            .stream(true)
+            .aggregate(AggregateFunction.RATE)
+            .aggregateWindow(Duration.ofSeconds(10))
+            .aggregateSlide(Duration.ofSeconds(1))
+            .build();
+    SeriesStore.Retention retention = SeriesStore.Retention.of(binding);
+    assertEquals(10, retention.aggregation().panes());
+    assertNull(SeriesStore.Retention.of(binding.toBuilder().stream(false).build()));
+  }
+}
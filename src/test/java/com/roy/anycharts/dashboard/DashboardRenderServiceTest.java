@@ -0,0 +1,82 @@
+package com.roy.anycharts.dashboard;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.roy.anycharts.chart.ChartRenderResult;
+import com.roy.anycharts.chart.ChartService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+class DashboardRenderServiceTest {
+  private final DashboardStore store = mock(DashboardStore.class);
+  private final ChartService charts = mock(ChartService.class);
+  private final DashboardRenderService service =
+      new DashboardRenderService(store, charts, new DashboardProperties());
+
+  @BeforeEach
+  void setUp() {
+    when(store.get("d"))
+        .thenReturn(
+            Optional.of(
+                new Dashboard(
+                    "d",
+                    "d",
+                    1920,
+                    1080,
+                    List.of(component("ok"), component("broken"), component("deleted")))));
+  }
+
+  private static DashboardComponent component(String chartId) {
+    return new DashboardComponent("comp-" + chartId, "chart", 0, 0, 400, 300, chartId, chartId);
+  }
+
+  private Map<String, RenderedComponent> render() {
+    RenderedDashboard dashboard = service.render("d", Map.of()).block();
+    Map<String, RenderedComponent> byChart = new HashMap<>();
+    dashboard.components().forEach(c -> byChart.put(c.chartId(), c));
+    assertEquals(3, byChart.size());
+    return byChart;
+  }
+
+  @Test
+  void failedAndMissingChartsOnlyAffectTheirComponents() {
+    // deleted 没有返回结果，例如渲染前被删除
+    when(charts.renderCharts(any(), anyMap(), any(), anyInt()))
+        .thenReturn(
+            Flux.just(
+                ChartRenderResult.succeeded("ok", Map.of("series", List.of())),
+                ChartRenderResult.failed("broken", "adapter not found: x")));
+
+    Map<String, RenderedComponent> components = render();
+    assertEquals(Map.of("series", List.of()), components.get("ok").option());
+    assertNull(components.get("ok").error());
+    assertEquals("adapter not found: x", components.get("broken").error());
+    assertNull(components.get("deleted").option());
+    assertEquals("chart not rendered: deleted", components.get("deleted").error());
+  }
+
+  @Test
+  void batchFailureKeepsChartsRenderedBeforeIt() {
+    when(charts.renderCharts(any(), anyMap(), any(), anyInt()))
+        .thenReturn(
+            Flux.concat(
+                Flux.just(ChartRenderResult.succeeded("ok", Map.of())),
+                Flux.error(new IllegalStateException("scope failed"))));
+
+    Map<String, RenderedComponent> components = render();
+    assertEquals(Map.of(), components.get("ok").option());
+    assertEquals("chart not rendered: broken", components.get("broken").error());
+    assertEquals("chart not rendered: deleted", components.get("deleted").error());
+  }
+}
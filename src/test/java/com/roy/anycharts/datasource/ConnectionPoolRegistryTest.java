@@ -0,0 +1,105 @@
+package com.roy.anycharts.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Properties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ConnectionPoolRegistryTest {
+  private final ConnectionPoolProperties properties = new ConnectionPoolProperties();
+  private final ConnectionPoolRegistry registry =
+      new ConnectionPoolRegistry(properties, new SimpleMeterRegistry());
+
+  private static DatabaseConnection connection(String id, String database) {
+    return new DatabaseConnection(
+        id, id, "jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1", "sa", "", "org.h2.Driver", true);
+  }
+
+  @AfterEach
+  void tearDown() {
+    registry.destroy();
+  }
+
+  @Test
+  void reusesThePoolUntilTheConnectionChanges() throws SQLException {
+    DatabaseConnection conn = connection("a", "pool-registry-a");
+    HikariDataSource first = registry.dataSource(conn);
+    // 内容相同的另一个对象仍然使用同一个连接池
+    assertSame(first, registry.dataSource(connection("a", "pool-registry-a")));
+
+    conn.setJdbcUrl("jdbc:h2:mem:pool-registry-b;DB_CLOSE_DELAY=-1");
+    HikariDataSource rebuilt = registry.dataSource(conn);
+    assertNotSame(first, rebuilt);
+    assertTrue(first.isClosed());
+    try (Connection c = registry.getConnection(conn)) {
+      assertEquals("jdbc:h2:mem:pool-registry-b", c.getMetaData().getURL());
+    }
+    assertEquals(1, registry.stats().size());
+  }
+
+  @Test
+  void changedOrDeletedConnectionEvictsThePool() {
+    HikariDataSource a = registry.dataSource(connection("a", "pool-registry-a"));
+    HikariDataSource b = registry.dataSource(connection("b", "pool-registry-b"));
+
+    registry.onConnectionChanged(new DatabaseConnectionChangedEvent("a", true));
+    assertTrue(a.isClosed());
+    assertEquals(
+        List.of("b"), registry.stats().stream().map(ConnectionPoolStats::connectionId).toList());
+    // 下次借用时重建
+    assertNotSame(a, registry.dataSource(connection("a", "pool-registry-a")));
+
+    registry.destroy();
+    assertTrue(b.isClosed());
+    assertEquals(List.of(), registry.stats());
+  }
+
+  @Test
+  void statementCachingIsDelegatedToTheDriver() {
+    DatabaseConnection mysql = connection("m", "unused");
+    mysql.setJdbcUrl("jdbc:mysql://localhost/db");
+    DatabaseConnection postgres = connection("p", "unused");
+    postgres.setJdbcUrl("jdbc:postgresql://localhost/db");
+    mysql.setDriverClass(null);
+    postgres.setDriverClass(null);
+
+    // 连接池在第一次借用时才启动，这里只检查传给驱动的属性
+    Properties mysqlProperties = registry.dataSource(mysql).getDataSourceProperties();
+    assertEquals("true", mysqlProperties.getProperty("cachePrepStmts"));
+    assertEquals("64", mysqlProperties.getProperty("prepStmtCacheSize"));
+    Properties postgresProperties = registry.dataSource(postgres).getDataSourceProperties();
+    assertEquals("64", postgresProperties.getProperty("preparedStatementCacheQueries"));
+    DatabaseConnection h2 = connection("a", "pool-registry-a");
+    assertTrue(registry.dataSource(h2).getDataSourceProperties().isEmpty());
+  }
+
+  @Test
+  void statsReportBorrowedAndIdleConnections() throws SQLException {
+    properties.setMinIdle(0);
+    properties.setMaxSize(3);
+    DatabaseConnection conn = connection("a", "pool-registry-a");
+    registry.dataSource(conn);
+    // 还没有借用过，连接池尚未启动
+    assertEquals(new ConnectionPoolStats("a", 0, 0, 0, 0, 3), registry.stats().get(0));
+
+    try (Connection first = registry.getConnection(conn);
+        Connection second = registry.getConnection(conn)) {
+      ConnectionPoolStats busy = registry.stats().get(0);
+      assertEquals(2, busy.active());
+      assertEquals(2, busy.total());
+      assertEquals(3, busy.maxSize());
+    }
+    ConnectionPoolStats released = registry.stats().get(0);
+    assertEquals(0, released.active());
+    assertEquals(released.total(), released.idle());
+  }
+}
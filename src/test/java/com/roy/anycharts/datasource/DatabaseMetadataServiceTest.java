@@ -0,0 +1,103 @@
+package com.roy.anycharts.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.roy.anycharts.execution.BlockingExecutionProperties;
+import com.roy.anycharts.execution.BlockingExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+class DatabaseMetadataServiceTest {
+  private final DatabaseConnection mem =
+      new DatabaseConnection(
+          "mem", "mem", "jdbc:h2:mem:metadata-test;DB_CLOSE_DELAY=-1", "sa", "", "org.h2.Driver", true);
+  private BlockingExecutor executor;
+  private ConnectionPoolRegistry pools;
+  private DatabaseMetadataService service;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    DatabaseConnectionStore store = new DatabaseConnectionStore(event -> {});
+    store.save(mem);
+    executor = new BlockingExecutor(new BlockingExecutionProperties());
+    pools = new ConnectionPoolRegistry(new ConnectionPoolProperties(), new SimpleMeterRegistry());
+    service = new DatabaseMetadataService(store, pools, executor, new MetadataCacheProperties());
+    sql("CREATE TABLE sales (id INT, amount DOUBLE)");
+    sql("INSERT INTO sales VALUES (1, 10), (2, 20), (3, 30)");
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    sql("DROP ALL OBJECTS");
+    pools.destroy();
+    executor.destroy();
+  }
+
+  @Test
+  void tablesAreCachedUntilRefreshed() throws Exception {
+    assertTrue(tables().contains("SALES"));
+
+    sql("CREATE TABLE orders (id INT)");
+    assertFalse(tables().contains("ORDERS"));
+
+    service.refresh("mem", null);
+    assertTrue(tables().contains("ORDERS"));
+  }
+
+  @Test
+  void connectionChangeInvalidatesColumns() throws Exception {
+    assertEquals(2, columns("SALES"));
+
+    sql("ALTER TABLE sales ADD COLUMN region VARCHAR(20)");
+    assertEquals(2, columns("SALES"));
+
+    service.onConnectionChanged(new DatabaseConnectionChangedEvent("mem", false));
+    assertEquals(3, columns("SALES"));
+  }
+
+  @Test
+  void tableNamesAreCachedAndRefreshedCaseInsensitively() throws Exception {
+    assertEquals(2, columns("sales"));
+    assertEquals(2, columns("SALES"));
+
+    sql("ALTER TABLE sales ADD COLUMN region VARCHAR(20)");
+    service.refresh("mem", "Sales");
+    assertEquals(3, columns("sales"));
+    assertEquals(3, columns("SALES"));
+  }
+
+  @Test
+  void previewOnlyAcceptsKnownTables() {
+    StepVerifier.create(service.previewData("mem", "sales", 2))
+        .expectNextMatches(rows -> rows.size() == 2)
+        .verifyComplete();
+    StepVerifier.create(service.previewData("mem", "sales; DROP TABLE sales", 2))
+        .expectError(IllegalArgumentException.class)
+        .verify(Duration.ofSeconds(5));
+    assertFalse(tables().isEmpty());
+  }
+
+  private List<String> tables() {
+    return service.getTables("mem").block(Duration.ofSeconds(5));
+  }
+
+  private int columns(String table) {
+    return service.getColumns("mem", table).block(Duration.ofSeconds(5)).size();
+  }
+
+  private void sql(String sql) throws Exception {
+    try (Connection connection = pools.getConnection(mem);
+        Statement stmt = connection.createStatement()) {
+      stmt.execute(sql);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package com.roy.anycharts.execution;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.roy.anycharts.adapter.impl.DatabaseAdapter;
+import com.roy.anycharts.adapter.impl.DatabaseAdapterProperties;
+import com.roy.anycharts.datasource.ConnectionPoolProperties;
+import com.roy.anycharts.datasource.ConnectionPoolRegistry;
+import com.roy.anycharts.datasource.DatabaseConnection;
+import com.roy.anycharts.datasource.DatabaseConnectionStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+class BlockingExecutorTest {
+  private BlockingExecutor executor;
+  // 单线程的 non-blocking 调度器，模拟 Netty 事件循环
+  private Scheduler eventLoop;
+
+  @BeforeEach
+  void setUp() {
+    BlockingExecutionProperties properties = new BlockingExecutionProperties();
+    properties.getDefaults().setMaxConcurrency(1);
+    properties.getDefaults().setMaxQueue(1);
+    executor = new BlockingExecutor(properties);
+    eventLoop = Schedulers.newParallel("test-loop", 1);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.destroy();
+    eventLoop.dispose();
+  }
+
+  @Test
+  void blockingTaskNeverRunsOnEventLoop() {
+    Mono<Boolean> onNonBlockingThread =
+        executor
+            .execute("test", Schedulers::isInNonBlockingThread)
+            .subscribeOn(eventLoop);
+
+    StepVerifier.create(onNonBlockingThread).expectNext(false).verifyComplete();
+  }
+
+  @Test
+  void eventLoopStaysResponsiveWhileTaskBlocks() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Mono<String> slow =
+        executor
+            .execute(
+                "test",
+                () -> {
+                  release.await(5, TimeUnit.SECONDS);
+                  return "done";
+                })
+            .subscribeOn(eventLoop);
+    slow.subscribe(v -> {}, e -> {});
+
+    // 阻塞任务执行期间，事件循环线程仍能立即处理其他任务
+    CountDownLatch tick = new CountDownLatch(1);
+    eventLoop.schedule(tick::countDown);
+    assertTrue(tick.await(1, TimeUnit.SECONDS));
+    release.countDown();
+  }
+
+  @Test
+  void rejectsImmediatelyWhenQueueIsFull() {
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute("test", () -> release.await(5, TimeUnit.SECONDS)).subscribe(v -> {}, e -> {});
+    executor.execute("test", () -> true).subscribe(v -> {}, e -> {});
+
+    StepVerifier.create(executor.execute("test", () -> true))
+        .expectError(RejectedExecutionException.class)
+        .verify(Duration.ofSeconds(1));
+    // 其他数据源不受影响
+    StepVerifier.create(executor.execute("other", () -> true))
+        .expectNext(true)
+        .verifyComplete();
+    release.countDown();
+  }
+
+  @Test
+  void databaseAdapterRunsJdbcOffEventLoop() {
+    DatabaseConnectionStore store = new DatabaseConnectionStore(event -> {});
+    store.save(
+        new DatabaseConnection(
+            "mem", "mem", "jdbc:h2:mem:blocking-test", "sa", "", "org.h2.Driver", true));
+    ConnectionPoolRegistry pools = new ConnectionPoolRegistry(new ConnectionPoolProperties(), new SimpleMeterRegistry());
+    DatabaseAdapter adapter =
+        new DatabaseAdapter(
+            new ObjectMapper(), store, pools, executor, new DatabaseAdapterProperties());
+    AtomicBoolean emittedOnEventLoop = new AtomicBoolean(true);
+
+    try {
+      JsonNode result =
+          adapter
+              .execute("mem:SELECT 1 AS ONE", Map.of())
+              .doOnNext(n -> emittedOnEventLoop.set(Schedulers.isInNonBlockingThread()))
+              .subscribeOn(eventLoop)
+              .block(Duration.ofSeconds(5));
+      assertEquals(1, result.get("count").asInt());
+      assertFalse(emittedOnEventLoop.get());
+    } finally {
+      pools.destroy();
+    }
+  }
+}
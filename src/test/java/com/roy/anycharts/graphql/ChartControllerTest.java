@@ -0,0 +1,73 @@
+package com.roy.anycharts.graphql;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.roy.anycharts.chart.ChartConfig;
+import com.roy.anycharts.chart.ChartConfigStore;
+import com.roy.anycharts.chart.ChartService;
+import com.roy.anycharts.chart.ChartSubscriptionHub;
+import com.roy.anycharts.chart.QueryCoalescer;
+import com.roy.anycharts.chart.SubscriptionDelivery;
+import com.roy.anycharts.dashboard.DashboardRenderService;
+import com.roy.anycharts.dashboard.DashboardStore;
+import com.roy.anycharts.datasource.ConnectionPoolRegistry;
+import com.roy.anycharts.datasource.DatabaseConnectionStore;
+import com.roy.anycharts.datasource.DatabaseMetadataService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ChartControllerTest {
+  private final ChartConfigStore store = mock(ChartConfigStore.class);
+  private final ChartController controller =
+      new ChartController(
+          mock(ChartService.class),
+          store,
+          mock(DatabaseConnectionStore.class),
+          mock(DatabaseMetadataService.class),
+          mock(ConnectionPoolRegistry.class),
+          mock(QueryCoalescer.class),
+          mock(ChartSubscriptionHub.class),
+          mock(SubscriptionDelivery.class),
+          mock(DashboardStore.class),
+          mock(DashboardRenderService.class));
+
+  private static Map<String, Object> input(Map<String, Object> binding) {
+    Map<String, Object> b = new HashMap<>(binding);
+    b.put("name", "v");
+    b.put("bindingKey", "v");
+    b.put("mappingPath", "$.items[*].v");
+    b.put("stream", true);
+    return Map.of("id", "c", "title", "c", "optionTemplate", Map.of(), "bindings", List.of(b));
+  }
+
+  @Test
+  void rejectsInvalidAggregationWithoutSaving() {
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () ->
+                controller.saveChartConfig(
+                    input(
+                        Map.of(
+                            "aggregate", "AVG", "aggregateWindow", "1s", "aggregateSlide", "5s"))));
+    assertTrue(e.getMessage().startsWith("binding v: "));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> controller.saveChartConfig(input(Map.of("aggregate", "SUM"))));
+    verify(store, never()).save(any());
+  }
+
+  @Test
+  void savesValidAggregation() {
+    controller.saveChartConfig(
+        input(Map.of("aggregate", "AVG", "aggregateWindow", "10s", "aggregateSlide", "1s")));
+    verify(store).save(any(ChartConfig.class));
+  }
+}
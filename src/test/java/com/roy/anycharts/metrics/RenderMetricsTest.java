@@ -0,0 +1,61 @@
+package com.roy.anycharts.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.roy.anycharts.chart.ChartConfigChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class RenderMetricsTest {
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final RenderMetrics metrics = new RenderMetrics(registry);
+
+  @Test
+  void queryTimerTaggedByAdapterAndOutcome() {
+    StepVerifier.create(metrics.timeQuery("mock-adapter", Mono.just(1))).expectNext(1).verifyComplete();
+    StepVerifier.create(metrics.timeQuery("mock-adapter", Mono.error(new IllegalStateException())))
+        .verifyError();
+
+    assertEquals(
+        1,
+        registry.get(RenderMetrics.ADAPTER_QUERY)
+            .tag("adapter", "mock-adapter")
+            .tag("outcome", "success")
+            .timer()
+            .count());
+    assertEquals(
+        1,
+        registry.get(RenderMetrics.ADAPTER_QUERY).tag("outcome", "error").timer().count());
+  }
+
+  @Test
+  void activeSubscriptionsPerChart() {
+    Disposable first = metrics.trackSubscription("sales", Flux.never()).subscribe();
+    Disposable second = metrics.trackSubscription("sales", Flux.never()).subscribe();
+
+    assertEquals(2, registry.get(RenderMetrics.SUBSCRIPTIONS).tag("chart", "sales").gauge().value());
+    first.dispose();
+    assertEquals(1, registry.get(RenderMetrics.SUBSCRIPTIONS).tag("chart", "sales").gauge().value());
+    second.dispose();
+  }
+
+  @Test
+  void deletingChartRemovesItsMeters() {
+    metrics.timeRender("sales", Mono.just(1)).block();
+    metrics.recordTemplate("sales", 1_000);
+    metrics.timeRender("orders", Mono.just(1)).block();
+
+    metrics.onChartConfigChanged(new ChartConfigChangedEvent("sales", false));
+    assertEquals(1, registry.get(RenderMetrics.CHART_RENDER).tag("chart", "sales").timer().count());
+
+    metrics.onChartConfigChanged(new ChartConfigChangedEvent("sales", true));
+    assertNull(registry.find(RenderMetrics.CHART_RENDER).tag("chart", "sales").timer());
+    assertNull(registry.find(RenderMetrics.CHART_TEMPLATE).tag("chart", "sales").timer());
+    assertEquals(1, registry.get(RenderMetrics.CHART_RENDER).tag("chart", "orders").timer().count());
+  }
+}